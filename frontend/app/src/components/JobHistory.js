@@ -22,7 +22,9 @@ import {
 import { ArrowLeft, Search, RefreshCw, Clock, CheckCircle, XCircle } from 'lucide-react';
 import { useParams, useNavigate } from 'react-router-dom';
 import { format } from 'date-fns';
-import { getJobExecutionHistory } from '../services/api';
+import { getJobExecutionHistory, subscribeToExecutionEvents } from '../services/api';
+
+const EVENT_REFRESH_INTERVAL_MS = 1000;
 
 export default function JobHistory() {
     const [history, setHistory] = useState([]);
@@ -31,7 +33,9 @@ export default function JobHistory() {
     const [filter, setFilter] = useState({ status: 'ALL', search: '' });
     const [currentPage, setCurrentPage] = useState(0); // Current page
     const [pageSize, setPageSize] = useState(10); // Page size
-    const [totalRecords, setTotalRecords] = useState(0); // Total records
+    const [cursors, setCursors] = useState([null]); // Cursor that opens each visited page
+    const [hasNext, setHasNext] = useState(false);
+    const [totalRecords, setTotalRecords] = useState(-1); // Estimated total, -1 when unknown
     const { jobId } = useParams();
     const navigate = useNavigate();
 
@@ -39,12 +43,37 @@ export default function JobHistory() {
         fetchHistory();
     }, [jobId, currentPage, pageSize]);
 
+    // Refresh the newest page when runs of this job finish instead of polling. A burst of runs, or a
+    // fan-out finishing many targets at once, is coalesced into at most one refetch per interval.
+    useEffect(() => {
+        if (currentPage !== 0) {
+            return undefined;
+        }
+        let refresh = null;
+        const source = subscribeToExecutionEvents({ jobId }, (type) => {
+            if (type !== 'STARTED' && refresh === null) {
+                refresh = setTimeout(() => {
+                    refresh = null;
+                    fetchHistory();
+                }, EVENT_REFRESH_INTERVAL_MS);
+            }
+        });
+        return () => {
+            clearTimeout(refresh);
+            source.close();
+        };
+    }, [jobId, currentPage, pageSize]);
+
     const fetchHistory = async () => {
         try {
             setLoading(true);
-            const response = await getJobExecutionHistory(jobId, currentPage, pageSize); // Pass pagination params
+            const response = await getJobExecutionHistory(jobId, cursors[currentPage], pageSize); // Pass pagination params
             setHistory(response.data.content);
-            setTotalRecords(response.data.totalElements);
+            setHasNext(response.data.hasNext);
+            setTotalRecords(response.data.estimatedTotal ?? -1);
+            if (response.data.nextCursor) {
+                setCursors((prev) => [...prev.slice(0, currentPage + 1), response.data.nextCursor]);
+            }
             setError(null);
         } catch (err) {
             setError('Failed to fetch job history. Please try again later.');
@@ -59,6 +88,7 @@ export default function JobHistory() {
 
     const handlePageSizeChange = (event) => {
         setPageSize(parseInt(event.target.value, 10));
+        setCursors([null]);
         setCurrentPage(0); // Reset to first page when page size changes
     };
 
@@ -207,7 +237,8 @@ export default function JobHistory() {
                     {/* Pagination Controls */}
                     <TablePagination
                         component="div"
-                        count={totalRecords} // Total records
+                        count={totalRecords} // Estimated total, -1 shows "more than"
+                        nextIconButtonProps={{ disabled: loading || !hasNext }}
                         page={currentPage}
                         onPageChange={handlePageChange}
                         rowsPerPage={pageSize}
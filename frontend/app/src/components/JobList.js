@@ -39,7 +39,8 @@ export default function JobList() {
     const [toast, setToast] = useState({ open: false, message: '', severity: 'success' });
     const [currentPage, setCurrentPage] = useState(0); // Current page
     const [pageSize, setPageSize] = useState(10); // Page size
-    const [totalPages, setTotalPages] = useState(0); // Total pages
+    const [cursors, setCursors] = useState([null]); // Cursor that opens each visited page
+    const [hasNext, setHasNext] = useState(false);
 
     const navigate = useNavigate();
 
@@ -50,9 +51,12 @@ export default function JobList() {
     const fetchJobs = async () => {
         try {
             setLoading(true);
-            const response = await getAllActiveJobs(currentPage, pageSize, statusFilter); // Send status filter in request
+            const response = await getAllActiveJobs(cursors[currentPage], pageSize, statusFilter); // Send status filter in request
             setJobs(response.data.content);
-            setTotalPages(response.data.totalPages);
+            setHasNext(response.data.hasNext);
+            if (response.data.nextCursor) {
+                setCursors((prev) => [...prev.slice(0, currentPage + 1), response.data.nextCursor]);
+            }
         } catch (error) {
             showToast('Failed to fetch jobs. Please try again later.', 'error');
         } finally {
@@ -82,6 +86,7 @@ export default function JobList() {
 
     const handlePageSizeChange = (event) => {
         setPageSize(parseInt(event.target.value, 10));
+        setCursors([null]);
         setCurrentPage(0); // Reset to first page
     };
 
@@ -139,7 +144,11 @@ export default function JobList() {
                                 fullWidth
                                 label="Filter by Status"
                                 value={statusFilter}
-                                onChange={(e) => setStatusFilter(e.target.value)}
+                                onChange={(e) => {
+                                    setStatusFilter(e.target.value);
+                                    setCursors([null]);
+                                    setCurrentPage(0);
+                                }}
                                 size="small"
                             >
                                 <MenuItem value="ALL">All</MenuItem>
@@ -234,7 +243,8 @@ export default function JobList() {
                     {/* Pagination Controls */}
                     <TablePagination
                         component="div"
-                        count={totalPages * pageSize} // Approximation for total items
+                        count={-1} // Totals are not counted, paging follows the cursor
+                        nextIconButtonProps={{ disabled: loading || !hasNext }}
                         page={currentPage}
                         onPageChange={handlePageChange}
                         rowsPerPage={pageSize}
@@ -5,23 +5,40 @@ const api = axios.create({
 });
 
 export const createJob = (jobData) => api.post('', jobData);
-export const getAllActiveJobs = (page = 0, size = 10, status = 'ALL') =>
+export const getAllActiveJobs = (cursor = null, size = 10, status = 'ALL') =>
     api.get('', {
         params: {
-            page,
+            cursor,
             size,
             status,
         },
     });
 
 export const getJobStatus = (jobId) => api.get(`/${jobId}`);
-export const getJobExecutionHistory = (jobId, page = 0, size = 10) =>
+// The total is a planner estimate, only ask for it where a page count is shown
+export const getJobExecutionHistory = (jobId, cursor = null, size = 10, includeTotal = false) =>
     api.get(`/${jobId}/history`, {
         params: {
-            page,
+            cursor,
             size,
+            includeTotal,
         },
     });
 export const deleteJob = (jobId) => api.delete(`/${jobId}`);
 export const getJobDetails = (jobId) => api.get(`/${jobId}`); // Added function
 
+
+// Live execution events, the returned EventSource must be closed by the caller
+export const subscribeToExecutionEvents = ({ jobId, group } = {}, onEvent) => {
+    const params = new URLSearchParams();
+    if (jobId) params.append('jobId', jobId);
+    if (group) params.append('group', group);
+    // Sibling of the jobs resource, so it follows the backend URL configured above
+    const url = new URL('../events', `${api.defaults.baseURL}/`);
+    url.search = params.toString();
+    const source = new EventSource(url.toString());
+    ['STARTED', 'SUCCESS', 'FAILED'].forEach((type) =>
+        source.addEventListener(type, (event) => onEvent(type, JSON.parse(event.data)))
+    );
+    return source;
+};
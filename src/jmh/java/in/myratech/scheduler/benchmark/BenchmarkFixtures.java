@@ -0,0 +1,179 @@
+package in.myratech.scheduler.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.job.FireMetrics;
+import in.myratech.scheduler.job.OutboundLimiter;
+import in.myratech.scheduler.job.RequestCompiler;
+import in.myratech.scheduler.job.RequestRunner;
+import in.myratech.scheduler.job.ResiliencePolicies;
+import in.myratech.scheduler.repo.JobDetailsRepository;
+import in.myratech.scheduler.service.JobDefinitionCache;
+import in.myratech.scheduler.service.JobHistoryWriter;
+import in.myratech.scheduler.service.JobStatsRegistry;
+import in.myratech.scheduler.service.PgNotificationListener;
+import in.myratech.scheduler.service.ResponsePayloadStore;
+import in.myratech.scheduler.service.SchedulerRouter;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.quartz.Scheduler;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Wires production components without a Spring context so each benchmark measures one path in isolation.
+ */
+public final class BenchmarkFixtures {
+    public static final String HEADERS = "{\"Content-Type\":\"application/json\",\"Authorization\":\"Bearer token\",\"X-Tenant\":\"acme\"}";
+    public static final String BODY = "{\"report\":\"daily\",\"limit\":100}";
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BenchmarkFixtures() {
+    }
+
+    public static JobDetails jobDetails(String jobName, String url) {
+        JobDetails jobDetails = new JobDetails();
+        jobDetails.setId(UUID.randomUUID());
+        jobDetails.setJobName(jobName);
+        jobDetails.setJobGroup("benchmark");
+        jobDetails.setCronExpression("0 * * * * ?");
+        jobDetails.setUrl(url);
+        jobDetails.setMethod("POST");
+        jobDetails.setHeaders(HEADERS);
+        jobDetails.setRequestBody(BODY);
+        jobDetails.setActive(true);
+        return jobDetails;
+    }
+
+    public static RequestCompiler requestCompiler(RestTemplate restTemplate) {
+        return requestCompiler(restTemplate, CircuitBreakerRegistry.ofDefaults());
+    }
+
+    public static RequestCompiler requestCompiler(RestTemplate restTemplate, CircuitBreakerRegistry circuitBreakerRegistry) {
+        FireMetrics fireMetrics = fireMetrics(circuitBreakerRegistry);
+        RequestCompiler compiler = new RequestCompiler();
+        ReflectionTestUtils.setField(compiler, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(compiler, "resiliencePolicies", resiliencePolicies(circuitBreakerRegistry, fireMetrics));
+        ReflectionTestUtils.setField(compiler, "outboundLimiter", outboundLimiter());
+        ReflectionTestUtils.setField(compiler, "fireMetrics", fireMetrics);
+        return compiler;
+    }
+
+    public static ResiliencePolicies resiliencePolicies(CircuitBreakerRegistry circuitBreakerRegistry, FireMetrics fireMetrics) {
+        ResiliencePolicies policies = new ResiliencePolicies();
+        ReflectionTestUtils.setField(policies, "circuitBreakerRegistry", circuitBreakerRegistry);
+        ReflectionTestUtils.setField(policies, "fireMetrics", fireMetrics);
+        ReflectionTestUtils.setField(policies, "maxAttempts", 3);
+        ReflectionTestUtils.setField(policies, "initialBackoff", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(policies, "backoffMultiplier", 2.0);
+        ReflectionTestUtils.setField(policies, "maxBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(policies, "jitter", 0.5);
+        ReflectionTestUtils.setField(policies, "retryBudgetPercent", 20.0);
+        ReflectionTestUtils.setField(policies, "honorRetryAfter", true);
+        policies.init();
+        return policies;
+    }
+
+    public static RequestRunner requestRunner(RequestCompiler compiler) {
+        RequestRunner runner = new RequestRunner();
+        ReflectionTestUtils.setField(runner, "payloadStore", new ResponsePayloadStore());
+        ReflectionTestUtils.setField(runner, "requestCompiler", compiler);
+        return runner;
+    }
+
+    /**
+     * Router with sharding disabled, every job goes to the given scheduler.
+     */
+    public static SchedulerRouter schedulerRouter(Scheduler scheduler) {
+        SchedulerRouter router = new SchedulerRouter();
+        ReflectionTestUtils.setField(router, "scheduler", scheduler);
+        return router;
+    }
+
+    /**
+     * Limiter with every limit disabled, as configured by default.
+     */
+    public static OutboundLimiter outboundLimiter() {
+        OutboundLimiter limiter = new OutboundLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+        return limiter;
+    }
+
+    /**
+     * Definition cache without cluster notifications, jobs must be registered up front.
+     */
+    public static JobDefinitionCache definitionCache(RequestCompiler compiler) {
+        JobDefinitionCache cache = new JobDefinitionCache();
+        ReflectionTestUtils.setField(cache, "requestCompiler", compiler);
+        ReflectionTestUtils.setField(cache, "objectMapper", MAPPER);
+        ReflectionTestUtils.setField(cache, "notificationListener", new PgNotificationListener());
+        return cache;
+    }
+
+    /**
+     * Repository stand-in for write-only paths, only {@code save} is supported.
+     */
+    public static JobDetailsRepository inMemoryJobDetailsRepository() {
+        return (JobDetailsRepository) Proxy.newProxyInstance(JobDetailsRepository.class.getClassLoader(),
+                new Class<?>[]{JobDetailsRepository.class}, (proxy, method, args) -> {
+                    if ("save".equals(method.getName())) {
+                        JobDetails jobDetails = (JobDetails) args[0];
+                        jobDetails.ensureId();
+                        return jobDetails;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * In-memory H2 database holding the execution history table.
+     */
+    public static JdbcTemplate historyDatabase(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS job_execution_history (" +
+                "uuid UUID PRIMARY KEY, job_id UUID, trigger_name VARCHAR(255), start_time TIMESTAMP, " +
+                "end_time TIMESTAMP, status VARCHAR(255), error_message TEXT, response_body_hash VARCHAR(64), " +
+                "response_headers_hash VARCHAR(64), response_truncated BOOLEAN, workflow_run_id UUID, " +
+                "target VARCHAR(255))");
+        return jdbcTemplate;
+    }
+
+    public static JobHistoryWriter historyWriter(JdbcTemplate jdbcTemplate) {
+        JobHistoryWriter writer = new JobHistoryWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "payloadStore", new ResponsePayloadStore());
+        ReflectionTestUtils.setField(writer, "async", true);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 10_000);
+        ReflectionTestUtils.setField(writer, "batchSize", 500);
+        ReflectionTestUtils.setField(writer, "flushInterval", 100L);
+        ReflectionTestUtils.setField(writer, "offerTimeout", 5_000L);
+        ReflectionTestUtils.setField(writer, "shutdownTimeout", 30_000L);
+        writer.start();
+        return writer;
+    }
+
+    public static FireMetrics fireMetrics(CircuitBreakerRegistry circuitBreakerRegistry) {
+        FireMetrics metrics = new FireMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(metrics, "circuitBreakerRegistry", circuitBreakerRegistry);
+        metrics.init();
+        return metrics;
+    }
+
+    public static JobStatsRegistry statsRegistry() {
+        JobStatsRegistry registry = new JobStatsRegistry();
+        ReflectionTestUtils.setField(registry, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(registry, "maxTrackedJobs", 20_000);
+        registry.init();
+        return registry;
+    }
+}
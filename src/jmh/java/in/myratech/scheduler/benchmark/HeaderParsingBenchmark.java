@@ -0,0 +1,40 @@
+package in.myratech.scheduler.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.job.JobDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Header JSON parsing: a fresh untyped mapper per call as RestJob used to do versus the shared
+ * typed parse performed once when a job definition is resolved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HeaderParsingBenchmark {
+    private final JobDetails jobDetails = BenchmarkFixtures.jobDetails("headerJob", "http://partner.example.com/api/run");
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public HttpHeaders untypedPerCallMapper() throws Exception {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        Map<String, String> headerMap = new ObjectMapper().readValue(BenchmarkFixtures.HEADERS, Map.class);
+        headerMap.forEach(httpHeaders::add);
+        return httpHeaders;
+    }
+
+    @Benchmark
+    public JobDefinition typedSharedMapper() {
+        return JobDefinition.from(jobDetails, BenchmarkFixtures.MAPPER);
+    }
+}
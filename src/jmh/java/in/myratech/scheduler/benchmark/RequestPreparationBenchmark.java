@@ -0,0 +1,88 @@
+package in.myratech.scheduler.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.job.CapturedBody;
+import in.myratech.scheduler.job.CompiledRequest;
+import in.myratech.scheduler.job.JobDefinition;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static in.myratech.scheduler.benchmark.BenchmarkFixtures.BODY;
+import static in.myratech.scheduler.benchmark.BenchmarkFixtures.HEADERS;
+
+/**
+ * Per-fire cost of preparing and issuing a job request against an in-memory HTTP stub.
+ * {@code perFireParsing} reproduces the former RestJob behaviour, {@code compiledTemplate} reuses
+ * the request compiled at schedule time. Run with the gc profiler to compare allocation per fire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RequestPreparationBenchmark {
+    private static final String JOB_NAME = "benchmarkJob";
+    private static final String URL = "http://partner.example.com/api/reports";
+    private static final byte[] RESPONSE = "{\"status\":\"ok\"}".getBytes();
+
+    private RestTemplate restTemplate;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private RetryRegistry retryRegistry;
+    private CompiledRequest compiledRequest;
+
+    @Setup
+    public void setup() {
+        ClientHttpRequestFactory stubFactory = (uri, method) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            request.setResponse(new MockClientHttpResponse(RESPONSE, HttpStatus.OK));
+            return request;
+        };
+        restTemplate = new RestTemplate(stubFactory);
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        retryRegistry = RetryRegistry.ofDefaults();
+
+        compiledRequest = BenchmarkFixtures.requestCompiler(restTemplate, circuitBreakerRegistry)
+                .compile(JobDefinition.from(BenchmarkFixtures.jobDetails(JOB_NAME, URL), BenchmarkFixtures.MAPPER));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<String> perFireParsing() throws Exception {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, String> headerMap = mapper.readValue(HEADERS, Map.class);
+        headerMap.forEach(httpHeaders::add);
+        HttpEntity<?> entity = new HttpEntity<>(BODY, httpHeaders);
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(JOB_NAME);
+        Retry retry = retryRegistry.retry(JOB_NAME);
+        return Retry.decorateFunction(retry,
+                CircuitBreaker.decorateFunction(circuitBreaker,
+                        (ignored) -> restTemplate.exchange(URL, HttpMethod.POST, entity, String.class)
+                )).apply(null);
+    }
+
+    @Benchmark
+    public ResponseEntity<CapturedBody> compiledTemplate() {
+        return compiledRequest.execute();
+    }
+}
@@ -0,0 +1,64 @@
+package in.myratech.scheduler.benchmark;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Overhead of the circuit breaker and retry around a call that always succeeds, with decorators
+ * bound once versus looked up and decorated on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResilienceDecorationBenchmark {
+    private static final String NAME = "decoratedJob";
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private RetryRegistry retryRegistry;
+    private Supplier<Integer> call;
+    private Supplier<Integer> circuitBreakerOnly;
+    private Supplier<Integer> preBound;
+
+    @Setup
+    public void setup() {
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        retryRegistry = RetryRegistry.ofDefaults();
+        call = () -> 200;
+        circuitBreakerOnly = CircuitBreaker.decorateSupplier(circuitBreakerRegistry.circuitBreaker(NAME), call);
+        preBound = Retry.decorateSupplier(retryRegistry.retry(NAME), circuitBreakerOnly);
+    }
+
+    @Benchmark
+    public Integer undecorated() {
+        return call.get();
+    }
+
+    @Benchmark
+    public Integer circuitBreaker() {
+        return circuitBreakerOnly.get();
+    }
+
+    @Benchmark
+    public Integer retryAndCircuitBreakerPreBound() {
+        return preBound.get();
+    }
+
+    @Benchmark
+    public Integer retryAndCircuitBreakerPerCall() {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        Retry retry = retryRegistry.retry(NAME);
+        return Retry.decorateSupplier(retry, CircuitBreaker.decorateSupplier(circuitBreaker, call)).get();
+    }
+}
@@ -0,0 +1,108 @@
+package in.myratech.scheduler.benchmark;
+
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.job.FireMetrics;
+import in.myratech.scheduler.job.InlineExecutionEngine;
+import in.myratech.scheduler.job.JobRunner;
+import in.myratech.scheduler.job.RequestCompiler;
+import in.myratech.scheduler.job.RestJob;
+import in.myratech.scheduler.service.ExecutionEventBus;
+import in.myratech.scheduler.service.FairShareDispatcher;
+import in.myratech.scheduler.service.JobDefinitionCache;
+import in.myratech.scheduler.service.JobHistoryWriter;
+import in.myratech.scheduler.service.OutboxDispatcher;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full {@link RestJob#execute} on the inline engine: cache lookup, decorated HTTP call to a local
+ * stub server over a pooled client and the history hand-off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RestJobExecuteBenchmark {
+    private StubHttpServer server;
+    private HttpComponentsClientHttpRequestFactory requestFactory;
+    private JobHistoryWriter historyWriter;
+    private RestJob restJob;
+    private JobExecutionContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = StubHttpServer.start();
+        requestFactory = new HttpComponentsClientHttpRequestFactory();
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+
+        JobDetails jobDetails = BenchmarkFixtures.jobDetails("executeJob", server.url("/api/run"));
+        RequestCompiler compiler = BenchmarkFixtures.requestCompiler(restTemplate);
+        JobDefinitionCache cache = BenchmarkFixtures.definitionCache(compiler);
+        cache.register(jobDetails);
+        historyWriter = BenchmarkFixtures.historyWriter(BenchmarkFixtures.historyDatabase("execute"));
+
+        FireMetrics fireMetrics = BenchmarkFixtures.fireMetrics(CircuitBreakerRegistry.ofDefaults());
+        JobRunner jobRunner = new JobRunner();
+        ReflectionTestUtils.setField(jobRunner, "historyWriter", historyWriter);
+        ReflectionTestUtils.setField(jobRunner, "statsRegistry", BenchmarkFixtures.statsRegistry());
+        ReflectionTestUtils.setField(jobRunner, "fireMetrics", fireMetrics);
+        ReflectionTestUtils.setField(jobRunner, "requestRunner", BenchmarkFixtures.requestRunner(compiler));
+        // Disabled without its setting, publishing is a no-op
+        ReflectionTestUtils.setField(jobRunner, "eventBus", new ExecutionEventBus());
+
+        restJob = new RestJob();
+        ReflectionTestUtils.setField(restJob, "jobDefinitionCache", cache);
+        // Fair share is disabled without its setting, fires go straight to the engine
+        FairShareDispatcher fairShareDispatcher = new FairShareDispatcher();
+        ReflectionTestUtils.setField(fairShareDispatcher, "executionEngine", new InlineExecutionEngine());
+        ReflectionTestUtils.setField(restJob, "fairShareDispatcher", fairShareDispatcher);
+        ReflectionTestUtils.setField(restJob, "fireMetrics", fireMetrics);
+        ReflectionTestUtils.setField(restJob, "jobRunner", jobRunner);
+        // Direct dispatch, the outbox is disabled without a mode
+        ReflectionTestUtils.setField(restJob, "outboxDispatcher", new OutboxDispatcher());
+
+        JobDetail jobDetail = JobBuilder.newJob(RestJob.class)
+                .withIdentity(jobDetails.getJobName(), jobDetails.getJobGroup())
+                .build();
+        OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+                .withIdentity(jobDetails.getJobName() + "Trigger", jobDetails.getJobGroup())
+                .withSchedule(CronScheduleBuilder.cronSchedule(jobDetails.getCronExpression()))
+                .build();
+        Date now = new Date();
+        context = new JobExecutionContextImpl(null,
+                new TriggerFiredBundle(jobDetail, trigger, null, false, now, now, null, null), restJob);
+    }
+
+    @Benchmark
+    public void execute() throws Exception {
+        restJob.execute(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        historyWriter.stop();
+        requestFactory.destroy();
+        server.close();
+    }
+}
@@ -0,0 +1,89 @@
+package in.myratech.scheduler.benchmark;
+
+import in.myratech.scheduler.service.LoadSpreader;
+import in.myratech.scheduler.service.SchedulerSvc;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.quartz.Scheduler;
+import org.quartz.impl.StdSchedulerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SchedulerSvc#createJob} against the RAM job store and the JDBC job store on an in-memory H2
+ * database standing in for Postgres. The scheduler is never started, only scheduling cost is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SchedulerCreateJobBenchmark {
+    private static final String H2_URL = "jdbc:h2:mem:quartz;DB_CLOSE_DELAY=-1";
+
+    @Param({"RAM", "JDBC"})
+    private String jobStore;
+
+    private Scheduler scheduler;
+    private SchedulerSvc schedulerSvc;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", "benchmark-" + jobStore);
+        properties.setProperty("org.quartz.threadPool.threadCount", "1");
+        if ("JDBC".equals(jobStore)) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL(H2_URL);
+            dataSource.setUser("sa");
+            new ResourceDatabasePopulator(new ClassPathResource("org/quartz/impl/jdbcjobstore/tables_h2.sql"))
+                    .execute(dataSource);
+
+            properties.setProperty("org.quartz.jobStore.class", "org.quartz.impl.jdbcjobstore.JobStoreTX");
+            properties.setProperty("org.quartz.jobStore.driverDelegateClass", "org.quartz.impl.jdbcjobstore.StdJDBCDelegate");
+            properties.setProperty("org.quartz.jobStore.dataSource", "benchmarkDS");
+            properties.setProperty("org.quartz.dataSource.benchmarkDS.driver", "org.h2.Driver");
+            properties.setProperty("org.quartz.dataSource.benchmarkDS.URL", H2_URL);
+            properties.setProperty("org.quartz.dataSource.benchmarkDS.user", "sa");
+            properties.setProperty("org.quartz.dataSource.benchmarkDS.password", "");
+        }
+        scheduler = new StdSchedulerFactory(properties).getScheduler();
+
+        schedulerSvc = new SchedulerSvc();
+        ReflectionTestUtils.setField(schedulerSvc, "schedulerRouter", BenchmarkFixtures.schedulerRouter(scheduler));
+        ReflectionTestUtils.setField(schedulerSvc, "jobDetailsRepository", BenchmarkFixtures.inMemoryJobDetailsRepository());
+        ReflectionTestUtils.setField(schedulerSvc, "jobDefinitionCache",
+                BenchmarkFixtures.definitionCache(BenchmarkFixtures.requestCompiler(new RestTemplate())));
+        LoadSpreader loadSpreader = new LoadSpreader();
+        ReflectionTestUtils.setField(loadSpreader, "mode", "off");
+        ReflectionTestUtils.setField(schedulerSvc, "loadSpreader", loadSpreader);
+    }
+
+    @Benchmark
+    public void createJob() throws Exception {
+        schedulerSvc.createJob(BenchmarkFixtures.jobDetails("job-" + sequence++, "http://partner.example.com/api/run"));
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearJobs() throws Exception {
+        scheduler.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        scheduler.shutdown();
+    }
+}
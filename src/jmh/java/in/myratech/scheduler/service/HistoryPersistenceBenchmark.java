@@ -0,0 +1,86 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.benchmark.BenchmarkFixtures;
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution history records persisted per second: one insert per record as every fire used to do
+ * versus the batch insert of {@link JobHistoryWriter}. Lives in the writer's package to reach its flush.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HistoryPersistenceBenchmark {
+    private static final int RECORDS = 500;
+    private static final String INSERT_SQL = "INSERT INTO job_execution_history " +
+            "(uuid, job_id, trigger_name, start_time, end_time, status, error_message) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private JdbcTemplate jdbcTemplate;
+    private JobHistoryWriter writer;
+    private final UUID jobId = UUID.randomUUID();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        jdbcTemplate = BenchmarkFixtures.historyDatabase("history");
+        writer = BenchmarkFixtures.historyWriter(jdbcTemplate);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void singleRowInserts() {
+        for (JobExecutionHistory history : records()) {
+            jdbcTemplate.update(INSERT_SQL, history.getUuid(), history.getJobId(), history.getTriggerName(),
+                    history.getStartTime(), history.getEndTime(), history.getStatus(), history.getErrorMessage());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void batchInsert() {
+        writer.write(records());
+    }
+
+    private List<JobExecutionHistory> records() {
+        List<JobExecutionHistory> records = new ArrayList<>(RECORDS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < RECORDS; i++) {
+            JobExecutionHistory history = new JobExecutionHistory();
+            history.setUuid(UUID.randomUUID());
+            history.setJobId(jobId);
+            history.setTriggerName("benchmarkTrigger");
+            history.setStartTime(new Timestamp(now));
+            history.setEndTime(new Timestamp(now + 25));
+            history.setStatus("SUCCESS");
+            history.setErrorMessage("Response Status: 200 OK");
+            records.add(history);
+        }
+        return records;
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE job_execution_history");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+}
@@ -0,0 +1,63 @@
+package in.myratech.scheduler.loadtest;
+
+import in.myratech.scheduler.entity.JobDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds synthetic jobs calling the stub target. Each job fires once per interval, with the fire
+ * second either spread evenly across the interval or aligned on its start, the worst case of many
+ * jobs sharing one cron expression.
+ */
+public final class FleetGenerator {
+
+    public enum Spread {
+        UNIFORM,
+        ALIGNED
+    }
+
+    private FleetGenerator() {
+    }
+
+    public static List<JobDetails> generate(String runId, int from, int count, int intervalSeconds, Spread spread,
+                                            StubTarget target) {
+        List<JobDetails> jobs = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            JobDetails job = new JobDetails();
+            job.setJobName("load-" + runId + "-" + i);
+            job.setJobGroup("loadtest");
+            job.setCronExpression(cron(intervalSeconds, spread == Spread.UNIFORM ? i % intervalSeconds : 0));
+            job.setActive(true);
+            job.setUrl(target.url("/jobs/" + i));
+            job.setMethod("POST");
+            job.setRequestBody("{\"job\":" + i + "}");
+            job.setHeaders("{\"Content-Type\":\"application/json\"}");
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * Cron expression firing every {@code intervalSeconds}, which must divide a minute or be whole
+     * minutes dividing an hour.
+     */
+    static String cron(int intervalSeconds, int offsetSeconds) {
+        if (intervalSeconds > 0 && 60 % intervalSeconds == 0) {
+            return offsetSeconds + "/" + intervalSeconds + " * * * * ?";
+        }
+        if (intervalSeconds % 60 == 0 && 3600 % intervalSeconds == 0) {
+            int minutes = intervalSeconds / 60;
+            return (offsetSeconds % 60) + " " + (offsetSeconds / 60) + "/" + minutes + " * * * ?";
+        }
+        throw new IllegalArgumentException("Fire interval of " + intervalSeconds
+                + " s does not divide a minute or an hour evenly");
+    }
+
+    /**
+     * Fires per second the fleet asks for.
+     */
+    public static double expectedRate(int jobs, int intervalSeconds) {
+        return (double) jobs / intervalSeconds;
+    }
+}
@@ -0,0 +1,30 @@
+package in.myratech.scheduler.loadtest;
+
+import in.myratech.scheduler.SchedulerApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Entry point of {@code ./gradlew loadTest}. Starts an embedded Postgres, runs the scheduler on it
+ * with the {@code loadtest} profile and exits non-zero when the fleet's fire rate was not sustained.
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        boolean sustained;
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            // System properties take precedence over application.properties
+            System.setProperty("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+            System.setProperty("spring.datasource.username", "postgres");
+            System.setProperty("spring.datasource.password", "");
+
+            SpringApplication application = new SpringApplication(SchedulerApplication.class);
+            application.setAdditionalProfiles("loadtest");
+            try (ConfigurableApplicationContext context = application.run(args)) {
+                sustained = context.getBean(LoadTestDriver.class).run().sustained();
+            }
+        }
+        System.exit(sustained ? 0 : 1);
+    }
+}
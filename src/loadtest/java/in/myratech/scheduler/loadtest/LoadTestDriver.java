@@ -0,0 +1,252 @@
+package in.myratech.scheduler.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.dto.BatchItemResult;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.service.SchedulerRouter;
+import in.myratech.scheduler.service.SchedulerSvc;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.quartz.JobExecutionContext;
+import org.quartz.Trigger;
+import org.quartz.listeners.TriggerListenerSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a load-test run: starts the stub target, creates the synthetic fleet through the regular
+ * job creation path, lets it warm up and then measures fires, misfires and fire lag with a trigger
+ * listener on every scheduler, calls at the stub and writes at the database.
+ */
+@Component
+@Profile("loadtest")
+public class LoadTestDriver {
+    private static final Logger log = LoggerFactory.getLogger(LoadTestDriver.class);
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String DB_STATS_SQL = "SELECT xact_commit, tup_inserted + tup_updated + tup_deleted " +
+            "FROM pg_stat_database WHERE datname = current_database()";
+    private static final String HISTORY_ROWS_SQL = "SELECT count(*) FROM job_execution_history " +
+            "WHERE start_time >= ? AND start_time < ?";
+
+    @Autowired
+    private SchedulerSvc schedulerSvc;
+
+    @Autowired
+    private SchedulerRouter schedulerRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${loadtest.jobs:1000}")
+    private int jobs;
+
+    @Value("${loadtest.fire-interval-seconds:10}")
+    private int fireIntervalSeconds;
+
+    @Value("${loadtest.cron-spread:uniform}")
+    private String cronSpread;
+
+    @Value("${loadtest.stub.latency-ms:50}")
+    private long latencyMs;
+
+    @Value("${loadtest.stub.latency-distribution:exponential}")
+    private String latencyDistribution;
+
+    @Value("${loadtest.stub.error-rate:0.01}")
+    private double errorRate;
+
+    @Value("${loadtest.stub.response-bytes:512}")
+    private int responseBytes;
+
+    @Value("${loadtest.stub.response-distribution:fixed}")
+    private String responseDistribution;
+
+    @Value("${loadtest.warmup-seconds:30}")
+    private long warmupSeconds;
+
+    @Value("${loadtest.duration-seconds:120}")
+    private long durationSeconds;
+
+    @Value("${loadtest.min-fire-ratio:0.99}")
+    private double minFireRatio;
+
+    @Value("${loadtest.report-file:build/loadtest/report.json}")
+    private String reportFile;
+
+    @Value("${scheduler.history.writer.flush-interval:1000}")
+    private long historyFlushInterval;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LongAdder fires = new LongAdder();
+    private final LongAdder misfires = new LongAdder();
+    private volatile boolean measuring;
+    private Timer lag;
+
+    // Counts only fires of the fleet, system jobs and workflow triggers run on the same schedulers
+    private final class FireRecorder extends TriggerListenerSupport {
+        @Override
+        public String getName() {
+            return "loadTestRecorder";
+        }
+
+        @Override
+        public void triggerFired(Trigger trigger, JobExecutionContext context) {
+            if (measuring && "loadtest".equals(trigger.getJobKey().getGroup())) {
+                fires.increment();
+                lag.record(Math.max(0, context.getFireTime().getTime() - context.getScheduledFireTime().getTime()),
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void triggerMisfired(Trigger trigger) {
+            if (measuring && "loadtest".equals(trigger.getJobKey().getGroup())) {
+                misfires.increment();
+            }
+        }
+    }
+
+    public LoadTestReport run() throws Exception {
+        lag = Timer.builder("loadtest.fire.lag")
+                .publishPercentiles(0.5, 0.95, 0.99, 0.999)
+                // One bucket kept for the whole run, so percentiles cover the full measured window
+                .distributionStatisticExpiry(Duration.ofSeconds(warmupSeconds + durationSeconds + 60))
+                .distributionStatisticBufferLength(1)
+                .register(registry);
+        FireRecorder recorder = new FireRecorder();
+        for (int shard = 0; shard < schedulerRouter.shardCount(); shard++) {
+            schedulerRouter.shard(shard).getListenerManager().addTriggerListener(recorder);
+        }
+
+        try (StubTarget target = StubTarget.start(latencyMs, distribution(latencyDistribution), errorRate,
+                responseBytes, distribution(responseDistribution))) {
+            createFleet(target);
+
+            log.info("Warming up for {} s", warmupSeconds);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+
+            long[] dbBefore = dbStats();
+            long callsBefore = target.requests();
+            long errorsBefore = target.errors();
+            long start = System.currentTimeMillis();
+            measuring = true;
+            log.info("Measuring for {} s", durationSeconds);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+            measuring = false;
+            long end = System.currentTimeMillis();
+            long calls = target.requests() - callsBefore;
+            long callErrors = target.errors() - errorsBefore;
+            long[] dbAfter = dbStats();
+
+            // Let the history writer flush what was executed inside the window
+            Thread.sleep(historyFlushInterval + TimeUnit.SECONDS.toMillis(2));
+            Long historyRows = jdbcTemplate.queryForObject(HISTORY_ROWS_SQL, Long.class,
+                    new Timestamp(start), new Timestamp(end));
+
+            double seconds = (end - start) / 1000.0;
+            double expected = FleetGenerator.expectedRate(jobs, fireIntervalSeconds);
+            double fireRate = fires.sum() / seconds;
+            long totalFires = fires.sum() + misfires.sum();
+            Map<Double, Double> percentiles = percentiles();
+            LoadTestReport report = new LoadTestReport(jobs, fireIntervalSeconds, cronSpread.toLowerCase(),
+                    durationSeconds, expected, fireRate, fireRate >= expected * minFireRatio,
+                    fires.sum(), misfires.sum(), totalFires > 0 ? (double) misfires.sum() / totalFires : 0,
+                    percentiles.getOrDefault(0.5, 0.0), percentiles.getOrDefault(0.95, 0.0),
+                    percentiles.getOrDefault(0.99, 0.0), percentiles.getOrDefault(0.999, 0.0),
+                    lag.max(TimeUnit.MILLISECONDS), calls / seconds, calls > 0 ? (double) callErrors / calls : 0,
+                    (historyRows != null ? historyRows : 0) / seconds,
+                    (dbAfter[0] - dbBefore[0]) / seconds, (dbAfter[1] - dbBefore[1]) / seconds);
+            write(report);
+            return report;
+        }
+    }
+
+    private void createFleet(StubTarget target) {
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        FleetGenerator.Spread spread = FleetGenerator.Spread.valueOf(cronSpread.toUpperCase());
+        long started = System.currentTimeMillis();
+        int failed = 0;
+        for (int offset = 0; offset < jobs; offset += CHUNK_SIZE) {
+            List<JobDetails> chunk = FleetGenerator.generate(runId, offset, Math.min(CHUNK_SIZE, jobs - offset),
+                    fireIntervalSeconds, spread, target);
+            for (BatchItemResult result : schedulerSvc.createJobs(chunk, offset, false)) {
+                if (!BatchItemResult.CREATED.equals(result.getStatus())) {
+                    failed++;
+                    log.warn("Failed to create load-test job {}: {}", result.getJobName(), result.getMessage());
+                }
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + jobs + " load-test jobs could not be created");
+        }
+        log.info("Created {} jobs firing every {} s ({} spread) in {} ms, expecting {} fires/s",
+                jobs, fireIntervalSeconds, cronSpread, System.currentTimeMillis() - started,
+                FleetGenerator.expectedRate(jobs, fireIntervalSeconds));
+    }
+
+    private long[] dbStats() {
+        return jdbcTemplate.queryForObject(DB_STATS_SQL, (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    private Map<Double, Double> percentiles() {
+        Map<Double, Double> values = new HashMap<>();
+        for (ValueAtPercentile percentile : lag.takeSnapshot().percentileValues()) {
+            values.put(percentile.percentile(), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return values;
+    }
+
+    private void write(LoadTestReport report) throws Exception {
+        File file = new File(reportFile);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        log.info("""
+                        Load test {}:
+                          fires/s        {} sustained of {} expected
+                          misfires       {} ({}%)
+                          fire lag ms    p50 {}  p95 {}  p99 {}  p99.9 {}  max {}
+                          calls/s        {} with {}% errors
+                          history rows/s {}
+                          db commits/s   {}, row writes/s {}
+                        Report written to {}""",
+                report.sustained() ? "SUSTAINED" : "NOT SUSTAINED",
+                round(report.firesPerSecond()), round(report.expectedFiresPerSecond()),
+                report.misfires(), round(report.misfireRate() * 100),
+                round(report.lagP50Ms()), round(report.lagP95Ms()), round(report.lagP99Ms()),
+                round(report.lagP999Ms()), round(report.lagMaxMs()),
+                round(report.callsPerSecond()), round(report.callErrorRate() * 100),
+                round(report.historyRowsPerSecond()),
+                round(report.dbCommitsPerSecond()), round(report.dbRowWritesPerSecond()),
+                file.getAbsolutePath());
+    }
+
+    private static StubTarget.Distribution distribution(String name) {
+        return StubTarget.Distribution.valueOf(name.toUpperCase());
+    }
+
+    private static String round(double value) {
+        return String.format("%.1f", value);
+    }
+}
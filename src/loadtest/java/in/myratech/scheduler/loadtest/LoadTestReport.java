@@ -0,0 +1,27 @@
+package in.myratech.scheduler.loadtest;
+
+/**
+ * Outcome of a load-test run over its measured window.
+ */
+public record LoadTestReport(
+        int jobs,
+        int fireIntervalSeconds,
+        String cronSpread,
+        long durationSeconds,
+        double expectedFiresPerSecond,
+        double firesPerSecond,
+        boolean sustained,
+        long fires,
+        long misfires,
+        double misfireRate,
+        double lagP50Ms,
+        double lagP95Ms,
+        double lagP99Ms,
+        double lagP999Ms,
+        double lagMaxMs,
+        double callsPerSecond,
+        double callErrorRate,
+        double historyRowsPerSecond,
+        double dbCommitsPerSecond,
+        double dbRowWritesPerSecond) {
+}
@@ -0,0 +1,95 @@
+package in.myratech.scheduler.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local HTTP target standing in for the endpoints jobs call. Every request is delayed by a latency
+ * drawn from the configured distribution, fails with a 500 at the configured rate and otherwise
+ * answers 200 with a body whose size is drawn the same way.
+ */
+public final class StubTarget implements AutoCloseable {
+
+    public enum Distribution {
+        // Always the mean
+        FIXED,
+        // Uniform between zero and twice the mean
+        UNIFORM,
+        // Exponential around the mean, a long tail of slow responses
+        EXPONENTIAL
+    }
+
+    private final HttpServer server;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private StubTarget(HttpServer server) {
+        this.server = server;
+    }
+
+    public static StubTarget start(long latencyMs, Distribution latencyDistribution, double errorRate,
+                                   int responseBytes, Distribution sizeDistribution) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        byte[] payload = new byte[Math.max(1, responseBytes * 20)];
+        Arrays.fill(payload, (byte) 'x');
+        StubTarget target = new StubTarget(server);
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+                body.transferTo(OutputStream.nullOutputStream());
+                target.requests.increment();
+                Thread.sleep(draw(latencyMs, latencyDistribution));
+                if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    target.errors.increment();
+                    exchange.sendResponseHeaders(500, -1);
+                    return;
+                }
+                int size = (int) Math.min(payload.length, draw(responseBytes, sizeDistribution));
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+                out.write(payload, 0, size);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        return target;
+    }
+
+    private static long draw(long mean, Distribution distribution) {
+        if (mean <= 0) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (distribution) {
+            case FIXED -> mean;
+            case UNIFORM -> random.nextLong(2 * mean + 1);
+            case EXPONENTIAL -> Math.round(-mean * Math.log(1 - random.nextDouble()));
+        };
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -1,35 +1,51 @@
 package in.myratech.scheduler;
 
-import in.myratech.scheduler.entity.JobDetails;
-import in.myratech.scheduler.service.SchedulerSvc;
-import jakarta.persistence.EntityManager;
-import org.quartz.SchedulerException;
+import in.myratech.scheduler.service.JobReconciliationSvc;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Reconciles the job store on startup. This runs synchronously inside the ready event and Spring Boot
+ * only switches readiness to ACCEPTING_TRAFFIC after all ready listeners return, so the readiness
+ * probe stays down until reconciliation has completed.
+ */
 @Component
 public class JobInitializer implements ApplicationListener<ApplicationReadyEvent> {
+    private static final Logger log = LoggerFactory.getLogger(JobInitializer.class);
+
     @Autowired
-    private EntityManager entityManager;
+    private JobReconciliationSvc jobReconciliationSvc;
 
     @Autowired
-    private SchedulerSvc schedulerSvc;
+    private MeterRegistry meterRegistry;
+
+    @Value("${scheduler.rehydration.enabled:true}")
+    private boolean enabled;
 
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
-        List<JobDetails> jobs = entityManager.createQuery("SELECT j FROM JobDetails j WHERE j.active = true", JobDetails.class)
-                .getResultList();
-
-        jobs.forEach(job -> {
-            try {
-                schedulerSvc.createJob(job);
-            } catch (SchedulerException e) {
-                // Log error
-            }
-        });
+        AvailabilityChangeEvent.publish(event.getApplicationContext(), ReadinessState.REFUSING_TRAFFIC);
+        if (enabled) {
+            jobReconciliationSvc.reconcile();
+        } else {
+            log.info("Startup job reconciliation disabled");
+        }
+
+        long timeToReady = event.getTimeTaken().toMillis() + (System.currentTimeMillis() - event.getTimestamp());
+        TimeGauge.builder("scheduler.startup.time-to-ready", () -> timeToReady, TimeUnit.MILLISECONDS)
+                .description("Time from JVM start until the scheduler accepts traffic")
+                .register(meterRegistry);
+        log.info("Scheduler ready to accept traffic after {} ms", timeToReady);
     }
 }
@@ -0,0 +1,28 @@
+package in.myratech.scheduler.config;
+
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads at most {@code maxBytes} of an error response into the thrown exception, the default
+ * handler buffers the whole body however large it is.
+ */
+public class CappedResponseErrorHandler extends DefaultResponseErrorHandler {
+    private final int maxBytes;
+
+    public CappedResponseErrorHandler(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    protected byte[] getResponseBody(ClientHttpResponse response) {
+        try (InputStream body = response.getBody()) {
+            return body.readNBytes(maxBytes);
+        } catch (IOException e) {
+            return new byte[0];
+        }
+    }
+}
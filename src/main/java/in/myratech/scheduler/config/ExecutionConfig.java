@@ -0,0 +1,40 @@
+package in.myratech.scheduler.config;
+
+import in.myratech.scheduler.job.InlineExecutionEngine;
+import in.myratech.scheduler.job.JobExecutionEngine;
+import in.myratech.scheduler.job.VirtualThreadExecutionEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+@Configuration
+public class ExecutionConfig {
+
+    @Value("${scheduler.execution.engine:virtual-threads}")
+    private String engine;
+
+    @Value("${scheduler.execution.max-concurrency-per-host:50}")
+    private int maxConcurrencyPerHost;
+
+    @Value("${scheduler.execution.max-queued-per-host:1000}")
+    private int maxQueuedPerHost;
+
+    @Value("${scheduler.execution.max-in-flight:10000}")
+    private int maxInFlight;
+
+    @Value("${scheduler.execution.shutdown-timeout:30000}")
+    private long shutdownTimeout;
+
+    // In-flight fires write history on completion, so the writer must outlive the engine on shutdown
+    @Bean
+    @DependsOn("jobHistoryWriter")
+    public JobExecutionEngine jobExecutionEngine() {
+        return switch (engine.toLowerCase()) {
+            case "inline" -> new InlineExecutionEngine();
+            case "virtual-threads" -> new VirtualThreadExecutionEngine(maxConcurrencyPerHost, maxQueuedPerHost,
+                    maxInFlight, shutdownTimeout);
+            default -> throw new IllegalArgumentException("Unsupported execution engine: " + engine);
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package in.myratech.scheduler.config;
+
+import in.myratech.scheduler.job.HistoryMaintenanceJob;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HistoryStorageConfig {
+    private static final String SYSTEM_GROUP = "system";
+
+    @Value("${scheduler.history.maintenance.cron:0 15 * * * ?}")
+    private String maintenanceCron;
+
+    // The partitioned table has to exist before Hibernate's schema update looks at it
+    @Configuration
+    static class HistorySchemaDependency extends EntityManagerFactoryDependsOnPostProcessor {
+        HistorySchemaDependency() {
+            super("historyPartitionManager");
+        }
+    }
+
+    @Bean
+    public JobDetail historyMaintenanceJobDetail() {
+        return JobBuilder.newJob(HistoryMaintenanceJob.class)
+                .withIdentity("historyMaintenance", SYSTEM_GROUP)
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger historyMaintenanceTrigger(JobDetail historyMaintenanceJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(historyMaintenanceJobDetail)
+                .withIdentity("historyMaintenanceTrigger", SYSTEM_GROUP)
+                .withSchedule(CronScheduleBuilder.cronSchedule(maintenanceCron)
+                        .withMisfireHandlingInstructionFireAndProceed())
+                .build();
+    }
+}
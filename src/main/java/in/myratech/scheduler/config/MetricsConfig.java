@@ -0,0 +1,18 @@
+package in.myratech.scheduler.config;
+
+import in.myratech.scheduler.job.FireMetricsListener;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public SchedulerFactoryBeanCustomizer fireMetricsCustomizer(FireMetricsListener fireMetricsListener) {
+        return schedulerFactoryBean -> {
+            schedulerFactoryBean.setGlobalJobListeners(fireMetricsListener);
+            schedulerFactoryBean.setGlobalTriggerListeners(fireMetricsListener);
+        };
+    }
+}
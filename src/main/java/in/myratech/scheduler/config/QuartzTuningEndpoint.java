@@ -0,0 +1,38 @@
+package in.myratech.scheduler.config;
+
+import in.myratech.scheduler.dto.QuartzTuning;
+import in.myratech.scheduler.service.QuartzTuner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/quartztuning}, the Quartz tuning settings and live worker pool state. A write
+ * resizes the worker pools, all of them or the one of {@code scheduler}, and switches adaptive sizing.
+ */
+@Component
+@Endpoint(id = "quartztuning")
+public class QuartzTuningEndpoint {
+
+    @Autowired
+    private QuartzTuner quartzTuner;
+
+    @ReadOperation
+    public QuartzTuning tuning() {
+        return quartzTuner.tuning();
+    }
+
+    @WriteOperation
+    public QuartzTuning update(@Nullable Integer threadCount, @Nullable Boolean adaptive, @Nullable String scheduler) {
+        if (adaptive != null) {
+            quartzTuner.setAdaptive(adaptive);
+        }
+        if (threadCount != null) {
+            quartzTuner.resize(scheduler, threadCount);
+        }
+        return quartzTuner.tuning();
+    }
+}
@@ -1,19 +1,41 @@
 package in.myratech.scheduler.config;
 
+import in.myratech.scheduler.job.IdempotencyKey;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import io.github.resilience4j.retry.RetryConfig;
-import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
 import java.time.Duration;
 
 @Configuration
 public class RestConfig {
+    private static final Logger log = LoggerFactory.getLogger(RestConfig.class);
 
     @Value("${rest.template.connection.timeout:3000}")
     private int connectionTimeout;
@@ -21,35 +43,150 @@ public class RestConfig {
     @Value("${rest.template.read.timeout:3000}")
     private int readTimeout;
 
+    @Value("${rest.template.pool.max-total:200}")
+    private int poolMaxTotal;
+
+    @Value("${rest.template.pool.max-per-route:20}")
+    private int poolMaxPerRoute;
+
+    // Comma separated scheme://host[:port]=max overrides, e.g. https://api.partner.com=50
+    @Value("${rest.template.pool.max-per-host:}")
+    private String poolMaxPerHost;
+
+    @Value("${rest.template.pool.idle-eviction:30000}")
+    private long poolIdleEviction;
+
+    @Value("${rest.template.pool.time-to-live:300000}")
+    private long poolTimeToLive;
+
+    @Value("${rest.template.pool.acquire-timeout:3000}")
+    private long poolAcquireTimeout;
+
+    @Value("${rest.template.http2.enabled:false}")
+    private boolean http2Enabled;
+
+    @Value("${rest.template.error-body.max-bytes:65536}")
+    private int errorBodyMaxBytes;
+
+    @Value("${scheduler.dispatch.mode:direct}")
+    private String dispatchMode;
+
+    // Defaults of every job's breaker, per-job resilience policies override them
+    @Value("${resilience4j.circuitbreaker.instances.default.failure-rate-threshold:50}")
+    private float breakerFailureRateThreshold;
+
+    @Value("${resilience4j.circuitbreaker.instances.default.wait-duration-in-open-state:5s}")
+    private Duration breakerWaitInOpenState;
+
+    @Value("${resilience4j.circuitbreaker.instances.default.sliding-window-size:10}")
+    private int breakerSlidingWindowSize;
+
+    @Value("${resilience4j.circuitbreaker.instances.default.minimum-number-of-calls:5}")
+    private int breakerMinimumCalls;
+
+    @Value("${resilience4j.circuitbreaker.instances.default.permitted-number-of-calls-in-half-open-state:3}")
+    private int breakerHalfOpenCalls;
+
     @Bean
     public CircuitBreakerRegistry circuitBreakerRegistry() {
+        // Waiting out an outbound limit says nothing about the target's health and is not counted as a failure
         CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
-                .failureRateThreshold(50)
-                .waitDurationInOpenState(Duration.ofMillis(1000))
-                .slidingWindowSize(2)
+                .failureRateThreshold(breakerFailureRateThreshold)
+                .waitDurationInOpenState(breakerWaitInOpenState)
+                .slidingWindowSize(breakerSlidingWindowSize)
+                .minimumNumberOfCalls(breakerMinimumCalls)
+                .permittedNumberOfCallsInHalfOpenState(breakerHalfOpenCalls)
+                .ignoreExceptions(BulkheadFullException.class, RequestNotPermitted.class)
                 .build();
 
         return CircuitBreakerRegistry.of(circuitBreakerConfig);
     }
 
     @Bean
-    public RetryRegistry retryRegistry() {
-        RetryConfig config = RetryConfig.custom()
-                .maxAttempts(3)
-                .waitDuration(Duration.ofSeconds(1))
-                .build();
-        return RetryRegistry.of(config);
+    public ClientHttpRequestFactory outboundRequestFactory(MeterRegistry meterRegistry) {
+        return http2Enabled ? http2RequestFactory() : pooledRequestFactory(meterRegistry);
     }
 
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
+    public RestTemplate restTemplate(ClientHttpRequestFactory outboundRequestFactory) {
+        RestTemplate restTemplate = new RestTemplate(outboundRequestFactory);
+        restTemplate.setErrorHandler(new CappedResponseErrorHandler(errorBodyMaxBytes));
+        if ("outbox".equalsIgnoreCase(dispatchMode)) {
+            // Outbox executions are delivered at least once, the key lets targets drop a redelivered call
+            restTemplate.getInterceptors().add((request, body, execution) -> {
+                String key = IdempotencyKey.current();
+                if (key != null && !request.getHeaders().containsKey(IdempotencyKey.HEADER)) {
+                    request.getHeaders().set(IdempotencyKey.HEADER, key);
+                }
+                return execution.execute(request, body);
+            });
+        }
+        return restTemplate;
+    }
 
-        SimpleClientHttpRequestFactory rf =
-                (SimpleClientHttpRequestFactory) restTemplate.getRequestFactory();
-        rf.setConnectTimeout(connectionTimeout);
-        rf.setReadTimeout(readTimeout);
+    /**
+     * Keep-alive HTTP/1.1 pool with per-host connection caps. Connections idle for longer than
+     * the eviction interval or older than the time-to-live are closed by a background evictor.
+     */
+    private HttpComponentsClientHttpRequestFactory pooledRequestFactory(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(poolMaxTotal)
+                .setMaxConnPerRoute(poolMaxPerRoute)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectionTimeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .setTimeToLive(TimeValue.ofMilliseconds(poolTimeToLive))
+                        .build())
+                .build();
+        applyHostLimits(connectionManager);
 
-        return restTemplate;
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(poolIdleEviction))
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "outbound").bindTo(meterRegistry);
+        log.info("Using pooled HTTP client. Max total: {}, max per host: {}", poolMaxTotal, poolMaxPerRoute);
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * JDK client negotiating HTTP/2, all calls to one host are multiplexed over a single connection.
+     * Pool limits and pool metrics do not apply in this mode.
+     */
+    private JdkClientHttpRequestFactory http2RequestFactory() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectionTimeout))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeout));
+        log.info("Using HTTP/2 client");
+        return requestFactory;
+    }
+
+    private void applyHostLimits(PoolingHttpClientConnectionManager connectionManager) {
+        if (poolMaxPerHost == null || poolMaxPerHost.isBlank()) {
+            return;
+        }
+        for (String entry : poolMaxPerHost.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid rest.template.pool.max-per-host entry: " + entry);
+            }
+            URI uri = URI.create(entry.substring(0, separator).trim());
+            int max = Integer.parseInt(entry.substring(separator + 1).trim());
+            boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+            int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+            HttpHost target = new HttpHost(uri.getScheme(), uri.getHost(), port);
+            connectionManager.setMaxPerRoute(new HttpRoute(target, null, secure), max);
+            log.debug("Connection limit for {} set to {}", target, max);
+        }
     }
-}
\ No newline at end of file
+}
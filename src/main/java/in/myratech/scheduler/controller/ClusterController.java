@@ -0,0 +1,30 @@
+package in.myratech.scheduler.controller;
+
+import in.myratech.scheduler.dto.ShardAssignment;
+import in.myratech.scheduler.service.ShardCoordinator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@CrossOrigin(origins = "http://localhost:3000")
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+    private static final Logger log = LoggerFactory.getLogger(ClusterController.class);
+
+    @Autowired
+    private ShardCoordinator shardCoordinator;
+
+    /**
+     * Shard ownership as seen by the node answering the request.
+     */
+    @GetMapping("/shards")
+    public ShardAssignment getShards() {
+        log.info("Received request to fetch shard assignment");
+        return shardCoordinator.assignment();
+    }
+}
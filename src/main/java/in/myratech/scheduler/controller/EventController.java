@@ -0,0 +1,40 @@
+package in.myratech.scheduler.controller;
+
+import in.myratech.scheduler.service.ExecutionEventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+@CrossOrigin(origins = "http://localhost:3000")
+@RestController
+@RequestMapping("/api/events")
+public class EventController {
+    private static final Logger log = LoggerFactory.getLogger(EventController.class);
+
+    @Autowired
+    private ExecutionEventBus eventBus;
+
+    /**
+     * Server-Sent Events stream of execution starts and outcomes across the cluster, optionally
+     * narrowed to one job or one group. Events are named STARTED, SUCCESS and FAILED, a {@code dropped}
+     * event tells a slow client how many events it missed.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@RequestParam(required = false) UUID jobId,
+                                                   @RequestParam(required = false) String group) {
+        log.info("Received request to stream execution events for job: {}, group: {}", jobId, group);
+        try {
+            return ResponseEntity.ok(eventBus.subscribe(jobId, group));
+        } catch (IllegalStateException e) {
+            log.warn("Rejected event stream subscription: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
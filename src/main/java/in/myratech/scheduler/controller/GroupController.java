@@ -0,0 +1,60 @@
+package in.myratech.scheduler.controller;
+
+import in.myratech.scheduler.dto.GroupLoad;
+import in.myratech.scheduler.entity.GroupQuota;
+import in.myratech.scheduler.service.FairShareDispatcher;
+import in.myratech.scheduler.service.GroupQuotaSvc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "http://localhost:3000")
+@RestController
+@RequestMapping("/api/groups")
+public class GroupController {
+    private static final Logger log = LoggerFactory.getLogger(GroupController.class);
+
+    @Autowired
+    private GroupQuotaSvc groupQuotaService;
+
+    @Autowired
+    private FairShareDispatcher fairShareDispatcher;
+
+    @GetMapping("/quotas")
+    public List<GroupQuota> getQuotas() {
+        log.info("Received request to fetch group quotas");
+        return groupQuotaService.getQuotas();
+    }
+
+    @PutMapping("/{group}/quota")
+    public ResponseEntity<?> saveQuota(@PathVariable String group, @RequestBody GroupQuota quota) {
+        log.info("Received request to set quota of group: {}", group);
+        try {
+            return ResponseEntity.ok(groupQuotaService.saveQuota(group, quota));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected quota for group {}: {}", group, e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid quota: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{group}/quota")
+    public ResponseEntity<String> deleteQuota(@PathVariable String group) {
+        log.info("Received request to remove quota of group: {}", group);
+        return groupQuotaService.deleteQuota(group)
+                ? ResponseEntity.ok("Quota removed successfully")
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Queue depth and running fires per group as seen by the node answering the request.
+     */
+    @GetMapping("/load")
+    public List<GroupLoad> getLoad() {
+        log.info("Received request to fetch group load");
+        return fairShareDispatcher.loads();
+    }
+}
@@ -1,32 +1,66 @@
 package in.myratech.scheduler.controller;
 
+import in.myratech.scheduler.dto.BatchItemResult;
+import in.myratech.scheduler.dto.FireDensity;
+import in.myratech.scheduler.dto.JobStats;
+import in.myratech.scheduler.dto.KeysetSlice;
+import in.myratech.scheduler.dto.StatsSummary;
 import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.entity.JobExecutionDailyStats;
 import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.job.ResiliencePolicy;
+import in.myratech.scheduler.service.BulkJobSvc;
+import in.myratech.scheduler.service.HistoryExportSvc;
+import in.myratech.scheduler.service.JobStatsRegistry;
+import in.myratech.scheduler.service.LoadSpreader;
+import in.myratech.scheduler.service.ResponsePayloadStore;
 import in.myratech.scheduler.service.SchedulerSvc;
-import jakarta.persistence.EntityNotFoundException;
 import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @CrossOrigin(origins = "http://localhost:3000")
 @RestController
 @RequestMapping("/api/jobs")
 public class SchedulerController {
     private static final Logger log = LoggerFactory.getLogger(SchedulerController.class);
+    private static final int MAX_PAGE_SIZE = 500;
 
     @Autowired
     private SchedulerSvc schedulerService;
 
+    @Autowired
+    private BulkJobSvc bulkJobService;
+
+    @Autowired
+    private LoadSpreader loadSpreader;
+
+    @Autowired
+    private HistoryExportSvc historyExportService;
+
+    @Autowired
+    private JobStatsRegistry statsRegistry;
+
+    @Autowired
+    private ResponsePayloadStore payloadStore;
+
     @PostMapping
     public ResponseEntity<String> createJob(@RequestBody JobDetails jobDetails) {
         log.info("Received request to create job: {}", jobDetails.getJobName());
@@ -41,33 +75,116 @@ public class SchedulerController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createJobs(
+            InputStream body,
+            @RequestParam(defaultValue = "false") boolean replace) throws IOException {
+        log.info("Received request to create jobs in batch, replace existing: {}", replace);
+        List<BatchItemResult> results = bulkJobService.createJobs(body, replace);
+        log.info("Batch job creation processed {} items", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> deleteJobs(@RequestBody List<UUID> jobIds) throws SchedulerException {
+        log.info("Received request to delete {} jobs in batch", jobIds.size());
+        List<BatchItemResult> results = schedulerService.deleteJobs(jobIds);
+        log.info("Batch job deletion processed {} items", results.size());
+        return ResponseEntity.ok(results);
+    }
+
     @GetMapping
-    public ResponseEntity<Page<JobDetails>> getAllJobs(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<KeysetSlice<JobDetails>> getAllJobs(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "ALL") String status) {
-        log.info("Received request to fetch jobs with pagination and status filter: {}", status);
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<JobDetails> jobs;
+            @RequestParam(defaultValue = "ALL") String status,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        log.info("Received request to fetch jobs with cursor pagination and status filter: {}", status);
 
         // Filter jobs based on the status parameter
-        switch (status.toUpperCase()) {
-            case "ACTIVE":
-                jobs = schedulerService.getJobsByStatus(true, pageable);
-                break;
-            case "INACTIVE":
-                jobs = schedulerService.getJobsByStatus(false, pageable);
-                break;
-            case "ALL":
-            default:
-                jobs = schedulerService.getAllJobs(pageable);
-                break;
+        Boolean active = switch (status.toUpperCase()) {
+            case "ACTIVE" -> true;
+            case "INACTIVE" -> false;
+            default -> null;
+        };
+
+        return ResponseEntity.ok(schedulerService.getJobs(active, cursor, pageSize(size), includeTotal));
+    }
+
+    @GetMapping("/history/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) UUID jobId,
+            @RequestParam(defaultValue = HistoryExportSvc.NDJSON) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Received request to export history from {} to {} as {}", from, to, format);
+        String exportFormat = format.toLowerCase();
+        try {
+            historyExportService.validate(from, to, exportFormat);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected history export: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (!historyExportService.tryAcquire()) {
+            log.warn("Rejected history export: too many exports in progress");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
         }
 
-        return ResponseEntity.ok(jobs);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            try {
+                if (gzip) {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                    historyExportService.export(from, to, status, jobId, exportFormat, compressed);
+                    compressed.finish();
+                } else {
+                    historyExportService.export(from, to, status, jobId, exportFormat, out);
+                }
+            } finally {
+                historyExportService.release();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(HistoryExportSvc.CSV.equals(exportFormat)
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"history." + exportFormat + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping("/stats/summary")
+    public StatsSummary getStatsSummary() {
+        log.info("Received request for fleet execution statistics");
+        return statsRegistry.summary();
     }
 
+    @GetMapping("/{jobId}/stats")
+    public JobStats getJobStats(@PathVariable UUID jobId) {
+        log.info("Received request for execution statistics of job ID: {}", jobId);
+        return schedulerService.getJobStats(jobId);
+    }
+
+    @GetMapping("/payloads/{hash}")
+    public ResponseEntity<byte[]> getCapturedPayload(@PathVariable String hash) {
+        log.info("Received request for captured payload {}", hash);
+        return payloadStore.load(hash)
+                .map(content -> ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(content))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/fire-density")
+    public FireDensity getFireDensity(@RequestParam(defaultValue = "60") int horizonSeconds) {
+        log.info("Received request for fire density over the next {} seconds", horizonSeconds);
+        return loadSpreader.projectFireDensity(horizonSeconds);
+    }
 
     @GetMapping("/{jobId}")
     public JobDetails getJobStatus(@PathVariable UUID jobId) {
@@ -75,6 +192,18 @@ public class SchedulerController {
         return schedulerService.getJobStatus(jobId);
     }
 
+    @PutMapping("/{jobId}/resilience")
+    public ResponseEntity<String> updateResilience(@PathVariable UUID jobId, @RequestBody ResiliencePolicy policy) {
+        log.info("Received request to update resilience policy of job ID: {}", jobId);
+        try {
+            schedulerService.updateResilience(jobId, policy);
+            return ResponseEntity.ok("Resilience policy updated successfully");
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected resilience policy for job ID {}: {}", jobId, e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid resilience policy: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{jobId}")
     public ResponseEntity<String> deleteJob(@PathVariable UUID jobId) {
         log.info("Received request to delete job ID: {}", jobId);
@@ -90,21 +219,29 @@ public class SchedulerController {
     }
 
     @GetMapping("/{jobId}/history")
-    public ResponseEntity<Page<JobExecutionHistory>> getJobExecutionHistory(
+    public ResponseEntity<KeysetSlice<JobExecutionHistory>> getJobExecutionHistory(
             @PathVariable UUID jobId,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        log.info("Received request to fetch execution history for job ID: {} with pagination", jobId);
-        try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<JobExecutionHistory> history = schedulerService.getJobExecutionHistory(jobId, pageable);
-            return ResponseEntity.ok(history);
-        } catch (EntityNotFoundException e) {
-            log.error("Job not found: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
-        } catch (Exception e) {
-            log.error("Error fetching job history: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        log.info("Received request to fetch execution history for job ID: {} with cursor pagination", jobId);
+        KeysetSlice<JobExecutionHistory> history =
+                schedulerService.getJobExecutionHistory(jobId, cursor, pageSize(size), includeTotal);
+        return ResponseEntity.ok(history);
+    }
+
+    @GetMapping("/{jobId}/history/daily")
+    public List<JobExecutionDailyStats> getDailyStats(
+            @PathVariable UUID jobId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(30);
+        log.info("Received request for daily execution stats of job ID: {} from {} to {}", jobId, start, end);
+        return schedulerService.getDailyStats(jobId, start, end);
+    }
+
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
     }
 }
@@ -0,0 +1,72 @@
+package in.myratech.scheduler.controller;
+
+import in.myratech.scheduler.dto.WorkflowDefinition;
+import in.myratech.scheduler.dto.WorkflowRunDetails;
+import in.myratech.scheduler.entity.WorkflowRun;
+import in.myratech.scheduler.service.WorkflowSvc;
+import in.myratech.scheduler.util.error.ErrorResponse;
+import org.quartz.SchedulerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@CrossOrigin(origins = "http://localhost:3000")
+@RestController
+@RequestMapping("/api/workflows")
+public class WorkflowController {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowController.class);
+    private static final int MAX_RUNS = 500;
+
+    @Autowired
+    private WorkflowSvc workflowService;
+
+    @PostMapping
+    public ResponseEntity<?> createWorkflow(@RequestBody WorkflowDefinition definition) throws SchedulerException {
+        log.info("Received request to create workflow: {}", definition.getName());
+        try {
+            return ResponseEntity.ok(workflowService.createWorkflow(definition));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected workflow {}: {}", definition.getName(), e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), e.getMessage(), LocalDateTime.now()));
+        }
+    }
+
+    @GetMapping("/{workflowId}")
+    public WorkflowDefinition getWorkflow(@PathVariable UUID workflowId) {
+        log.info("Received request to fetch workflow: {}", workflowId);
+        return workflowService.getWorkflow(workflowId);
+    }
+
+    @DeleteMapping("/{workflowId}")
+    public ResponseEntity<String> deleteWorkflow(@PathVariable UUID workflowId) throws SchedulerException {
+        log.info("Received request to delete workflow: {}", workflowId);
+        workflowService.deleteWorkflow(workflowId);
+        return ResponseEntity.ok("Workflow deleted successfully");
+    }
+
+    @PostMapping("/{workflowId}/runs")
+    public WorkflowRun startRun(@PathVariable UUID workflowId) {
+        log.info("Received request to start workflow: {}", workflowId);
+        return workflowService.startRun(workflowId);
+    }
+
+    @GetMapping("/{workflowId}/runs")
+    public List<WorkflowRun> getRuns(@PathVariable UUID workflowId, @RequestParam(defaultValue = "20") int size) {
+        log.info("Received request to fetch runs of workflow: {}", workflowId);
+        return workflowService.getRuns(workflowId, Math.max(1, Math.min(size, MAX_RUNS)));
+    }
+
+    @GetMapping("/runs/{runId}")
+    public WorkflowRunDetails getRun(@PathVariable UUID runId) {
+        log.info("Received request to fetch workflow run: {}", runId);
+        return workflowService.getRun(runId);
+    }
+}
@@ -0,0 +1,22 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class BatchItemResult {
+    public static final String CREATED = "CREATED";
+    public static final String DELETED = "DELETED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String FAILED = "FAILED";
+
+    private int index;
+    private UUID jobId;
+    private String jobName;
+    private String jobGroup;
+    private String status;
+    private String message;
+}
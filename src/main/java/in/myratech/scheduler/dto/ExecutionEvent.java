@@ -0,0 +1,29 @@
+package in.myratech.scheduler.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Start or end of a job execution as pushed to event stream subscribers. Type is STARTED, SUCCESS or FAILED.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExecutionEvent {
+    private String type;
+    private UUID jobId;
+    private String jobName;
+    private String jobGroup;
+    private String triggerName;
+    private UUID workflowRunId;
+    private long timestamp;
+    private Long durationMs;
+    private String errorMessage;
+    // Node that ran the execution
+    private String node;
+}
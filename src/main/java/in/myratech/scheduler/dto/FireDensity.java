@@ -0,0 +1,16 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class FireDensity {
+    private Instant from;
+    private int horizonSeconds;
+    private long totalFires;
+    private int peakPerSecond;
+    private int[] firesPerSecond;
+}
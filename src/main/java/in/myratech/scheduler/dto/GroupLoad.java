@@ -0,0 +1,20 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Fair-share state of a job group on the node answering the request.
+ */
+@Data
+@AllArgsConstructor
+public class GroupLoad {
+    private String group;
+    private int weight;
+    private int maxConcurrent;
+    private double firesPerSecond;
+    private int queued;
+    private int running;
+    private long dispatched;
+    private long rejected;
+}
@@ -0,0 +1,22 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class JobStats {
+    private UUID jobId;
+    private String jobName;
+    private String jobGroup;
+    private String lastStatus;
+    private Instant lastRunTime;
+    private Long lastDurationMs;
+    // "cluster", or the id of the node whose executions alone are covered
+    private String scope;
+    private Map<String, WindowStats> windows;
+}
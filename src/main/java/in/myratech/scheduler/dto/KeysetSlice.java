@@ -0,0 +1,32 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset query. {@code nextCursor} is opaque to clients and is passed back
+ * as {@code cursor} to fetch the following page. {@code estimatedTotal} is only filled when
+ * requested, it is the planner's row estimate and may be off as far as the table statistics are.
+ */
+@Data
+@AllArgsConstructor
+public class KeysetSlice<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long estimatedTotal;
+
+    /**
+     * Builds a slice from a query that fetched one row more than {@code size}.
+     */
+    public static <T> KeysetSlice<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new KeysetSlice<>(content, size, hasNext, nextCursor, null);
+    }
+}
@@ -0,0 +1,33 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class QuartzTuning {
+    private int threadCount;
+    private int batchMaxCount;
+    private long fireAheadWindowMs;
+    private long misfireThresholdMs;
+    private int maxConnections;
+    private boolean adaptive;
+    private int minThreads;
+    private int maxThreads;
+    private long lagTargetMs;
+    private long latencyCeilingMs;
+    private double downstreamLatencyMs;
+    private List<WorkerPool> pools;
+
+    @Data
+    @AllArgsConstructor
+    public static class WorkerPool {
+        private String scheduler;
+        private int threads;
+        private int busy;
+        private long saturatedWaits;
+        private double fireLagMs;
+    }
+}
@@ -0,0 +1,17 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ShardAssignment {
+    private String nodeId;
+    private int shards;
+    private List<String> liveNodes;
+    private List<Integer> ownedShards;
+    private Map<Integer, String> owners;
+}
@@ -0,0 +1,16 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class StatsSummary {
+    private int trackedJobs;
+    // "cluster", or the id of the node whose executions alone are covered
+    private String scope;
+    private Map<String, WindowStats> fleet;
+    private Map<String, Map<String, WindowStats>> groups;
+}
@@ -0,0 +1,18 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class WindowStats {
+    private long executions;
+    private long successes;
+    private long failures;
+    private double successRate;
+    private double averageMs;
+    private long maxMs;
+    private long p50Ms;
+    private long p95Ms;
+    private long p99Ms;
+}
@@ -0,0 +1,30 @@
+package in.myratech.scheduler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Workflow as submitted and returned by the API, each step names an existing job and the jobs it waits for.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkflowDefinition {
+    private UUID id;
+    private String name;
+    private String cronExpression;
+    private boolean active;
+    private List<Step> steps;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Step {
+        private UUID jobId;
+        private List<UUID> dependsOn;
+    }
+}
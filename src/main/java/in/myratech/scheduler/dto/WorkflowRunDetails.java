@@ -0,0 +1,15 @@
+package in.myratech.scheduler.dto;
+
+import in.myratech.scheduler.entity.WorkflowRun;
+import in.myratech.scheduler.entity.WorkflowStepRun;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class WorkflowRunDetails {
+    private WorkflowRun run;
+    private List<WorkflowStepRun> steps;
+}
@@ -0,0 +1,59 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Fire waiting in the outbox queue for an executor. Claimed rows carry the executor and a lease,
+ * rows are deleted once their execution is recorded and redelivered when a lease runs out.
+ */
+@Data
+@Entity
+@Table(name = "execution_queue", indexes = {
+        @Index(name = "idx_execution_queue_available", columnList = "available_at")
+})
+public class ExecutionRequest {
+    @Id
+    private UUID id;
+
+    private UUID jobId;
+
+    private String jobGroup;
+
+    private String jobName;
+
+    private String triggerName;
+
+    private UUID workflowRunId;
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String idempotencyKey;
+
+    private Timestamp scheduledFireTime;
+
+    private Timestamp enqueuedAt;
+
+    @Column(name = "available_at")
+    private Timestamp availableAt;
+
+    private int attempts;
+
+    private String claimedBy;
+
+    private Timestamp leaseUntil;
+
+    @PrePersist
+    public void ensureId() {
+        if (this.id == null) {
+            this.id = UUID.randomUUID();
+        }
+    }
+}
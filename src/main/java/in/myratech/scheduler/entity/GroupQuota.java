@@ -0,0 +1,28 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.sql.Timestamp;
+
+/**
+ * Fair-share settings of a job group, null fields use the configured defaults.
+ */
+@Data
+@Entity
+@Table(name = "group_quota")
+public class GroupQuota {
+    @Id
+    private String jobGroup;
+
+    // Share of the dispatch capacity relative to the other backlogged groups
+    private Integer weight;
+
+    // Limits per node, 0 means no limit
+    private Integer maxConcurrent;
+    private Double firesPerSecond;
+
+    private Timestamp updatedAt;
+}
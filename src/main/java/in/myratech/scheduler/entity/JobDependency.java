@@ -0,0 +1,29 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Edge of a workflow graph, {@code jobId} runs once {@code upstreamJobId} has succeeded.
+ */
+@Data
+@Entity
+@Table(name = "job_dependency", indexes = @Index(name = "idx_job_dependency_workflow", columnList = "workflow_id"))
+public class JobDependency {
+    @Id
+    private UUID id;
+
+    @Column(name = "workflow_id")
+    private UUID workflowId;
+    private UUID jobId;
+    private UUID upstreamJobId;
+
+    @PrePersist
+    public void ensureId() {
+        if (this.id == null) {
+            this.id = UUID.randomUUID();
+        }
+    }
+}
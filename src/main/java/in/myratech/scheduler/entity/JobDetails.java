@@ -23,6 +23,26 @@ public class JobDetails {
     private String requestBody;
     private String headers;
 
+    // Per-job outbound limits, null means no job-level limit
+    private Integer maxConcurrentCalls;
+    private Double rateLimitPerSecond;
+
+    private Integer fireOffsetSeconds;
+
+    private Boolean captureResponse;
+
+    private Integer captureMaxBytes;
+
+    // Fan-out jobs call the url template once per target, listed here as a JSON array or fetched from targetsUrl
+    @Column(columnDefinition = "TEXT")
+    private String targets;
+    private String targetsUrl;
+    private Integer fanOutParallelism;
+
+    // Retry and circuit breaker overrides as a JSON ResiliencePolicy, null uses the defaults
+    @Column(columnDefinition = "TEXT")
+    private String resilience;
+
     @Column(nullable = false)
     private boolean deleted = false;
 
@@ -0,0 +1,36 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Entity
+@Data
+@IdClass(JobExecutionDailyStats.Key.class)
+@Table(name = "job_execution_daily_stats")
+public class JobExecutionDailyStats {
+    @Id
+    private UUID jobId;
+
+    @Id
+    private LocalDate day;
+
+    @Id
+    private String status;
+
+    private long executions;
+
+    private long totalDurationMs;
+
+    private long maxDurationMs;
+
+    @Data
+    public static class Key implements Serializable {
+        private UUID jobId;
+        private LocalDate day;
+        private String status;
+    }
+}
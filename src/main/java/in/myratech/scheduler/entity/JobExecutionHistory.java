@@ -1,5 +1,6 @@
 package in.myratech.scheduler.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -8,7 +9,11 @@ import java.util.UUID;
 
 @Entity
 @Data
-@Table(name = "job_execution_history")
+@Table(name = "job_execution_history", indexes = {
+        @Index(name = "idx_history_job_start", columnList = "job_id, start_time DESC, uuid DESC"),
+        @Index(name = "idx_history_status_start", columnList = "status, start_time DESC"),
+        @Index(name = "idx_history_start", columnList = "start_time DESC")
+})
 public class JobExecutionHistory {
     @Id
     private UUID uuid;
@@ -17,6 +22,9 @@ public class JobExecutionHistory {
 
     private String triggerName;
 
+    // Target of a fan-out job this execution called, null for single-target jobs
+    private String target;
+
     @Column(name = "start_time")
     private Timestamp startTime;
 
@@ -28,6 +36,26 @@ public class JobExecutionHistory {
     @Column(columnDefinition = "TEXT")
     private String errorMessage;
 
+    // Set when the execution was a step of a workflow run
+    private UUID workflowRunId;
+
+    // SHA-256 keys into response_payload, set when the job captures responses
+    @Column(length = 64)
+    private String responseBodyHash;
+
+    @Column(length = 64)
+    private String responseHeadersHash;
+
+    private Boolean responseTruncated;
+
+    @Transient
+    @JsonIgnore
+    private byte[] responseBody;
+
+    @Transient
+    @JsonIgnore
+    private byte[] responseHeaders;
+
     @PrePersist
     public void ensureId() {
         if (this.uuid == null) {
@@ -0,0 +1,30 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.sql.Timestamp;
+
+@Entity
+@Data
+@Table(name = "response_payload", indexes = {
+        @Index(name = "idx_response_payload_last_seen", columnList = "last_seen_at")
+})
+public class ResponsePayload {
+    // SHA-256 of the uncompressed content, identical payloads share one row
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // Gzip compressed
+    @Column(columnDefinition = "BYTEA", nullable = false)
+    private byte[] content;
+
+    private int originalSize;
+
+    @Column(name = "created_at")
+    private Timestamp createdAt;
+
+    @Column(name = "last_seen_at")
+    private Timestamp lastSeenAt;
+}
@@ -0,0 +1,21 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.sql.Timestamp;
+
+/**
+ * Live scheduler node, kept fresh by its heartbeat and used to assign scheduler shards.
+ */
+@Data
+@Entity
+@Table(name = "scheduler_node")
+public class SchedulerNode {
+    @Id
+    private String nodeId;
+    private Timestamp startedAt;
+    private Timestamp lastHeartbeat;
+}
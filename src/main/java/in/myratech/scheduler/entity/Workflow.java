@@ -0,0 +1,28 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+@Data
+@Entity
+@Table(name = "workflow", uniqueConstraints = @UniqueConstraint(name = "uk_workflow_name", columnNames = "name"))
+public class Workflow {
+    @Id
+    private UUID id;
+    private String name;
+
+    // Optional, workflows without a schedule are started through the API
+    private String cronExpression;
+    private boolean active;
+    private Timestamp createdAt;
+
+    @PrePersist
+    public void ensureId() {
+        if (this.id == null) {
+            this.id = UUID.randomUUID();
+        }
+    }
+}
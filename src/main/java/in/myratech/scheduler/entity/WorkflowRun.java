@@ -0,0 +1,40 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+@Data
+@Entity
+@Table(name = "workflow_run", indexes = @Index(name = "idx_workflow_run_workflow_start", columnList = "workflow_id, start_time DESC"))
+public class WorkflowRun {
+    public static final String RUNNING = "RUNNING";
+    public static final String SUCCESS = "SUCCESS";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private UUID id;
+
+    @Column(name = "workflow_id")
+    private UUID workflowId;
+    private String status;
+
+    @Column(name = "start_time")
+    private Timestamp startTime;
+
+    @Column(name = "end_time")
+    private Timestamp endTime;
+
+    // JSON object of step outputs keyed by job name, read by placeholders of later steps
+    @Column(columnDefinition = "TEXT")
+    private String context;
+
+    @PrePersist
+    public void ensureId() {
+        if (this.id == null) {
+            this.id = UUID.randomUUID();
+        }
+    }
+}
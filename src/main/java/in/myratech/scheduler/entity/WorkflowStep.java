@@ -0,0 +1,25 @@
+package in.myratech.scheduler.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Entity
+@Table(name = "workflow_step", indexes = @Index(name = "idx_workflow_step_workflow", columnList = "workflow_id"))
+public class WorkflowStep {
+    @Id
+    private UUID id;
+
+    @Column(name = "workflow_id")
+    private UUID workflowId;
+    private UUID jobId;
+
+    @PrePersist
+    public void ensureId() {
+        if (this.id == null) {
+            this.id = UUID.randomUUID();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package in.myratech.scheduler.job;
+
+/**
+ * Leading bytes of a response body read up to the job's capture limit.
+ */
+public record CapturedBody(byte[] bytes, boolean truncated) {
+}
@@ -0,0 +1,82 @@
+package in.myratech.scheduler.job;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import java.net.URI;
+import java.util.function.Supplier;
+
+/**
+ * Request template of a job built once when the job is scheduled and reused for every fire:
+ * expanded URI, resolved method, encoded body, parsed headers and the call already decorated
+ * with the job's circuit breaker and retry. Definitions that cannot be compiled carry the
+ * validation error instead, it is reported when the job fires.
+ */
+public final class CompiledRequest {
+    private final JobDefinition definition;
+    private final URI uri;
+    private final HttpMethod method;
+    private final HttpEntity<byte[]> entity;
+    private final Supplier<ResponseEntity<CapturedBody>> call;
+    private final String error;
+
+    CompiledRequest(JobDefinition definition, URI uri, HttpMethod method, HttpEntity<byte[]> entity,
+                    Supplier<ResponseEntity<CapturedBody>> call) {
+        this.definition = definition;
+        this.uri = uri;
+        this.method = method;
+        this.entity = entity;
+        this.call = call;
+        this.error = null;
+    }
+
+    private CompiledRequest(JobDefinition definition, String error) {
+        this.definition = definition;
+        this.uri = null;
+        this.method = null;
+        this.entity = null;
+        this.call = null;
+        this.error = error;
+    }
+
+    static CompiledRequest invalid(JobDefinition definition, String error) {
+        return new CompiledRequest(definition, error);
+    }
+
+    public JobDefinition definition() {
+        return definition;
+    }
+
+    public URI uri() {
+        return uri;
+    }
+
+    public HttpMethod method() {
+        return method;
+    }
+
+    public HttpEntity<byte[]> entity() {
+        return entity;
+    }
+
+    public String host() {
+        return uri != null && uri.getHost() != null ? uri.getHost() : "unknown";
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String error() {
+        return error;
+    }
+
+    /**
+     * Executes the decorated call. Status and headers are always kept, the body is only read
+     * for jobs capturing responses and then no further than their byte limit.
+     */
+    public ResponseEntity<CapturedBody> execute() {
+        return call.get();
+    }
+}
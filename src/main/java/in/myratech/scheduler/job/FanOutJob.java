@@ -0,0 +1,74 @@
+package in.myratech.scheduler.job;
+
+import in.myratech.scheduler.service.FairShareDispatcher;
+import in.myratech.scheduler.service.JobDefinitionCache;
+import in.myratech.scheduler.service.OutboxDispatcher;
+import in.myratech.scheduler.service.WorkflowSvc;
+import io.micrometer.core.instrument.Timer;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * One trigger calling many targets. The fire is handed to the fan-out runner, or queued like any
+ * other fire in outbox mode.
+ */
+@Component
+public class FanOutJob implements Job {
+    private static final Logger log = LoggerFactory.getLogger(FanOutJob.class);
+
+    @Autowired
+    private JobDefinitionCache jobDefinitionCache;
+
+    @Autowired
+    private FairShareDispatcher fairShareDispatcher;
+
+    @Autowired
+    private FireMetrics fireMetrics;
+
+    @Autowired
+    private FanOutRunner fanOutRunner;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        JobKey jobKey = context.getJobDetail().getKey();
+
+        Timer.Sample lookup = fireMetrics.start();
+        JobDefinition definition = jobDefinitionCache.get(jobKey)
+                .map(CompiledRequest::definition)
+                .orElse(null);
+        fireMetrics.stopLookup(lookup, jobKey.getGroup(), jobKey.getName(), definition != null);
+        if (definition == null) {
+            String error = "Job not found with name: " + jobKey.getName() + " and group: " + jobKey.getGroup();
+            log.error(error);
+            throw new JobExecutionException(error);
+        }
+
+        String triggerName = context.getTrigger().getKey().getName();
+        String workflowRun = context.getMergedJobDataMap().getString(WorkflowSvc.RUN_ID_KEY);
+        UUID workflowRunId = workflowRun != null ? UUID.fromString(workflowRun) : null;
+
+        if (outboxDispatcher.isEnabled()) {
+            try {
+                outboxDispatcher.enqueue(definition, triggerName, context.getScheduledFireTime(), workflowRunId);
+            } catch (RuntimeException e) {
+                log.error("Failed to enqueue fire of fan-out job {}: {}", jobKey.getName(), e.getMessage(), e);
+                throw new JobExecutionException(e);
+            }
+            return;
+        }
+        // The coordinator only waits on its targets, each dispatched to the engine under its own host
+        fairShareDispatcher.dispatch(jobKey.getGroup(), FanOutRunner.coordinatorHost(jobKey),
+                () -> fireMetrics.observe(definition, () -> fanOutRunner.run(definition, triggerName, workflowRunId)));
+    }
+}
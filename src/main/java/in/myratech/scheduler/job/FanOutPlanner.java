@@ -0,0 +1,173 @@
+package in.myratech.scheduler.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a fan-out job into one compiled request per target. Targets are strings or JSON objects,
+ * referenced from the url, body and headers as {@code {{target}}} or {@code {{target.<path>}}}.
+ * Static target lists are compiled once per job definition, targets from a provider URL on every fire.
+ */
+@Component
+public class FanOutPlanner {
+    private static final Logger log = LoggerFactory.getLogger(FanOutPlanner.class);
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*target((?:\\.[\\w-]+)*)\\s*}}");
+
+    @Autowired
+    private RequestCompiler requestCompiler;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${scheduler.fan-out.default-parallelism:16}")
+    private int defaultParallelism;
+
+    @Value("${scheduler.fan-out.max-parallelism:256}")
+    private int maxParallelism;
+
+    @Value("${scheduler.fan-out.max-targets:10000}")
+    private int maxTargets;
+
+    private final Map<UUID, Plan> staticPlans = new ConcurrentHashMap<>();
+
+    public record Target(String name, CompiledRequest request) {
+    }
+
+    private record Plan(JobDefinition definition, List<Target> targets) {
+    }
+
+    public List<Target> targets(JobDefinition definition) throws Exception {
+        if (definition.targetsUrl() != null && !definition.targetsUrl().isBlank()) {
+            return compileAll(definition, fetchTargets(definition));
+        }
+        // Cached definitions are replaced on change, so an identity check is enough to spot a stale plan
+        Plan plan = staticPlans.get(definition.id());
+        if (plan == null || plan.definition() != definition) {
+            plan = new Plan(definition, compileAll(definition, checked(definition, objectMapper.readTree(definition.targets()))));
+            staticPlans.put(definition.id(), plan);
+        }
+        return plan.targets();
+    }
+
+    public int parallelism(JobDefinition definition) {
+        Integer requested = definition.fanOutParallelism();
+        return Math.max(1, Math.min(requested != null && requested > 0 ? requested : defaultParallelism, maxParallelism));
+    }
+
+    public void evict(UUID jobId) {
+        staticPlans.remove(jobId);
+    }
+
+    private JsonNode fetchTargets(JobDefinition definition) {
+        log.debug("Fetching targets of fan-out job {} from {}", definition.jobName(), definition.targetsUrl());
+        return checked(definition, restTemplate.getForObject(definition.targetsUrl(), JsonNode.class));
+    }
+
+    private JsonNode checked(JobDefinition definition, JsonNode targets) {
+        if (targets == null || !targets.isArray()) {
+            throw new IllegalStateException("Targets of fan-out job " + definition.jobName() + " are not a JSON array");
+        }
+        if (targets.size() > maxTargets) {
+            throw new IllegalStateException("Fan-out job " + definition.jobName() + " has " + targets.size()
+                    + " targets, more than the limit of " + maxTargets);
+        }
+        return targets;
+    }
+
+    private List<Target> compileAll(JobDefinition definition, JsonNode targets) {
+        List<Target> compiled = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            JsonNode target = targets.get(i);
+            try {
+                compiled.add(new Target(nameOf(target, i), compile(definition, target)));
+            } catch (IllegalStateException e) {
+                // Reported as a failed execution of this target only
+                compiled.add(new Target(nameOf(target, i), CompiledRequest.invalid(definition, e.getMessage())));
+            }
+        }
+        log.debug("Compiled {} targets of fan-out job {}", compiled.size(), definition.jobName());
+        return compiled;
+    }
+
+    private CompiledRequest compile(JobDefinition definition, JsonNode target) {
+        HttpHeaders headers = new HttpHeaders();
+        definition.headers().forEach((name, values) ->
+                values.forEach(value -> headers.add(name, resolve(value, target, false))));
+        JobDefinition expanded = new JobDefinition(definition.id(), definition.jobName(), definition.jobGroup(),
+                resolve(definition.url(), target, true), definition.method(),
+                resolve(definition.requestBody(), target, false), HttpHeaders.readOnlyHttpHeaders(headers),
+                definition.maxConcurrentCalls(), definition.rateLimitPerSecond(),
+                definition.captureResponse(), definition.captureMaxBytes(), null, null, null,
+                definition.cronExpression(), definition.resilience());
+        return requestCompiler.compile(expanded, definition.jobName() + "#" + hostOf(expanded));
+    }
+
+    // One breaker per host keeps a single failing tenant from opening the circuit for all of them
+    private String hostOf(JobDefinition expanded) {
+        try {
+            String host = restTemplate.getUriTemplateHandler().expand(expanded.url()).getHost();
+            return host != null ? host : "unknown";
+        } catch (IllegalArgumentException e) {
+            return "unknown";
+        }
+    }
+
+    private static String resolve(String template, JsonNode target, boolean urlEncode) {
+        if (template == null || !template.contains("{{")) {
+            return template;
+        }
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuilder resolved = new StringBuilder();
+        while (matcher.find()) {
+            JsonNode node = target;
+            String path = matcher.group(1);
+            if (!path.isEmpty()) {
+                for (String field : path.substring(1).split("\\.")) {
+                    node = node.isArray() && field.matches("\\d+") ? node.path(Integer.parseInt(field)) : node.path(field);
+                }
+            }
+            if (node.isMissingNode() || node.isNull()) {
+                throw new IllegalStateException("Placeholder " + matcher.group() + " has no value for target " + target);
+            }
+            String value = node.isValueNode() ? node.asText() : node.toString();
+            if (urlEncode) {
+                value = UriUtils.encode(value, StandardCharsets.UTF_8);
+            }
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    private static String nameOf(JsonNode target, int index) {
+        if (target.isValueNode()) {
+            return target.asText();
+        }
+        for (String field : List.of("name", "id")) {
+            if (target.path(field).isValueNode()) {
+                return target.path(field).asText();
+            }
+        }
+        return Integer.toString(index);
+    }
+}
@@ -0,0 +1,210 @@
+package in.myratech.scheduler.job;
+
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.service.ExecutionEventBus;
+import in.myratech.scheduler.service.JobHistoryWriter;
+import in.myratech.scheduler.service.JobStatsRegistry;
+import in.myratech.scheduler.service.WorkflowSvc;
+import io.micrometer.core.instrument.Timer;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs one fire of a fan-out job end to end: resolves the targets, calls them concurrently through
+ * the execution engine with at most the job's parallelism in flight, and records the per-target
+ * history records as one batch. Used for direct fires and for fires claimed from the outbox queue alike.
+ */
+@Component
+public class FanOutRunner {
+    private static final Logger log = LoggerFactory.getLogger(FanOutRunner.class);
+    private static final long INTERRUPT_GRACE_MS = 1000;
+
+    @Autowired
+    private JobHistoryWriter historyWriter;
+
+    @Autowired
+    private JobStatsRegistry statsRegistry;
+
+    @Autowired
+    private FireMetrics fireMetrics;
+
+    @Autowired
+    private FanOutPlanner fanOutPlanner;
+
+    @Autowired
+    private RequestRunner requestRunner;
+
+    @Autowired
+    private JobExecutionEngine executionEngine;
+
+    @Autowired
+    private WorkflowSvc workflowSvc;
+
+    @Autowired
+    private ExecutionEventBus eventBus;
+
+    /**
+     * Host the coordinator of a fan-out fire is dispatched under, it makes no calls of its own.
+     */
+    public static String coordinatorHost(JobKey jobKey) {
+        return "fan-out:" + jobKey;
+    }
+
+    public void run(JobDefinition definition, String triggerName, UUID workflowRunId) throws JobExecutionException {
+        run(definition, triggerName, workflowRunId, historyWriter::submitAll);
+    }
+
+    /**
+     * Runs the fire and hands its history records to the given recorder instead of the history queue.
+     */
+    public void run(JobDefinition definition, String triggerName, UUID workflowRunId,
+                    Consumer<List<JobExecutionHistory>> recorder) throws JobExecutionException {
+        String jobName = definition.jobName();
+        Timer.Sample fire = fireMetrics.start();
+        long started = System.currentTimeMillis();
+        eventBus.started(definition, triggerName, workflowRunId);
+
+        List<FanOutPlanner.Target> targets;
+        try {
+            targets = fanOutPlanner.targets(definition);
+        } catch (Exception e) {
+            log.error("Failed to resolve targets of fan-out job {}: {}", jobName, e.getMessage(), e);
+            JobExecutionHistory history = history(definition, triggerName, workflowRunId, null, started);
+            history.setStatus("FAILED");
+            history.setErrorMessage("Failed to resolve targets: " + e.getMessage());
+            finish(definition, List.of(history), fire, workflowRunId, recorder);
+            eventBus.finished(definition, triggerName, workflowRunId, "FAILED", started, history.getErrorMessage());
+            throw new JobExecutionException(e);
+        }
+
+        int parallelism = fanOutPlanner.parallelism(definition);
+        log.info("Starting fan-out job: {} (UUID: {}) with {} targets, parallelism {}",
+                jobName, definition.id(), targets.size(), parallelism);
+        List<JobExecutionHistory> histories = targets.stream()
+                .map(target -> history(definition, triggerName, workflowRunId, target.name(), started))
+                .toList();
+        // Targets go through the execution engine under their own host, so they share its per-host bound
+        // and run on its threads, which do not see the idempotency key of the coordinator thread
+        String idempotencyKey = IdempotencyKey.current();
+        Semaphore permits = new Semaphore(parallelism);
+        CountDownLatch done = new CountDownLatch(targets.size());
+        int dispatched = 0;
+        try {
+            for (; dispatched < targets.size(); dispatched++) {
+                FanOutPlanner.Target target = targets.get(dispatched);
+                JobExecutionHistory history = histories.get(dispatched);
+                permits.acquire();
+                try {
+                    executionEngine.dispatch(target.request().host(), () -> {
+                        try {
+                            history.setStartTime(new Timestamp(System.currentTimeMillis()));
+                            IdempotencyKey.runWith(idempotencyKey, () -> requestRunner.execute(target.request(), history));
+                        } catch (JobExecutionException e) {
+                            log.debug("Target {} of fan-out job {} failed: {}", target.name(), jobName, e.getMessage());
+                        } finally {
+                            history.setEndTime(new Timestamp(System.currentTimeMillis()));
+                            permits.release();
+                            done.countDown();
+                        }
+                    });
+                } catch (JobExecutionException e) {
+                    history.setStatus("FAILED");
+                    history.setErrorMessage("Not executed: " + e.getMessage());
+                    permits.release();
+                    done.countDown();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Fan-out job {} interrupted, targets not yet started are recorded as failed", jobName);
+            for (int i = dispatched; i < targets.size(); i++) {
+                done.countDown();
+            }
+        }
+        awaitTargets(done);
+
+        for (JobExecutionHistory history : histories) {
+            if (history.getStatus() == null) {
+                history.setStatus("FAILED");
+                history.setErrorMessage("Not executed, fan-out was interrupted");
+            }
+        }
+        long failed = finish(definition, histories, fire, workflowRunId, recorder);
+        eventBus.finished(definition, triggerName, workflowRunId, failed == 0 ? "SUCCESS" : "FAILED", started,
+                failed == 0 ? null : failed + " of " + histories.size() + " targets failed");
+        log.info("Fan-out job {} finished in {} ms, {} of {} targets failed",
+                jobName, System.currentTimeMillis() - started, failed, histories.size());
+        if (failed > 0) {
+            throw new JobExecutionException(failed + " of " + histories.size() + " targets of " + jobName + " failed");
+        }
+    }
+
+    /**
+     * Waits for the dispatched targets. An interrupt only comes with the engine shutting down, which also
+     * interrupts the targets and drops those still waiting for a permit, so they get a short grace to
+     * record their outcome and whatever did not run is then recorded as not executed.
+     */
+    private static void awaitTargets(CountDownLatch done) {
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            try {
+                done.await(INTERRUPT_GRACE_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignored) {
+                // Already shutting down
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long finish(JobDefinition definition, List<JobExecutionHistory> histories, Timer.Sample fire,
+                        UUID workflowRunId, Consumer<List<JobExecutionHistory>> recorder) {
+        Timer.Sample persist = fireMetrics.start();
+        recorder.accept(histories);
+        fireMetrics.stopHistory(persist, definition);
+
+        long failed = 0;
+        for (JobExecutionHistory history : histories) {
+            boolean success = "SUCCESS".equals(history.getStatus());
+            failed += success ? 0 : 1;
+            statsRegistry.record(definition, success, history.getStartTime().getTime(),
+                    history.getEndTime().getTime() - history.getStartTime().getTime());
+        }
+        String status = failed == 0 ? "SUCCESS" : "FAILED";
+        fireMetrics.stopFire(fire, definition, null, status);
+
+        if (workflowRunId != null) {
+            try {
+                workflowSvc.onStepComplete(workflowRunId, definition.id(), failed == 0, null);
+            } catch (Exception e) {
+                log.error("Failed to advance workflow run {} after job {}. Error: {}",
+                        workflowRunId, definition.id(), e.getMessage(), e);
+            }
+        }
+        return failed;
+    }
+
+    private static JobExecutionHistory history(JobDefinition definition, String triggerName, UUID workflowRunId,
+                                               String target, long startMillis) {
+        JobExecutionHistory history = new JobExecutionHistory();
+        history.setJobId(definition.id());
+        history.setTriggerName(triggerName);
+        history.setWorkflowRunId(workflowRunId);
+        history.setTarget(target);
+        history.setStartTime(new Timestamp(startMillis));
+        history.setEndTime(new Timestamp(startMillis));
+        return history;
+    }
+}
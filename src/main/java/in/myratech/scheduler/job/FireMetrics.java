@@ -0,0 +1,201 @@
+package in.myratech.scheduler.job;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for each phase of a job fire. Every meter is tagged by job group, the job name tag is
+ * opt-in because it grows with the number of jobs. Retries and circuit transitions are counted
+ * here too since the Resilience4j registries are built by hand and are not bound to Micrometer.
+ */
+@Component
+public class FireMetrics {
+    private static final Logger log = LoggerFactory.getLogger(FireMetrics.class);
+
+    // Attempt number of the call running on this thread, retries run synchronously on the caller
+    private static final ThreadLocal<int[]> ATTEMPT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired(required = false)
+    private ObservationRegistry observationRegistry;
+
+    @Value("${scheduler.metrics.job-name-tag:false}")
+    private boolean jobNameTag;
+
+    @Value("${scheduler.tracing.enabled:false}")
+    private boolean tracing;
+
+    @PostConstruct
+    public void init() {
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(this::bind);
+        circuitBreakerRegistry.getEventPublisher().onEntryAdded(event -> bind(event.getAddedEntry()));
+        circuitBreakerRegistry.getEventPublisher().onEntryReplaced(event -> bind(event.getNewEntry()));
+    }
+
+    public Tags tags(String group, String jobName) {
+        return jobNameTag ? Tags.of("group", group, "job", jobName) : Tags.of("group", group);
+    }
+
+    public Tags tags(JobDefinition definition) {
+        return tags(definition.jobGroup(), definition.jobName());
+    }
+
+    public void recordLag(String group, String jobName, long lagMs) {
+        Timer.builder("scheduler.fire.lag")
+                .description("Delay between the scheduled and the actual fire time")
+                .tags(tags(group, jobName))
+                .register(meterRegistry)
+                .record(Math.max(0, lagMs), TimeUnit.MILLISECONDS);
+    }
+
+    public void recordMisfire(String group, String jobName) {
+        meterRegistry.counter("scheduler.fire.misfires", tags(group, jobName)).increment();
+    }
+
+    public void recordVeto(String group, String jobName) {
+        meterRegistry.counter("scheduler.fire.vetoed", tags(group, jobName)).increment();
+    }
+
+    public void recordDispatch(String group, String jobName, long runTimeMs) {
+        Timer.builder("scheduler.fire.dispatch")
+                .description("Time the Quartz worker spent on a fire before handing it to the execution engine")
+                .tags(tags(group, jobName))
+                .register(meterRegistry)
+                .record(Math.max(0, runTimeMs), TimeUnit.MILLISECONDS);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stopLookup(Timer.Sample sample, String group, String jobName, boolean found) {
+        sample.stop(Timer.builder("scheduler.fire.lookup")
+                .description("Time to resolve the job definition, including the database on a cache miss")
+                .tags(tags(group, jobName).and("outcome", found ? "found" : "not_found"))
+                .register(meterRegistry));
+    }
+
+    public void stopHistory(Timer.Sample sample, JobDefinition definition) {
+        sample.stop(Timer.builder("scheduler.fire.history")
+                .description("Time to hand the execution record to the history writer")
+                .tags(tags(definition))
+                .register(meterRegistry));
+    }
+
+    public void stopFire(Timer.Sample sample, JobDefinition definition, HttpMethod method, String outcome) {
+        sample.stop(Timer.builder("scheduler.fire.duration")
+                .description("Time from the start of a fire until its history is recorded")
+                .tags(tags(definition).and("method", method != null ? method.name() : "NONE", "outcome", outcome))
+                .register(meterRegistry));
+    }
+
+    /**
+     * Times each HTTP attempt on its own, tagged by status series or exception and by first or retry attempt.
+     */
+    public <T> Supplier<ResponseEntity<T>> timeAttempt(JobDefinition definition, HttpMethod method,
+                                                       Supplier<ResponseEntity<T>> attempt) {
+        Tags tags = tags(definition).and("method", method.name());
+        return () -> {
+            int number = ++ATTEMPT.get()[0];
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "UNKNOWN";
+            try {
+                ResponseEntity<T> response = attempt.get();
+                outcome = response != null ? series(response.getStatusCode().value()) : "UNKNOWN";
+                return response;
+            } catch (HttpStatusCodeException e) {
+                outcome = series(e.getStatusCode().value());
+                throw e;
+            } catch (RuntimeException e) {
+                outcome = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                sample.stop(Timer.builder("scheduler.fire.http")
+                        .description("Latency of a single outbound HTTP attempt")
+                        .tags(tags.and("outcome", outcome, "attempt", number == 1 ? "first" : "retry"))
+                        .register(meterRegistry));
+            }
+        };
+    }
+
+    /**
+     * Resets the attempt number before the decorated call and counts the retries it took.
+     */
+    public <T> Supplier<ResponseEntity<T>> countAttempts(JobDefinition definition, Supplier<ResponseEntity<T>> call) {
+        Tags tags = tags(definition);
+        return () -> {
+            int[] attempt = ATTEMPT.get();
+            attempt[0] = 0;
+            try {
+                return call.get();
+            } finally {
+                if (attempt[0] > 1) {
+                    meterRegistry.counter("scheduler.fire.retries", tags).increment(attempt[0] - 1);
+                }
+            }
+        };
+    }
+
+    /**
+     * Counts a retry the job's policy did not make, by reason: budget, deadline or retry-after.
+     */
+    public void recordSuppressedRetry(JobDefinition definition, String reason) {
+        meterRegistry.counter("scheduler.fire.retries.suppressed", tags(definition).and("reason", reason)).increment();
+    }
+
+    /**
+     * Runs the fire inside an observation, which becomes a span when a tracing bridge is configured.
+     */
+    public void observe(JobDefinition definition, JobExecutionEngine.JobTask task) throws JobExecutionException {
+        if (!tracing || observationRegistry == null) {
+            task.run();
+            return;
+        }
+        Observation.createNotStarted("scheduler.job.fire", observationRegistry)
+                .contextualName("fire " + definition.jobGroup() + "." + definition.jobName())
+                .lowCardinalityKeyValue("job.group", definition.jobGroup())
+                .highCardinalityKeyValue("job.name", definition.jobName())
+                .highCardinalityKeyValue("job.id", String.valueOf(definition.id()))
+                .observeChecked(task::run);
+    }
+
+    private void bind(CircuitBreaker circuitBreaker) {
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            Tags tags = Tags.of("from", transition.getFromState().name(), "to", transition.getToState().name());
+            if (jobNameTag) {
+                tags = tags.and("circuit", event.getCircuitBreakerName());
+            }
+            meterRegistry.counter("scheduler.circuitbreaker.transitions", tags).increment();
+            log.warn("Circuit breaker {} moved from {} to {}", event.getCircuitBreakerName(),
+                    transition.getFromState(), transition.getToState());
+        });
+    }
+
+    private static String series(int status) {
+        return (status / 100) + "xx";
+    }
+}
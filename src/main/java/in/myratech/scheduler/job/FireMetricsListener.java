@@ -0,0 +1,76 @@
+package in.myratech.scheduler.job;
+
+import in.myratech.scheduler.service.QuartzTuner;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.JobListener;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Global Quartz listener feeding fire lag, misfires, vetoes and worker hand-off time into {@link FireMetrics},
+ * and the fire lag of each scheduler into {@link QuartzTuner}.
+ */
+@Component
+public class FireMetricsListener implements JobListener, TriggerListener {
+
+    @Autowired
+    private FireMetrics fireMetrics;
+
+    @Autowired
+    private QuartzTuner quartzTuner;
+
+    @Override
+    public String getName() {
+        return "fireMetrics";
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        if (context.getScheduledFireTime() != null && context.getFireTime() != null) {
+            JobKey jobKey = trigger.getJobKey();
+            long lagMs = context.getFireTime().getTime() - context.getScheduledFireTime().getTime();
+            fireMetrics.recordLag(jobKey.getGroup(), jobKey.getName(), lagMs);
+            try {
+                quartzTuner.recordLag(context.getScheduler().getSchedulerName(), lagMs);
+            } catch (SchedulerException e) {
+                // The name of a running scheduler is always available
+            }
+        }
+    }
+
+    @Override
+    public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+        return false;
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        fireMetrics.recordMisfire(trigger.getJobKey().getGroup(), trigger.getJobKey().getName());
+    }
+
+    @Override
+    public void triggerComplete(Trigger trigger, JobExecutionContext context,
+                                Trigger.CompletedExecutionInstruction triggerInstructionCode) {
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {
+    }
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+        JobKey jobKey = context.getJobDetail().getKey();
+        fireMetrics.recordVeto(jobKey.getGroup(), jobKey.getName());
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+        JobKey jobKey = context.getJobDetail().getKey();
+        fireMetrics.recordDispatch(jobKey.getGroup(), jobKey.getName(), context.getJobRunTime());
+    }
+}
@@ -0,0 +1,39 @@
+package in.myratech.scheduler.job;
+
+import in.myratech.scheduler.service.HistoryPartitionManager;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps partitions ahead of the clock and rolls expired ones into daily aggregates.
+ * Runs on one cluster node at a time.
+ */
+@Component
+@DisallowConcurrentExecution
+public class HistoryMaintenanceJob implements Job {
+    private static final Logger log = LoggerFactory.getLogger(HistoryMaintenanceJob.class);
+
+    @Autowired
+    private HistoryPartitionManager partitionManager;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        try {
+            LocalDate today = LocalDate.now();
+            partitionManager.ensurePartitions(today);
+            int dropped = partitionManager.applyRetention(today);
+            log.info("History maintenance finished, {} partitions dropped", dropped);
+        } catch (Exception e) {
+            log.error("History maintenance failed. Error: {}", e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
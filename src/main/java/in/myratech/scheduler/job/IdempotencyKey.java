@@ -0,0 +1,42 @@
+package in.myratech.scheduler.job;
+
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Key identifying one fire of a trigger, the same for every delivery of that fire. It deduplicates
+ * fires in the outbox queue and is sent to the target as the {@value #HEADER} header, so targets can
+ * drop a call that is redelivered after an executor crashed mid-call.
+ */
+public final class IdempotencyKey {
+    public static final String HEADER = "Idempotency-Key";
+
+    // Set for the call running on this thread, retries run synchronously on the caller
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private IdempotencyKey() {
+    }
+
+    public static String of(JobKey jobKey, String triggerName, Date scheduledFireTime) {
+        String fire = jobKey.getGroup() + "/" + jobKey.getName() + "/" + triggerName + "/"
+                + (scheduledFireTime != null ? scheduledFireTime.getTime() : 0);
+        return UUID.nameUUIDFromBytes(fire.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void runWith(String key, JobExecutionEngine.JobTask task) throws JobExecutionException {
+        CURRENT.set(key);
+        try {
+            task.run();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+}
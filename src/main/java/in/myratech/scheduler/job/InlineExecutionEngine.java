@@ -0,0 +1,14 @@
+package in.myratech.scheduler.job;
+
+import org.quartz.JobExecutionException;
+
+/**
+ * Runs the task on the calling Quartz worker thread, failures are propagated back to Quartz.
+ */
+public class InlineExecutionEngine implements JobExecutionEngine {
+
+    @Override
+    public void dispatch(String host, JobTask task) throws JobExecutionException {
+        task.run();
+    }
+}
@@ -0,0 +1,69 @@
+package in.myratech.scheduler.job;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.entity.JobDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolved, immutable view of a job used on the execution hot path, with headers already parsed.
+ */
+public record JobDefinition(UUID id, String jobName, String jobGroup, String url, String method,
+                            String requestBody, HttpHeaders headers,
+                            Integer maxConcurrentCalls, Double rateLimitPerSecond,
+                            boolean captureResponse, Integer captureMaxBytes,
+                            String targets, String targetsUrl, Integer fanOutParallelism,
+                            String cronExpression, ResiliencePolicy resilience) {
+    private static final Logger log = LoggerFactory.getLogger(JobDefinition.class);
+    private static final TypeReference<Map<String, String>> HEADER_MAP = new TypeReference<>() {};
+
+    public static JobDefinition from(JobDetails jobDetails, ObjectMapper mapper) {
+        return new JobDefinition(jobDetails.getId(), jobDetails.getJobName(), jobDetails.getJobGroup(),
+                jobDetails.getUrl(), jobDetails.getMethod(), jobDetails.getRequestBody(),
+                parseHeaders(jobDetails.getHeaders(), mapper),
+                jobDetails.getMaxConcurrentCalls(), jobDetails.getRateLimitPerSecond(),
+                Boolean.TRUE.equals(jobDetails.getCaptureResponse()), jobDetails.getCaptureMaxBytes(),
+                jobDetails.getTargets(), jobDetails.getTargetsUrl(), jobDetails.getFanOutParallelism(),
+                jobDetails.getCronExpression(), parseResilience(jobDetails.getResilience()));
+    }
+
+    public boolean isFanOut() {
+        return isFanOut(targets, targetsUrl);
+    }
+
+    public static boolean isFanOut(JobDetails jobDetails) {
+        return isFanOut(jobDetails.getTargets(), jobDetails.getTargetsUrl());
+    }
+
+    private static boolean isFanOut(String targets, String targetsUrl) {
+        return (targets != null && !targets.isBlank()) || (targetsUrl != null && !targetsUrl.isBlank());
+    }
+
+    private static ResiliencePolicy parseResilience(String resilience) {
+        try {
+            return ResiliencePolicy.parse(resilience);
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to parse resilience policy, using the defaults: {}", e.getMessage());
+            return ResiliencePolicy.NONE;
+        }
+    }
+
+    private static HttpHeaders parseHeaders(String headers, ObjectMapper mapper) {
+        HttpHeaders httpHeaders = new HttpHeaders();
+        if (headers != null && !headers.isEmpty()) {
+            try {
+                Map<String, String> headerMap = mapper.readValue(headers, HEADER_MAP);
+                headerMap.forEach(httpHeaders::add);
+                log.debug("Parsed headers: {}", headerMap.keySet());
+            } catch (Exception e) {
+                log.warn("Failed to parse headers: {}", e.getMessage());
+            }
+        }
+        return HttpHeaders.readOnlyHttpHeaders(httpHeaders);
+    }
+}
@@ -0,0 +1,25 @@
+package in.myratech.scheduler.job;
+
+import org.quartz.JobExecutionException;
+
+/**
+ * Runs the work of a job fire. Quartz worker threads only hand the fire off to the engine,
+ * so implementations decide whether the HTTP call, retry backoff and history write happen
+ * on the calling thread or somewhere else.
+ */
+public interface JobExecutionEngine {
+
+    /**
+     * Dispatches a task targeting the given host.
+     *
+     * @param host target host of the outbound call, used to bound per-host concurrency
+     * @param task the work to run
+     * @throws JobExecutionException if the task fails synchronously or cannot be accepted
+     */
+    void dispatch(String host, JobTask task) throws JobExecutionException;
+
+    @FunctionalInterface
+    interface JobTask {
+        void run() throws JobExecutionException;
+    }
+}
@@ -0,0 +1,107 @@
+package in.myratech.scheduler.job;
+
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.service.ExecutionEventBus;
+import in.myratech.scheduler.service.JobHistoryWriter;
+import in.myratech.scheduler.service.JobStatsRegistry;
+import in.myratech.scheduler.service.WorkflowSvc;
+import io.micrometer.core.instrument.Timer;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Runs one execution of a single-target job end to end: prepares workflow steps, makes the call and
+ * records history, statistics and fire metrics, then advances the workflow run. Used for direct fires
+ * and for executions claimed from the outbox queue alike.
+ */
+@Component
+public class JobRunner {
+    private static final Logger log = LoggerFactory.getLogger(JobRunner.class);
+
+    @Autowired
+    private JobHistoryWriter historyWriter;
+
+    @Autowired
+    private JobStatsRegistry statsRegistry;
+
+    @Autowired
+    private FireMetrics fireMetrics;
+
+    @Autowired
+    private RequestRunner requestRunner;
+
+    @Autowired
+    private WorkflowSvc workflowSvc;
+
+    @Autowired
+    private ExecutionEventBus eventBus;
+
+    public void run(CompiledRequest request, String triggerName, UUID workflowRunId) throws JobExecutionException {
+        run(request, triggerName, workflowRunId, historyWriter::submit);
+    }
+
+    /**
+     * Runs the execution and hands its history record to the given recorder instead of the history queue.
+     */
+    public void run(CompiledRequest request, String triggerName, UUID workflowRunId,
+                    Consumer<JobExecutionHistory> recorder) throws JobExecutionException {
+        JobDefinition definition = request.definition();
+        String jobName = definition.jobName();
+        log.info("Starting execution of job: {} (UUID: {})", jobName, definition.id());
+
+        Timer.Sample fire = fireMetrics.start();
+        JobExecutionHistory history = new JobExecutionHistory();
+        history.setJobId(definition.id());
+        history.setTriggerName(triggerName);
+        history.setWorkflowRunId(workflowRunId);
+        history.setStartTime(new Timestamp(System.currentTimeMillis()));
+        eventBus.started(definition, triggerName, workflowRunId);
+
+        try {
+            if (workflowRunId != null) {
+                // Steps resolve placeholders from upstream outputs and always capture their own response
+                try {
+                    request = workflowSvc.prepareStep(workflowRunId, request);
+                    definition = request.definition();
+                } catch (RuntimeException e) {
+                    history.setStatus("FAILED");
+                    history.setErrorMessage(e.getMessage());
+                    log.error("Failed to prepare workflow step {}: {}", jobName, e.getMessage());
+                    throw new JobExecutionException(e);
+                }
+            }
+            requestRunner.execute(request, history);
+        } finally {
+            history.setEndTime(new Timestamp(System.currentTimeMillis()));
+            Timer.Sample persist = fireMetrics.start();
+            recorder.accept(history);
+            fireMetrics.stopHistory(persist, definition);
+            statsRegistry.record(definition, "SUCCESS".equals(history.getStatus()), history.getStartTime().getTime(),
+                    history.getEndTime().getTime() - history.getStartTime().getTime());
+            fireMetrics.stopFire(fire, definition, request.method(), history.getStatus());
+            eventBus.finished(definition, triggerName, workflowRunId, history.getStatus(),
+                    history.getStartTime().getTime(), history.getErrorMessage());
+            log.info("Job execution history recorded for job: {}", jobName);
+            if (workflowRunId != null) {
+                completeStep(workflowRunId, history);
+            }
+        }
+    }
+
+    private void completeStep(UUID workflowRunId, JobExecutionHistory history) {
+        try {
+            workflowSvc.onStepComplete(workflowRunId, history.getJobId(), "SUCCESS".equals(history.getStatus()),
+                    history.getResponseBody());
+        } catch (Exception e) {
+            log.error("Failed to advance workflow run {} after job {}. Error: {}",
+                    workflowRunId, history.getJobId(), e.getMessage(), e);
+        }
+    }
+}
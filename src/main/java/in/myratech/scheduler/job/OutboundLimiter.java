@@ -0,0 +1,216 @@
+package in.myratech.scheduler.job;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Token-bucket rate limiters and bulkheads applied to every outbound call attempt, keyed by
+ * target host, by job group and by job. Calls over a limit wait for a permit instead of failing,
+ * only a wait longer than {@code scheduler.limits.max-wait} rejects the attempt.
+ * Zero disables a limit.
+ */
+@Component
+public class OutboundLimiter {
+    private static final Logger log = LoggerFactory.getLogger(OutboundLimiter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scheduler.limits.max-wait:60000}")
+    private long maxWait;
+
+    @Value("${scheduler.limits.host.rate-per-second:0}")
+    private double hostRatePerSecond;
+
+    // Comma separated host=rate overrides, e.g. api.partner.com=5
+    @Value("${scheduler.limits.host.rate-overrides:}")
+    private String hostRateOverrides;
+
+    @Value("${scheduler.limits.group.max-concurrent-calls:0}")
+    private int groupMaxConcurrentCalls;
+
+    @Value("${scheduler.limits.group.rate-per-second:0}")
+    private double groupRatePerSecond;
+
+    private final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+    private final RateLimiterRegistry rateLimiterRegistry = RateLimiterRegistry.ofDefaults();
+    private final Map<String, Double> hostRates = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (hostRateOverrides == null || hostRateOverrides.isBlank()) {
+            return;
+        }
+        for (String entry : hostRateOverrides.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid scheduler.limits.host.rate-overrides entry: " + entry);
+            }
+            hostRates.put(entry.substring(0, separator).trim(), Double.parseDouble(entry.substring(separator + 1).trim()));
+        }
+        log.info("Per-host rate limit overrides: {}", hostRates);
+    }
+
+    /**
+     * Resolves the limits that apply to a job, called once when its request is compiled.
+     * Limiters are shared by name, changed per-job settings are applied to the existing instances.
+     */
+    public Permits permitsFor(JobDefinition definition, String host) {
+        List<Limit<RateLimiter>> rateLimiters = new ArrayList<>();
+        List<Limit<Bulkhead>> bulkheads = new ArrayList<>();
+
+        double hostRate = hostRates.getOrDefault(host, hostRatePerSecond);
+        if (host != null && hostRate > 0) {
+            rateLimiters.add(limit("host", host, rateLimiter("host:" + host, hostRate)));
+        }
+        if (groupRatePerSecond > 0) {
+            rateLimiters.add(limit("group", definition.jobGroup(),
+                    rateLimiter("group:" + definition.jobGroup(), groupRatePerSecond)));
+        }
+        if (definition.rateLimitPerSecond() != null && definition.rateLimitPerSecond() > 0) {
+            rateLimiters.add(limit("job", null,
+                    rateLimiter(jobName(definition), definition.rateLimitPerSecond())));
+        }
+        if (groupMaxConcurrentCalls > 0) {
+            bulkheads.add(limit("group", definition.jobGroup(),
+                    bulkhead("group:" + definition.jobGroup(), groupMaxConcurrentCalls)));
+        }
+        if (definition.maxConcurrentCalls() != null && definition.maxConcurrentCalls() > 0) {
+            bulkheads.add(limit("job", null, bulkhead(jobName(definition), definition.maxConcurrentCalls())));
+        }
+        return new Permits(rateLimiters, bulkheads);
+    }
+
+    // Meters are looked up once here rather than on every call attempt
+    private <T> Limit<T> limit(String scope, String key, T limiter) {
+        Tags tags = key != null ? Tags.of("scope", scope, "key", key) : Tags.of("scope", scope);
+        return new Limit<>(scope, key, limiter, meterRegistry.timer("scheduler.limits.wait", tags),
+                meterRegistry.counter("scheduler.limits.rejected", tags));
+    }
+
+    private static String jobName(JobDefinition definition) {
+        return "job:" + definition.jobGroup() + "/" + definition.jobName();
+    }
+
+    private Bulkhead bulkhead(String name, int maxConcurrentCalls) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(maxWait))
+                .fairCallHandlingStrategyEnabled(true)
+                .build();
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(name, config);
+        if (bulkhead.getBulkheadConfig().getMaxConcurrentCalls() != maxConcurrentCalls) {
+            bulkhead.changeConfig(config);
+        }
+        return bulkhead;
+    }
+
+    private RateLimiter rateLimiter(String name, double ratePerSecond) {
+        // Whole rates refresh every second, any other rate becomes one permit per 1/rate seconds
+        boolean whole = ratePerSecond >= 1 && ratePerSecond == Math.rint(ratePerSecond);
+        int limitForPeriod = whole ? (int) ratePerSecond : 1;
+        Duration refreshPeriod = whole
+                ? Duration.ofSeconds(1)
+                : Duration.ofNanos(Math.max(1, Math.round(1_000_000_000 / ratePerSecond)));
+        RateLimiterConfig config = RateLimiterConfig.custom()
+                .limitForPeriod(limitForPeriod)
+                .limitRefreshPeriod(refreshPeriod)
+                .timeoutDuration(Duration.ofMillis(maxWait))
+                .build();
+        RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter(name, config);
+        RateLimiterConfig current = rateLimiter.getRateLimiterConfig();
+        if (!current.getLimitRefreshPeriod().equals(refreshPeriod)) {
+            rateLimiter = RateLimiter.of(name, config);
+            rateLimiterRegistry.replace(name, rateLimiter);
+        } else if (current.getLimitForPeriod() != limitForPeriod) {
+            rateLimiter.changeLimitForPeriod(limitForPeriod);
+        }
+        return rateLimiter;
+    }
+
+    private record Limit<T>(String scope, String key, T limiter, Timer waitTimer, Counter rejectedCounter) {
+    }
+
+    /**
+     * Limits bound to one job, acquired around each call attempt.
+     */
+    public final class Permits {
+        private final List<Limit<RateLimiter>> rateLimiters;
+        private final List<Limit<Bulkhead>> bulkheads;
+
+        private Permits(List<Limit<RateLimiter>> rateLimiters, List<Limit<Bulkhead>> bulkheads) {
+            this.rateLimiters = rateLimiters;
+            this.bulkheads = bulkheads;
+        }
+
+        public <T> T call(Supplier<T> supplier) {
+            if (rateLimiters.isEmpty() && bulkheads.isEmpty()) {
+                return supplier.get();
+            }
+            for (Limit<RateLimiter> limit : rateLimiters) {
+                long start = System.nanoTime();
+                try {
+                    RateLimiter.waitForPermission(limit.limiter());
+                } catch (RequestNotPermitted e) {
+                    rejected(limit);
+                    throw e;
+                } finally {
+                    waited(limit, start);
+                }
+            }
+            int acquired = 0;
+            try {
+                for (Limit<Bulkhead> limit : bulkheads) {
+                    long start = System.nanoTime();
+                    try {
+                        limit.limiter().acquirePermission();
+                        acquired++;
+                    } catch (BulkheadFullException e) {
+                        rejected(limit);
+                        throw e;
+                    } finally {
+                        waited(limit, start);
+                    }
+                }
+                return supplier.get();
+            } finally {
+                for (int i = 0; i < acquired; i++) {
+                    bulkheads.get(i).limiter().onComplete();
+                }
+            }
+        }
+
+        private void waited(Limit<?> limit, long startNanos) {
+            limit.waitTimer().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void rejected(Limit<?> limit) {
+            limit.rejectedCounter().increment();
+            log.warn("Outbound call rejected by {} limit {} after waiting {} ms", limit.scope(), limit.key(), maxWait);
+        }
+    }
+}
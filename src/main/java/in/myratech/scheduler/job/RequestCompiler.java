@@ -0,0 +1,133 @@
+package in.myratech.scheduler.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.function.Supplier;
+
+@Component
+public class RequestCompiler {
+    private static final Logger log = LoggerFactory.getLogger(RequestCompiler.class);
+    private static final Set<HttpMethod> SUPPORTED_METHODS =
+            Set.of(HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE);
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private ResiliencePolicies resiliencePolicies;
+
+    @Autowired
+    private OutboundLimiter outboundLimiter;
+
+    @Autowired
+    private FireMetrics fireMetrics;
+
+    @Value("${scheduler.capture.default-max-bytes:65536}")
+    private int captureDefaultMaxBytes;
+
+    @Value("${scheduler.capture.max-bytes-limit:1048576}")
+    private int captureMaxBytesLimit;
+
+    public CompiledRequest compile(JobDefinition definition) {
+        if (definition.isFanOut()) {
+            // The url is a template here, each target is compiled on its own when the job fires
+            return CompiledRequest.invalid(definition, "Fan-out job " + definition.jobName() + " is compiled per target");
+        }
+        return compile(definition, definition.jobName());
+    }
+
+    /**
+     * Compiles with the circuit breaker and retry budget registered under {@code resilienceName}
+     * instead of the job name, so requests of one job can fail independently.
+     */
+    public CompiledRequest compile(JobDefinition definition, String resilienceName) {
+        String url = definition.url() != null ? definition.url().trim() : "";
+        if (url.isEmpty()) {
+            return CompiledRequest.invalid(definition, "URL is required but was not provided");
+        }
+        String methodName = definition.method() != null ? definition.method().trim() : "";
+        if (methodName.isEmpty()) {
+            return CompiledRequest.invalid(definition, "HTTP Method is required but was not provided");
+        }
+        HttpMethod method = HttpMethod.valueOf(methodName.toUpperCase());
+        if (!SUPPORTED_METHODS.contains(method)) {
+            return CompiledRequest.invalid(definition, "Unsupported HTTP method: " + methodName);
+        }
+
+        URI uri;
+        try {
+            uri = restTemplate.getUriTemplateHandler().expand(url);
+        } catch (IllegalArgumentException e) {
+            return CompiledRequest.invalid(definition, "Invalid URL " + url + ": " + e.getMessage());
+        }
+
+        HttpEntity<byte[]> entity = buildEntity(definition);
+        OutboundLimiter.Permits permits = outboundLimiter.permitsFor(definition, uri.getHost());
+        RequestCallback requestCallback = restTemplate.httpEntityCallback(entity);
+        ResponseExtractor<ResponseEntity<CapturedBody>> extractor = responseExtractor(definition);
+        Supplier<ResponseEntity<CapturedBody>> attempt = fireMetrics.timeAttempt(definition, method, () -> {
+            log.info("Executing {} request to {}", method, uri);
+            return restTemplate.execute(uri, method, requestCallback, extractor);
+        });
+        Supplier<ResponseEntity<CapturedBody>> call = fireMetrics.countAttempts(definition,
+                resiliencePolicies.decorate(definition, resilienceName, () -> permits.call(attempt)));
+
+        log.debug("Compiled request for job {}: {} {}", definition.jobName(), method, uri);
+        return new CompiledRequest(definition, uri, method, entity, call);
+    }
+
+    /**
+     * Keeps status and headers. Capturing jobs also get the body read up to their limit, the rest of
+     * the stream is left unread so a large response is never buffered.
+     */
+    private ResponseExtractor<ResponseEntity<CapturedBody>> responseExtractor(JobDefinition definition) {
+        if (!definition.captureResponse()) {
+            return response -> new ResponseEntity<>(response.getHeaders(), response.getStatusCode());
+        }
+        int maxBytes = captureMaxBytes(definition);
+        return response -> {
+            InputStream body = response.getBody();
+            byte[] bytes = body.readNBytes(maxBytes);
+            boolean truncated = bytes.length == maxBytes && body.read() != -1;
+            return new ResponseEntity<>(new CapturedBody(bytes, truncated), response.getHeaders(), response.getStatusCode());
+        };
+    }
+
+    public int captureMaxBytes(JobDefinition definition) {
+        int requested = definition.captureMaxBytes() != null && definition.captureMaxBytes() > 0
+                ? definition.captureMaxBytes() : captureDefaultMaxBytes;
+        return Math.min(requested, captureMaxBytesLimit);
+    }
+
+    private static HttpEntity<byte[]> buildEntity(JobDefinition definition) {
+        if (definition.requestBody() == null) {
+            return new HttpEntity<>(definition.headers());
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(definition.headers());
+        MediaType contentType = headers.getContentType();
+        if (contentType == null) {
+            contentType = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+            headers.setContentType(contentType);
+        }
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        return new HttpEntity<>(definition.requestBody().getBytes(charset), HttpHeaders.readOnlyHttpHeaders(headers));
+    }
+}
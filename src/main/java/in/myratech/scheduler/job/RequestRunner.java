@@ -0,0 +1,88 @@
+package in.myratech.scheduler.job;
+
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.service.ResponsePayloadStore;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.util.Arrays;
+
+/**
+ * Executes one compiled request and records its status, error and captured response on a history record.
+ * Shared by jobs calling a single endpoint and jobs fanning out to many.
+ */
+@Component
+public class RequestRunner {
+    private static final Logger log = LoggerFactory.getLogger(RequestRunner.class);
+
+    @Autowired
+    private ResponsePayloadStore payloadStore;
+
+    @Autowired
+    private RequestCompiler requestCompiler;
+
+    /**
+     * @throws JobExecutionException if the request is invalid or failed, the history is marked failed first
+     */
+    public void execute(CompiledRequest request, JobExecutionHistory history) throws JobExecutionException {
+        JobDefinition definition = request.definition();
+        try {
+            if (!request.isValid()) {
+                log.error(request.error());
+                throw new JobExecutionException(request.error());
+            }
+
+            log.debug("Job parameters - URL: {}, Method: {}, Headers Present: {}, Body Present: {}",
+                    request.uri(), request.method(), !definition.headers().isEmpty(), definition.requestBody() != null);
+
+            // Execute with circuit breaker and retry
+            ResponseEntity<CapturedBody> response = request.execute();
+
+            history.setStatus("SUCCESS");
+            if (response != null) {
+                history.setErrorMessage("Response Status: " + response.getStatusCode());
+                log.info("Job execution successful. Response Status: {}", response.getStatusCode());
+                if (definition.captureResponse()) {
+                    CapturedBody body = response.getBody();
+                    capture(history, body != null ? body.bytes() : new byte[0],
+                            body != null && body.truncated(), response.getHeaders());
+                }
+            }
+
+        } catch (HttpStatusCodeException e) {
+            // The error handler already capped the body it read into the exception
+            if (definition.captureResponse()) {
+                byte[] body = e.getResponseBodyAsByteArray();
+                int maxBytes = requestCompiler.captureMaxBytes(definition);
+                capture(history, body.length > maxBytes ? Arrays.copyOf(body, maxBytes) : body,
+                        body.length >= maxBytes, e.getResponseHeaders());
+            }
+            fail(history, e);
+            throw new JobExecutionException(e);
+        } catch (Exception e) {
+            fail(history, e);
+            throw e instanceof JobExecutionException jobException ? jobException : new JobExecutionException(e);
+        }
+    }
+
+    private void fail(JobExecutionHistory history, Exception e) {
+        history.setStatus("FAILED");
+        history.setErrorMessage(e.getMessage());
+        log.error("Job execution failed: {}", e.getMessage(), e);
+    }
+
+    // Only raw bytes are kept here, hashing and compression happen on the history writer
+    private void capture(JobExecutionHistory history, byte[] body, boolean truncated, HttpHeaders headers) {
+        history.setResponseBody(body);
+        history.setResponseTruncated(truncated);
+        if (headers != null) {
+            history.setResponseHeaders(payloadStore.headersJson(headers));
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package in.myratech.scheduler.job;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import jakarta.annotation.PostConstruct;
+import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a job's call in its circuit breaker and retries according to the job's {@link ResiliencePolicy}.
+ * Retries back off exponentially with jitter, wait at least as long as a {@code Retry-After} header asks,
+ * stop once the next attempt would start past the deadline and draw from a retry budget shared by all
+ * calls of the job, so an outage cannot multiply the traffic sent to a failing target. Policy changes
+ * take effect when the job is recompiled, a changed circuit breaker is replaced in the registry.
+ * <p>
+ * Retry defaults come from the {@code default} Resilience4j retry instance in the configuration, circuit
+ * breaker defaults from the registry's default config.
+ */
+@Component
+public class ResiliencePolicies {
+    private static final Logger log = LoggerFactory.getLogger(ResiliencePolicies.class);
+
+    // Retries a job can spend before its budget only refills from its own traffic
+    private static final double BUDGET_RESERVE = 10;
+    private static final int INTERVAL_SAMPLES = 5;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private FireMetrics fireMetrics;
+
+    @Value("${resilience4j.retry.instances.default.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${resilience4j.retry.instances.default.wait-duration:1s}")
+    private Duration initialBackoff;
+
+    @Value("${resilience4j.retry.instances.default.exponential-backoff-multiplier:2}")
+    private double backoffMultiplier;
+
+    @Value("${resilience4j.retry.instances.default.exponential-max-wait-duration:30s}")
+    private Duration maxBackoff;
+
+    @Value("${resilience4j.retry.instances.default.randomized-wait-factor:0.5}")
+    private double jitter;
+
+    @Value("${scheduler.resilience.retry-budget-percent:20}")
+    private double retryBudgetPercent;
+
+    @Value("${scheduler.resilience.honor-retry-after:true}")
+    private boolean honorRetryAfter;
+
+    @Value("${scheduler.resilience.deadline:0}")
+    private long deadline;
+
+    private ResiliencePolicy defaults;
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+    private final Map<String, BreakerSettings> breakerSettings = new ConcurrentHashMap<>();
+
+    private record BreakerSettings(float failureRateThreshold, int slidingWindowSize, int minimumCalls, long waitInOpenMs) {
+    }
+
+    @PostConstruct
+    public void init() {
+        CircuitBreakerConfig breaker = circuitBreakerRegistry.getDefaultConfig();
+        defaults = new ResiliencePolicy(maxAttempts, initialBackoff.toMillis(), backoffMultiplier, maxBackoff.toMillis(),
+                jitter, retryBudgetPercent, honorRetryAfter, deadline, breaker.getFailureRateThreshold(),
+                breaker.getSlidingWindowSize(), breaker.getMinimumNumberOfCalls(),
+                breaker.getWaitIntervalFunctionInOpenState().apply(1));
+    }
+
+    public ResiliencePolicy resolve(JobDefinition definition) {
+        return definition.resilience().withDefaults(defaults);
+    }
+
+    /**
+     * Decorates the call with the circuit breaker and retries registered under {@code name}.
+     */
+    public <T> Supplier<ResponseEntity<T>> decorate(JobDefinition definition, String name, Supplier<ResponseEntity<T>> call) {
+        ResiliencePolicy policy = resolve(definition);
+        Supplier<ResponseEntity<T>> guarded = CircuitBreaker.decorateSupplier(circuitBreaker(name, policy), call);
+        RetryBudget budget = budgets.compute(name, (key, existing) ->
+                existing != null && existing.percent == policy.retryBudgetPercent() ? existing
+                        : new RetryBudget(policy.retryBudgetPercent()));
+        long deadlineMs = policy.deadlineMs() > 0 ? policy.deadlineMs() : fireIntervalMs(definition.cronExpression());
+        return () -> callWithRetries(definition, policy, budget, deadlineMs, guarded);
+    }
+
+    private <T> ResponseEntity<T> callWithRetries(JobDefinition definition, ResiliencePolicy policy, RetryBudget budget,
+                                                  long deadlineMs, Supplier<ResponseEntity<T>> call) {
+        long deadlineAt = deadlineMs > 0 ? System.currentTimeMillis() + deadlineMs : Long.MAX_VALUE;
+        budget.deposit();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= policy.maxAttempts() || !isRetryable(e)) {
+                    throw e;
+                }
+                long wait = backoff(policy, attempt);
+                Long retryAfter = policy.honorRetryAfter() ? retryAfterMs(e) : null;
+                if (retryAfter != null) {
+                    // Without a deadline a far-off Retry-After would park the call indefinitely
+                    if (deadlineAt == Long.MAX_VALUE && retryAfter > policy.maxBackoffMs()) {
+                        fireMetrics.recordSuppressedRetry(definition, "retry-after");
+                        throw e;
+                    }
+                    wait = Math.max(wait, retryAfter);
+                }
+                if (System.currentTimeMillis() + wait >= deadlineAt) {
+                    log.debug("Not retrying job {} after attempt {}, the next attempt would start past its deadline",
+                            definition.jobName(), attempt);
+                    fireMetrics.recordSuppressedRetry(definition, "deadline");
+                    throw e;
+                }
+                if (!budget.withdraw()) {
+                    log.debug("Not retrying job {} after attempt {}, its retry budget is spent", definition.jobName(), attempt);
+                    fireMetrics.recordSuppressedRetry(definition, "budget");
+                    throw e;
+                }
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Limits and open circuits are not target failures, client errors do not go away by repeating the call
+    private static boolean isRetryable(RuntimeException e) {
+        if (e instanceof BulkheadFullException || e instanceof RequestNotPermitted || e instanceof CallNotPermittedException) {
+            return false;
+        }
+        if (e instanceof HttpStatusCodeException http) {
+            int status = http.getStatusCode().value();
+            return status >= 500 ? status != 501 : status == 408 || status == 425 || status == 429;
+        }
+        return true;
+    }
+
+    private static long backoff(ResiliencePolicy policy, int attempt) {
+        double wait = Math.min(policy.maxBackoffMs(),
+                policy.initialBackoffMs() * Math.pow(policy.backoffMultiplier(), attempt - 1));
+        return Math.round(wait * (1 - policy.jitter() * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private static Long retryAfterMs(RuntimeException e) {
+        if (!(e instanceof HttpStatusCodeException http) || http.getResponseHeaders() == null) {
+            return null;
+        }
+        String value = http.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException notSeconds) {
+            try {
+                long at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return Math.max(0, at - System.currentTimeMillis());
+            } catch (DateTimeParseException notDate) {
+                return null;
+            }
+        }
+    }
+
+    private synchronized CircuitBreaker circuitBreaker(String name, ResiliencePolicy policy) {
+        BreakerSettings settings = new BreakerSettings(policy.failureRateThreshold(), policy.slidingWindowSize(),
+                policy.minimumCalls(), policy.waitInOpenMs());
+        BreakerSettings applied = breakerSettings.put(name, settings);
+        Optional<CircuitBreaker> existing = circuitBreakerRegistry.find(name);
+        if (existing.isPresent() && settings.equals(applied)) {
+            return existing.get();
+        }
+        CircuitBreakerConfig config = CircuitBreakerConfig.from(circuitBreakerRegistry.getDefaultConfig())
+                .failureRateThreshold(settings.failureRateThreshold())
+                .slidingWindowSize(settings.slidingWindowSize())
+                .minimumNumberOfCalls(settings.minimumCalls())
+                .waitDurationInOpenState(Duration.ofMillis(settings.waitInOpenMs()))
+                .build();
+        if (existing.isEmpty()) {
+            return circuitBreakerRegistry.circuitBreaker(name, config);
+        }
+        CircuitBreaker replacement = CircuitBreaker.of(name, config);
+        circuitBreakerRegistry.replace(name, replacement);
+        log.info("Circuit breaker {} reconfigured to {}", name, settings);
+        return replacement;
+    }
+
+    /**
+     * Smallest gap between the next fires of a cron expression, 0 for jobs without a schedule.
+     */
+    static long fireIntervalMs(String cronExpression) {
+        if (cronExpression == null) {
+            return 0;
+        }
+        try {
+            CronExpression cron = new CronExpression(cronExpression);
+            Date fire = cron.getNextValidTimeAfter(new Date());
+            long interval = Long.MAX_VALUE;
+            for (int i = 0; i < INTERVAL_SAMPLES && fire != null; i++) {
+                Date next = cron.getNextValidTimeAfter(fire);
+                if (next != null) {
+                    interval = Math.min(interval, next.getTime() - fire.getTime());
+                }
+                fire = next;
+            }
+            return interval == Long.MAX_VALUE ? 0 : interval;
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Every call deposits a fraction of a retry, every retry withdraws a whole one, so over time retries
+     * stay within the percentage of calls. The reserve lets rarely firing jobs retry as well.
+     */
+    private static final class RetryBudget {
+        private final double percent;
+        private double balance = BUDGET_RESERVE;
+
+        private RetryBudget(double percent) {
+            this.percent = percent;
+        }
+
+        private synchronized void deposit() {
+            balance = Math.min(BUDGET_RESERVE, balance + percent / 100);
+        }
+
+        private synchronized boolean withdraw() {
+            if (percent <= 0) {
+                return true;
+            }
+            if (balance < 1) {
+                return false;
+            }
+            balance--;
+            return true;
+        }
+    }
+}
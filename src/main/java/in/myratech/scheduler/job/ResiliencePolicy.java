@@ -0,0 +1,100 @@
+package in.myratech.scheduler.job;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Retry and circuit breaker settings of a job, stored on the job as JSON. Every field is optional,
+ * missing ones fall back to the configured defaults.
+ *
+ * @param maxAttempts          attempts including the first call
+ * @param initialBackoffMs     wait before the first retry, multiplied by {@code backoffMultiplier} for each further one
+ * @param maxBackoffMs         cap on a single wait
+ * @param jitter               share of each wait, between 0 and 1, that is randomly left out
+ * @param retryBudgetPercent   retries allowed as a percentage of the job's calls, 0 disables the budget
+ * @param honorRetryAfter      whether a {@code Retry-After} header on a failed response sets the wait
+ * @param deadlineMs           cap on a call with all its retries, 0 uses the job's fire interval
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResiliencePolicy(Integer maxAttempts, Long initialBackoffMs, Double backoffMultiplier, Long maxBackoffMs,
+                               Double jitter, Double retryBudgetPercent, Boolean honorRetryAfter, Long deadlineMs,
+                               Float failureRateThreshold, Integer slidingWindowSize, Integer minimumCalls,
+                               Long waitInOpenMs) {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final ResiliencePolicy NONE =
+            new ResiliencePolicy(null, null, null, null, null, null, null, null, null, null, null, null);
+
+    /**
+     * @throws IllegalArgumentException if the JSON is malformed
+     */
+    public static ResiliencePolicy parse(String json) {
+        if (json == null || json.isBlank()) {
+            return NONE;
+        }
+        try {
+            return MAPPER.readValue(json, ResiliencePolicy.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid resilience policy: " + e.getOriginalMessage());
+        }
+    }
+
+    public String toJson() {
+        try {
+            return MAPPER.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the first invalid setting, or null when the policy is valid
+     */
+    public String validate() {
+        if (maxAttempts != null && maxAttempts < 1) {
+            return "maxAttempts must be at least 1";
+        }
+        if ((initialBackoffMs != null && initialBackoffMs < 0) || (maxBackoffMs != null && maxBackoffMs < 0)) {
+            return "Backoff must not be negative";
+        }
+        if (backoffMultiplier != null && backoffMultiplier < 1) {
+            return "backoffMultiplier must be at least 1";
+        }
+        if (jitter != null && (jitter < 0 || jitter > 1)) {
+            return "jitter must be between 0 and 1";
+        }
+        if (retryBudgetPercent != null && retryBudgetPercent < 0) {
+            return "retryBudgetPercent must not be negative";
+        }
+        if (deadlineMs != null && deadlineMs < 0) {
+            return "deadlineMs must not be negative";
+        }
+        if (failureRateThreshold != null && (failureRateThreshold <= 0 || failureRateThreshold > 100)) {
+            return "failureRateThreshold must be above 0 and at most 100";
+        }
+        if ((slidingWindowSize != null && slidingWindowSize < 1) || (minimumCalls != null && minimumCalls < 1)) {
+            return "slidingWindowSize and minimumCalls must be at least 1";
+        }
+        if (waitInOpenMs != null && waitInOpenMs < 1) {
+            return "waitInOpenMs must be at least 1";
+        }
+        return null;
+    }
+
+    public ResiliencePolicy withDefaults(ResiliencePolicy defaults) {
+        return new ResiliencePolicy(
+                maxAttempts != null ? maxAttempts : defaults.maxAttempts,
+                initialBackoffMs != null ? initialBackoffMs : defaults.initialBackoffMs,
+                backoffMultiplier != null ? backoffMultiplier : defaults.backoffMultiplier,
+                maxBackoffMs != null ? maxBackoffMs : defaults.maxBackoffMs,
+                jitter != null ? jitter : defaults.jitter,
+                retryBudgetPercent != null ? retryBudgetPercent : defaults.retryBudgetPercent,
+                honorRetryAfter != null ? honorRetryAfter : defaults.honorRetryAfter,
+                deadlineMs != null ? deadlineMs : defaults.deadlineMs,
+                failureRateThreshold != null ? failureRateThreshold : defaults.failureRateThreshold,
+                slidingWindowSize != null ? slidingWindowSize : defaults.slidingWindowSize,
+                minimumCalls != null ? minimumCalls : defaults.minimumCalls,
+                waitInOpenMs != null ? waitInOpenMs : defaults.waitInOpenMs);
+    }
+}
@@ -0,0 +1,212 @@
+package in.myratech.scheduler.job;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Quartz worker pool whose size can change while the scheduler runs. Quartz asks the pool how many
+ * workers are free before acquiring triggers, so the size set here directly bounds how many triggers
+ * are acquired and fired at once. Threads are created on demand and retire after a minute idle.
+ * <p>
+ * Quartz instantiates the pool from {@code org.quartz.threadPool.class}, outside of Spring, so every
+ * pool registers itself by scheduler name for the tuner to find.
+ */
+public class ResizableThreadPool implements ThreadPool {
+    private static final Logger log = LoggerFactory.getLogger(ResizableThreadPool.class);
+    private static final Map<String, ResizableThreadPool> POOLS = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private int threadCount = 10;
+    private int threadPriority = Thread.NORM_PRIORITY;
+    private String instanceName = "scheduler";
+    private int busy;
+    private int peakBusy;
+    private long saturatedWaits;
+    private boolean shutdown;
+    private ExecutorService executor;
+
+    public static Collection<ResizableThreadPool> pools() {
+        return POOLS.values();
+    }
+
+    public static ResizableThreadPool pool(String schedulerName) {
+        return POOLS.get(schedulerName);
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setThreadPriority(int threadPriority) {
+        this.threadPriority = threadPriority;
+    }
+
+    @Override
+    public void initialize() throws SchedulerConfigException {
+        if (threadCount <= 0) {
+            throw new SchedulerConfigException("Thread count must be > 0");
+        }
+        executor = Executors.newCachedThreadPool(Thread.ofPlatform()
+                .name(instanceName + "_Worker-", 1)
+                .priority(threadPriority)
+                .factory());
+        POOLS.put(instanceName, this);
+        log.info("Quartz worker pool for {} initialized with {} threads", instanceName, threadCount);
+    }
+
+    @Override
+    public boolean runInThread(Runnable runnable) {
+        lock.lock();
+        try {
+            while (busy >= threadCount && !shutdown) {
+                available.awaitUninterruptibly();
+            }
+            if (shutdown) {
+                return false;
+            }
+            busy++;
+            peakBusy = Math.max(peakBusy, busy);
+        } finally {
+            lock.unlock();
+        }
+        executor.execute(() -> {
+            try {
+                runnable.run();
+            } finally {
+                release();
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        lock.lock();
+        try {
+            if (busy >= threadCount && !shutdown) {
+                saturatedWaits++;
+            }
+            while (busy >= threadCount && !shutdown) {
+                available.awaitUninterruptibly();
+            }
+            return shutdown ? 0 : threadCount - busy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the number of workers. Growing takes effect at the next acquisition, shrinking lets
+     * running jobs finish and hands out no new work until the pool is below the new size.
+     */
+    public void resize(int newSize) {
+        if (newSize <= 0) {
+            throw new IllegalArgumentException("Thread count must be > 0");
+        }
+        lock.lock();
+        try {
+            int previous = threadCount;
+            threadCount = newSize;
+            available.signalAll();
+            log.info("Quartz worker pool for {} resized from {} to {} threads", instanceName, previous, newSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            busy--;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        lock.lock();
+        try {
+            shutdown = true;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        POOLS.remove(instanceName, this);
+        executor.shutdown();
+        if (waitForJobsToComplete) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        return threadCount;
+    }
+
+    public int getBusy() {
+        lock.lock();
+        try {
+            return busy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Highest number of busy workers since the previous call, which resets it to the current count.
+     */
+    public int drainPeakBusy() {
+        lock.lock();
+        try {
+            int peak = peakBusy;
+            peakBusy = busy;
+            return peak;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Times the scheduler found every worker busy when it wanted to acquire triggers.
+     */
+    public long getSaturatedWaits() {
+        lock.lock();
+        try {
+            return saturatedWaits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getInstanceName() {
+        return instanceName;
+    }
+
+    @Override
+    public void setInstanceId(String schedInstId) {
+    }
+
+    @Override
+    public void setInstanceName(String schedName) {
+        this.instanceName = schedName;
+    }
+}
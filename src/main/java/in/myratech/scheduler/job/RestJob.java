@@ -1,139 +1,70 @@
 package in.myratech.scheduler.job;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import in.myratech.scheduler.entity.JobDetails;
-import in.myratech.scheduler.entity.JobExecutionHistory;
-import in.myratech.scheduler.repo.JobDetailsRepository;
-import in.myratech.scheduler.repo.JobExecutionHistoryRepository;
-import io.github.resilience4j.circuitbreaker.CircuitBreaker;
-import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
-import io.github.resilience4j.retry.Retry;
-import io.github.resilience4j.retry.RetryRegistry;
+import in.myratech.scheduler.service.FairShareDispatcher;
+import in.myratech.scheduler.service.JobDefinitionCache;
+import in.myratech.scheduler.service.OutboxDispatcher;
+import in.myratech.scheduler.service.WorkflowSvc;
+import io.micrometer.core.instrument.Timer;
 import org.quartz.Job;
-import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
-import java.sql.Timestamp;
-import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 public class RestJob implements Job {
     private static final Logger log = LoggerFactory.getLogger(RestJob.class);
 
     @Autowired
-    private RestTemplate restTemplate;
+    private JobDefinitionCache jobDefinitionCache;
 
     @Autowired
-    private JobExecutionHistoryRepository historyRepository;
+    private FairShareDispatcher fairShareDispatcher;
 
     @Autowired
-    private JobDetailsRepository jobDetailsRepository;
+    private FireMetrics fireMetrics;
 
     @Autowired
-    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private JobRunner jobRunner;
 
     @Autowired
-    private RetryRegistry retryRegistry;
+    private OutboxDispatcher outboxDispatcher;
 
     @Override
     public void execute(JobExecutionContext context) throws JobExecutionException {
-        String jobName = context.getJobDetail().getKey().getName();
-        String jobGroup = context.getJobDetail().getKey().getGroup();
+        JobKey jobKey = context.getJobDetail().getKey();
 
-        JobDetails jobDetails = jobDetailsRepository.findByJobNameAndJobGroup(jobName, jobGroup)
+        Timer.Sample lookup = fireMetrics.start();
+        Optional<CompiledRequest> compiled = jobDefinitionCache.get(jobKey);
+        fireMetrics.stopLookup(lookup, jobKey.getGroup(), jobKey.getName(), compiled.isPresent());
+        CompiledRequest request = compiled
                 .orElseThrow(() -> {
-                    String error = String.format("Job not found with name: %s and group: %s", jobName, jobGroup);
+                    String error = "Job not found with name: " + jobKey.getName() + " and group: " + jobKey.getGroup();
                     log.error(error);
                     return new JobExecutionException(error);
                 });
 
-        log.info("Starting execution of job: {} (UUID: {})", jobName, jobDetails.getId());
-
-        JobExecutionHistory history = new JobExecutionHistory();
-        history.setJobId(jobDetails.getId());
-        history.setTriggerName(context.getTrigger().getKey().getName());
-        history.setStartTime(new Timestamp(System.currentTimeMillis()));
-
-        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(jobName);
-        Retry retry = retryRegistry.retry(jobName);
-
-        try {
-            JobDataMap dataMap = context.getJobDetail().getJobDataMap();
-
-            String url = validateParameter(dataMap, "url", "URL");
-            String method = validateParameter(dataMap, "method", "HTTP Method");
-            String requestBody = dataMap.getString("requestBody");
-            String headers = dataMap.getString("headers");
-
-            log.debug("Job parameters - URL: {}, Method: {}, Headers Present: {}, Body Present: {}",
-                    url, method, headers != null, requestBody != null);
-
-            HttpHeaders httpHeaders = new HttpHeaders();
-            if (headers != null && !headers.isEmpty()) {
-                try {
-                    ObjectMapper mapper = new ObjectMapper();
-                    Map<String, String> headerMap = mapper.readValue(headers, Map.class);
-                    headerMap.forEach(httpHeaders::add);
-                    log.debug("Parsed headers: {}", headerMap.keySet());
-                } catch (Exception e) {
-                    log.warn("Failed to parse headers: {}", e.getMessage());
-                }
-            }
-
-            HttpEntity<?> entity = new HttpEntity<>(requestBody, httpHeaders);
-
-            // Execute with circuit breaker and retry
-            ResponseEntity<String> response = Retry.decorateFunction(retry,
-                    CircuitBreaker.decorateFunction(circuitBreaker,
-                            (ignored) -> makeHttpCall(method, url, entity)
-                    )).apply(null);
-
-            history.setStatus("SUCCESS");
-            if (response != null) {
-                history.setErrorMessage("Response Status: " + response.getStatusCode());
-                log.info("Job execution successful. Response Status: {}", response.getStatusCode());
+        // Everything needed after the hand-off is captured here, the context must not escape the Quartz thread
+        String triggerName = context.getTrigger().getKey().getName();
+        String workflowRun = context.getMergedJobDataMap().getString(WorkflowSvc.RUN_ID_KEY);
+        UUID workflowRunId = workflowRun != null ? UUID.fromString(workflowRun) : null;
+
+        if (outboxDispatcher.isEnabled()) {
+            try {
+                outboxDispatcher.enqueue(request.definition(), triggerName, context.getScheduledFireTime(), workflowRunId);
+            } catch (RuntimeException e) {
+                log.error("Failed to enqueue fire of job {}: {}", jobKey.getName(), e.getMessage(), e);
+                throw new JobExecutionException(e);
             }
-
-        } catch (Exception e) {
-            history.setStatus("FAILED");
-            history.setErrorMessage(e.getMessage());
-            log.error("Job execution failed: {}", e.getMessage(), e);
-            throw new JobExecutionException(e);
-        } finally {
-            history.setEndTime(new Timestamp(System.currentTimeMillis()));
-            historyRepository.save(history);
-            log.info("Job execution history saved for job: {}", jobName);
-        }
-    }
-
-    private ResponseEntity<String> makeHttpCall(String method, String url, HttpEntity<?> entity) {
-        log.info("Executing {} request to {}", method, url);
-        return switch (method.toUpperCase()) {
-            case "GET" -> restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-            case "POST" -> restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-            case "PUT" -> restTemplate.exchange(url, HttpMethod.PUT, entity, String.class);
-            case "DELETE" -> restTemplate.exchange(url, HttpMethod.DELETE, entity, String.class);
-            default -> throw new IllegalArgumentException("Unsupported HTTP method: " + method);
-        };
-    }
-
-    private String validateParameter(JobDataMap dataMap, String key, String paramName) throws JobExecutionException {
-        String value = dataMap.getString(key);
-        if (value == null || value.trim().isEmpty()) {
-            String error = paramName + " is required but was not provided";
-            log.error(error);
-            throw new JobExecutionException(error);
+            return;
         }
-        return value.trim();
+        fairShareDispatcher.dispatch(jobKey.getGroup(), request.host(),
+                () -> fireMetrics.observe(request.definition(), () -> jobRunner.run(request, triggerName, workflowRunId)));
     }
-}
\ No newline at end of file
+}
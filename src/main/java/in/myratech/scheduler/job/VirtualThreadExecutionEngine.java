@@ -0,0 +1,119 @@
+package in.myratech.scheduler.job;
+
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every task on its own virtual thread so the Quartz worker is released as soon as the
+ * fire is handed off. Blocking I/O and retry backoff only park the virtual thread.
+ * Concurrency towards a single host is bounded by a fair semaphore, excess tasks wait for a permit.
+ * <p>
+ * Both the number of tasks waiting on a host and the number of tasks in the engine are capped, a
+ * task over either cap is rejected at dispatch so an overloaded node misfires instead of piling up
+ * threads. A host's semaphore is dropped as soon as it has no task left.
+ */
+public class VirtualThreadExecutionEngine implements JobExecutionEngine, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadExecutionEngine.class);
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("job-exec-", 0).factory());
+    private final Map<String, HostSlot> hosts = new ConcurrentHashMap<>();
+    private final Semaphore inFlight;
+    private final int maxConcurrencyPerHost;
+    private final int maxQueuedPerHost;
+    private final int maxInFlight;
+    private final long shutdownTimeoutMs;
+
+    // Tasks of one host, running or waiting for a permit, only changed under the map's lock for the host
+    private static final class HostSlot {
+        private final Semaphore permits;
+        private int tasks;
+
+        private HostSlot(int maxConcurrency) {
+            this.permits = new Semaphore(maxConcurrency, true);
+        }
+    }
+
+    public VirtualThreadExecutionEngine(int maxConcurrencyPerHost, int maxQueuedPerHost, int maxInFlight,
+                                        long shutdownTimeoutMs) {
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+        this.maxQueuedPerHost = maxQueuedPerHost;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    @Override
+    public void dispatch(String host, JobTask task) throws JobExecutionException {
+        if (!inFlight.tryAcquire()) {
+            throw new JobExecutionException("Execution engine already runs " + maxInFlight + " tasks, fire for host "
+                    + host + " rejected");
+        }
+        boolean[] accepted = new boolean[1];
+        HostSlot slot = hosts.compute(host, (h, current) -> {
+            HostSlot next = current != null ? current : new HostSlot(maxConcurrencyPerHost);
+            if (next.tasks < maxConcurrencyPerHost + maxQueuedPerHost) {
+                next.tasks++;
+                accepted[0] = true;
+            }
+            return next;
+        });
+        if (!accepted[0]) {
+            inFlight.release();
+            throw new JobExecutionException(maxQueuedPerHost + " fires already wait for host " + host + ", fire rejected");
+        }
+        try {
+            executor.execute(() -> runWithPermit(host, slot, task));
+        } catch (RejectedExecutionException e) {
+            finished(host);
+            throw new JobExecutionException("Execution engine is shutting down, fire for host " + host + " rejected", e);
+        }
+    }
+
+    private void runWithPermit(String host, HostSlot slot, JobTask task) {
+        try {
+            slot.permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for a connection permit to host: {}", host);
+            finished(host);
+            return;
+        }
+        try {
+            task.run();
+        } catch (JobExecutionException e) {
+            // Failure has already been logged and recorded in the execution history
+            log.debug("Asynchronous job execution failed for host {}: {}", host, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Unexpected error in asynchronous job execution for host {}: {}", host, e.getMessage(), e);
+        } finally {
+            slot.permits.release();
+            finished(host);
+        }
+    }
+
+    private void finished(String host) {
+        hosts.computeIfPresent(host, (h, slot) -> --slot.tasks == 0 ? null : slot);
+        inFlight.release();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        log.info("Shutting down execution engine, waiting up to {} ms for in-flight jobs", shutdownTimeoutMs);
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("In-flight jobs did not finish within {} ms, interrupting", shutdownTimeoutMs);
+            executor.shutdownNow();
+        }
+    }
+}
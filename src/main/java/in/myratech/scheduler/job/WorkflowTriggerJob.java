@@ -0,0 +1,34 @@
+package in.myratech.scheduler.job;
+
+import in.myratech.scheduler.service.WorkflowSvc;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Cron entry point of a scheduled workflow, the job is named after the workflow id.
+ */
+@Component
+public class WorkflowTriggerJob implements Job {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowTriggerJob.class);
+
+    @Autowired
+    private WorkflowSvc workflowSvc;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        UUID workflowId = UUID.fromString(context.getJobDetail().getKey().getName());
+        try {
+            workflowSvc.startRun(workflowId);
+        } catch (Exception e) {
+            log.error("Failed to start run of workflow {}. Error: {}", workflowId, e.getMessage(), e);
+            throw new JobExecutionException(e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package in.myratech.scheduler.repo;
+
+import in.myratech.scheduler.entity.GroupQuota;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GroupQuotaRepository extends JpaRepository<GroupQuota, String> {
+}
@@ -0,0 +1,13 @@
+package in.myratech.scheduler.repo;
+
+import in.myratech.scheduler.entity.JobDependency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JobDependencyRepository extends JpaRepository<JobDependency, UUID> {
+    List<JobDependency> findByWorkflowId(UUID workflowId);
+}
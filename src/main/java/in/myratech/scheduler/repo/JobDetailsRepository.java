@@ -1,6 +1,7 @@
 package in.myratech.scheduler.repo;
 
 import in.myratech.scheduler.entity.JobDetails;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,7 +14,10 @@ import java.util.UUID;
 @Repository
 public interface JobDetailsRepository extends JpaRepository<JobDetails, UUID> {
     Page<JobDetails> findByActiveTrue(Pageable pageable); // Use Page instead of List
-    Optional<JobDetails> findByJobNameAndJobGroup(String jobName, String jobGroup);
+    Optional<JobDetails> findByJobNameAndJobGroupAndDeletedFalse(String jobName, String jobGroup);
     Optional<JobDetails> findByIdAndDeletedFalse(UUID jobId);
     Page<JobDetails> findByActive(boolean active, Pageable pageable);
+    List<JobDetails> findByActiveTrueAndIdGreaterThanOrderByIdAsc(UUID id, Limit limit); // Keyset page, no count query
+    List<JobDetails> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+    List<JobDetails> findByActiveAndIdGreaterThanOrderByIdAsc(boolean active, UUID id, Limit limit);
 }
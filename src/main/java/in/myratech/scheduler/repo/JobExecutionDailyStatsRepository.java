@@ -0,0 +1,14 @@
+package in.myratech.scheduler.repo;
+
+import in.myratech.scheduler.entity.JobExecutionDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JobExecutionDailyStatsRepository extends JpaRepository<JobExecutionDailyStats, JobExecutionDailyStats.Key> {
+    List<JobExecutionDailyStats> findByJobIdAndDayBetweenOrderByDayDesc(UUID jobId, LocalDate from, LocalDate to);
+}
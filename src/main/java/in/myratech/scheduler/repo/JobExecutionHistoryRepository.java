@@ -1,9 +1,12 @@
 package in.myratech.scheduler.repo;
 
 import in.myratech.scheduler.entity.JobExecutionHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
@@ -15,4 +18,12 @@ public interface JobExecutionHistoryRepository extends JpaRepository<JobExecutio
     Page<JobExecutionHistory> findByJobIdOrderByStartTimeDesc(UUID jobId, Pageable pageable); // Use Page instead of List
     Page<JobExecutionHistory> findByStatusOrderByStartTimeDesc(String status, Pageable pageable);
     Page<JobExecutionHistory> findByStartTimeBetweenOrderByStartTimeDesc(Timestamp startTime, Timestamp endTime, Pageable pageable);
+
+    // Keyset pages on (startTime, uuid), newest first, without a count query
+    List<JobExecutionHistory> findByJobIdOrderByStartTimeDescUuidDesc(UUID jobId, Limit limit);
+
+    @Query("select h from JobExecutionHistory h where h.jobId = :jobId " +
+            "and (h.startTime, h.uuid) < (:startTime, :uuid) order by h.startTime desc, h.uuid desc")
+    List<JobExecutionHistory> findByJobIdBefore(@Param("jobId") UUID jobId, @Param("startTime") Timestamp startTime,
+                                                @Param("uuid") UUID uuid, Limit limit);
 }
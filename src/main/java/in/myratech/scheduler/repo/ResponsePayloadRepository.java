@@ -0,0 +1,9 @@
+package in.myratech.scheduler.repo;
+
+import in.myratech.scheduler.entity.ResponsePayload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ResponsePayloadRepository extends JpaRepository<ResponsePayload, String> {
+}
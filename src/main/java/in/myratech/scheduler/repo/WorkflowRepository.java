@@ -0,0 +1,14 @@
+package in.myratech.scheduler.repo;
+
+import in.myratech.scheduler.entity.Workflow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WorkflowRepository extends JpaRepository<Workflow, UUID> {
+    boolean existsByName(String name);
+    List<Workflow> findByActiveTrue();
+}
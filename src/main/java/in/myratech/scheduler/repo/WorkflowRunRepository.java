@@ -0,0 +1,24 @@
+package in.myratech.scheduler.repo;
+
+import in.myratech.scheduler.entity.WorkflowRun;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface WorkflowRunRepository extends JpaRepository<WorkflowRun, UUID> {
+    // Serializes step completions of one run so that joins see every finished upstream step
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from WorkflowRun r where r.id = :id")
+    Optional<WorkflowRun> findLockedById(@Param("id") UUID id);
+
+    List<WorkflowRun> findByWorkflowIdOrderByStartTimeDesc(UUID workflowId, Limit limit);
+}
@@ -0,0 +1,15 @@
+package in.myratech.scheduler.repo;
+
+import in.myratech.scheduler.entity.WorkflowStepRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface WorkflowStepRunRepository extends JpaRepository<WorkflowStepRun, UUID> {
+    List<WorkflowStepRun> findByRunId(UUID runId);
+    Optional<WorkflowStepRun> findByRunIdAndJobId(UUID runId, UUID jobId);
+}
@@ -0,0 +1,73 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.dto.BatchItemResult;
+import in.myratech.scheduler.entity.JobDetails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a JSON array of jobs from the request stream and creates them chunk by chunk,
+ * so only one chunk of definitions is held in memory at a time.
+ */
+@Service
+public class BulkJobSvc {
+    private static final Logger log = LoggerFactory.getLogger(BulkJobSvc.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SchedulerSvc schedulerSvc;
+
+    @Value("${scheduler.batch.chunk-size:500}")
+    private int chunkSize;
+
+    public List<BatchItemResult> createJobs(InputStream body, boolean replace) throws IOException {
+        List<BatchItemResult> results = new ArrayList<>();
+        List<JobDetails> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array of jobs");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk.add(objectMapper.readValue(parser, JobDetails.class));
+                if (chunk.size() == chunkSize) {
+                    results.addAll(schedulerSvc.createJobs(chunk, index, replace));
+                    index += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a job object");
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Malformed batch payload after {} jobs: {}", index + chunk.size(), e.getOriginalMessage());
+            results.addAll(createChunk(chunk, index, replace));
+            results.add(new BatchItemResult(index + chunk.size(), null, null, null, BatchItemResult.FAILED,
+                    "Malformed payload, remaining items were not processed: " + e.getOriginalMessage()));
+            return results;
+        }
+
+        results.addAll(createChunk(chunk, index, replace));
+        return results;
+    }
+
+    private List<BatchItemResult> createChunk(List<JobDetails> chunk, int offset, boolean replace) {
+        return chunk.isEmpty() ? List.of() : schedulerSvc.createJobs(chunk, offset, replace);
+    }
+}
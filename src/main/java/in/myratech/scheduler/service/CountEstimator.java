@@ -0,0 +1,78 @@
+package in.myratech.scheduler.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Row count estimates for paginated listings, taken from the planner's row estimate instead of a
+ * {@code COUNT(*)}, so a total costs a plan rather than a scan. Estimates follow the table statistics
+ * and are cached per key for an interval, so polling clients plan at most once per key and interval.
+ */
+@Service
+public class CountEstimator {
+    private static final Logger log = LoggerFactory.getLogger(CountEstimator.class);
+    private static final int MAX_ENTRIES = 10_000;
+    // Top node of a text plan, e.g. "Seq Scan on job_details  (cost=0.00..18.50 rows=850 width=4)"
+    private static final Pattern PLAN_ROWS = Pattern.compile("\\brows=(\\d+)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${scheduler.pagination.count-cache-ttl:60000}")
+    private long ttl;
+
+    private final Map<String, Estimate> estimates = new ConcurrentHashMap<>();
+
+    /**
+     * Estimated number of rows the query returns.
+     *
+     * @return null if the database gave no estimate
+     */
+    public Long estimate(String key, String query, Object... args) {
+        long now = System.currentTimeMillis();
+        Estimate cached = estimates.get(key);
+        if (cached != null && now - cached.estimatedAt() < ttl) {
+            return cached.rows();
+        }
+        Long rows = plannedRows(query, args);
+        if (rows == null) {
+            return null;
+        }
+        if (estimates.size() >= MAX_ENTRIES) {
+            estimates.values().removeIf(estimate -> now - estimate.estimatedAt() >= ttl);
+        }
+        // Still full of live entries, the estimate is served uncached until some expire
+        if (estimates.size() < MAX_ENTRIES || estimates.containsKey(key)) {
+            estimates.put(key, new Estimate(rows, now));
+        }
+        return rows;
+    }
+
+    private Long plannedRows(String query, Object... args) {
+        try {
+            List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + query, String.class, args);
+            Matcher matcher = plan.isEmpty() ? null : PLAN_ROWS.matcher(plan.get(0));
+            if (matcher != null && matcher.find()) {
+                return Long.parseLong(matcher.group(1));
+            }
+            log.debug("No row estimate in the plan of {}", query);
+        } catch (DataAccessException e) {
+            log.warn("Failed to estimate rows of {}: {}", query, e.getMessage());
+        }
+        return null;
+    }
+
+    private record Estimate(long rows, long estimatedAt) {
+    }
+}
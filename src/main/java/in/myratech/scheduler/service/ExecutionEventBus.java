@@ -0,0 +1,300 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.dto.ExecutionEvent;
+import in.myratech.scheduler.job.JobDefinition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process bus for execution start and end events, streamed to Server-Sent Events subscribers.
+ * Publishing never blocks the fire: every subscriber has a bounded buffer that drops its oldest
+ * events when the client cannot keep up, and the client is told how many it missed.
+ * <p>
+ * Events of this node are relayed to the others in batches over Postgres LISTEN/NOTIFY, so a
+ * subscriber connected to any node sees the executions of the whole cluster.
+ */
+@Service
+public class ExecutionEventBus {
+    private static final Logger log = LoggerFactory.getLogger(ExecutionEventBus.class);
+    static final String CHANNEL = "execution_events";
+    // Postgres rejects notification payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_BYTES = 7500;
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int MAX_BATCH = 1000;
+    private static final TypeReference<List<ExecutionEvent>> EVENT_LIST = new TypeReference<>() {};
+
+    @Autowired
+    private PgNotificationListener notificationListener;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scheduler.events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scheduler.events.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${scheduler.events.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${scheduler.events.heartbeat-interval:15000}")
+    private long heartbeatInterval;
+
+    @Value("${scheduler.events.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
+    @Value("${scheduler.events.cluster.queue-capacity:10000}")
+    private int relayCapacity;
+
+    @Value("${scheduler.events.cluster.flush-interval:100}")
+    private long flushInterval;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private String nodeId;
+    private BlockingQueue<ExecutionEvent> outgoing;
+    private volatile boolean running;
+    private Thread relay;
+    private Counter droppedCounter;
+    private Counter relayDroppedCounter;
+
+    private final class Subscriber {
+        private final UUID jobId;
+        private final String group;
+        private final SseEmitter emitter;
+        private final BlockingQueue<ExecutionEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed;
+
+        private Subscriber(UUID jobId, String group, SseEmitter emitter) {
+            this.jobId = jobId;
+            this.group = group;
+            this.emitter = emitter;
+        }
+
+        private boolean matches(ExecutionEvent event) {
+            return (jobId == null || jobId.equals(event.getJobId())) && (group == null || group.equals(event.getJobGroup()));
+        }
+
+        private void offer(ExecutionEvent event) {
+            while (!buffer.offer(event)) {
+                if (buffer.poll() != null) {
+                    dropped.incrementAndGet();
+                    droppedCounter.increment();
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        nodeId = InetAddress.getLocalHost().getHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        droppedCounter = meterRegistry.counter("scheduler.events.dropped", "reason", "slow_subscriber");
+        relayDroppedCounter = meterRegistry.counter("scheduler.events.dropped", "reason", "relay_full");
+        Gauge.builder("scheduler.events.subscribers", subscribers, List::size)
+                .description("Event stream subscribers connected to this node")
+                .register(meterRegistry);
+        if (clusterEnabled) {
+            outgoing = new ArrayBlockingQueue<>(relayCapacity);
+            notificationListener.subscribe(CHANNEL, this::onNotification);
+            running = true;
+            relay = Thread.ofPlatform().name("execution-event-relay").daemon(true).start(this::relayLoop);
+        }
+    }
+
+    public void started(JobDefinition definition, String triggerName, UUID workflowRunId) {
+        publish(new ExecutionEvent("STARTED", definition.id(), definition.jobName(), definition.jobGroup(),
+                triggerName, workflowRunId, System.currentTimeMillis(), null, null, nodeId));
+    }
+
+    public void finished(JobDefinition definition, String triggerName, UUID workflowRunId, String status,
+                         long startMillis, String errorMessage) {
+        long now = System.currentTimeMillis();
+        String error = errorMessage != null && errorMessage.length() > MAX_ERROR_LENGTH
+                ? errorMessage.substring(0, MAX_ERROR_LENGTH) : errorMessage;
+        publish(new ExecutionEvent("SUCCESS".equals(status) ? "SUCCESS" : "FAILED", definition.id(),
+                definition.jobName(), definition.jobGroup(), triggerName, workflowRunId, now, now - startMillis,
+                error, nodeId));
+    }
+
+    /**
+     * Opens a stream of the events matching the filters, null filters match everything.
+     *
+     * @throws IllegalStateException if the stream is disabled or this node has no room for another subscriber
+     */
+    public SseEmitter subscribe(UUID jobId, String group) {
+        if (!enabled) {
+            throw new IllegalStateException("Execution event stream is disabled");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Node already serves " + maxSubscribers + " event stream subscribers");
+        }
+        // No timeout, the stream ends when the client disconnects or the node shuts down
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(jobId, group, emitter);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> close(subscriber));
+        subscribers.add(subscriber);
+        Thread.ofVirtual().name("event-stream").start(() -> stream(subscriber));
+        log.debug("Event stream subscriber added for job {} and group {}", jobId, group);
+        return emitter;
+    }
+
+    private void publish(ExecutionEvent event) {
+        if (!enabled) {
+            return;
+        }
+        deliver(event);
+        if (outgoing != null && !outgoing.offer(event)) {
+            relayDroppedCounter.increment();
+        }
+    }
+
+    private void deliver(ExecutionEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.matches(event)) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    private void stream(Subscriber subscriber) {
+        try {
+            while (!subscriber.closed) {
+                ExecutionEvent event = subscriber.buffer.poll(heartbeatInterval, TimeUnit.MILLISECONDS);
+                long dropped = subscriber.dropped.getAndSet(0);
+                if (dropped > 0) {
+                    subscriber.emitter.send(SseEmitter.event().name("dropped").data(Map.of("count", dropped)));
+                }
+                if (event == null) {
+                    // Also how a disconnected client is noticed when no events match its filters
+                    subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+                    continue;
+                }
+                subscriber.emitter.send(SseEmitter.event().name(event.getType()).data(event, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Event stream subscriber disconnected: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+    }
+
+    private void relayLoop() {
+        List<ExecutionEvent> batch = new ArrayList<>();
+        while (running) {
+            try {
+                ExecutionEvent first = outgoing.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outgoing.drainTo(batch, MAX_BATCH - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Packs the batch into as few notifications as the payload limit allows
+    private void send(List<ExecutionEvent> batch) {
+        StringBuilder payload = new StringBuilder("[");
+        int payloadBytes = 1;
+        for (ExecutionEvent event : batch) {
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(event);
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize execution event of job {}: {}", event.getJobName(), e.getMessage());
+                continue;
+            }
+            int bytes = json.getBytes(StandardCharsets.UTF_8).length;
+            if (payloadBytes > 1 && payloadBytes + bytes + 2 > MAX_PAYLOAD_BYTES) {
+                notificationListener.publish(CHANNEL, payload.append(']').toString());
+                payload.setLength(1);
+                payloadBytes = 1;
+            }
+            if (payloadBytes > 1) {
+                payload.append(',');
+                payloadBytes++;
+            }
+            payload.append(json);
+            payloadBytes += bytes;
+        }
+        if (payloadBytes > 1) {
+            notificationListener.publish(CHANNEL, payload.append(']').toString());
+        }
+    }
+
+    private void onNotification(String payload) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            for (ExecutionEvent event : objectMapper.readValue(payload, EVENT_LIST)) {
+                // This node's events were delivered when they were published
+                if (!nodeId.equals(event.getNode())) {
+                    deliver(event);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Unparseable execution event notification: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (relay != null) {
+            relay.interrupt();
+            relay.join(flushInterval * 10);
+        }
+        for (Subscriber subscriber : subscribers) {
+            close(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.GroupLoad;
+import in.myratech.scheduler.entity.GroupQuota;
+import in.myratech.scheduler.job.InlineExecutionEngine;
+import in.myratech.scheduler.job.JobExecutionEngine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.quartz.JobExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Shares the execution capacity of this node between job groups. Fires are queued per group and
+ * handed to the execution engine by deficit round robin: every round a backlogged group may start
+ * as many fires as its weight, so a group with thousands of due jobs cannot hold back the others.
+ * A group over its concurrency or fires-per-second quota is skipped until it is back under it.
+ * <p>
+ * With the dispatcher disabled fires go straight to the engine.
+ */
+@Service
+public class FairShareDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(FairShareDispatcher.class);
+    private static final long IDLE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Autowired
+    private JobExecutionEngine executionEngine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scheduler.fair-share.enabled:false}")
+    private boolean enabled;
+
+    @Value("${scheduler.fair-share.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${scheduler.fair-share.max-queued-per-group:10000}")
+    private int maxQueuedPerGroup;
+
+    @Value("${scheduler.fair-share.default-weight:1}")
+    private int defaultWeight;
+
+    @Value("${scheduler.fair-share.default-max-concurrent:0}")
+    private int defaultMaxConcurrent;
+
+    @Value("${scheduler.fair-share.default-fires-per-second:0}")
+    private double defaultFiresPerSecond;
+
+    // Reads System.nanoTime unless a test drives the token buckets by hand
+    private final LongSupplier ticker;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, GroupQueue> groups = new HashMap<>();
+    private final Map<String, GroupQuota> quotas = new HashMap<>();
+    // Backlogged groups in round robin order
+    private final ArrayDeque<GroupQueue> backlogged = new ArrayDeque<>();
+    private int inFlight;
+    private boolean stopped;
+    private Thread dispatcher;
+
+    private record Pending(String host, JobExecutionEngine.JobTask task, long enqueuedNanos) {
+    }
+
+    private record Start(GroupQueue group, Pending pending) {
+    }
+
+    private static final class GroupQueue {
+        private final String name;
+        private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+        private final Timer waitTimer;
+        private int weight;
+        private int maxConcurrent;
+        private double firesPerSecond;
+        private int running;
+        private double deficit;
+        private double tokens;
+        private long refilledAt;
+        private boolean backlogged;
+        private long dispatched;
+        private long rejected;
+
+        private GroupQueue(String name, Timer waitTimer, long now) {
+            this.name = name;
+            this.waitTimer = waitTimer;
+            this.refilledAt = now;
+        }
+
+        /**
+         * Nanoseconds until the group may start another fire, 0 when it may start one now.
+         */
+        private long blockedFor(long now) {
+            if (maxConcurrent > 0 && running >= maxConcurrent) {
+                return Long.MAX_VALUE;
+            }
+            if (firesPerSecond <= 0) {
+                return 0;
+            }
+            tokens = Math.min(Math.max(1, firesPerSecond), tokens + (now - refilledAt) * firesPerSecond / 1e9);
+            refilledAt = now;
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / firesPerSecond * 1e9);
+        }
+    }
+
+    public FairShareDispatcher() {
+        this(System::nanoTime);
+    }
+
+    FairShareDispatcher(LongSupplier ticker) {
+        this.ticker = ticker;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (executionEngine instanceof InlineExecutionEngine) {
+            // Inline tasks would run one at a time on the dispatcher thread
+            throw new IllegalStateException("Fair-share dispatch requires the virtual-threads execution engine");
+        }
+        dispatcher = Thread.ofPlatform().name("fair-share-dispatcher").daemon(true).start(this::dispatchLoop);
+        log.info("Fair-share dispatcher started with {} fires in flight", maxInFlight);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a fire of the given group, it reaches the execution engine once the group gets its turn.
+     *
+     * @throws JobExecutionException if the group's queue is full or the dispatcher is shutting down
+     */
+    public void dispatch(String group, String host, JobExecutionEngine.JobTask task) throws JobExecutionException {
+        if (!enabled) {
+            executionEngine.dispatch(host, task);
+            return;
+        }
+        lock.lock();
+        try {
+            if (stopped) {
+                throw new JobExecutionException("Fair-share dispatcher is shutting down, fire for group " + group + " rejected");
+            }
+            GroupQueue queue = group(group);
+            if (queue.queue.size() >= maxQueuedPerGroup) {
+                queue.rejected++;
+                meterRegistry.counter("scheduler.fairshare.rejected", "group", group).increment();
+                throw new JobExecutionException("Fair-share queue of group " + group + " is full with "
+                        + maxQueuedPerGroup + " waiting fires");
+            }
+            queue.queue.add(new Pending(host, task, ticker.getAsLong()));
+            if (!queue.backlogged) {
+                queue.backlogged = true;
+                backlogged.add(queue);
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a group's quota, null restores the defaults. Fires already running are not affected.
+     */
+    public void applyQuota(String group, GroupQuota quota) {
+        lock.lock();
+        try {
+            if (quota != null) {
+                quotas.put(group, quota);
+            } else {
+                quotas.remove(group);
+            }
+            GroupQueue queue = groups.get(group);
+            if (queue != null) {
+                configure(queue);
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<GroupLoad> loads() {
+        lock.lock();
+        try {
+            return groups.values().stream()
+                    .sorted(Comparator.comparing(queue -> queue.name))
+                    .map(queue -> new GroupLoad(queue.name, queue.weight, queue.maxConcurrent, queue.firesPerSecond,
+                            queue.queue.size(), queue.running, queue.dispatched, queue.rejected))
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private GroupQueue group(String name) {
+        GroupQueue queue = groups.get(name);
+        if (queue != null) {
+            return queue;
+        }
+        queue = new GroupQueue(name, Timer.builder("scheduler.fairshare.wait")
+                .description("Time a fire waited for its group's turn")
+                .tag("group", name)
+                .register(meterRegistry), ticker.getAsLong());
+        configure(queue);
+        groups.put(name, queue);
+        Gauge.builder("scheduler.fairshare.queued", this, fairShare -> fairShare.read(name, true))
+                .description("Fires waiting for their group's turn")
+                .tag("group", name)
+                .register(meterRegistry);
+        Gauge.builder("scheduler.fairshare.running", this, fairShare -> fairShare.read(name, false))
+                .description("Fires of the group handed to the execution engine and not yet finished")
+                .tag("group", name)
+                .register(meterRegistry);
+        return queue;
+    }
+
+    private void configure(GroupQueue queue) {
+        GroupQuota quota = quotas.get(queue.name);
+        queue.weight = quota != null && quota.getWeight() != null ? quota.getWeight() : defaultWeight;
+        queue.maxConcurrent = quota != null && quota.getMaxConcurrent() != null ? quota.getMaxConcurrent() : defaultMaxConcurrent;
+        queue.firesPerSecond = quota != null && quota.getFiresPerSecond() != null ? quota.getFiresPerSecond() : defaultFiresPerSecond;
+        queue.tokens = Math.min(queue.tokens, Math.max(1, queue.firesPerSecond));
+    }
+
+    private double read(String name, boolean queued) {
+        lock.lock();
+        try {
+            GroupQueue queue = groups.get(name);
+            return queue == null ? 0 : queued ? queue.queue.size() : queue.running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatchLoop() {
+        List<Start> starts = new ArrayList<>();
+        while (true) {
+            lock.lock();
+            try {
+                if (stopped) {
+                    return;
+                }
+                long wait = nextRound(starts);
+                if (starts.isEmpty()) {
+                    changed.awaitNanos(wait);
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            starts.forEach(this::start);
+            starts.clear();
+        }
+    }
+
+    /**
+     * One round over the backlogged groups, each adds its weight to its deficit and starts a fire per
+     * unit of deficit. Returns how long to wait when nothing could start.
+     */
+    private long nextRound(List<Start> starts) {
+        long now = ticker.getAsLong();
+        long wait = IDLE_WAIT_NANOS;
+        int visits = backlogged.size();
+        for (int i = 0; i < visits && inFlight < maxInFlight; i++) {
+            GroupQueue queue = backlogged.poll();
+            queue.deficit += queue.weight;
+            while (!queue.queue.isEmpty() && queue.deficit >= 1 && inFlight < maxInFlight) {
+                long blocked = queue.blockedFor(now);
+                if (blocked > 0) {
+                    wait = Math.min(wait, blocked);
+                    break;
+                }
+                if (queue.firesPerSecond > 0) {
+                    queue.tokens--;
+                }
+                queue.deficit--;
+                queue.running++;
+                queue.dispatched++;
+                inFlight++;
+                starts.add(new Start(queue, queue.queue.poll()));
+            }
+            if (queue.queue.isEmpty()) {
+                queue.deficit = 0;
+                queue.backlogged = false;
+            } else {
+                // A group held back by its quota does not save up a burst for later rounds
+                queue.deficit = Math.min(queue.deficit, queue.weight);
+                backlogged.add(queue);
+            }
+        }
+        return wait;
+    }
+
+    private void start(Start start) {
+        GroupQueue queue = start.group();
+        Pending pending = start.pending();
+        queue.waitTimer.record(ticker.getAsLong() - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+        try {
+            executionEngine.dispatch(pending.host(), () -> {
+                try {
+                    pending.task().run();
+                } finally {
+                    finished(queue);
+                }
+            });
+        } catch (JobExecutionException e) {
+            log.warn("Execution engine rejected fire of group {}: {}", queue.name, e.getMessage());
+            finished(queue);
+        }
+    }
+
+    private void finished(GroupQueue queue) {
+        lock.lock();
+        try {
+            queue.running--;
+            inFlight--;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands the fires still queued to the engine, which finishes them within its own shutdown timeout.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (dispatcher == null) {
+            return;
+        }
+        List<Pending> remaining = new ArrayList<>();
+        lock.lock();
+        try {
+            stopped = true;
+            groups.values().forEach(queue -> {
+                remaining.addAll(queue.queue);
+                queue.queue.clear();
+            });
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        dispatcher.join();
+        if (!remaining.isEmpty()) {
+            log.info("Fair-share dispatcher stopping, handing {} queued fires to the execution engine", remaining.size());
+        }
+        for (Pending pending : remaining) {
+            try {
+                executionEngine.dispatch(pending.host(), pending.task());
+            } catch (JobExecutionException e) {
+                log.warn("Queued fire dropped on shutdown: {}", e.getMessage());
+            }
+        }
+    }
+}
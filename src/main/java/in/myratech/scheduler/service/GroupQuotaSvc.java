@@ -0,0 +1,122 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.entity.GroupQuota;
+import in.myratech.scheduler.repo.GroupQuotaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Stores job group quotas and keeps the fair-share dispatcher of every node in sync with them.
+ * A change is applied locally on commit and announced to the other nodes, which reload the group.
+ */
+@Service
+@Transactional
+public class GroupQuotaSvc {
+    private static final Logger log = LoggerFactory.getLogger(GroupQuotaSvc.class);
+    static final String CHANGE_CHANNEL = "group_quota_changed";
+
+    @Autowired
+    private GroupQuotaRepository groupQuotaRepository;
+
+    @Autowired
+    private FairShareDispatcher fairShareDispatcher;
+
+    @Autowired
+    private PgNotificationListener notificationListener;
+
+    @PostConstruct
+    public void init() {
+        if (!fairShareDispatcher.isEnabled()) {
+            return;
+        }
+        notificationListener.subscribe(CHANGE_CHANNEL, this::reload);
+        notificationListener.onReconnect(this::reloadAll);
+        reloadAll();
+    }
+
+    public List<GroupQuota> getQuotas() {
+        return groupQuotaRepository.findAll(Sort.by("jobGroup"));
+    }
+
+    /**
+     * @throws IllegalArgumentException if a quota value is out of range
+     */
+    public GroupQuota saveQuota(String group, GroupQuota quota) {
+        if (quota.getWeight() != null && quota.getWeight() < 1) {
+            throw new IllegalArgumentException("weight must be at least 1");
+        }
+        if (quota.getMaxConcurrent() != null && quota.getMaxConcurrent() < 0) {
+            throw new IllegalArgumentException("maxConcurrent must not be negative");
+        }
+        if (quota.getFiresPerSecond() != null && quota.getFiresPerSecond() < 0) {
+            throw new IllegalArgumentException("firesPerSecond must not be negative");
+        }
+        quota.setJobGroup(group);
+        quota.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
+        GroupQuota saved = groupQuotaRepository.save(quota);
+        afterCommit(() -> fairShareDispatcher.applyQuota(group, saved));
+        notificationListener.publish(CHANGE_CHANNEL, group);
+        log.info("Quota of group {} set to weight {}, max concurrent {}, fires per second {}",
+                group, saved.getWeight(), saved.getMaxConcurrent(), saved.getFiresPerSecond());
+        return saved;
+    }
+
+    /**
+     * Removes the group's quota so the defaults apply again.
+     *
+     * @return false if the group had no quota
+     */
+    public boolean deleteQuota(String group) {
+        if (!groupQuotaRepository.existsById(group)) {
+            return false;
+        }
+        groupQuotaRepository.deleteById(group);
+        afterCommit(() -> fairShareDispatcher.applyQuota(group, null));
+        notificationListener.publish(CHANGE_CHANNEL, group);
+        log.info("Quota of group {} removed, defaults apply", group);
+        return true;
+    }
+
+    private void reload(String group) {
+        try {
+            fairShareDispatcher.applyQuota(group, groupQuotaRepository.findById(group).orElse(null));
+            log.debug("Quota of group {} reloaded by notification", group);
+        } catch (DataAccessException e) {
+            log.warn("Failed to reload quota of group {}: {}", group, e.getMessage());
+        }
+    }
+
+    private void reloadAll() {
+        try {
+            List<GroupQuota> quotas = groupQuotaRepository.findAll();
+            quotas.forEach(quota -> fairShareDispatcher.applyQuota(quota.getJobGroup(), quota));
+            log.info("Loaded {} group quotas", quotas.size());
+        } catch (DataAccessException e) {
+            log.warn("Failed to load group quotas: {}", e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
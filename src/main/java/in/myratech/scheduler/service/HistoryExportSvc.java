@@ -0,0 +1,242 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams execution history for a time range straight from a server-side cursor to the client.
+ * Rows are written as they are fetched, so memory use does not depend on the size of the export.
+ * Each export holds a pooled connection for as long as the client takes to download it, so only
+ * {@code scheduler.export.max-concurrent} exports run at a time and further requests are turned away.
+ */
+@Service
+public class HistoryExportSvc {
+    private static final Logger log = LoggerFactory.getLogger(HistoryExportSvc.class);
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final String SELECT_SQL = "SELECT uuid, job_id, trigger_name, start_time, end_time, status, error_message, " +
+            "target, workflow_run_id FROM job_execution_history WHERE start_time >= ? AND start_time < ?";
+    private static final String CSV_HEADER = "uuid,jobId,triggerName,startTime,endTime,status,errorMessage,target,workflowRunId\n";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scheduler.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${scheduler.export.max-range:P92D}")
+    private Duration maxRange;
+
+    @Value("${scheduler.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private JdbcTemplate cursorTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only streams with a fetch size inside a transaction, otherwise it buffers the whole result
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Checks the request before the response is committed, so errors still become a proper status.
+     */
+    public void validate(Instant from, Instant to, String format) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("A time range with from before to is required");
+        }
+        if (Duration.between(from, to).compareTo(maxRange) > 0) {
+            throw new IllegalArgumentException("Time range exceeds the maximum export range of " + maxRange);
+        }
+        if (!NDJSON.equals(format) && !CSV.equals(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+
+    /**
+     * Reserves a slot for one export, to be given back with {@link #release()} once it has been streamed.
+     *
+     * @return false if the maximum number of exports is already running
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        meterRegistry.counter("scheduler.history.export.rejected").increment();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public void export(Instant from, Instant to, String status, UUID jobId, String format, OutputStream out) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>(List.of(Timestamp.from(from), Timestamp.from(to)));
+        if (status != null && !status.isEmpty()) {
+            sql.append(" AND status = ?");
+            args.add(status);
+        }
+        if (jobId != null) {
+            sql.append(" AND job_id = ?");
+            args.add(jobId);
+        }
+        sql.append(" ORDER BY start_time DESC");
+
+        long started = System.nanoTime();
+        long[] rows = {0};
+        try {
+            RowSink sink = CSV.equals(format) ? new CsvSink(out) : new NdjsonSink(out);
+            readOnlyTransaction.executeWithoutResult(tx -> cursorTemplate.query(sql.toString(), rs -> {
+                try {
+                    sink.write(rs);
+                    rows[0]++;
+                } catch (IOException e) {
+                    // The client went away, abort the query instead of reading the rest of the cursor
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray()));
+            sink.finish();
+            log.info("Exported {} history rows as {} in {} ms", rows[0], format, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("History export aborted after {} rows. Error: {}", rows[0], e.getMessage());
+        } finally {
+            meterRegistry.counter("scheduler.history.export.rows", "format", format).increment(rows[0]);
+        }
+    }
+
+    private interface RowSink {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        // Flushes buffered output, the caller owns and closes the stream
+        void finish() throws IOException;
+    }
+
+    private class NdjsonSink implements RowSink {
+        private final JsonGenerator generator;
+
+        NdjsonSink(OutputStream out) throws IOException {
+            JsonFactory factory = objectMapper.getFactory();
+            generator = factory.createGenerator(out, JsonEncoding.UTF8);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeStringField("uuid", rs.getString(1));
+            generator.writeStringField("jobId", rs.getString(2));
+            generator.writeStringField("triggerName", rs.getString(3));
+            generator.writeStringField("startTime", instant(rs.getTimestamp(4)));
+            generator.writeStringField("endTime", instant(rs.getTimestamp(5)));
+            generator.writeStringField("status", rs.getString(6));
+            generator.writeStringField("errorMessage", rs.getString(7));
+            generator.writeStringField("target", rs.getString(8));
+            generator.writeStringField("workflowRunId", rs.getString(9));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static class CsvSink implements RowSink {
+        private final Writer writer;
+
+        CsvSink(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(csv(rs.getString(1)));
+            writer.write(',');
+            writer.write(csv(rs.getString(2)));
+            writer.write(',');
+            writer.write(csv(rs.getString(3)));
+            writer.write(',');
+            writer.write(csv(instant(rs.getTimestamp(4))));
+            writer.write(',');
+            writer.write(csv(instant(rs.getTimestamp(5))));
+            writer.write(',');
+            writer.write(csv(rs.getString(6)));
+            writer.write(',');
+            writer.write(csv(rs.getString(7)));
+            writer.write(',');
+            writer.write(csv(rs.getString(8)));
+            writer.write(',');
+            writer.write(csv(rs.getString(9)));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static String instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant().toString();
+    }
+}
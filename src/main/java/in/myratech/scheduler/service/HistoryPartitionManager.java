@@ -0,0 +1,292 @@
+package in.myratech.scheduler.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Owns the layout of {@code job_execution_history} on PostgreSQL. The table is range partitioned
+ * on {@code start_time} by day or month and is created here, before Hibernate runs its schema update,
+ * so JPA maps onto the partitioned parent. Expired partitions are rolled up into
+ * {@code job_execution_daily_stats} and then dropped as a whole instead of deleting rows. Rows that
+ * landed in the default partition cannot be dropped with a range, so their expired rows are rolled up
+ * and deleted instead.
+ */
+@Service
+public class HistoryPartitionManager {
+    private static final Logger log = LoggerFactory.getLogger(HistoryPartitionManager.class);
+    private static final String TABLE = "job_execution_history";
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_p(\\d{6}|\\d{8})");
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String CREATE_PARENT_SQL = "CREATE TABLE " + TABLE + " (" +
+            "uuid UUID NOT NULL, job_id UUID, trigger_name VARCHAR(255), " +
+            "start_time TIMESTAMP(6) NOT NULL, end_time TIMESTAMP(6), status VARCHAR(255), error_message TEXT, " +
+            "response_body_hash VARCHAR(64), response_headers_hash VARCHAR(64), response_truncated BOOLEAN, " +
+            "workflow_run_id UUID, target VARCHAR(255), PRIMARY KEY (uuid, start_time)) PARTITION BY RANGE (start_time)";
+
+    // Adds to existing aggregates, a day's rows may be split between the default partition and its own
+    private static final String ADD_TO_AGGREGATES = "ON CONFLICT (job_id, day, status) DO UPDATE SET " +
+            "executions = job_execution_daily_stats.executions + EXCLUDED.executions, " +
+            "total_duration_ms = job_execution_daily_stats.total_duration_ms + EXCLUDED.total_duration_ms, " +
+            "max_duration_ms = GREATEST(job_execution_daily_stats.max_duration_ms, EXCLUDED.max_duration_ms)";
+
+    private static final String ROLLUP_SQL = "INSERT INTO job_execution_daily_stats " +
+            "(job_id, day, status, executions, total_duration_ms, max_duration_ms) " +
+            "SELECT job_id, CAST(start_time AS DATE), COALESCE(status, 'UNKNOWN'), COUNT(*), " +
+            "COALESCE(SUM(EXTRACT(EPOCH FROM (end_time - start_time)) * 1000), 0), " +
+            "COALESCE(MAX(EXTRACT(EPOCH FROM (end_time - start_time)) * 1000), 0) " +
+            "FROM %s WHERE job_id IS NOT NULL GROUP BY job_id, CAST(start_time AS DATE), COALESCE(status, 'UNKNOWN') " +
+            ADD_TO_AGGREGATES;
+
+    private static final String DEFAULT_ROLLUP_SQL = "INSERT INTO job_execution_daily_stats " +
+            "(job_id, day, status, executions, total_duration_ms, max_duration_ms) " +
+            "SELECT job_id, CAST(start_time AS DATE), COALESCE(status, 'UNKNOWN'), COUNT(*), " +
+            "COALESCE(SUM(EXTRACT(EPOCH FROM (end_time - start_time)) * 1000), 0), " +
+            "COALESCE(MAX(EXTRACT(EPOCH FROM (end_time - start_time)) * 1000), 0) " +
+            "FROM " + TABLE + "_default WHERE job_id IS NOT NULL AND start_time < ? " +
+            "GROUP BY job_id, CAST(start_time AS DATE), COALESCE(status, 'UNKNOWN') " + ADD_TO_AGGREGATES;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${scheduler.history.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scheduler.history.partitioning.interval:day}")
+    private String interval;
+
+    @Value("${scheduler.history.partitioning.premake:3}")
+    private int premake;
+
+    @Value("${scheduler.history.partitioning.migrate-legacy:false}")
+    private boolean migrateLegacy;
+
+    @Value("${scheduler.history.retention.raw-days:30}")
+    private int rawRetentionDays;
+
+    @Value("${scheduler.history.retention.aggregate-days:365}")
+    private int aggregateRetentionDays;
+
+    private TransactionTemplate transactionTemplate;
+    private boolean partitioned;
+    private final AtomicLong defaultRows = new AtomicLong();
+
+    @PostConstruct
+    public void initialize() {
+        // JPA's transaction manager needs the entity manager factory, which waits for this bean
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        if (!enabled || !isPostgres()) {
+            log.info("History partitioning disabled, job_execution_history is managed by Hibernate");
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            String kind = tableKind();
+            if (kind == null) {
+                createParent();
+            } else if (!"p".equals(kind)) {
+                if (!migrateLegacy) {
+                    log.warn("{} exists as a plain table, set scheduler.history.partitioning.migrate-legacy=true to convert it", TABLE);
+                    return;
+                }
+                migrateLegacyTable();
+            }
+            partitioned = true;
+        });
+        if (partitioned) {
+            Gauge.builder("scheduler.history.partition.default.rows", defaultRows, AtomicLong::get)
+                    .description("History rows in the default partition, non-zero means a range partition was missing")
+                    .register(meterRegistry);
+            ensurePartitions(LocalDate.now());
+        }
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    /**
+     * Creates the partitions from the current period up to {@code premake} periods ahead.
+     */
+    public void ensurePartitions(LocalDate today) {
+        if (!partitioned) {
+            return;
+        }
+        LocalDate period = periodStart(today);
+        for (int i = 0; i <= premake; i++) {
+            try {
+                createPartition(period);
+            } catch (DataAccessException e) {
+                // Typically rows for this range already sit in the default partition
+                log.error("Failed to create history partition {}. Error: {}", partitionName(period), e.getMessage());
+            }
+            period = nextPeriod(period);
+        }
+    }
+
+    /**
+     * Rolls every partition older than the raw retention into daily aggregates and drops it,
+     * then deletes aggregates older than the aggregate retention. Returns the partitions dropped.
+     */
+    public int applyRetention(LocalDate today) {
+        int dropped = 0;
+        if (partitioned) {
+            LocalDate cutoff = today.minusDays(rawRetentionDays);
+            for (String partition : partitions()) {
+                LocalDate end = partitionEnd(partition);
+                if (end == null || end.isAfter(cutoff)) {
+                    continue;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    int rows = jdbcTemplate.update(ROLLUP_SQL.formatted(partition));
+                    jdbcTemplate.execute("DROP TABLE " + partition);
+                    log.info("Dropped history partition {} after rolling up {} daily aggregates", partition, rows);
+                });
+                dropped++;
+            }
+            expireDefaultPartition(cutoff);
+        }
+        int deleted = jdbcTemplate.update("DELETE FROM job_execution_daily_stats WHERE day < ?",
+                Date.valueOf(today.minusDays(aggregateRetentionDays)));
+        if (deleted > 0) {
+            log.info("Deleted {} expired daily history aggregates", deleted);
+        }
+        // Captured responses not seen for as long as raw history is kept have no history rows left
+        int payloads = jdbcTemplate.update("DELETE FROM response_payload WHERE last_seen_at < ?",
+                Timestamp.valueOf(today.minusDays(rawRetentionDays + 1L).atStartOfDay()));
+        if (payloads > 0) {
+            log.info("Deleted {} expired captured responses", payloads);
+        }
+        return dropped;
+    }
+
+    private void expireDefaultPartition(LocalDate cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff.atStartOfDay());
+        transactionTemplate.executeWithoutResult(status -> {
+            int aggregates = jdbcTemplate.update(DEFAULT_ROLLUP_SQL, before);
+            int rows = jdbcTemplate.update("DELETE FROM " + TABLE + "_default WHERE start_time < ?", before);
+            if (rows > 0) {
+                log.info("Deleted {} expired rows from {}_default after rolling up {} daily aggregates", rows, TABLE, aggregates);
+            }
+        });
+        Long remaining = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE + "_default", Long.class);
+        defaultRows.set(remaining != null ? remaining : 0);
+        if (defaultRows.get() > 0) {
+            log.warn("{} history rows sit in {}_default, the partitions for their range are missing", defaultRows.get(), TABLE);
+        }
+    }
+
+    private void createParent() {
+        jdbcTemplate.execute(CREATE_PARENT_SQL);
+        // Rows outside every range land here instead of failing the insert
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + "_default PARTITION OF " + TABLE + " DEFAULT");
+        log.info("Created {} partitioned by {} on start_time", TABLE, interval);
+    }
+
+    private void migrateLegacyTable() {
+        log.info("Converting {} to a partitioned table", TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + TABLE + "_legacy");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + "_legacy RENAME CONSTRAINT " + TABLE + "_pkey TO " + TABLE + "_legacy_pkey");
+        // Hibernate recreates its indexes on the new parent under the same names
+        List<String> indexes = jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes " +
+                "WHERE schemaname = current_schema() AND tablename = ? AND indexname <> ?",
+                String.class, TABLE + "_legacy", TABLE + "_legacy_pkey");
+        for (String index : indexes) {
+            jdbcTemplate.execute("ALTER INDEX " + index + " RENAME TO " + index + "_legacy");
+        }
+        createParent();
+        LocalDate oldest = jdbcTemplate.queryForObject("SELECT CAST(MIN(start_time) AS DATE) FROM " + TABLE + "_legacy",
+                LocalDate.class);
+        // A failed partition aborts the transaction, so the migration fails as a whole and can be retried
+        if (oldest != null) {
+            for (LocalDate period = periodStart(oldest); !period.isAfter(LocalDate.now()); period = nextPeriod(period)) {
+                createPartition(period);
+            }
+        }
+        int rows = jdbcTemplate.update("INSERT INTO " + TABLE + " (uuid, job_id, trigger_name, start_time, end_time, status, error_message) " +
+                "SELECT uuid, job_id, trigger_name, start_time, end_time, status, error_message FROM " + TABLE + "_legacy " +
+                "WHERE start_time IS NOT NULL");
+        log.info("Copied {} rows into the partitioned {}, {}_legacy can be dropped once verified", rows, TABLE, TABLE);
+    }
+
+    private void createPartition(LocalDate start) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(start) + " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + start + "') TO ('" + nextPeriod(start) + "')");
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ? ORDER BY c.relname", String.class, TABLE);
+    }
+
+    private String tableKind() {
+        List<String> kinds = jdbcTemplate.queryForList("SELECT CAST(relkind AS VARCHAR) FROM pg_class " +
+                "WHERE relname = ? AND relnamespace = CAST(current_schema() AS regnamespace)", String.class, TABLE);
+        return kinds.isEmpty() ? null : kinds.get(0);
+    }
+
+    private boolean isPostgres() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            return "PostgreSQL".equalsIgnoreCase(metaData.getDatabaseProductName());
+        }));
+    }
+
+    private boolean monthly() {
+        return "month".equalsIgnoreCase(interval);
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return monthly() ? date.withDayOfMonth(1) : date;
+    }
+
+    private LocalDate nextPeriod(LocalDate start) {
+        return monthly() ? start.plus(1, ChronoUnit.MONTHS) : start.plusDays(1);
+    }
+
+    private String partitionName(LocalDate start) {
+        return TABLE + "_p" + (monthly() ? MONTH_SUFFIX.format(start) : DAY_SUFFIX.format(start));
+    }
+
+    // Parsed from the name so partitions made before an interval change still expire correctly
+    private LocalDate partitionEnd(String partition) {
+        Matcher matcher = PARTITION_NAME.matcher(partition);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String suffix = matcher.group(1);
+        return suffix.length() == 8
+                ? LocalDate.parse(suffix, DAY_SUFFIX).plusDays(1)
+                : LocalDate.parse(suffix + "01", DAY_SUFFIX).plusMonths(1);
+    }
+}
@@ -0,0 +1,172 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.job.CompiledRequest;
+import in.myratech.scheduler.job.JobDefinition;
+import in.myratech.scheduler.job.RequestCompiler;
+import in.myratech.scheduler.repo.JobDetailsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local cache of compiled job requests keyed by Quartz {@link JobKey}.
+ * Entries are invalidated locally after the changing transaction commits and on every other node
+ * through a Postgres notification. While notifications are unavailable the whole cache is
+ * dropped every poll interval instead.
+ */
+@Service
+public class JobDefinitionCache {
+    private static final Logger log = LoggerFactory.getLogger(JobDefinitionCache.class);
+    static final String CHANGE_CHANNEL = "job_definition_changed";
+
+    @Autowired
+    private JobDetailsRepository jobDetailsRepository;
+
+    @Autowired
+    private PgNotificationListener notificationListener;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RequestCompiler requestCompiler;
+
+    @Value("${scheduler.cache.job-definitions.poll-interval:30000}")
+    private long pollInterval;
+
+    private final Map<JobKey, CompiledRequest> definitions = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load racing with it does not re-insert a stale definition
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledExecutorService poller;
+
+    @PostConstruct
+    public void init() {
+        notificationListener.subscribe(CHANGE_CHANNEL, this::onChangeNotification);
+        notificationListener.onReconnect(this::invalidateAll);
+        if (pollInterval > 0) {
+            poller = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("job-definition-poller").daemon(true).factory());
+            poller.scheduleWithFixedDelay(this::pollFallback, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Optional<CompiledRequest> get(JobKey jobKey) {
+        CompiledRequest cached = definitions.get(jobKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long loadGeneration = generation.get();
+        Optional<CompiledRequest> loaded = jobDetailsRepository.findByJobNameAndJobGroupAndDeletedFalse(jobKey.getName(), jobKey.getGroup())
+                .map(this::compile);
+        if (loaded.isPresent() && generation.get() == loadGeneration) {
+            definitions.putIfAbsent(jobKey, loaded.get());
+        }
+        return loaded;
+    }
+
+    /**
+     * Compiles the request of a newly scheduled job, it replaces the cached entry once the
+     * current transaction commits. Other nodes are notified and recompile on their next fire.
+     */
+    public void register(JobDetails jobDetails) {
+        JobKey jobKey = new JobKey(jobDetails.getJobName(), jobDetails.getJobGroup());
+        CompiledRequest compiled = compile(jobDetails);
+        afterCommit(() -> {
+            invalidate(jobKey);
+            definitions.put(jobKey, compiled);
+        });
+        notifyChange(jobKey);
+    }
+
+    /**
+     * Invalidates the job on this node once the current transaction commits and notifies the other nodes.
+     */
+    public void publishChange(JobKey jobKey) {
+        afterCommit(() -> invalidate(jobKey));
+        notifyChange(jobKey);
+    }
+
+    private CompiledRequest compile(JobDetails jobDetails) {
+        return requestCompiler.compile(JobDefinition.from(jobDetails, objectMapper));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void notifyChange(JobKey jobKey) {
+        try {
+            notificationListener.publish(CHANGE_CHANNEL,
+                    objectMapper.writeValueAsString(Map.of("group", jobKey.getGroup(), "name", jobKey.getName())));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize change notification for job {}: {}", jobKey, e.getMessage());
+        }
+    }
+
+    public void invalidate(JobKey jobKey) {
+        generation.incrementAndGet();
+        definitions.remove(jobKey);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        definitions.clear();
+    }
+
+    private void onChangeNotification(String payload) {
+        try {
+            JsonNode node = objectMapper.readTree(payload);
+            if (node.hasNonNull("name") && node.hasNonNull("group")) {
+                JobKey jobKey = new JobKey(node.get("name").asText(), node.get("group").asText());
+                invalidate(jobKey);
+                log.debug("Job definition invalidated by notification: {}", jobKey);
+                return;
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Unparseable job change notification: {}", e.getMessage());
+        }
+        log.warn("Malformed job change notification '{}', dropping cache", payload);
+        invalidateAll();
+    }
+
+    private void pollFallback() {
+        if (!notificationListener.isListening()) {
+            invalidateAll();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+}
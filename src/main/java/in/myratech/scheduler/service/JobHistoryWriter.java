@@ -0,0 +1,343 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.repo.JobExecutionHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers execution history records in a bounded queue and writes them as JDBC batch inserts,
+ * flushing whenever a batch is full or the flush interval has elapsed since its first record.
+ * Producers block for up to the offer timeout when the queue is full and fall back to a direct
+ * insert after that, so records are never dropped. The queue is drained before shutdown completes,
+ * and records submitted once shutdown has begun are written directly.
+ * <p>
+ * A failed batch is retried with backoff, then written row by row so that only the records the
+ * database keeps rejecting are dead-lettered to the {@code DEAD_LETTER_LOGGER} log.
+ */
+@Service
+public class JobHistoryWriter {
+    private static final Logger log = LoggerFactory.getLogger(JobHistoryWriter.class);
+    static final String DEAD_LETTER_LOGGER = "in.myratech.scheduler.history.dead-letter";
+    private static final Logger deadLetter = LoggerFactory.getLogger(DEAD_LETTER_LOGGER);
+
+    private static final String INSERT_SQL = "INSERT INTO job_execution_history " +
+            "(uuid, job_id, trigger_name, start_time, end_time, status, error_message, " +
+            "response_body_hash, response_headers_hash, response_truncated, workflow_run_id, target) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            // A retried batch may have been partly committed before it failed
+            "ON CONFLICT DO NOTHING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JobExecutionHistoryRepository historyRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ResponsePayloadStore payloadStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${scheduler.history.writer.async:true}")
+    private boolean async;
+
+    @Value("${scheduler.history.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${scheduler.history.writer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${scheduler.history.writer.flush-interval:1000}")
+    private long flushInterval;
+
+    @Value("${scheduler.history.writer.offer-timeout:5000}")
+    private long offerTimeout;
+
+    @Value("${scheduler.history.writer.shutdown-timeout:30000}")
+    private long shutdownTimeout;
+
+    @Value("${scheduler.history.writer.retry-attempts:3}")
+    private int retryAttempts;
+
+    @Value("${scheduler.history.writer.retry-backoff:500}")
+    private long retryBackoff;
+
+    private TransactionTemplate transaction;
+    private BlockingQueue<JobExecutionHistory> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private Timer flushTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter overflowCounter;
+    private Counter failureCounter;
+    private Counter retryCounter;
+
+    @PostConstruct
+    public void start() {
+        flushTimer = Timer.builder("scheduler.history.flush")
+                .description("Time taken to write one batch of execution history")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("scheduler.history.batch.size")
+                .description("Number of execution history records per batch insert")
+                .register(meterRegistry);
+        overflowCounter = Counter.builder("scheduler.history.queue.overflow")
+                .description("Records written synchronously because the history queue was full")
+                .register(meterRegistry);
+        failureCounter = Counter.builder("scheduler.history.write.failures")
+                .description("Execution history records that could not be persisted")
+                .register(meterRegistry);
+        retryCounter = Counter.builder("scheduler.history.write.retries")
+                .description("Execution history batch inserts retried after a failure")
+                .register(meterRegistry);
+        transaction = new TransactionTemplate(transactionManager);
+
+        if (!async) {
+            log.info("Execution history writer running in synchronous mode");
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("scheduler.history.queue.depth", queue, BlockingQueue::size)
+                .description("Execution history records waiting to be written")
+                .register(meterRegistry);
+
+        running = true;
+        flusher = Thread.ofPlatform().name("history-writer").daemon(true).start(this::flushLoop);
+        log.info("Execution history writer started. Queue capacity: {}, batch size: {}, flush interval: {} ms",
+                queueCapacity, batchSize, flushInterval);
+    }
+
+    public void submit(JobExecutionHistory history) {
+        if (history.getUuid() == null) {
+            history.setUuid(UUID.randomUUID());
+        }
+        if (!async) {
+            storePayloads(List.of(history));
+            historyRepository.save(history);
+            return;
+        }
+        if (!running) {
+            write(List.of(history));
+            return;
+        }
+        try {
+            if (!queue.offer(history, offerTimeout, TimeUnit.MILLISECONDS)) {
+                log.warn("History queue full for {} ms, writing record {} synchronously", offerTimeout, history.getUuid());
+                overflowCounter.increment();
+                write(List.of(history));
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write(List.of(history));
+            return;
+        }
+        // The writer stopped while the record was being queued and may already have done its final drain
+        if (!running) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes the records right away, bypassing the queue, in one transaction with the given statements.
+     * Used where the record must be durable before the caller lets go of the execution, such as an
+     * outbox row that is deleted only together with the history of its execution.
+     *
+     * @throws DataAccessException if a record or the statements failed, none of them is committed
+     */
+    public void writeWith(List<JobExecutionHistory> histories, Runnable sameTransaction) {
+        histories.forEach(history -> {
+            if (history.getUuid() == null) {
+                history.setUuid(UUID.randomUUID());
+            }
+        });
+        // Outside the transaction, a failed payload write must not abort it
+        storePayloads(histories);
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, histories, histories.size(), this::bind);
+            sameTransaction.run();
+        });
+    }
+
+    /**
+     * Submits the records of one fire together. They go to the queue when it has room for all of them,
+     * otherwise, and in synchronous mode, they are written right away as a single batch.
+     */
+    public void submitAll(List<JobExecutionHistory> histories) {
+        histories.forEach(history -> {
+            if (history.getUuid() == null) {
+                history.setUuid(UUID.randomUUID());
+            }
+        });
+        if (async && running && queue.remainingCapacity() >= histories.size()) {
+            histories.forEach(this::submit);
+            return;
+        }
+        write(histories);
+    }
+
+    private void flushLoop() {
+        List<JobExecutionHistory> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                JobExecutionHistory first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    JobExecutionHistory next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                write(batch);
+            } catch (InterruptedException e) {
+                log.warn("History writer interrupted with {} records pending", queue.size() + batch.size());
+                write(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Writes whatever is still queued on the calling thread, safe to run concurrently with the flusher
+    private void drain() {
+        List<JobExecutionHistory> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    void write(List<JobExecutionHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        storePayloads(batch);
+        DataAccessException failure = null;
+        for (int attempt = 0; attempt <= retryAttempts; attempt++) {
+            if (attempt > 0) {
+                retryCounter.increment();
+                if (!backoff(attempt)) {
+                    break;
+                }
+            }
+            try {
+                flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind));
+                batchSizeSummary.record(batch.size());
+                log.debug("Persisted {} execution history records", batch.size());
+                return;
+            } catch (DataAccessException e) {
+                failure = e;
+                log.warn("Failed to persist {} execution history records, attempt {} of {}: {}",
+                        batch.size(), attempt + 1, retryAttempts + 1, e.getMostSpecificCause().getMessage());
+            }
+        }
+        log.error("Batch of {} execution history records failed, writing them one by one", batch.size(), failure);
+        for (JobExecutionHistory history : batch) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, history));
+            } catch (DataAccessException e) {
+                failureCounter.increment();
+                deadLetter.error("{} {} {} {} {} {} {} {}: {}", history.getUuid(), history.getJobId(),
+                        history.getTriggerName(), history.getStartTime(), history.getEndTime(), history.getStatus(),
+                        history.getWorkflowRunId(), history.getTarget(), e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private void bind(PreparedStatement ps, JobExecutionHistory history) throws SQLException {
+        ps.setObject(1, history.getUuid());
+        ps.setObject(2, history.getJobId());
+        ps.setString(3, history.getTriggerName());
+        ps.setTimestamp(4, history.getStartTime());
+        ps.setTimestamp(5, history.getEndTime());
+        ps.setString(6, history.getStatus());
+        ps.setString(7, history.getErrorMessage());
+        ps.setString(8, history.getResponseBodyHash());
+        ps.setString(9, history.getResponseHeadersHash());
+        ps.setObject(10, history.getResponseTruncated(), Types.BOOLEAN);
+        ps.setObject(11, history.getWorkflowRunId());
+        ps.setString(12, history.getTarget());
+    }
+
+    // Exponential backoff before a retry, false if interrupted
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(retryBackoff << Math.min(attempt - 1, 10));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // A failed payload write drops the captured response, never the execution record
+    private void storePayloads(List<JobExecutionHistory> batch) {
+        try {
+            payloadStore.store(batch);
+        } catch (DataAccessException e) {
+            log.error("Failed to store captured responses of {} records: {}", batch.size(), e.getMessage(), e);
+            batch.forEach(history -> {
+                history.setResponseBodyHash(null);
+                history.setResponseHeadersHash(null);
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        log.info("Stopping execution history writer, flushing {} pending records", queue.size());
+        running = false;
+        flusher.join(shutdownTimeout);
+        if (flusher.isAlive()) {
+            log.warn("History writer did not finish within {} ms, writing {} pending records on shutdown",
+                    shutdownTimeout, queue.size());
+        }
+        // Picks up records queued after the flusher's last poll
+        drain();
+    }
+}
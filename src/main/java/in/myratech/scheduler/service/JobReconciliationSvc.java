@@ -0,0 +1,294 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.repo.JobDetailsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.quartz.CronExpression;
+import org.quartz.CronTrigger;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Brings the Quartz job store in line with the active jobs in {@code job_details}.
+ * Jobs are streamed in keyset pages and compared with what the job store already holds, read for
+ * the whole page with one query on the Quartz tables. Only missing or changed jobs are (re)scheduled,
+ * in parallel batches with one Quartz call each.
+ */
+@Service
+public class JobReconciliationSvc {
+    private static final Logger log = LoggerFactory.getLogger(JobReconciliationSvc.class);
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    // Job rows of the page's keys with the cron expression of each of their triggers
+    private static final String STORED_JOBS_SQL = "SELECT j.sched_name, j.job_name, j.job_group, j.job_class_name, " +
+            "j.is_durable, j.job_data, t.trigger_name, t.trigger_group, c.cron_expression " +
+            "FROM %1$sjob_details j " +
+            "LEFT JOIN %1$striggers t ON t.sched_name = j.sched_name AND t.job_name = j.job_name AND t.job_group = j.job_group " +
+            "LEFT JOIN %1$scron_triggers c ON c.sched_name = t.sched_name AND c.trigger_name = t.trigger_name " +
+            "AND c.trigger_group = t.trigger_group " +
+            "WHERE (j.sched_name, j.job_name, j.job_group) IN (SELECT * FROM unnest(?::text[], ?::text[], ?::text[]))";
+
+    private record StoredJob(String jobClassName, boolean durable, byte[] jobData, Map<TriggerKey, String> cronTriggers) {
+    }
+
+    @Autowired
+    private Scheduler scheduler;
+
+    @Autowired
+    private SchedulerRouter schedulerRouter;
+
+    @Autowired
+    private JobDetailsRepository jobDetailsRepository;
+
+    @Autowired
+    private SchedulerSvc schedulerSvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.quartz.properties.org.quartz.jobStore.tablePrefix:QRTZ_}")
+    private String tablePrefix;
+
+    @Value("${scheduler.rehydration.page-size:1000}")
+    private int pageSize;
+
+    @Value("${scheduler.rehydration.batch-size:200}")
+    private int batchSize;
+
+    @Value("${scheduler.rehydration.parallelism:4}")
+    private int parallelism;
+
+    private final AtomicLong examined = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong durationMs = new AtomicLong();
+
+    public void reconcile() {
+        registerMetrics();
+        long started = System.currentTimeMillis();
+        log.info("Reconciling active jobs with the job store. Page size: {}, batch size: {}, parallelism: {}",
+                pageSize, batchSize, parallelism);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("job-reconciler-", 0).factory());
+        try {
+            UUID lastId = FIRST_ID;
+            List<JobDetails> page;
+            do {
+                page = jobDetailsRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).getId();
+                Map<JobKey, StoredJob> stored = storedJobs(page);
+
+                List<Future<?>> batches = new ArrayList<>();
+                for (int from = 0; from < page.size(); from += batchSize) {
+                    List<JobDetails> batch = page.subList(from, Math.min(from + batchSize, page.size()));
+                    batches.add(executor.submit(() -> reconcileBatch(batch, stored)));
+                }
+                awaitAll(batches);
+            } while (page.size() == pageSize);
+        } finally {
+            executor.shutdown();
+        }
+
+        durationMs.set(System.currentTimeMillis() - started);
+        log.info("Job reconciliation finished in {} ms. Examined: {}, unchanged: {}, scheduled: {}, failed: {}",
+                durationMs.get(), examined.get(), unchanged.get(), scheduled.get(), failed.get());
+    }
+
+    private void reconcileBatch(List<JobDetails> batch, Map<JobKey, StoredJob> stored) {
+        Map<JobDetail, Set<? extends Trigger>> changed = new LinkedHashMap<>();
+        for (JobDetails jobDetails : batch) {
+            examined.incrementAndGet();
+            if (SchedulerSvc.isTriggered(jobDetails) && !CronExpression.isValidExpression(jobDetails.getCronExpression())) {
+                log.error("Skipping job {} ({}) with invalid cron expression: {}",
+                        jobDetails.getJobName(), jobDetails.getId(), jobDetails.getCronExpression());
+                failed.incrementAndGet();
+                continue;
+            }
+            JobDetail desiredJob = schedulerSvc.buildJobDetail(jobDetails);
+            Set<? extends Trigger> desiredTriggers = schedulerSvc.triggers(jobDetails);
+            if (isUpToDate(stored.get(desiredJob.getKey()), desiredJob, desiredTriggers)) {
+                unchanged.incrementAndGet();
+            } else {
+                changed.put(desiredJob, desiredTriggers);
+            }
+        }
+        if (schedulerRouter.isSharded()) {
+            removeFromDefaultScheduler(batch);
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Scheduler, List<Map.Entry<JobDetail, Set<? extends Trigger>>>> shard
+                : schedulerRouter.partition(changed.entrySet(), entry -> entry.getKey().getKey()).entrySet()) {
+            Map<JobDetail, Set<? extends Trigger>> shardJobs = new LinkedHashMap<>();
+            shard.getValue().forEach(entry -> shardJobs.put(entry.getKey(), entry.getValue()));
+            try {
+                shard.getKey().scheduleJobs(shardJobs, true);
+                scheduled.addAndGet(shardJobs.size());
+                log.debug("Scheduled {} missing or changed jobs", shardJobs.size());
+            } catch (SchedulerException e) {
+                log.error("Failed to schedule batch of {} jobs: {}", shardJobs.size(), e.getMessage(), e);
+                failed.addAndGet(shardJobs.size());
+            }
+        }
+    }
+
+    // Jobs scheduled before sharding was enabled would otherwise fire from both schedulers
+    private void removeFromDefaultScheduler(List<JobDetails> batch) {
+        try {
+            scheduler.deleteJobs(batch.stream()
+                    .map(jobDetails -> new JobKey(jobDetails.getJobName(), jobDetails.getJobGroup()))
+                    .toList());
+        } catch (SchedulerException e) {
+            log.error("Failed to remove unsharded copies of {} jobs: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * What the job store holds for the page's jobs, each looked up under the scheduler that owns it.
+     * A page that cannot be read is treated as missing, rescheduling it is idempotent.
+     */
+    private Map<JobKey, StoredJob> storedJobs(List<JobDetails> page) {
+        Map<JobKey, StoredJob> stored = new HashMap<>();
+        try {
+            List<String> schedulerNames = new ArrayList<>(page.size());
+            for (JobDetails jobDetails : page) {
+                JobKey jobKey = new JobKey(jobDetails.getJobName(), jobDetails.getJobGroup());
+                schedulerNames.add(schedulerRouter.schedulerFor(jobKey).getSchedulerName());
+            }
+            jdbcTemplate.query(STORED_JOBS_SQL.formatted(tablePrefix), ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("text", schedulerNames.toArray()));
+                ps.setArray(2, ps.getConnection().createArrayOf("text", page.stream().map(JobDetails::getJobName).toArray()));
+                ps.setArray(3, ps.getConnection().createArrayOf("text", page.stream().map(JobDetails::getJobGroup).toArray()));
+            }, rs -> {
+                // Keys are matched together with their owner's scheduler name, copies under other schedulers never match
+                JobKey jobKey = new JobKey(rs.getString("job_name"), rs.getString("job_group"));
+                StoredJob job = stored.computeIfAbsent(jobKey, key -> storedJob(rs));
+                String cronExpression = rs.getString("cron_expression");
+                if (cronExpression != null) {
+                    job.cronTriggers().put(new TriggerKey(rs.getString("trigger_name"), rs.getString("trigger_group")),
+                            cronExpression);
+                }
+            });
+        } catch (SchedulerException | DataAccessException e) {
+            log.error("Failed to read job store state of {} jobs, rescheduling them: {}", page.size(), e.getMessage());
+        }
+        return stored;
+    }
+
+    private static StoredJob storedJob(ResultSet rs) {
+        try {
+            return new StoredJob(rs.getString("job_class_name"), rs.getBoolean("is_durable"), rs.getBytes("job_data"),
+                    new HashMap<>());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isUpToDate(StoredJob existing, JobDetail desiredJob, Set<? extends Trigger> desiredTriggers) {
+        if (existing == null || !existing.jobClassName().equals(desiredJob.getJobClass().getName())
+                || existing.durable() != desiredJob.isDurable()
+                || !sameData(jobDataMap(existing.jobData()), desiredJob.getJobDataMap())) {
+            return false;
+        }
+        if (desiredTriggers.isEmpty()) {
+            return true;
+        }
+        CronTrigger desiredTrigger = (CronTrigger) desiredTriggers.iterator().next();
+        return Objects.equals(existing.cronTriggers().get(desiredTrigger.getKey()), desiredTrigger.getCronExpression());
+    }
+
+    // Quartz stores the data map Java-serialized unless the job store is set to use properties
+    private static JobDataMap jobDataMap(byte[] jobData) {
+        if (jobData == null || jobData.length == 0) {
+            return new JobDataMap();
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(jobData))) {
+            return in.readObject() instanceof Map<?, ?> map ? new JobDataMap(map) : new JobDataMap();
+        } catch (IOException | ClassNotFoundException e) {
+            log.debug("Unreadable job data, treating the job as changed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean sameData(JobDataMap existing, JobDataMap desired) {
+        if (existing == null) {
+            return false;
+        }
+        if (existing.size() != desired.size()) {
+            return false;
+        }
+        for (String key : desired.keySet()) {
+            if (!Objects.equals(existing.get(key), desired.get(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void awaitAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reconciling jobs", e);
+            } catch (ExecutionException e) {
+                log.error("Job reconciliation batch failed: {}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    private void registerMetrics() {
+        Gauge.builder("scheduler.rehydration.jobs", examined, AtomicLong::get).tag("result", "examined").register(meterRegistry);
+        Gauge.builder("scheduler.rehydration.jobs", unchanged, AtomicLong::get).tag("result", "unchanged").register(meterRegistry);
+        Gauge.builder("scheduler.rehydration.jobs", scheduled, AtomicLong::get).tag("result", "scheduled").register(meterRegistry);
+        Gauge.builder("scheduler.rehydration.jobs", failed, AtomicLong::get).tag("result", "failed").register(meterRegistry);
+        TimeGauge.builder("scheduler.rehydration.duration", durationMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time taken by the startup job reconciliation")
+                .register(meterRegistry);
+    }
+}
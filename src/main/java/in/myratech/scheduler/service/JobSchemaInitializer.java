@@ -0,0 +1,39 @@
+package in.myratech.scheduler.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Schema of {@code job_details} that Hibernate cannot express. Soft-deleted rows keep their name, so
+ * only live jobs must be unique, which takes a partial unique index. Job upserts resolve conflicts on
+ * that index, so the application does not start without it.
+ */
+@Service
+// Runs after Hibernate's schema update has created the table
+@DependsOn("entityManagerFactory")
+public class JobSchemaInitializer {
+    private static final Logger log = LoggerFactory.getLogger(JobSchemaInitializer.class);
+
+    private static final String LIVE_KEY_INDEX_SQL = "CREATE UNIQUE INDEX IF NOT EXISTS uq_job_details_live_key " +
+            "ON job_details (job_name, job_group) WHERE NOT deleted";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void initialize() {
+        try {
+            jdbcTemplate.execute(LIVE_KEY_INDEX_SQL);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Failed to create the unique index on live job names, " +
+                    "duplicate live jobs must be removed before starting: " + e.getMostSpecificCause().getMessage(), e);
+        }
+        log.info("Unique index on live job names is in place");
+    }
+}
@@ -0,0 +1,340 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.dto.JobStats;
+import in.myratech.scheduler.dto.StatsSummary;
+import in.myratech.scheduler.dto.WindowStats;
+import in.myratech.scheduler.job.JobDefinition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolling execution statistics per job, per group and for the whole fleet over 1m, 1h and 24h
+ * windows, updated as each execution completes. Group and fleet figures are also published as
+ * gauges, per-job gauges are opt-in because of their cardinality.
+ * <p>
+ * Every node relays the outcomes of its own executions to the others in batches over Postgres
+ * LISTEN/NOTIFY, so the statistics served by any node cover the whole cluster. The relay is best
+ * effort: outcomes are dropped when its queue is full or a node's listening connection is down, and
+ * a node only counts what completed since it started. With the relay disabled the statistics cover
+ * this node alone, and the scope reported with them says so.
+ */
+@Service
+public class JobStatsRegistry {
+    private static final Logger log = LoggerFactory.getLogger(JobStatsRegistry.class);
+
+    private static final String[] WINDOWS = {"1m", "1h", "24h"};
+    private static final int[] WINDOW_SLOTS = {6, 12, 24};
+    private static final long[] SLOT_WIDTH_MS = {10_000, 300_000, 3_600_000};
+    private static final String FLEET = "_all";
+    static final String CHANNEL = "job_stats";
+    static final String CLUSTER_SCOPE = "cluster";
+    // Postgres rejects notification payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD_BYTES = 7500;
+    private static final int MAX_BATCH = 1000;
+    private static final TypeReference<List<Outcome>> OUTCOME_LIST = new TypeReference<>() {};
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PgNotificationListener notificationListener;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${scheduler.stats.max-tracked-jobs:20000}")
+    private int maxTrackedJobs;
+
+    @Value("${scheduler.stats.job-meters.enabled:false}")
+    private boolean jobMeters;
+
+    @Value("${scheduler.stats.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
+    @Value("${scheduler.stats.cluster.queue-capacity:10000}")
+    private int relayCapacity;
+
+    @Value("${scheduler.stats.cluster.flush-interval:1000}")
+    private long flushInterval;
+
+    private final Map<UUID, Entry> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Entry> groups = new ConcurrentHashMap<>();
+    private final Entry fleet = new Entry(null, FLEET);
+    private String nodeId;
+    private String scope;
+    private BlockingQueue<Outcome> outgoing;
+    private volatile boolean running;
+    private Thread relay;
+    private Counter relayDroppedCounter;
+
+    /**
+     * Outcome of one execution as relayed between nodes.
+     */
+    record Outcome(UUID jobId, String jobName, String jobGroup, boolean success, long startMillis,
+                   long durationMs, String node) {
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        registerMeters(fleet, Tags.of("group", FLEET, "job", FLEET));
+        nodeId = InetAddress.getLocalHost().getHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        scope = clusterEnabled ? CLUSTER_SCOPE : nodeId;
+        if (clusterEnabled) {
+            relayDroppedCounter = meterRegistry.counter("scheduler.job.stats.relay.dropped");
+            outgoing = new ArrayBlockingQueue<>(relayCapacity);
+            notificationListener.subscribe(CHANNEL, this::onNotification);
+            running = true;
+            relay = Thread.ofPlatform().name("job-stats-relay").daemon(true).start(this::relayLoop);
+        }
+    }
+
+    public void record(JobDefinition definition, boolean success, long startMillis, long durationMs) {
+        apply(definition.id(), definition.jobName(), definition.jobGroup(), success, startMillis, durationMs);
+        if (outgoing != null && !outgoing.offer(new Outcome(definition.id(), definition.jobName(),
+                definition.jobGroup(), success, startMillis, durationMs, nodeId))) {
+            relayDroppedCounter.increment();
+        }
+    }
+
+    private void apply(UUID jobId, String jobName, String jobGroup, boolean success, long startMillis,
+                       long durationMs) {
+        long now = System.currentTimeMillis();
+        Entry job = jobs.computeIfAbsent(jobId, id -> newJobEntry(jobName, jobGroup));
+        Entry group = groups.computeIfAbsent(jobGroup, name -> {
+            Entry entry = new Entry(null, name);
+            registerMeters(entry, Tags.of("group", name, "job", FLEET));
+            return entry;
+        });
+        job.record(now, success, startMillis, durationMs);
+        group.record(now, success, startMillis, durationMs);
+        fleet.record(now, success, startMillis, durationMs);
+        if (jobs.size() > maxTrackedJobs) {
+            evict();
+        }
+    }
+
+    public Optional<JobStats> get(UUID jobId) {
+        Entry entry = jobs.get(jobId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        return Optional.of(new JobStats(jobId, entry.name, entry.group, entry.lastStatus,
+                entry.lastRun == 0 ? null : Instant.ofEpochMilli(entry.lastRun),
+                entry.lastRun == 0 ? null : entry.lastDurationMs, scope, entry.snapshot(now)));
+    }
+
+    /**
+     * Statistics of a job with no execution recorded yet.
+     */
+    public JobStats empty(UUID jobId, String jobName, String jobGroup) {
+        return new JobStats(jobId, jobName, jobGroup, null, null, null, scope,
+                new Entry(jobName, jobGroup).snapshot(System.currentTimeMillis()));
+    }
+
+    public StatsSummary summary() {
+        long now = System.currentTimeMillis();
+        Map<String, Map<String, WindowStats>> byGroup = new TreeMap<>();
+        groups.forEach((name, entry) -> byGroup.put(name, entry.snapshot(now)));
+        return new StatsSummary(jobs.size(), scope, fleet.snapshot(now), byGroup);
+    }
+
+    public void remove(UUID jobId) {
+        Entry entry = jobs.remove(jobId);
+        if (entry != null) {
+            entry.meters.forEach(meterRegistry::remove);
+        }
+    }
+
+    private Entry newJobEntry(String jobName, String jobGroup) {
+        Entry entry = new Entry(jobName, jobGroup);
+        if (jobMeters) {
+            registerMeters(entry, Tags.of("group", jobGroup, "job", jobName));
+        }
+        return entry;
+    }
+
+    private void registerMeters(Entry entry, Tags tags) {
+        for (int i = 0; i < WINDOWS.length; i++) {
+            int window = i;
+            Tags windowTags = tags.and("window", WINDOWS[i]);
+            entry.meters.add(Gauge.builder("scheduler.job.stats.executions", entry, e -> e.window(window).getExecutions())
+                    .description("Executions completed within the window")
+                    .tags(windowTags).register(meterRegistry));
+            entry.meters.add(Gauge.builder("scheduler.job.stats.success.rate", entry, e -> e.window(window).getSuccessRate())
+                    .description("Share of executions within the window that succeeded")
+                    .tags(windowTags).register(meterRegistry));
+            entry.meters.add(Gauge.builder("scheduler.job.stats.latency", entry, e -> e.window(window).getP50Ms())
+                    .description("Execution latency percentile within the window in milliseconds")
+                    .tags(windowTags.and("quantile", "0.5")).register(meterRegistry));
+            entry.meters.add(Gauge.builder("scheduler.job.stats.latency", entry, e -> e.window(window).getP95Ms())
+                    .tags(windowTags.and("quantile", "0.95")).register(meterRegistry));
+            entry.meters.add(Gauge.builder("scheduler.job.stats.latency", entry, e -> e.window(window).getP99Ms())
+                    .tags(windowTags.and("quantile", "0.99")).register(meterRegistry));
+        }
+    }
+
+    private void relayLoop() {
+        List<Outcome> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Outcome first = outgoing.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                outgoing.drainTo(batch, MAX_BATCH - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to relay {} execution outcomes: {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Packs the batch into as few notifications as the payload limit allows
+    private void send(List<Outcome> batch) {
+        StringBuilder payload = new StringBuilder("[");
+        int payloadBytes = 1;
+        for (Outcome outcome : batch) {
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(outcome);
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize execution outcome of job {}: {}", outcome.jobName(), e.getMessage());
+                continue;
+            }
+            int bytes = json.getBytes(StandardCharsets.UTF_8).length;
+            if (payloadBytes > 1 && payloadBytes + bytes + 2 > MAX_PAYLOAD_BYTES) {
+                notificationListener.publish(CHANNEL, payload.append(']').toString());
+                payload.setLength(1);
+                payloadBytes = 1;
+            }
+            if (payloadBytes > 1) {
+                payload.append(',');
+                payloadBytes++;
+            }
+            payload.append(json);
+            payloadBytes += bytes;
+        }
+        if (payloadBytes > 1) {
+            notificationListener.publish(CHANNEL, payload.append(']').toString());
+        }
+    }
+
+    private void onNotification(String payload) {
+        try {
+            for (Outcome outcome : objectMapper.readValue(payload, OUTCOME_LIST)) {
+                // This node's outcomes were applied when they were recorded
+                if (!nodeId.equals(outcome.node())) {
+                    apply(outcome.jobId(), outcome.jobName(), outcome.jobGroup(), outcome.success(),
+                            outcome.startMillis(), outcome.durationMs());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Unparseable job statistics notification: {}", e.getMessage());
+        }
+    }
+
+    // Drops the least recently run jobs, a percent at a time so eviction does not run on every record
+    private synchronized void evict() {
+        int excess = jobs.size() - maxTrackedJobs;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<UUID, Entry>> oldest = new ArrayList<>(jobs.entrySet());
+        oldest.sort(Comparator.comparingLong(e -> e.getValue().lastRun));
+        int toEvict = Math.min(oldest.size(), excess + Math.max(1, maxTrackedJobs / 100));
+        for (int i = 0; i < toEvict; i++) {
+            remove(oldest.get(i).getKey());
+        }
+        log.debug("Evicted statistics of {} jobs", toEvict);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (relay != null) {
+            relay.interrupt();
+            relay.join(flushInterval * 2);
+        }
+    }
+
+    private static class Entry {
+        private final String name;
+        private final String group;
+        private final RollingWindow[] windows = new RollingWindow[WINDOWS.length];
+        private final List<Meter> meters = new ArrayList<>();
+        private volatile String lastStatus;
+        private volatile long lastRun;
+        private volatile long lastDurationMs;
+
+        Entry(String name, String group) {
+            this.name = name;
+            this.group = group;
+            for (int i = 0; i < WINDOWS.length; i++) {
+                windows[i] = new RollingWindow(WINDOW_SLOTS[i], SLOT_WIDTH_MS[i]);
+            }
+        }
+
+        void record(long now, boolean success, long startMillis, long durationMs) {
+            for (RollingWindow window : windows) {
+                window.record(now, success, durationMs);
+            }
+            // Outcomes relayed from other nodes can arrive after a later local one
+            if (startMillis >= lastRun) {
+                lastStatus = success ? "SUCCESS" : "FAILED";
+                lastRun = startMillis;
+                lastDurationMs = durationMs;
+            }
+        }
+
+        WindowStats window(int index) {
+            RollingWindow.Accumulator accumulator = new RollingWindow.Accumulator();
+            windows[index].mergeInto(accumulator, System.currentTimeMillis());
+            return accumulator.toStats();
+        }
+
+        Map<String, WindowStats> snapshot(long now) {
+            Map<String, WindowStats> snapshot = new LinkedHashMap<>();
+            for (int i = 0; i < WINDOWS.length; i++) {
+                RollingWindow.Accumulator accumulator = new RollingWindow.Accumulator();
+                windows[i].mergeInto(accumulator, now);
+                snapshot.put(WINDOWS[i], accumulator.toStats());
+            }
+            return snapshot;
+        }
+    }
+}
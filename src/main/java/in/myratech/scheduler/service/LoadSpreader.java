@@ -0,0 +1,211 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.FireDensity;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.repo.JobDetailsRepository;
+import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Spreads minute-aligned cron schedules over the first seconds of the minute.
+ * Only cron expressions whose seconds field is a single number are shifted, the offset is
+ * added to that second unless that would carry into the next minute, in which case the
+ * schedule is left as it is. In {@code jitter} mode the offset is derived from a hash of the job key,
+ * in {@code balanced} mode a new job takes the least loaded second of the window. Offsets are
+ * stored on the job so its schedule stays the same across restarts and nodes. Balancing only places
+ * new jobs, existing jobs keep the second they fire at and are counted where they fire.
+ */
+@Service
+public class LoadSpreader {
+    private static final Logger log = LoggerFactory.getLogger(LoadSpreader.class);
+    private static final int MAX_WINDOW = 60;
+    private static final int MAX_HORIZON = 3600;
+    private static final long LOAD_REFRESH_INTERVAL_MS = 60_000;
+    private static final Pattern FIXED_SECOND = Pattern.compile("\\d{1,2}");
+    // Jobs by the second they fire at, their seconds field shifted by their offset as effectiveCron does.
+    // Jobs created before spreading was enabled have no offset and are shifted by their jitter, so they
+    // come back by key, every other job only by offset.
+    private static final String SLOT_LOAD_SQL = "SELECT substring(cron_expression from '^\\s*(\\d{1,2})\\s')::int AS second, " +
+            "fire_offset_seconds, " +
+            "CASE WHEN fire_offset_seconds IS NULL THEN job_group END, " +
+            "CASE WHEN fire_offset_seconds IS NULL THEN job_name END, " +
+            "COUNT(*) FROM job_details WHERE active = true GROUP BY 1, 2, 3, 4";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JobDetailsRepository jobDetailsRepository;
+
+    @Value("${scheduler.load-spreading.mode:off}")
+    private String mode;
+
+    @Value("${scheduler.load-spreading.window-seconds:30}")
+    private int windowSeconds;
+
+    @Value("${scheduler.load-spreading.density-page-size:1000}")
+    private int densityPageSize;
+
+    private final int[] slotLoad = new int[MAX_WINDOW];
+    private long slotLoadRefreshedAt;
+
+    public boolean isEnabled() {
+        return !"off".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Assigns the job its fire offset if spreading is enabled and it does not have one yet.
+     */
+    public void assignOffset(JobDetails jobDetails) {
+        if (!isEnabled() || jobDetails.getFireOffsetSeconds() != null) {
+            return;
+        }
+        int offset = "balanced".equalsIgnoreCase(mode) ? leastLoadedOffset(jobDetails) : jitterOffset(jobDetails);
+        jobDetails.setFireOffsetSeconds(offset);
+        log.debug("Job {} assigned fire offset of {} seconds", jobDetails.getJobName(), offset);
+    }
+
+    /**
+     * Cron expression the trigger is built from, the stored expression with the offset applied.
+     */
+    public String effectiveCron(JobDetails jobDetails) {
+        String cron = jobDetails.getCronExpression();
+        if (!isEnabled() || cron == null) {
+            return cron;
+        }
+        int offset = jobDetails.getFireOffsetSeconds() != null ? jobDetails.getFireOffsetSeconds() : jitterOffset(jobDetails);
+        String[] fields = cron.trim().split("\\s+");
+        int second = fixedSecond(fields[0]);
+        int shifted = second < 0 ? second : shiftedSecond(second, offset);
+        if (shifted == second) {
+            return cron;
+        }
+        fields[0] = Integer.toString(shifted);
+        return String.join(" ", fields);
+    }
+
+    /**
+     * Projected number of fires per second for the active jobs over the coming horizon.
+     */
+    public FireDensity projectFireDensity(int horizonSeconds) {
+        int horizon = Math.max(1, Math.min(horizonSeconds, MAX_HORIZON));
+        Instant from = Instant.now().plusSeconds(1).truncatedTo(java.time.temporal.ChronoUnit.SECONDS);
+        Date start = Date.from(from.minusMillis(1));
+        long end = from.plusSeconds(horizon).toEpochMilli();
+        int[] firesPerSecond = new int[horizon];
+
+        UUID lastId = new UUID(0L, 0L);
+        List<JobDetails> page;
+        do {
+            page = jobDetailsRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(lastId, Limit.of(densityPageSize));
+            for (JobDetails jobDetails : page) {
+                lastId = jobDetails.getId();
+                String expression = effectiveCron(jobDetails);
+                if (expression == null) {
+                    continue;
+                }
+                try {
+                    CronExpression cron = new CronExpression(expression);
+                    for (Date next = cron.getNextValidTimeAfter(start); next != null && next.getTime() < end;
+                         next = cron.getNextValidTimeAfter(next)) {
+                        firesPerSecond[(int) ((next.getTime() - from.toEpochMilli()) / 1000)]++;
+                    }
+                } catch (ParseException e) {
+                    log.debug("Skipping job {} with invalid cron expression", jobDetails.getId());
+                }
+            }
+        } while (page.size() == densityPageSize);
+
+        long total = 0;
+        int peak = 0;
+        for (int fires : firesPerSecond) {
+            total += fires;
+            peak = Math.max(peak, fires);
+        }
+        return new FireDensity(from, horizon, total, peak, firesPerSecond);
+    }
+
+    private int window() {
+        return Math.max(1, Math.min(windowSeconds, MAX_WINDOW));
+    }
+
+    // Second of the minute a seconds field fires at, -1 unless it is a single number
+    private static int fixedSecond(String field) {
+        if (!FIXED_SECOND.matcher(field).matches()) {
+            return -1;
+        }
+        int second = Integer.parseInt(field);
+        return second < 60 ? second : -1;
+    }
+
+    // Wrapping into the same minute would fire earlier than scheduled, so such schedules stay put
+    private static int shiftedSecond(int second, int offset) {
+        return offset > 0 && second + offset < 60 ? second + offset : second;
+    }
+
+    private int jitterOffset(JobDetails jobDetails) {
+        return jitterOffset(jobDetails.getJobGroup(), jobDetails.getJobName());
+    }
+
+    private int jitterOffset(String jobGroup, String jobName) {
+        // Name based UUID gives a hash that is stable across JVMs and releases
+        byte[] key = (jobGroup + "/" + jobName).getBytes(StandardCharsets.UTF_8);
+        return (int) Math.floorMod(UUID.nameUUIDFromBytes(key).getLeastSignificantBits(), (long) window());
+    }
+
+    // Picks the offset that moves the job to the least loaded second it can reach without leaving the minute
+    private synchronized int leastLoadedOffset(JobDetails jobDetails) {
+        String cron = jobDetails.getCronExpression();
+        int second = cron != null ? fixedSecond(cron.trim().split("\\s+")[0]) : -1;
+        if (second < 0) {
+            // The schedule is never shifted, any offset will do
+            return jitterOffset(jobDetails);
+        }
+        refreshSlotLoad();
+        int reach = Math.min(window(), 60 - second);
+        int start = jitterOffset(jobDetails) % reach;
+        int best = start;
+        for (int i = 1; i < reach; i++) {
+            int candidate = (start + i) % reach;
+            if (slotLoad[second + candidate] < slotLoad[second + best]) {
+                best = candidate;
+            }
+        }
+        slotLoad[second + best]++;
+        return best;
+    }
+
+    private void refreshSlotLoad() {
+        long now = System.currentTimeMillis();
+        if (now - slotLoadRefreshedAt < LOAD_REFRESH_INTERVAL_MS) {
+            return;
+        }
+        java.util.Arrays.fill(slotLoad, 0);
+        jdbcTemplate.query(SLOT_LOAD_SQL, rs -> {
+            int second = rs.getInt(1);
+            if (rs.wasNull() || second >= 60) {
+                return;
+            }
+            int offset = rs.getInt(2);
+            if (rs.wasNull()) {
+                offset = jitterOffset(rs.getString(3), rs.getString(4));
+            }
+            slotLoad[shiftedSecond(second, offset)] += rs.getInt(5);
+        });
+        slotLoadRefreshedAt = now;
+    }
+}
@@ -0,0 +1,426 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.job.CompiledRequest;
+import in.myratech.scheduler.job.FanOutRunner;
+import in.myratech.scheduler.job.FireMetrics;
+import in.myratech.scheduler.job.IdempotencyKey;
+import in.myratech.scheduler.job.JobDefinition;
+import in.myratech.scheduler.job.JobRunner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Outbox dispatch mode. A trigger fire only appends a row to {@code execution_queue}, keyed by the
+ * idempotency key of the fire so a duplicate fire is dropped. Executors claim batches of rows with
+ * {@code FOR UPDATE SKIP LOCKED}, leasing them for a bounded time, run the calls on the execution
+ * engine and delete each row in the same transaction that writes its history, so a row is never gone
+ * while the outcome of its execution is still unrecorded. Leases of running calls are renewed,
+ * a row whose executor died becomes claimable again when its lease runs out, which makes delivery
+ * at-least-once. Rows delivered more often than the limit are recorded as failed and dropped.
+ * <p>
+ * Firing and execution scale independently, nodes with the executor disabled only fire triggers.
+ */
+@Service
+public class OutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final String ENQUEUE_SQL = "INSERT INTO execution_queue " +
+            "(id, job_id, job_group, job_name, trigger_name, workflow_run_id, idempotency_key, " +
+            "scheduled_fire_time, enqueued_at, available_at, attempts) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, now(), now(), 0) ON CONFLICT (idempotency_key) DO NOTHING";
+    private static final String CLAIM_SQL = "UPDATE execution_queue q " +
+            "SET claimed_by = ?, lease_until = now() + ? * INTERVAL '1 millisecond', attempts = q.attempts + 1 " +
+            "FROM (SELECT id FROM execution_queue " +
+            "      WHERE available_at <= now() AND (lease_until IS NULL OR lease_until < now()) " +
+            "      ORDER BY available_at LIMIT ? FOR UPDATE SKIP LOCKED) claimable " +
+            "WHERE q.id = claimable.id " +
+            "RETURNING q.id, q.job_id, q.job_group, q.job_name, q.trigger_name, q.workflow_run_id, " +
+            "q.idempotency_key, q.attempts, q.enqueued_at";
+    private static final String RENEW_SQL = "UPDATE execution_queue " +
+            "SET lease_until = now() + ? * INTERVAL '1 millisecond' WHERE claimed_by = ? AND id = ANY(?)";
+    private static final String RELEASE_SQL = "UPDATE execution_queue " +
+            "SET claimed_by = NULL, lease_until = NULL, attempts = attempts - 1 WHERE id = ? AND claimed_by = ?";
+    // Gives up the claim after a failed attempt, unlike a release the delivery still counts
+    private static final String EXPIRE_SQL = "UPDATE execution_queue " +
+            "SET claimed_by = NULL, lease_until = NULL WHERE id = ? AND claimed_by = ?";
+    private static final String COMPLETE_SQL = "DELETE FROM execution_queue WHERE id = ? AND claimed_by = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JobDefinitionCache jobDefinitionCache;
+
+    @Autowired
+    private FairShareDispatcher fairShareDispatcher;
+
+    @Autowired
+    private JobRunner jobRunner;
+
+    @Autowired
+    private FanOutRunner fanOutRunner;
+
+    @Autowired
+    private JobHistoryWriter historyWriter;
+
+    @Autowired
+    private WorkflowSvc workflowSvc;
+
+    @Autowired
+    private FireMetrics fireMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scheduler.dispatch.mode:direct}")
+    private String mode;
+
+    @Value("${scheduler.dispatch.outbox.executor-enabled:true}")
+    private boolean executorEnabled;
+
+    @Value("${scheduler.dispatch.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${scheduler.dispatch.outbox.max-in-flight:500}")
+    private int maxInFlight;
+
+    @Value("${scheduler.dispatch.outbox.poll-interval:250}")
+    private long pollInterval;
+
+    @Value("${scheduler.dispatch.outbox.lease:300000}")
+    private long lease;
+
+    @Value("${scheduler.dispatch.outbox.max-deliveries:5}")
+    private int maxDeliveries;
+
+    @Value("${scheduler.dispatch.outbox.shutdown-timeout:30000}")
+    private long shutdownTimeout;
+
+    private final Object wakeUp = new Object();
+    // Rows handed to the engine and not yet finished, only their leases are renewed
+    private final Set<UUID> claimedIds = ConcurrentHashMap.newKeySet();
+    private String executorId;
+    private Semaphore inFlight;
+    private Thread poller;
+    private ScheduledExecutorService leaseRenewer;
+    private volatile boolean running;
+
+    private Counter enqueuedCounter;
+    private Counter duplicateCounter;
+    private Counter redeliveredCounter;
+    private Counter abandonedCounter;
+    private Timer queueWaitTimer;
+
+    private record Claimed(UUID id, UUID jobId, String jobGroup, String jobName, String triggerName,
+                           UUID workflowRunId, String idempotencyKey, int attempts, Timestamp enqueuedAt) {
+    }
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (!isEnabled()) {
+            return;
+        }
+        enqueuedCounter = meterRegistry.counter("scheduler.outbox.enqueued");
+        duplicateCounter = meterRegistry.counter("scheduler.outbox.duplicates");
+        redeliveredCounter = meterRegistry.counter("scheduler.outbox.redelivered");
+        abandonedCounter = meterRegistry.counter("scheduler.outbox.abandoned");
+        queueWaitTimer = Timer.builder("scheduler.outbox.queue.wait")
+                .description("Time an execution waited in the outbox queue before an executor claimed it")
+                .register(meterRegistry);
+        if (!executorEnabled) {
+            log.info("Outbox dispatch enabled, this node only enqueues fires");
+            return;
+        }
+
+        executorId = InetAddress.getLocalHost().getHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        inFlight = new Semaphore(maxInFlight);
+        Gauge.builder("scheduler.outbox.in.flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Claimed executions running on this node")
+                .register(meterRegistry);
+        running = true;
+        poller = Thread.ofPlatform().name("outbox-poller").daemon(true).start(this::pollLoop);
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("outbox-lease-renewer").daemon(true).factory());
+        leaseRenewer.scheduleWithFixedDelay(this::renewLeases, lease / 3, lease / 3, TimeUnit.MILLISECONDS);
+        log.info("Outbox executor {} started, batch size {}, up to {} executions in flight, lease {} ms",
+                executorId, batchSize, maxInFlight, lease);
+    }
+
+    public boolean isEnabled() {
+        return "outbox".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Appends a fire to the queue, a fire already queued under the same idempotency key is dropped.
+     */
+    public void enqueue(JobDefinition definition, String triggerName, Date scheduledFireTime, UUID workflowRunId) {
+        JobKey jobKey = JobKey.jobKey(definition.jobName(), definition.jobGroup());
+        String idempotencyKey = IdempotencyKey.of(jobKey, triggerName, scheduledFireTime);
+        int inserted = jdbcTemplate.update(ENQUEUE_SQL, UUID.randomUUID(), definition.id(), definition.jobGroup(),
+                definition.jobName(), triggerName, workflowRunId, idempotencyKey,
+                scheduledFireTime != null ? new Timestamp(scheduledFireTime.getTime()) : null);
+        if (inserted == 0) {
+            duplicateCounter.increment();
+            log.debug("Fire {} of job {} is already queued", idempotencyKey, definition.jobName());
+            return;
+        }
+        enqueuedCounter.increment();
+        if (running) {
+            synchronized (wakeUp) {
+                wakeUp.notifyAll();
+            }
+        }
+    }
+
+    private void pollLoop() {
+        while (running) {
+            int permits = 0;
+            try {
+                inFlight.acquire();
+                permits = 1 + inFlight.drainPermits();
+                List<Claimed> claimed = claim(Math.min(permits, batchSize));
+                inFlight.release(permits - claimed.size());
+                permits = 0;
+                claimed.forEach(this::dispatch);
+                if (claimed.isEmpty()) {
+                    synchronized (wakeUp) {
+                        wakeUp.wait(pollInterval);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                inFlight.release(permits);
+                log.error("Failed to claim outbox executions: {}", e.getMessage());
+                sleepQuietly(pollInterval * 4);
+            }
+        }
+    }
+
+    private List<Claimed> claim(int limit) {
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Claimed(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("job_id", UUID.class),
+                        rs.getString("job_group"),
+                        rs.getString("job_name"),
+                        rs.getString("trigger_name"),
+                        rs.getObject("workflow_run_id", UUID.class),
+                        rs.getString("idempotency_key"),
+                        rs.getInt("attempts"),
+                        rs.getTimestamp("enqueued_at")),
+                executorId, lease, limit);
+    }
+
+    /**
+     * Hands a claimed row to the engine. Every path ends in exactly one finish or release of the row,
+     * so a failure here neither leaks its in-flight permit nor keeps its lease renewed, and the rest
+     * of the batch is still dispatched.
+     */
+    private void dispatch(Claimed item) {
+        queueWaitTimer.record(Math.max(0, System.currentTimeMillis() - item.enqueuedAt().getTime()), TimeUnit.MILLISECONDS);
+        if (item.attempts() > 1) {
+            redeliveredCounter.increment();
+        }
+        claimedIds.add(item.id());
+        if (item.attempts() > maxDeliveries) {
+            abandon(item);
+            return;
+        }
+        Optional<CompiledRequest> compiled;
+        try {
+            compiled = jobDefinitionCache.get(JobKey.jobKey(item.jobName(), item.jobGroup()));
+        } catch (RuntimeException e) {
+            // A cache miss reads the job from the database, the row goes back for a later claim
+            log.error("Failed to load job {} in group {} for queued execution {}: {}",
+                    item.jobName(), item.jobGroup(), item.id(), e.getMessage());
+            release(item);
+            return;
+        }
+        if (compiled.isEmpty()) {
+            log.warn("Dropping queued execution of job {} in group {}, the job no longer exists", item.jobName(), item.jobGroup());
+            remove(item);
+            return;
+        }
+        CompiledRequest request = compiled.get();
+        try {
+            String host = request.definition().isFanOut()
+                    ? FanOutRunner.coordinatorHost(JobKey.jobKey(item.jobName(), item.jobGroup())) : request.host();
+            fairShareDispatcher.dispatch(item.jobGroup(), host, () -> {
+                AtomicBoolean recorded = new AtomicBoolean();
+                try {
+                    IdempotencyKey.runWith(item.idempotencyKey(), () -> fireMetrics.observe(request.definition(),
+                            () -> run(item, request, histories -> recorded.set(record(item, histories)))));
+                } finally {
+                    finish(item, recorded.get());
+                }
+            });
+        } catch (JobExecutionException e) {
+            log.warn("Dispatcher rejected queued execution of job {}: {}", item.jobName(), e.getMessage());
+            release(item);
+        } catch (RuntimeException e) {
+            log.error("Failed to dispatch queued execution {} of job {}: {}", item.id(), item.jobName(), e.getMessage(), e);
+            release(item);
+        }
+    }
+
+    private void run(Claimed item, CompiledRequest request, Consumer<List<JobExecutionHistory>> recorder)
+            throws JobExecutionException {
+        if (request.definition().isFanOut()) {
+            fanOutRunner.run(request.definition(), item.triggerName(), item.workflowRunId(), recorder);
+        } else {
+            jobRunner.run(request, item.triggerName(), item.workflowRunId(), history -> recorder.accept(List.of(history)));
+        }
+    }
+
+    // Every executor that claimed it stopped before finishing, most likely the call itself brings them down
+    private void abandon(Claimed item) {
+        log.error("Giving up on execution {} of job {} after {} deliveries", item.id(), item.jobName(), maxDeliveries);
+        abandonedCounter.increment();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        JobExecutionHistory history = new JobExecutionHistory();
+        history.setJobId(item.jobId());
+        history.setTriggerName(item.triggerName());
+        history.setWorkflowRunId(item.workflowRunId());
+        history.setStartTime(now);
+        history.setEndTime(now);
+        history.setStatus("FAILED");
+        history.setErrorMessage("Abandoned after " + maxDeliveries + " deliveries without a recorded outcome");
+        boolean recorded = record(item, List.of(history));
+        if (recorded && item.workflowRunId() != null) {
+            try {
+                workflowSvc.onStepComplete(item.workflowRunId(), item.jobId(), false, null);
+            } catch (Exception e) {
+                log.error("Failed to advance workflow run {} after job {}. Error: {}",
+                        item.workflowRunId(), item.jobId(), e.getMessage(), e);
+            }
+        }
+        finish(item, recorded);
+    }
+
+    /**
+     * Writes the history records of an execution and deletes its row in one transaction.
+     *
+     * @return false if neither happened, the row is then redelivered
+     */
+    private boolean record(Claimed item, List<JobExecutionHistory> histories) {
+        try {
+            historyWriter.writeWith(histories, () -> jdbcTemplate.update(COMPLETE_SQL, item.id(), executorId));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to record execution {} of job {}, it is redelivered: {}",
+                    item.id(), item.jobName(), e.getMessage());
+            return false;
+        }
+    }
+
+    // Drops a row that has nothing to record
+    private void remove(Claimed item) {
+        boolean removed = false;
+        try {
+            jdbcTemplate.update(COMPLETE_SQL, item.id(), executorId);
+            removed = true;
+        } catch (DataAccessException e) {
+            log.error("Failed to remove execution {} of job {} from the outbox queue: {}",
+                    item.id(), item.jobName(), e.getMessage());
+        } finally {
+            finish(item, removed);
+        }
+    }
+
+    // A row left behind is handed back right away rather than when its lease runs out
+    private void finish(Claimed item, boolean completed) {
+        try {
+            if (!completed) {
+                jdbcTemplate.update(EXPIRE_SQL, item.id(), executorId);
+            }
+        } catch (DataAccessException e) {
+            log.error("Failed to give up execution {} of job {}, it is redelivered once its lease runs out: {}",
+                    item.id(), item.jobName(), e.getMessage());
+        } finally {
+            claimedIds.remove(item.id());
+            inFlight.release();
+        }
+    }
+
+    // Hands the row back for any executor to claim, without counting it as a delivery
+    private void release(Claimed item) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, item.id(), executorId);
+        } catch (DataAccessException e) {
+            log.error("Failed to release execution {} of job {}, it is redelivered once its lease runs out: {}",
+                    item.id(), item.jobName(), e.getMessage());
+        } finally {
+            claimedIds.remove(item.id());
+            inFlight.release();
+        }
+    }
+
+    private void renewLeases() {
+        if (claimedIds.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(RENEW_SQL, ps -> {
+                ps.setLong(1, lease);
+                ps.setString(2, executorId);
+                ps.setArray(3, ps.getConnection().createArrayOf("uuid", claimedIds.toArray()));
+            });
+        } catch (DataAccessException e) {
+            log.error("Failed to renew outbox leases of executor {}: {}", executorId, e.getMessage());
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Claimed executions keep running on the engine, which is shut down after this
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        poller.interrupt();
+        poller.join(shutdownTimeout);
+        if (!inFlight.tryAcquire(maxInFlight, shutdownTimeout, TimeUnit.MILLISECONDS)) {
+            log.warn("Outbox executions still running after {} ms, they are redelivered once their lease runs out",
+                    shutdownTimeout);
+        }
+        leaseRenewer.shutdownNow();
+    }
+}
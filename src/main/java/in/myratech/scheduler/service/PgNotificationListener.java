@@ -0,0 +1,179 @@
+package in.myratech.scheduler.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Lightweight cluster-wide change notifications over Postgres LISTEN/NOTIFY.
+ * A single background thread holds one dedicated connection and dispatches notifications to the
+ * handlers subscribed to each channel. Notifications sent while the connection was down are lost,
+ * so reconnect handlers are run whenever the connection is (re)established.
+ */
+@Component
+public class PgNotificationListener {
+    private static final Logger log = LoggerFactory.getLogger(PgNotificationListener.class);
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${scheduler.notifications.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scheduler.notifications.poll-timeout:500}")
+    private int pollTimeout;
+
+    @Value("${scheduler.notifications.reconnect-delay:5000}")
+    private long reconnectDelay;
+
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> reconnectHandlers = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listener;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Postgres change notifications disabled");
+            return;
+        }
+        running = true;
+        listener = Thread.ofPlatform().name("pg-notification-listener").daemon(true).start(this::listenLoop);
+    }
+
+    public void subscribe(String channel, Consumer<String> handler) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel name: " + channel);
+        }
+        handlers.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Registers a callback run every time the listening connection is established,
+     * subscribers use it to resynchronise state that may have missed notifications.
+     */
+    public void onReconnect(Runnable handler) {
+        reconnectHandlers.add(handler);
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * Sends a notification. When called inside a transaction it is delivered on commit.
+     */
+    public void publish(String channel, String payload) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+                ps.setString(1, channel);
+                ps.setString(2, payload);
+                return ps.execute();
+            });
+        } catch (DataAccessException e) {
+            log.warn("Failed to publish notification on channel {}: {}", channel, e.getMessage());
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    log.info("Datasource is not Postgres, change notifications unavailable");
+                    running = false;
+                    return;
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                Set<String> subscribed = new HashSet<>();
+                listenToNewChannels(connection, subscribed);
+                listening = true;
+                log.info("Listening for change notifications on channels: {}", subscribed);
+                reconnectHandlers.forEach(Runnable::run);
+
+                while (running) {
+                    listenToNewChannels(connection, subscribed);
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeout);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getName(), notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                listening = false;
+                if (running) {
+                    log.warn("Notification listener connection lost: {}. Reconnecting in {} ms", e.getMessage(), reconnectDelay);
+                    sleepBeforeReconnect();
+                }
+            }
+        }
+        listening = false;
+    }
+
+    private void listenToNewChannels(Connection connection, Set<String> subscribed) throws SQLException {
+        for (String channel : handlers.keySet()) {
+            if (subscribed.add(channel)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+            }
+        }
+    }
+
+    private void dispatch(String channel, String payload) {
+        for (Consumer<String> handler : handlers.getOrDefault(channel, List.of())) {
+            try {
+                handler.accept(payload);
+            } catch (RuntimeException e) {
+                log.error("Notification handler for channel {} failed: {}", channel, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (listener != null) {
+            listener.join(pollTimeout * 2L);
+        }
+    }
+}
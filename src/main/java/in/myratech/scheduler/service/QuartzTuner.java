@@ -0,0 +1,298 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.QuartzTuning;
+import in.myratech.scheduler.job.ResizableThreadPool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches the Quartz worker pools and, in adaptive mode, resizes them. Every interval it takes the
+ * mean fire lag of each scheduler and the mean downstream call latency across all jobs:
+ * <ul>
+ *     <li>downstream latency above the ceiling shrinks the pools by a quarter, more concurrent calls
+ *     would only queue up at the targets,</li>
+ *     <li>lag above the target while every worker was busy grows the pool by a quarter,</li>
+ *     <li>low lag with less than half the workers busy shrinks it by one.</li>
+ * </ul>
+ * Sizes stay between the configured minimum and maximum, and never exceed what the job store connection
+ * pool can serve: a worker holds a connection while it completes a fire, on top of the three Quartz keeps
+ * for the scheduler, misfire and cluster threads. Scheduler shards share one pool, so a shard only grows
+ * into connections the other shards leave unused. Batch acquisition, the fire-ahead window and the
+ * misfire threshold are fixed when a scheduler is created and are only reported.
+ */
+@Service
+public class QuartzTuner {
+    private static final Logger log = LoggerFactory.getLogger(QuartzTuner.class);
+    private static final int RESERVED_CONNECTIONS = 3;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scheduler.quartz.thread-count:10}")
+    private int threadCount;
+
+    @Value("${scheduler.quartz.batch-max-count:1}")
+    private int batchMaxCount;
+
+    @Value("${scheduler.quartz.fire-ahead-window:0}")
+    private long fireAheadWindow;
+
+    @Value("${scheduler.quartz.misfire-threshold:60000}")
+    private long misfireThreshold;
+
+    @Value("${scheduler.quartz.pool.max-connections:13}")
+    private int maxConnections;
+
+    @Value("${scheduler.sharding.enabled:false}")
+    private boolean sharded;
+
+    @Value("${scheduler.sharding.shards:16}")
+    private int shardCount;
+
+    @Value("${scheduler.sharding.threads-per-shard:4}")
+    private int threadsPerShard;
+
+    @Value("${scheduler.sharding.max-connections:112}")
+    private int shardMaxConnections;
+
+    @Value("${scheduler.quartz.adaptive.enabled:false}")
+    private volatile boolean adaptive;
+
+    @Value("${scheduler.quartz.adaptive.interval:15000}")
+    private long interval;
+
+    @Value("${scheduler.quartz.adaptive.min-threads:2}")
+    private int minThreads;
+
+    @Value("${scheduler.quartz.adaptive.max-threads:50}")
+    private int maxThreads;
+
+    @Value("${scheduler.quartz.adaptive.lag-target:1000}")
+    private long lagTarget;
+
+    @Value("${scheduler.quartz.adaptive.latency-ceiling:2000}")
+    private long latencyCeiling;
+
+    private final Map<String, LagWindow> lags = new ConcurrentHashMap<>();
+    private final Set<String> metered = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService executor;
+    private double lastHttpCount;
+    private double lastHttpTotalMs;
+    private volatile double downstreamLatencyMs;
+
+    private static final class LagWindow {
+        private final LongAdder totalMs = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        private volatile double meanMs;
+
+        private double drain() {
+            long fires = count.sumThenReset();
+            long total = totalMs.sumThenReset();
+            meanMs = fires > 0 ? (double) total / fires : 0;
+            return meanMs;
+        }
+    }
+
+    /**
+     * Refuses to start with more workers than job store connections, they would block each other.
+     */
+    @PostConstruct
+    public void validate() {
+        if (threadCount + RESERVED_CONNECTIONS > maxConnections) {
+            throw new IllegalStateException("scheduler.quartz.thread-count=" + threadCount + " needs "
+                    + (threadCount + RESERVED_CONNECTIONS) + " job store connections but scheduler.quartz.pool.max-connections="
+                    + maxConnections);
+        }
+        if (sharded && shardCount * (threadsPerShard + RESERVED_CONNECTIONS) > shardMaxConnections) {
+            throw new IllegalStateException(shardCount + " shards with scheduler.sharding.threads-per-shard="
+                    + threadsPerShard + " need " + shardCount * (threadsPerShard + RESERVED_CONNECTIONS)
+                    + " job store connections but scheduler.sharding.max-connections=" + shardMaxConnections);
+        }
+        // Adaptive sizing switched on later is capped at the pool instead
+        if (adaptive && maxThreads + RESERVED_CONNECTIONS > maxConnections) {
+            throw new IllegalStateException("scheduler.quartz.adaptive.max-threads=" + maxThreads + " needs "
+                    + (maxThreads + RESERVED_CONNECTIONS) + " job store connections but scheduler.quartz.pool.max-connections="
+                    + maxConnections);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (ResizableThreadPool.pools().isEmpty()) {
+            log.warn("Quartz is not running on {}, worker pools cannot be tuned", ResizableThreadPool.class.getSimpleName());
+            return;
+        }
+        ResizableThreadPool.pools().forEach(this::bind);
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("quartz-tuner").daemon(true).factory());
+        executor.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Quartz tuner started, adaptive sizing {}", adaptive ? "enabled" : "disabled");
+    }
+
+    public void recordLag(String scheduler, long lagMs) {
+        LagWindow window = lags.computeIfAbsent(scheduler, name -> new LagWindow());
+        window.totalMs.add(Math.max(0, lagMs));
+        window.count.increment();
+    }
+
+    public QuartzTuning tuning() {
+        List<QuartzTuning.WorkerPool> pools = new ArrayList<>();
+        for (ResizableThreadPool pool : ResizableThreadPool.pools()) {
+            LagWindow window = lags.get(pool.getInstanceName());
+            pools.add(new QuartzTuning.WorkerPool(pool.getInstanceName(), pool.getPoolSize(), pool.getBusy(),
+                    pool.getSaturatedWaits(), window != null ? window.meanMs : 0));
+        }
+        return new QuartzTuning(threadCount, batchMaxCount, fireAheadWindow, misfireThreshold, maxConnections,
+                adaptive, minThreads, maxThreads, lagTarget, latencyCeiling, downstreamLatencyMs, pools);
+    }
+
+    /**
+     * Resizes one scheduler's worker pool, or all of them when no scheduler is given. In adaptive mode
+     * the tuner keeps adjusting from the new size.
+     */
+    public QuartzTuning resize(String scheduler, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be > 0");
+        }
+        Collection<ResizableThreadPool> pools = scheduler == null ? ResizableThreadPool.pools()
+                : List.of(pool(scheduler));
+        for (ResizableThreadPool pool : pools) {
+            int ceiling = connectionCeiling(pool);
+            if (threads > ceiling) {
+                throw new IllegalArgumentException("Workers of " + pool.getInstanceName() + " are limited to " + ceiling
+                        + " by the job store connection pool");
+            }
+        }
+        pools.forEach(pool -> pool.resize(threads));
+        return tuning();
+    }
+
+    public QuartzTuning setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+        log.info("Adaptive Quartz worker sizing {}", adaptive ? "enabled" : "disabled");
+        return tuning();
+    }
+
+    private ResizableThreadPool pool(String scheduler) {
+        ResizableThreadPool pool = ResizableThreadPool.pool(scheduler);
+        if (pool == null) {
+            throw new IllegalArgumentException("No worker pool for scheduler " + scheduler);
+        }
+        return pool;
+    }
+
+    private void tick() {
+        try {
+            double latency = downstreamLatency();
+            for (ResizableThreadPool pool : ResizableThreadPool.pools()) {
+                bind(pool);
+                double lag = lags.computeIfAbsent(pool.getInstanceName(), name -> new LagWindow()).drain();
+                int peakBusy = pool.drainPeakBusy();
+                if (adaptive) {
+                    adapt(pool, lag, peakBusy, latency);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Quartz tuner pass failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void adapt(ResizableThreadPool pool, double lag, int peakBusy, double latency) {
+        int size = pool.getPoolSize();
+        int step = Math.max(1, size / 4);
+        int target = size;
+        if (latencyCeiling > 0 && latency > latencyCeiling) {
+            target = size - step;
+        } else if (lag > lagTarget && peakBusy >= size) {
+            target = size + step;
+        } else if (lag < lagTarget / 2.0 && peakBusy < size / 2) {
+            target = size - 1;
+        }
+        target = Math.max(minThreads, Math.min(Math.min(maxThreads, connectionCeiling(pool)), target));
+        if (target == size) {
+            return;
+        }
+        log.debug("Resizing workers of {} from {} to {}, fire lag {} ms, peak busy {}, downstream latency {} ms",
+                pool.getInstanceName(), size, target, Math.round(lag), peakBusy, Math.round(latency));
+        pool.resize(target);
+        meterRegistry.counter("scheduler.quartz.resizes", "scheduler", pool.getInstanceName(),
+                "direction", target > size ? "grow" : "shrink").increment();
+    }
+
+    // Largest pool size whose workers all get a job store connection
+    private int connectionCeiling(ResizableThreadPool pool) {
+        if (!pool.getInstanceName().startsWith(SchedulerRouter.SHARD_PREFIX)) {
+            return maxConnections - RESERVED_CONNECTIONS;
+        }
+        int others = 0;
+        for (ResizableThreadPool other : ResizableThreadPool.pools()) {
+            if (other != pool && other.getInstanceName().startsWith(SchedulerRouter.SHARD_PREFIX)) {
+                others += other.getPoolSize();
+            }
+        }
+        return shardMaxConnections - RESERVED_CONNECTIONS * shardCount - others;
+    }
+
+    // Mean latency of the outbound calls made since the previous pass
+    private double downstreamLatency() {
+        double count = 0;
+        double totalMs = 0;
+        for (Timer timer : meterRegistry.find("scheduler.fire.http").timers()) {
+            count += timer.count();
+            totalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        double calls = count - lastHttpCount;
+        double time = totalMs - lastHttpTotalMs;
+        lastHttpCount = count;
+        lastHttpTotalMs = totalMs;
+        downstreamLatencyMs = calls > 0 && time >= 0 ? time / calls : 0;
+        return downstreamLatencyMs;
+    }
+
+    private void bind(ResizableThreadPool pool) {
+        String scheduler = pool.getInstanceName();
+        if (!metered.add(scheduler)) {
+            return;
+        }
+        Gauge.builder("scheduler.quartz.threads", pool, ResizableThreadPool::getPoolSize)
+                .description("Worker threads of the Quartz scheduler")
+                .tag("scheduler", scheduler)
+                .register(meterRegistry);
+        Gauge.builder("scheduler.quartz.threads.busy", pool, ResizableThreadPool::getBusy)
+                .description("Quartz workers running a fire")
+                .tag("scheduler", scheduler)
+                .register(meterRegistry);
+        FunctionCounter.builder("scheduler.quartz.saturated", pool, ResizableThreadPool::getSaturatedWaits)
+                .description("Times the scheduler waited for a free worker before acquiring triggers")
+                .tag("scheduler", scheduler)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
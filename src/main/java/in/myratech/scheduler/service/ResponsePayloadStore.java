@@ -0,0 +1,147 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.repo.ResponsePayloadRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content addressed store for captured response bodies and headers. Payloads are keyed by the
+ * SHA-256 of their content and stored gzip compressed, so a response repeated by every fire of a
+ * job is stored once. {@code last_seen_at} is refreshed at most hourly and drives retention.
+ */
+@Service
+public class ResponsePayloadStore {
+    private static final Logger log = LoggerFactory.getLogger(ResponsePayloadStore.class);
+
+    private static final String UPSERT_SQL = "INSERT INTO response_payload (hash, content, original_size, created_at, last_seen_at) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT (hash) DO UPDATE SET last_seen_at = EXCLUDED.last_seen_at " +
+            "WHERE response_payload.last_seen_at < EXCLUDED.last_seen_at - INTERVAL '1 hour'";
+
+    // Volatile or sensitive headers, leaving them out keeps identical responses identical
+    private static final Set<String> SKIPPED_HEADERS = Set.of("date", "set-cookie", "expires", "age");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResponsePayloadRepository payloadRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Serializes response headers for capture, sorted so equal header sets hash the same.
+     */
+    public byte[] headersJson(HttpHeaders headers) {
+        Map<String, List<String>> kept = new TreeMap<>();
+        headers.forEach((name, values) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                kept.put(name.toLowerCase(), values);
+            }
+        });
+        try {
+            return objectMapper.writeValueAsBytes(kept);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize response headers: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hashes and stores the payloads captured by a batch of history records and sets the
+     * hashes on them. Runs on the history writer, off the fire path.
+     */
+    public void store(List<JobExecutionHistory> batch) {
+        Map<String, byte[]> payloads = new LinkedHashMap<>();
+        for (JobExecutionHistory history : batch) {
+            if (history.getResponseBody() != null) {
+                history.setResponseBodyHash(add(payloads, history.getResponseBody()));
+            }
+            if (history.getResponseHeaders() != null) {
+                history.setResponseHeadersHash(add(payloads, history.getResponseHeaders()));
+            }
+        }
+        if (payloads.isEmpty()) {
+            return;
+        }
+        // Duplicates are collapsed above, a rewritten multi-row upsert cannot touch one row twice
+        List<Map.Entry<String, byte[]>> rows = new ArrayList<>(payloads.entrySet());
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            byte[] compressed = gzip(row.getValue());
+            ps.setString(1, row.getKey());
+            ps.setBytes(2, compressed);
+            ps.setInt(3, row.getValue().length);
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+            meterRegistry.summary("scheduler.capture.compressed.bytes").record(compressed.length);
+        });
+        log.debug("Stored {} captured payloads", rows.size());
+    }
+
+    public Optional<byte[]> load(String hash) {
+        return payloadRepository.findById(hash).map(payload -> gunzip(payload.getContent()));
+    }
+
+    private static String add(Map<String, byte[]> payloads, byte[] content) {
+        String hash = sha256(content);
+        payloads.putIfAbsent(hash, content);
+        return hash;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] content) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.WindowStats;
+
+/**
+ * Execution counts and a log-bucketed latency histogram over a sliding time window, kept as a ring
+ * of fixed-width slots. Recording touches one slot and reading merges a fixed number of slots,
+ * so both cost the same no matter how many executions the window has seen.
+ */
+class RollingWindow {
+    // Two buckets per power of two from 1 ms, the last bucket collects everything above ~17 minutes
+    static final int BUCKETS = 41;
+
+    private final int slots;
+    private final long slotWidthMs;
+    private final long[] slotIndex;
+    private final int[] successes;
+    private final int[] failures;
+    private final long[] latencySum;
+    private final long[] latencyMax;
+    private final int[][] histogram;
+
+    RollingWindow(int slots, long slotWidthMs) {
+        this.slots = slots;
+        this.slotWidthMs = slotWidthMs;
+        this.slotIndex = new long[slots];
+        this.successes = new int[slots];
+        this.failures = new int[slots];
+        this.latencySum = new long[slots];
+        this.latencyMax = new long[slots];
+        this.histogram = new int[slots][];
+        java.util.Arrays.fill(slotIndex, -1);
+    }
+
+    synchronized void record(long now, boolean success, long latencyMs) {
+        long index = now / slotWidthMs;
+        int slot = (int) (index % slots);
+        if (slotIndex[slot] != index) {
+            slotIndex[slot] = index;
+            successes[slot] = 0;
+            failures[slot] = 0;
+            latencySum[slot] = 0;
+            latencyMax[slot] = 0;
+            if (histogram[slot] != null) {
+                java.util.Arrays.fill(histogram[slot], 0);
+            }
+        }
+        if (success) {
+            successes[slot]++;
+        } else {
+            failures[slot]++;
+        }
+        latencySum[slot] += latencyMs;
+        latencyMax[slot] = Math.max(latencyMax[slot], latencyMs);
+        if (histogram[slot] == null) {
+            // Allocated on first use, slots of rarely firing jobs stay empty
+            histogram[slot] = new int[BUCKETS];
+        }
+        histogram[slot][bucket(latencyMs)]++;
+    }
+
+    /**
+     * Adds the live slots of this window into the given accumulator.
+     */
+    synchronized void mergeInto(Accumulator accumulator, long now) {
+        long oldest = now / slotWidthMs - slots + 1;
+        for (int slot = 0; slot < slots; slot++) {
+            if (slotIndex[slot] < oldest) {
+                continue;
+            }
+            accumulator.successes += successes[slot];
+            accumulator.failures += failures[slot];
+            accumulator.latencySum += latencySum[slot];
+            accumulator.latencyMax = Math.max(accumulator.latencyMax, latencyMax[slot]);
+            if (histogram[slot] != null) {
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    accumulator.histogram[bucket] += histogram[slot][bucket];
+                }
+            }
+        }
+    }
+
+    static int bucket(long latencyMs) {
+        if (latencyMs <= 1) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(2 * Math.log(latencyMs) / Math.log(2));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(2, bucket / 2.0));
+    }
+
+    static class Accumulator {
+        long successes;
+        long failures;
+        long latencySum;
+        long latencyMax;
+        final long[] histogram = new long[BUCKETS];
+
+        WindowStats toStats() {
+            long executions = successes + failures;
+            return new WindowStats(executions, successes, failures,
+                    executions == 0 ? 0 : (double) successes / executions,
+                    executions == 0 ? 0 : (double) latencySum / executions,
+                    latencyMax, percentile(0.50), percentile(0.95), percentile(0.99));
+        }
+
+        private long percentile(double quantile) {
+            long total = successes + failures;
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += histogram[bucket];
+                if (seen >= rank) {
+                    return Math.min(upperBound(bucket), latencyMax);
+                }
+            }
+            return latencyMax;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.job.FireMetricsListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.utils.C3p0PoolingConnectionProvider;
+import org.quartz.utils.DBConnectionManager;
+import org.quartz.utils.PoolingConnectionProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.quartz.SpringBeanJobFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Maps jobs to the Quartz scheduler that owns them. With sharding disabled that is the single clustered
+ * scheduler. With sharding enabled every job belongs to one of a fixed number of shards by a hash of its
+ * group and name, and each shard is a clustered scheduler of its own. Shards have their own scheduler name
+ * and therefore their own rows in {@code QRTZ_LOCKS}, so trigger acquisition on one shard never waits on
+ * another. Which node runs which shard is decided by {@link ShardCoordinator}.
+ * <p>
+ * System jobs and workflow triggers always stay on the default scheduler.
+ */
+@Service
+public class SchedulerRouter {
+    private static final Logger log = LoggerFactory.getLogger(SchedulerRouter.class);
+    static final String SHARD_PREFIX = "shard-";
+    private static final String SHARD_DATA_SOURCE = "shardDataSource";
+    private static final String QUARTZ_DATA_SOURCE_PREFIX = "org.quartz.dataSource.";
+
+    @Autowired
+    private Scheduler scheduler;
+
+    @Autowired
+    private QuartzProperties quartzProperties;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private FireMetricsListener fireMetricsListener;
+
+    @Value("${scheduler.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${scheduler.sharding.shards:16}")
+    private int shardCount;
+
+    @Value("${scheduler.sharding.threads-per-shard:4}")
+    private int threadsPerShard;
+
+    @Value("${scheduler.sharding.max-connections:112}")
+    private int maxConnections;
+
+    private final List<Scheduler> shards = new ArrayList<>();
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        Properties base = new Properties();
+        base.putAll(quartzProperties.getProperties());
+        registerSharedConnectionProvider(base);
+
+        SpringBeanJobFactory jobFactory = new SpringBeanJobFactory();
+        jobFactory.setApplicationContext(applicationContext);
+        for (int shard = 0; shard < shardCount; shard++) {
+            Properties properties = shardProperties(base, shard);
+            Scheduler shardScheduler = new StdSchedulerFactory(properties).getScheduler();
+            shardScheduler.setJobFactory(jobFactory);
+            shardScheduler.getListenerManager().addJobListener(fireMetricsListener);
+            shardScheduler.getListenerManager().addTriggerListener(fireMetricsListener);
+            shards.add(shardScheduler);
+        }
+        log.info("Created {} scheduler shards with {} threads each, started as this node takes ownership",
+                shardCount, threadsPerShard);
+    }
+
+    public boolean isSharded() {
+        return enabled;
+    }
+
+    public int shardCount() {
+        return enabled ? shardCount : 1;
+    }
+
+    public int shardOf(JobKey jobKey) {
+        if (!enabled) {
+            return 0;
+        }
+        byte[] key = (jobKey.getGroup() + "/" + jobKey.getName()).getBytes(StandardCharsets.UTF_8);
+        return Math.floorMod(UUID.nameUUIDFromBytes(key).getMostSignificantBits(), shardCount);
+    }
+
+    public Scheduler schedulerFor(JobKey jobKey) {
+        return enabled ? shards.get(shardOf(jobKey)) : scheduler;
+    }
+
+    public Scheduler shard(int shard) {
+        return enabled ? shards.get(shard) : scheduler;
+    }
+
+    /**
+     * Groups items by the scheduler owning their job, keeping the input order within each group.
+     */
+    public <T> Map<Scheduler, List<T>> partition(Collection<T> items, Function<T, JobKey> jobKey) {
+        Map<Scheduler, List<T>> partitioned = new LinkedHashMap<>();
+        for (T item : items) {
+            partitioned.computeIfAbsent(schedulerFor(jobKey.apply(item)), s -> new ArrayList<>()).add(item);
+        }
+        return partitioned;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Scheduler shardScheduler : shards) {
+            try {
+                shardScheduler.shutdown(true);
+            } catch (SchedulerException e) {
+                log.warn("Failed to shut down scheduler shard: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Properties shardProperties(Properties base, int shard) {
+        Properties properties = new Properties();
+        base.forEach((key, value) -> {
+            if (!key.toString().startsWith(QUARTZ_DATA_SOURCE_PREFIX)) {
+                properties.put(key, value);
+            }
+        });
+        properties.put(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, SHARD_PREFIX + shard);
+        properties.put(StdSchedulerFactory.PROP_SCHED_INSTANCE_ID, "AUTO");
+        properties.put("org.quartz.jobStore.dataSource", SHARD_DATA_SOURCE);
+        properties.put("org.quartz.threadPool.threadCount", Integer.toString(threadsPerShard));
+        properties.put(StdSchedulerFactory.PROP_SCHED_SKIP_UPDATE_CHECK, "true");
+        return properties;
+    }
+
+    // One pool for all shards instead of one per shard scheduler
+    private void registerSharedConnectionProvider(Properties base) throws Exception {
+        String dataSource = base.getProperty("org.quartz.jobStore.dataSource");
+        String prefix = QUARTZ_DATA_SOURCE_PREFIX + dataSource + ".";
+        Properties config = new Properties();
+        base.forEach((key, value) -> {
+            if (key.toString().startsWith(prefix)) {
+                config.put(key.toString().substring(prefix.length()), value);
+            }
+        });
+        config.put(PoolingConnectionProvider.DB_MAX_CONNECTIONS, Integer.toString(maxConnections));
+        DBConnectionManager.getInstance().addConnectionProvider(SHARD_DATA_SOURCE, new C3p0PoolingConnectionProvider(config));
+    }
+}
@@ -1,30 +1,71 @@
 package in.myratech.scheduler.service;
 
+import in.myratech.scheduler.dto.BatchItemResult;
+import in.myratech.scheduler.dto.JobStats;
+import in.myratech.scheduler.dto.KeysetSlice;
 import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.entity.JobExecutionDailyStats;
 import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.job.FanOutJob;
+import in.myratech.scheduler.job.FanOutPlanner;
+import in.myratech.scheduler.job.JobDefinition;
+import in.myratech.scheduler.job.ResiliencePolicy;
 import in.myratech.scheduler.job.RestJob;
 import in.myratech.scheduler.repo.JobDetailsRepository;
+import in.myratech.scheduler.repo.JobExecutionDailyStatsRepository;
 import in.myratech.scheduler.repo.JobExecutionHistoryRepository;
+import in.myratech.scheduler.util.Cursors;
+import in.myratech.scheduler.util.error.InvalidCursorException;
 import in.myratech.scheduler.util.error.JobNotFoundException;
 import jakarta.transaction.Transactional;
 import org.quartz.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @Transactional
+// The upsert below needs the partial unique index on live job names
+@DependsOn("jobSchemaInitializer")
 public class SchedulerSvc {
     private static final Logger log = LoggerFactory.getLogger(SchedulerSvc.class);
 
+    private static final String INSERT_JOB_SQL = "INSERT INTO job_details (id, job_name, job_group, cron_expression, " +
+            "parameters, active, url, method, request_body, headers, deleted, max_concurrent_calls, rate_limit_per_second, " +
+            "fire_offset_seconds, capture_response, capture_max_bytes, targets, targets_url, fan_out_parallelism, resilience) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            // A replaced job keeps its row and id, only its definition changes
+            "ON CONFLICT (job_name, job_group) WHERE NOT deleted DO UPDATE SET cron_expression = EXCLUDED.cron_expression, " +
+            "parameters = EXCLUDED.parameters, active = EXCLUDED.active, url = EXCLUDED.url, method = EXCLUDED.method, " +
+            "request_body = EXCLUDED.request_body, headers = EXCLUDED.headers, " +
+            "max_concurrent_calls = EXCLUDED.max_concurrent_calls, rate_limit_per_second = EXCLUDED.rate_limit_per_second, " +
+            "fire_offset_seconds = EXCLUDED.fire_offset_seconds, capture_response = EXCLUDED.capture_response, " +
+            "capture_max_bytes = EXCLUDED.capture_max_bytes, targets = EXCLUDED.targets, targets_url = EXCLUDED.targets_url, " +
+            "fan_out_parallelism = EXCLUDED.fan_out_parallelism, resilience = EXCLUDED.resilience";
+    private static final String LIVE_IDS_SQL = "SELECT id, job_name, job_group FROM job_details WHERE NOT deleted " +
+            "AND (job_name, job_group) IN (SELECT * FROM unnest(?::text[], ?::text[]))";
+    private static final UUID FIRST_ID = new UUID(0L, 0L);
+    private static final String SOFT_DELETE_JOB_SQL = "UPDATE job_details SET deleted = true, active = false WHERE id = ?";
+
     @Autowired
-    private Scheduler scheduler;
+    private SchedulerRouter schedulerRouter;
 
     @Autowired
     private JobDetailsRepository jobDetailsRepository;
@@ -32,30 +73,44 @@ public class SchedulerSvc {
     @Autowired
     private JobExecutionHistoryRepository jobExecutionHistoryRepository;
 
+    @Autowired
+    private JobExecutionDailyStatsRepository dailyStatsRepository;
+
+    @Autowired
+    private JobDefinitionCache jobDefinitionCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CountEstimator countEstimator;
+
+    @Autowired
+    private JobStatsRegistry statsRegistry;
+
+    @Autowired
+    private LoadSpreader loadSpreader;
+
+    @Autowired
+    private FanOutPlanner fanOutPlanner;
+
     public void createJob(JobDetails jobDetails) throws SchedulerException {
         log.info("Creating new job. Name: {}, Group: {}", jobDetails.getJobName(), jobDetails.getJobGroup());
         try {
-            JobDataMap jobDataMap = new JobDataMap();
-            jobDataMap.put("url", jobDetails.getUrl());
-            jobDataMap.put("method", jobDetails.getMethod());
-            jobDataMap.put("requestBody", jobDetails.getRequestBody());
-            jobDataMap.put("headers", jobDetails.getHeaders());
-
             log.debug("Job parameters - URL: {}, Method: {}, Headers: {}",
                     jobDetails.getUrl(), jobDetails.getMethod(), jobDetails.getHeaders());
 
-            JobDetail jobDetail = JobBuilder.newJob(RestJob.class)
-                    .withIdentity(jobDetails.getJobName(), jobDetails.getJobGroup())
-                    .usingJobData(jobDataMap)
-                    .build();
-
-            CronTrigger trigger = TriggerBuilder.newTrigger()
-                    .withIdentity(jobDetails.getJobName() + "Trigger", jobDetails.getJobGroup())
-                    .withSchedule(CronScheduleBuilder.cronSchedule(jobDetails.getCronExpression()))
-                    .build();
-
-            scheduler.scheduleJob(jobDetail, trigger);
+            loadSpreader.assignOffset(jobDetails);
+            JobDetail jobDetail = buildJobDetail(jobDetails);
+            Scheduler scheduler = schedulerRouter.schedulerFor(jobDetail.getKey());
+            if (isTriggered(jobDetails)) {
+                scheduler.scheduleJob(jobDetail, buildTrigger(jobDetails));
+            } else {
+                // Workflow steps without their own schedule are only fired by their upstream steps
+                scheduler.addJob(jobDetail, false);
+            }
             jobDetailsRepository.save(jobDetails);
+            jobDefinitionCache.register(jobDetails);
             log.info("Job created successfully with ID: {}", jobDetails.getId());
 
         } catch (Exception e) {
@@ -64,11 +119,137 @@ public class SchedulerSvc {
         }
     }
 
-    public Page<JobDetails> getAllJobs(Pageable pageable) {
-        log.info("Fetching all active jobs with pagination");
-        Page<JobDetails> jobs = jobDetailsRepository.findAll(pageable);
-        log.debug("Found {} active jobs", jobs.getTotalElements());
-        return jobs;
+    /**
+     * Schedules a chunk of jobs with a single Quartz call and inserts their rows as one JDBC batch.
+     * Items failing validation are reported individually, a scheduling or persistence failure
+     * fails every valid item of the chunk. Indexes in the results start at {@code offset}.
+     */
+    public List<BatchItemResult> createJobs(List<JobDetails> jobs, int offset, boolean replace) {
+        log.info("Creating batch of {} jobs starting at index {}", jobs.size(), offset);
+        List<BatchItemResult> results = new ArrayList<>(jobs.size());
+        Map<JobDetail, Set<? extends Trigger>> triggersByJob = new LinkedHashMap<>();
+        List<JobDetails> accepted = new ArrayList<>();
+        Set<JobKey> seen = new HashSet<>();
+        Map<JobKey, UUID> replaced = replace ? liveJobIds(jobs) : Map.of();
+
+        for (int i = 0; i < jobs.size(); i++) {
+            JobDetails jobDetails = jobs.get(i);
+            String error = validate(jobDetails);
+            if (error == null && !seen.add(jobKey(jobDetails))) {
+                error = "Duplicate job name and group in batch";
+            }
+            if (error == null && !replace) {
+                try {
+                    if (schedulerRouter.schedulerFor(jobKey(jobDetails)).checkExists(jobKey(jobDetails))) {
+                        error = "Job already exists";
+                    }
+                } catch (SchedulerException e) {
+                    error = e.getMessage();
+                }
+            }
+            if (error != null) {
+                results.add(result(offset + i, jobDetails, BatchItemResult.FAILED, error));
+                continue;
+            }
+            if (replaced.containsKey(jobKey(jobDetails))) {
+                jobDetails.setId(replaced.get(jobKey(jobDetails)));
+            }
+            jobDetails.ensureId();
+            loadSpreader.assignOffset(jobDetails);
+            triggersByJob.put(buildJobDetail(jobDetails), triggers(jobDetails));
+            accepted.add(jobDetails);
+            results.add(result(offset + i, jobDetails, BatchItemResult.CREATED, null));
+        }
+
+        if (accepted.isEmpty()) {
+            return results;
+        }
+        try {
+            scheduleRouted(triggersByJob, replace);
+        } catch (SchedulerException e) {
+            log.error("Failed to schedule batch starting at index {}. Error: {}", offset, e.getMessage(), e);
+            return failAccepted(results, "Failed to schedule batch: " + e.getMessage());
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_JOB_SQL, accepted, accepted.size(), (ps, jobDetails) -> {
+                ps.setObject(1, jobDetails.getId());
+                ps.setString(2, jobDetails.getJobName());
+                ps.setString(3, jobDetails.getJobGroup());
+                ps.setString(4, jobDetails.getCronExpression());
+                ps.setString(5, jobDetails.getParameters());
+                ps.setBoolean(6, jobDetails.isActive());
+                ps.setString(7, jobDetails.getUrl());
+                ps.setString(8, jobDetails.getMethod());
+                ps.setString(9, jobDetails.getRequestBody());
+                ps.setString(10, jobDetails.getHeaders());
+                ps.setBoolean(11, jobDetails.isDeleted());
+                ps.setObject(12, jobDetails.getMaxConcurrentCalls(), Types.INTEGER);
+                ps.setObject(13, jobDetails.getRateLimitPerSecond(), Types.DOUBLE);
+                ps.setObject(14, jobDetails.getFireOffsetSeconds(), Types.INTEGER);
+                ps.setObject(15, jobDetails.getCaptureResponse(), Types.BOOLEAN);
+                ps.setObject(16, jobDetails.getCaptureMaxBytes(), Types.INTEGER);
+                ps.setString(17, jobDetails.getTargets());
+                ps.setString(18, jobDetails.getTargetsUrl());
+                ps.setObject(19, jobDetails.getFanOutParallelism(), Types.INTEGER);
+                ps.setString(20, jobDetails.getResilience());
+            });
+        } catch (DataAccessException e) {
+            log.error("Failed to persist batch starting at index {}, unscheduling it. Error: {}", offset, e.getMessage(), e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            try {
+                deleteRouted(accepted.stream().map(SchedulerSvc::jobKey).toList());
+            } catch (SchedulerException unscheduleError) {
+                log.error("Failed to unschedule batch starting at index {}: {}", offset, unscheduleError.getMessage());
+            }
+            return failAccepted(results, "Failed to persist batch: " + e.getMostSpecificCause().getMessage());
+        }
+
+        accepted.forEach(jobDefinitionCache::register);
+        accepted.stream()
+                .filter(jobDetails -> replaced.containsKey(jobKey(jobDetails)))
+                .forEach(jobDetails -> fanOutPlanner.evict(jobDetails.getId()));
+        log.info("Batch starting at index {} created {} of {} jobs", offset, accepted.size(), jobs.size());
+        return results;
+    }
+
+    /**
+     * Ids of the live jobs among the given ones, looked up with one query.
+     */
+    private Map<JobKey, UUID> liveJobIds(List<JobDetails> jobs) {
+        List<JobDetails> named = jobs.stream()
+                .filter(jobDetails -> jobDetails != null && jobDetails.getJobName() != null && jobDetails.getJobGroup() != null)
+                .toList();
+        Map<JobKey, UUID> ids = new HashMap<>();
+        if (named.isEmpty()) {
+            return ids;
+        }
+        jdbcTemplate.query(LIVE_IDS_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("text", named.stream().map(JobDetails::getJobName).toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("text", named.stream().map(JobDetails::getJobGroup).toArray()));
+        }, rs -> {
+            ids.put(new JobKey(rs.getString("job_name"), rs.getString("job_group")), rs.getObject("id", UUID.class));
+        });
+        return ids;
+    }
+
+    /**
+     * Keyset page of jobs ordered by id. {@code active} narrows the listing when not null.
+     */
+    public KeysetSlice<JobDetails> getJobs(Boolean active, String cursor, int size, boolean includeTotal) {
+        log.info("Fetching jobs with status filter: {}", active == null ? "All" : active ? "Active" : "Inactive");
+        UUID after = cursor == null || cursor.isEmpty() ? FIRST_ID : Cursors.decodeId(cursor);
+        Limit limit = Limit.of(size + 1);
+        List<JobDetails> rows = active == null
+                ? jobDetailsRepository.findByIdGreaterThanOrderByIdAsc(after, limit)
+                : jobDetailsRepository.findByActiveAndIdGreaterThanOrderByIdAsc(active, after, limit);
+        KeysetSlice<JobDetails> slice = KeysetSlice.of(rows, size, jobDetails -> Cursors.encodeId(jobDetails.getId()));
+        if (includeTotal) {
+            slice.setEstimatedTotal(active == null
+                    ? countEstimator.estimate("jobs", "SELECT 1 FROM job_details")
+                    : countEstimator.estimate("jobs:" + active, "SELECT 1 FROM job_details WHERE active = ?", active));
+        }
+        log.debug("Found {} jobs, more available: {}", slice.getContent().size(), slice.isHasNext());
+        return slice;
     }
 
     public JobDetails getJobStatus(UUID jobId) {
@@ -77,9 +258,24 @@ public class SchedulerSvc {
                 .orElseThrow(() -> new JobNotFoundException(jobId));
     }
 
-    public Page<JobDetails> getJobsByStatus(boolean active, Pageable pageable) {
-        log.info("Fetching jobs by status: {}", active ? "Active" : "Inactive");
-        return jobDetailsRepository.findByActive(active, pageable);
+    /**
+     * Replaces the job's retry and circuit breaker policy. The job is recompiled, so the policy applies
+     * from the next fire on every node without rescheduling it.
+     *
+     * @throws IllegalArgumentException if the policy is invalid
+     */
+    public void updateResilience(UUID jobId, ResiliencePolicy policy) {
+        String error = policy.validate();
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        JobDetails jobDetails = jobDetailsRepository.findById(jobId)
+                .filter(job -> !job.isDeleted())
+                .orElseThrow(() -> new JobNotFoundException(jobId));
+        jobDetails.setResilience(policy.equals(ResiliencePolicy.NONE) ? null : policy.toJson());
+        jobDetailsRepository.save(jobDetails);
+        jobDefinitionCache.register(jobDetails);
+        log.info("Updated resilience policy of job {}: {}", jobDetails.getJobName(), jobDetails.getResilience());
     }
 
     public void deleteJob(UUID jobId) throws SchedulerException {
@@ -88,11 +284,15 @@ public class SchedulerSvc {
             JobDetails jobDetails = jobDetailsRepository.findById(jobId)
                     .orElseThrow(() -> new RuntimeException("Job not found with id: " + jobId));
 
-            scheduler.deleteJob(new JobKey(jobDetails.getJobName(), jobDetails.getJobGroup()));
+            JobKey jobKey = new JobKey(jobDetails.getJobName(), jobDetails.getJobGroup());
+            schedulerRouter.schedulerFor(jobKey).deleteJob(jobKey);
 
             jobDetails.setDeleted(true);
             jobDetails.setActive(false);
             jobDetailsRepository.save(jobDetails);
+            jobDefinitionCache.publishChange(jobKey);
+            statsRegistry.remove(jobId);
+            fanOutPlanner.evict(jobId);
             log.info("Job deleted successfully. Name: {}, Group: {}",
                     jobDetails.getJobName(), jobDetails.getJobGroup());
 
@@ -102,21 +302,72 @@ public class SchedulerSvc {
         }
     }
 
-    public Page<JobExecutionHistory> getJobExecutionHistory(UUID jobId, Pageable pageable) {
-        log.info("Fetching execution history for job ID: {} with pagination", jobId);
+    /**
+     * Unschedules jobs with a single Quartz call and soft-deletes their rows as one JDBC batch.
+     */
+    public List<BatchItemResult> deleteJobs(List<UUID> jobIds) throws SchedulerException {
+        log.info("Deleting batch of {} jobs", jobIds.size());
+        Map<UUID, JobDetails> found = new HashMap<>();
+        jobDetailsRepository.findAllById(jobIds).forEach(jobDetails -> found.put(jobDetails.getId(), jobDetails));
+
+        List<BatchItemResult> results = new ArrayList<>(jobIds.size());
+        List<JobDetails> deleted = new ArrayList<>();
+        for (int i = 0; i < jobIds.size(); i++) {
+            JobDetails jobDetails = found.remove(jobIds.get(i));
+            // Already soft-deleted, or listed twice in the batch
+            if (jobDetails == null || jobDetails.isDeleted()) {
+                results.add(new BatchItemResult(i, jobIds.get(i), null, null, BatchItemResult.NOT_FOUND,
+                        "Job not found with id: " + jobIds.get(i)));
+                continue;
+            }
+            deleted.add(jobDetails);
+            results.add(result(i, jobDetails, BatchItemResult.DELETED, null));
+        }
+        if (deleted.isEmpty()) {
+            return results;
+        }
+
+        List<JobKey> jobKeys = deleted.stream().map(SchedulerSvc::jobKey).toList();
+        deleteRouted(jobKeys);
+        jdbcTemplate.batchUpdate(SOFT_DELETE_JOB_SQL, deleted, deleted.size(),
+                (ps, jobDetails) -> ps.setObject(1, jobDetails.getId()));
+        jobKeys.forEach(jobDefinitionCache::publishChange);
+        deleted.forEach(jobDetails -> {
+            statsRegistry.remove(jobDetails.getId());
+            fanOutPlanner.evict(jobDetails.getId());
+        });
+        log.info("Deleted {} of {} jobs", deleted.size(), jobIds.size());
+        return results;
+    }
+
+    public KeysetSlice<JobExecutionHistory> getJobExecutionHistory(UUID jobId, String cursor, int size, boolean includeTotal) {
+        log.info("Fetching execution history for job ID: {} with cursor pagination", jobId);
         try {
             // Verify job exists
             JobDetails jobDetails = jobDetailsRepository.findById(jobId)
                     .orElseThrow(() -> new JobNotFoundException(jobId));
 
-            // Fetch execution history with pagination
-            Page<JobExecutionHistory> history = jobExecutionHistoryRepository.findByJobIdOrderByStartTimeDesc(jobId, pageable);
+            // Seek past the last row of the previous page instead of counting and offsetting
+            Limit limit = Limit.of(size + 1);
+            List<JobExecutionHistory> rows;
+            if (cursor == null || cursor.isEmpty()) {
+                rows = jobExecutionHistoryRepository.findByJobIdOrderByStartTimeDescUuidDesc(jobId, limit);
+            } else {
+                Cursors.HistoryPosition position = Cursors.decodeHistory(cursor);
+                rows = jobExecutionHistoryRepository.findByJobIdBefore(jobId, position.startTime(), position.uuid(), limit);
+            }
+            KeysetSlice<JobExecutionHistory> history = KeysetSlice.of(rows, size,
+                    execution -> Cursors.encodeHistory(execution.getStartTime(), execution.getUuid()));
+            if (includeTotal) {
+                history.setEstimatedTotal(countEstimator.estimate("history:" + jobId,
+                        "SELECT 1 FROM job_execution_history WHERE job_id = ?", jobId));
+            }
             log.debug("Found {} execution records for job: {} ({})",
-                    history.getTotalElements(), jobDetails.getJobName(), jobId);
+                    history.getContent().size(), jobDetails.getJobName(), jobId);
 
             return history;
-        } catch (JobNotFoundException e) {
-            log.error("Failed to fetch history - job not found with ID: {}", jobId);
+        } catch (JobNotFoundException | InvalidCursorException e) {
+            log.error("Failed to fetch history for job ID: {}. Error: {}", jobId, e.getMessage());
             throw e;
         } catch (Exception e) {
             log.error("Error fetching execution history for job ID: {}. Error: {}",
@@ -124,4 +375,135 @@ public class SchedulerSvc {
             throw new RuntimeException("Failed to fetch job execution history", e);
         }
     }
+
+    public JobStats getJobStats(UUID jobId) {
+        log.info("Fetching execution statistics for job ID: {}", jobId);
+        JobDetails jobDetails = jobDetailsRepository.findById(jobId)
+                .orElseThrow(() -> new JobNotFoundException(jobId));
+        return statsRegistry.get(jobId)
+                .orElseGet(() -> statsRegistry.empty(jobId, jobDetails.getJobName(), jobDetails.getJobGroup()));
+    }
+
+    /**
+     * Per-day aggregates of executions that have aged out of the raw history.
+     */
+    public List<JobExecutionDailyStats> getDailyStats(UUID jobId, LocalDate from, LocalDate to) {
+        log.info("Fetching daily execution stats for job ID: {} from {} to {}", jobId, from, to);
+        if (!jobDetailsRepository.existsById(jobId)) {
+            throw new JobNotFoundException(jobId);
+        }
+        return dailyStatsRepository.findByJobIdAndDayBetweenOrderByDayDesc(jobId, from, to);
+    }
+
+    /**
+     * Schedules with one Quartz call per owning scheduler. When a later scheduler fails, the jobs
+     * already scheduled on earlier ones are removed again so the batch fails as a whole.
+     */
+    private void scheduleRouted(Map<JobDetail, Set<? extends Trigger>> triggersByJob, boolean replace) throws SchedulerException {
+        List<JobKey> scheduled = new ArrayList<>();
+        for (Map.Entry<Scheduler, List<Map.Entry<JobDetail, Set<? extends Trigger>>>> shard
+                : schedulerRouter.partition(triggersByJob.entrySet(), entry -> entry.getKey().getKey()).entrySet()) {
+            Map<JobDetail, Set<? extends Trigger>> shardJobs = new LinkedHashMap<>();
+            shard.getValue().forEach(entry -> shardJobs.put(entry.getKey(), entry.getValue()));
+            try {
+                shard.getKey().scheduleJobs(shardJobs, replace);
+            } catch (SchedulerException e) {
+                if (!scheduled.isEmpty()) {
+                    deleteRouted(scheduled);
+                }
+                throw e;
+            }
+            shardJobs.keySet().forEach(jobDetail -> scheduled.add(jobDetail.getKey()));
+        }
+    }
+
+    private void deleteRouted(List<JobKey> jobKeys) throws SchedulerException {
+        for (Map.Entry<Scheduler, List<JobKey>> shard : schedulerRouter.partition(jobKeys, jobKey -> jobKey).entrySet()) {
+            shard.getKey().deleteJobs(shard.getValue());
+        }
+    }
+
+    JobDetail buildJobDetail(JobDetails jobDetails) {
+        JobDataMap jobDataMap = new JobDataMap();
+        jobDataMap.put("url", jobDetails.getUrl());
+        jobDataMap.put("method", jobDetails.getMethod());
+        jobDataMap.put("requestBody", jobDetails.getRequestBody());
+        jobDataMap.put("headers", jobDetails.getHeaders());
+
+        return JobBuilder.newJob(JobDefinition.isFanOut(jobDetails) ? FanOutJob.class : RestJob.class)
+                .withIdentity(jobKey(jobDetails))
+                .usingJobData(jobDataMap)
+                .storeDurably(!isTriggered(jobDetails))
+                .build();
+    }
+
+    Set<? extends Trigger> triggers(JobDetails jobDetails) {
+        return isTriggered(jobDetails) ? Set.of(buildTrigger(jobDetails)) : Set.of();
+    }
+
+    /**
+     * Jobs without a cron expression have no trigger of their own and are kept durable in the job store.
+     */
+    static boolean isTriggered(JobDetails jobDetails) {
+        return !isBlank(jobDetails.getCronExpression());
+    }
+
+    CronTrigger buildTrigger(JobDetails jobDetails) {
+        return TriggerBuilder.newTrigger()
+                .withIdentity(jobDetails.getJobName() + "Trigger", jobDetails.getJobGroup())
+                .withSchedule(CronScheduleBuilder.cronSchedule(loadSpreader.effectiveCron(jobDetails)))
+                .build();
+    }
+
+    private static JobKey jobKey(JobDetails jobDetails) {
+        return new JobKey(jobDetails.getJobName(), jobDetails.getJobGroup());
+    }
+
+    private static String validate(JobDetails jobDetails) {
+        if (jobDetails == null) {
+            return "Job definition is required";
+        }
+        if (isBlank(jobDetails.getJobName()) || isBlank(jobDetails.getJobGroup())) {
+            return "Job name and group are required";
+        }
+        if (isBlank(jobDetails.getUrl()) || isBlank(jobDetails.getMethod())) {
+            return "URL and HTTP method are required";
+        }
+        if (!isBlank(jobDetails.getTargets()) && !jobDetails.getTargets().trim().startsWith("[")) {
+            return "Targets must be a JSON array";
+        }
+        if (!isBlank(jobDetails.getTargets()) && !isBlank(jobDetails.getTargetsUrl())) {
+            return "Either targets or a targets URL can be given, not both";
+        }
+        if (isBlank(jobDetails.getCronExpression())) {
+            jobDetails.setCronExpression(null);
+        } else if (!CronExpression.isValidExpression(jobDetails.getCronExpression())) {
+            return "Invalid cron expression: " + jobDetails.getCronExpression();
+        }
+        try {
+            return ResiliencePolicy.parse(jobDetails.getResilience()).validate();
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static BatchItemResult result(int index, JobDetails jobDetails, String status, String message) {
+        return jobDetails == null
+                ? new BatchItemResult(index, null, null, null, status, message)
+                : new BatchItemResult(index, jobDetails.getId(), jobDetails.getJobName(), jobDetails.getJobGroup(), status, message);
+    }
+
+    private static List<BatchItemResult> failAccepted(List<BatchItemResult> results, String message) {
+        results.stream()
+                .filter(result -> BatchItemResult.CREATED.equals(result.getStatus()))
+                .forEach(result -> {
+                    result.setStatus(BatchItemResult.FAILED);
+                    result.setMessage(message);
+                });
+        return results;
+    }
 }
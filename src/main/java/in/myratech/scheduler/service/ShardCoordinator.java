@@ -0,0 +1,172 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.ShardAssignment;
+import in.myratech.scheduler.util.ConsistentHashRing;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assigns scheduler shards to the live nodes. Every node heartbeats into {@code scheduler_node},
+ * places the live nodes on a consistent hash ring and runs exactly the shards the ring gives it,
+ * the others are kept in standby. Joins and graceful leaves are announced on a notification channel
+ * so the cluster rebalances right away, crashed nodes drop out once their heartbeat expires.
+ * <p>
+ * During a handover both nodes may briefly run a shard, which is safe because each shard is itself
+ * a clustered scheduler, and fires missed during a gap are picked up by Quartz misfire handling.
+ */
+@Service
+public class ShardCoordinator {
+    private static final Logger log = LoggerFactory.getLogger(ShardCoordinator.class);
+    private static final String CHANNEL = "scheduler_nodes";
+
+    private static final String HEARTBEAT_SQL = "INSERT INTO scheduler_node (node_id, started_at, last_heartbeat) " +
+            "VALUES (?, now(), now()) ON CONFLICT (node_id) DO UPDATE SET last_heartbeat = now()";
+    private static final String LIVE_NODES_SQL = "SELECT node_id FROM scheduler_node " +
+            "WHERE last_heartbeat > now() - ? * INTERVAL '1 millisecond' ORDER BY node_id";
+    private static final String EXPIRE_NODES_SQL = "DELETE FROM scheduler_node " +
+            "WHERE last_heartbeat < now() - ? * INTERVAL '1 millisecond'";
+
+    @Autowired
+    private SchedulerRouter schedulerRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PgNotificationListener notificationListener;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${scheduler.sharding.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${scheduler.sharding.heartbeat-interval:5000}")
+    private long heartbeatInterval;
+
+    @Value("${scheduler.sharding.node-timeout:20000}")
+    private long nodeTimeout;
+
+    @Value("${scheduler.sharding.virtual-nodes:64}")
+    private int virtualNodes;
+
+    private String nodeId;
+    private ScheduledExecutorService executor;
+    private volatile ShardAssignment assignment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws Exception {
+        if (!schedulerRouter.isSharded()) {
+            return;
+        }
+        nodeId = configuredNodeId.isBlank()
+                ? InetAddress.getLocalHost().getHostName() + "-" + UUID.randomUUID().toString().substring(0, 8)
+                : configuredNodeId;
+        assignment = new ShardAssignment(nodeId, schedulerRouter.shardCount(), List.of(), List.of(), Map.of());
+        Gauge.builder("scheduler.sharding.owned.shards", this, coordinator -> coordinator.assignment.getOwnedShards().size())
+                .description("Scheduler shards run by this node")
+                .register(meterRegistry);
+        Gauge.builder("scheduler.sharding.live.nodes", this, coordinator -> coordinator.assignment.getLiveNodes().size())
+                .description("Nodes sharing the scheduler shards")
+                .register(meterRegistry);
+
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("shard-coordinator").daemon(true).factory());
+        notificationListener.subscribe(CHANNEL, payload -> executor.execute(this::rebalance));
+        notificationListener.onReconnect(() -> executor.execute(this::rebalance));
+        executor.execute(() -> {
+            rebalance();
+            notificationListener.publish(CHANNEL, "join:" + nodeId);
+        });
+        executor.scheduleWithFixedDelay(this::rebalance, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        log.info("Node {} joined scheduler sharding with {} shards", nodeId, schedulerRouter.shardCount());
+    }
+
+    public ShardAssignment assignment() {
+        return assignment != null ? assignment
+                : new ShardAssignment(null, schedulerRouter.shardCount(), List.of(), List.of(), Map.of());
+    }
+
+    private void rebalance() {
+        List<String> liveNodes;
+        try {
+            jdbcTemplate.update(HEARTBEAT_SQL, nodeId);
+            jdbcTemplate.update(EXPIRE_NODES_SQL, nodeTimeout * 10);
+            liveNodes = jdbcTemplate.queryForList(LIVE_NODES_SQL, String.class, nodeTimeout);
+        } catch (DataAccessException e) {
+            // Without a heartbeat this node drops out elsewhere, keep running what it has until it can tell
+            log.error("Shard heartbeat failed on node {}: {}", nodeId, e.getMessage());
+            return;
+        }
+        if (!liveNodes.contains(nodeId)) {
+            liveNodes = new ArrayList<>(liveNodes);
+            liveNodes.add(nodeId);
+        }
+
+        ConsistentHashRing ring = new ConsistentHashRing(liveNodes, virtualNodes);
+        Map<Integer, String> owners = new LinkedHashMap<>();
+        List<Integer> owned = new ArrayList<>();
+        for (int shard = 0; shard < schedulerRouter.shardCount(); shard++) {
+            String owner = ring.nodeFor("shard-" + shard);
+            owners.put(shard, owner);
+            if (nodeId.equals(owner)) {
+                owned.add(shard);
+            }
+            apply(shard, nodeId.equals(owner));
+        }
+        if (!owned.equals(assignment.getOwnedShards())) {
+            log.info("Node {} now runs shards {} of {} across {} live nodes", nodeId, owned, owners.size(), liveNodes.size());
+        }
+        assignment = new ShardAssignment(nodeId, schedulerRouter.shardCount(), List.copyOf(liveNodes), owned, owners);
+    }
+
+    private void apply(int shard, boolean owned) {
+        Scheduler scheduler = schedulerRouter.shard(shard);
+        try {
+            boolean running = scheduler.isStarted() && !scheduler.isInStandbyMode();
+            if (owned && !running) {
+                scheduler.start();
+            } else if (!owned && running) {
+                scheduler.standby();
+            }
+        } catch (SchedulerException e) {
+            log.error("Failed to {} shard {}: {}", owned ? "start" : "stand by", shard, e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            jdbcTemplate.update("DELETE FROM scheduler_node WHERE node_id = ?", nodeId);
+            notificationListener.publish(CHANNEL, "leave:" + nodeId);
+            log.info("Node {} left scheduler sharding", nodeId);
+        } catch (DataAccessException e) {
+            log.warn("Failed to deregister node {}, it expires after {} ms: {}", nodeId, nodeTimeout, e.getMessage());
+        }
+    }
+}
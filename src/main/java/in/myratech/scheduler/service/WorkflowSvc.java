@@ -0,0 +1,575 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import in.myratech.scheduler.dto.WorkflowDefinition;
+import in.myratech.scheduler.dto.WorkflowRunDetails;
+import in.myratech.scheduler.entity.JobDependency;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.entity.Workflow;
+import in.myratech.scheduler.entity.WorkflowRun;
+import in.myratech.scheduler.entity.WorkflowStep;
+import in.myratech.scheduler.entity.WorkflowStepRun;
+import in.myratech.scheduler.job.CompiledRequest;
+import in.myratech.scheduler.job.JobDefinition;
+import in.myratech.scheduler.job.RequestCompiler;
+import in.myratech.scheduler.job.WorkflowTriggerJob;
+import in.myratech.scheduler.repo.JobDependencyRepository;
+import in.myratech.scheduler.repo.JobDetailsRepository;
+import in.myratech.scheduler.repo.WorkflowRepository;
+import in.myratech.scheduler.repo.WorkflowRunRepository;
+import in.myratech.scheduler.repo.WorkflowStepRepository;
+import in.myratech.scheduler.repo.WorkflowStepRunRepository;
+import in.myratech.scheduler.util.error.WorkflowNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import org.quartz.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Runs workflows, graphs of existing jobs where a step is fired through Quartz as soon as all of its
+ * upstream steps have succeeded. Steps without a path between them run in parallel, and captured
+ * responses of finished steps can be referenced by later steps with {@code {{steps.<jobName>.<path>}}}.
+ */
+@Service
+@Transactional
+public class WorkflowSvc {
+    private static final Logger log = LoggerFactory.getLogger(WorkflowSvc.class);
+
+    public static final String WORKFLOW_GROUP = "workflow";
+    public static final String RUN_ID_KEY = "workflowRunId";
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*([\\w.-]+)\\s*}}");
+
+    @Autowired
+    private Scheduler scheduler;
+
+    @Autowired
+    private SchedulerRouter schedulerRouter;
+
+    @Autowired
+    private WorkflowRepository workflowRepository;
+
+    @Autowired
+    private WorkflowStepRepository stepRepository;
+
+    @Autowired
+    private JobDependencyRepository dependencyRepository;
+
+    @Autowired
+    private WorkflowRunRepository runRepository;
+
+    @Autowired
+    private WorkflowStepRunRepository stepRunRepository;
+
+    @Autowired
+    private JobDetailsRepository jobDetailsRepository;
+
+    @Autowired
+    private RequestCompiler requestCompiler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public WorkflowDefinition createWorkflow(WorkflowDefinition definition) throws SchedulerException {
+        log.info("Creating workflow: {}", definition.getName());
+        validate(definition);
+
+        Workflow workflow = new Workflow();
+        workflow.setName(definition.getName());
+        workflow.setCronExpression(isBlank(definition.getCronExpression()) ? null : definition.getCronExpression());
+        workflow.setActive(definition.isActive());
+        workflow.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        workflowRepository.save(workflow);
+
+        List<WorkflowStep> steps = new ArrayList<>();
+        List<JobDependency> dependencies = new ArrayList<>();
+        for (WorkflowDefinition.Step step : definition.getSteps()) {
+            WorkflowStep workflowStep = new WorkflowStep();
+            workflowStep.setWorkflowId(workflow.getId());
+            workflowStep.setJobId(step.getJobId());
+            steps.add(workflowStep);
+            for (UUID upstream : upstreams(step)) {
+                JobDependency dependency = new JobDependency();
+                dependency.setWorkflowId(workflow.getId());
+                dependency.setJobId(step.getJobId());
+                dependency.setUpstreamJobId(upstream);
+                dependencies.add(dependency);
+            }
+        }
+        stepRepository.saveAll(steps);
+        dependencyRepository.saveAll(dependencies);
+
+        if (workflow.getCronExpression() != null && workflow.isActive()) {
+            scheduler.scheduleJob(buildWorkflowJob(workflow), buildWorkflowTrigger(workflow));
+        }
+        log.info("Workflow created with ID: {} and {} steps", workflow.getId(), steps.size());
+        return toDefinition(workflow, steps, dependencies);
+    }
+
+    public WorkflowDefinition getWorkflow(UUID workflowId) {
+        Workflow workflow = workflowRepository.findById(workflowId)
+                .orElseThrow(() -> new WorkflowNotFoundException("Workflow", workflowId));
+        return toDefinition(workflow, stepRepository.findByWorkflowId(workflowId),
+                dependencyRepository.findByWorkflowId(workflowId));
+    }
+
+    /**
+     * Removes the definition and its schedule, runs are kept as history.
+     */
+    public void deleteWorkflow(UUID workflowId) throws SchedulerException {
+        log.info("Deleting workflow with ID: {}", workflowId);
+        Workflow workflow = workflowRepository.findById(workflowId)
+                .orElseThrow(() -> new WorkflowNotFoundException("Workflow", workflowId));
+        scheduler.deleteJob(workflowJobKey(workflowId));
+        dependencyRepository.deleteAll(dependencyRepository.findByWorkflowId(workflowId));
+        stepRepository.deleteAll(stepRepository.findByWorkflowId(workflowId));
+        workflowRepository.delete(workflow);
+    }
+
+    /**
+     * Creates a run with every step pending and fires the root steps once the run is committed.
+     */
+    public WorkflowRun startRun(UUID workflowId) {
+        Workflow workflow = workflowRepository.findById(workflowId)
+                .orElseThrow(() -> new WorkflowNotFoundException("Workflow", workflowId));
+        List<WorkflowStep> steps = stepRepository.findByWorkflowId(workflowId);
+        List<JobDependency> dependencies = dependencyRepository.findByWorkflowId(workflowId);
+        Map<UUID, List<UUID>> upstreams = upstreamsByJob(dependencies);
+        Map<UUID, JobDetails> jobs = jobsById(steps.stream().map(WorkflowStep::getJobId).toList());
+
+        WorkflowRun run = new WorkflowRun();
+        run.setWorkflowId(workflowId);
+        run.setStatus(WorkflowRun.RUNNING);
+        run.setStartTime(new Timestamp(System.currentTimeMillis()));
+        run.setContext("{}");
+        runRepository.save(run);
+
+        Map<UUID, WorkflowStepRun> stepRuns = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        List<JobDetails> roots = new ArrayList<>();
+        for (WorkflowStep step : steps) {
+            JobDetails jobDetails = jobs.get(step.getJobId());
+            WorkflowStepRun stepRun = new WorkflowStepRun();
+            stepRun.setRunId(run.getId());
+            stepRun.setJobId(step.getJobId());
+            stepRun.setStatus(WorkflowStepRun.PENDING);
+            stepRuns.put(step.getJobId(), stepRun);
+            if (jobDetails == null || jobDetails.isDeleted()) {
+                missing.add(step.getJobId());
+                continue;
+            }
+            stepRun.setJobName(jobDetails.getJobName());
+            if (!upstreams.containsKey(step.getJobId())) {
+                roots.add(jobDetails);
+            }
+        }
+        // A step whose job has since been deleted fails up front instead of leaving the run waiting on it
+        Map<UUID, List<UUID>> downstreams = downstreamsByJob(dependencies);
+        for (UUID jobId : missing) {
+            stepRuns.get(jobId).setStatus(WorkflowStepRun.FAILED);
+            skipDescendants(jobId, downstreams, stepRuns);
+        }
+        if (roots.isEmpty()) {
+            run.setStatus(WorkflowRun.FAILED);
+            run.setEndTime(run.getStartTime());
+        }
+        stepRunRepository.saveAll(stepRuns.values());
+
+        UUID runId = run.getId();
+        afterCommit(() -> fire(runId, roots));
+        log.info("Started run {} of workflow {} with {} root steps", runId, workflow.getName(), roots.size());
+        return run;
+    }
+
+    public WorkflowRunDetails getRun(UUID runId) {
+        WorkflowRun run = runRepository.findById(runId)
+                .orElseThrow(() -> new WorkflowNotFoundException("Workflow run", runId));
+        return new WorkflowRunDetails(run, stepRunRepository.findByRunId(runId));
+    }
+
+    public List<WorkflowRun> getRuns(UUID workflowId, int size) {
+        if (!workflowRepository.existsById(workflowId)) {
+            throw new WorkflowNotFoundException("Workflow", workflowId);
+        }
+        return runRepository.findByWorkflowIdOrderByStartTimeDesc(workflowId, Limit.of(size));
+    }
+
+    /**
+     * Marks the step running and resolves its placeholders against the outputs of earlier steps.
+     * The request is recompiled only when it has placeholders or does not capture its response yet.
+     */
+    public CompiledRequest prepareStep(UUID runId, CompiledRequest request) {
+        JobDefinition definition = request.definition();
+        WorkflowRun run = runRepository.findById(runId)
+                .orElseThrow(() -> new IllegalStateException("Workflow run not found: " + runId));
+        WorkflowStepRun stepRun = stepRunRepository.findByRunIdAndJobId(runId, definition.id())
+                .orElseThrow(() -> new IllegalStateException("Job " + definition.jobName() + " is not a step of run " + runId));
+        stepRun.setStatus(WorkflowStepRun.RUNNING);
+        stepRun.setStartTime(new Timestamp(System.currentTimeMillis()));
+
+        boolean templated = hasPlaceholder(definition.url()) || hasPlaceholder(definition.requestBody())
+                || definition.headers().values().stream().flatMap(List::stream).anyMatch(WorkflowSvc::hasPlaceholder);
+        if (!templated && definition.captureResponse()) {
+            return request;
+        }
+
+        JsonNode context = readContext(run);
+        HttpHeaders headers = new HttpHeaders();
+        definition.headers().forEach((name, values) ->
+                values.forEach(value -> headers.add(name, resolve(value, run, context, false))));
+        // Downstream steps read this step's output from its captured response
+        JobDefinition resolved = new JobDefinition(definition.id(), definition.jobName(), definition.jobGroup(),
+                resolve(definition.url(), run, context, true), definition.method(),
+                resolve(definition.requestBody(), run, context, false), HttpHeaders.readOnlyHttpHeaders(headers),
+                definition.maxConcurrentCalls(), definition.rateLimitPerSecond(), true, definition.captureMaxBytes(),
+                null, null, null, definition.cronExpression(), definition.resilience());
+        return requestCompiler.compile(resolved);
+    }
+
+    /**
+     * Records the outcome of a step, fires the downstream steps it was the last upstream of and skips
+     * everything below a failed step. The run row is locked so concurrent completions of parallel
+     * branches see each other's results.
+     */
+    public void onStepComplete(UUID runId, UUID jobId, boolean success, byte[] output) {
+        WorkflowRun run = runRepository.findLockedById(runId).orElse(null);
+        if (run == null) {
+            log.warn("Ignoring completion of job {} for unknown workflow run {}", jobId, runId);
+            return;
+        }
+        Map<UUID, WorkflowStepRun> stepRuns = stepRunRepository.findByRunId(runId).stream()
+                .collect(Collectors.toMap(WorkflowStepRun::getJobId, Function.identity()));
+        WorkflowStepRun current = stepRuns.get(jobId);
+        if (current == null || isFinished(current)) {
+            log.warn("Ignoring duplicate or unexpected completion of job {} in workflow run {}", jobId, runId);
+            return;
+        }
+        current.setStatus(success ? WorkflowStepRun.SUCCESS : WorkflowStepRun.FAILED);
+        current.setEndTime(new Timestamp(System.currentTimeMillis()));
+        if (success && output != null) {
+            ObjectNode context = readContext(run);
+            context.set(current.getJobName(), parseOutput(output));
+            run.setContext(context.toString());
+        }
+
+        List<JobDependency> dependencies = dependencyRepository.findByWorkflowId(run.getWorkflowId());
+        Map<UUID, List<UUID>> upstreams = upstreamsByJob(dependencies);
+        Map<UUID, List<UUID>> downstreams = downstreamsByJob(dependencies);
+
+        List<UUID> ready = new ArrayList<>();
+        if (success) {
+            for (UUID downstream : downstreams.getOrDefault(jobId, List.of())) {
+                boolean allSucceeded = upstreams.get(downstream).stream()
+                        .allMatch(upstream -> WorkflowStepRun.SUCCESS.equals(stepRuns.get(upstream).getStatus()));
+                if (allSucceeded) {
+                    ready.add(downstream);
+                }
+            }
+        } else {
+            skipDescendants(jobId, downstreams, stepRuns);
+        }
+        // A ready step whose job has since been deleted fails here, it could never be fired
+        Map<UUID, JobDetails> readyJobs = jobsById(ready);
+        for (UUID downstream : ready) {
+            JobDetails jobDetails = readyJobs.get(downstream);
+            if (jobDetails == null || jobDetails.isDeleted()) {
+                log.warn("Step {} of workflow run {} failed, its job no longer exists", downstream, runId);
+                WorkflowStepRun stepRun = stepRuns.get(downstream);
+                stepRun.setStatus(WorkflowStepRun.FAILED);
+                stepRun.setEndTime(new Timestamp(System.currentTimeMillis()));
+                skipDescendants(downstream, downstreams, stepRuns);
+                readyJobs.remove(downstream);
+            }
+        }
+
+        if (stepRuns.values().stream().allMatch(WorkflowSvc::isFinished)) {
+            boolean succeeded = stepRuns.values().stream()
+                    .allMatch(stepRun -> WorkflowStepRun.SUCCESS.equals(stepRun.getStatus()));
+            run.setStatus(succeeded ? WorkflowRun.SUCCESS : WorkflowRun.FAILED);
+            run.setEndTime(new Timestamp(System.currentTimeMillis()));
+            log.info("Workflow run {} finished with status {}", runId, run.getStatus());
+        }
+
+        if (!readyJobs.isEmpty()) {
+            List<JobDetails> jobs = new ArrayList<>(readyJobs.values());
+            afterCommit(() -> fire(runId, jobs));
+        }
+    }
+
+    private void fire(UUID runId, List<JobDetails> jobs) {
+        for (JobDetails jobDetails : jobs) {
+            JobKey jobKey = new JobKey(jobDetails.getJobName(), jobDetails.getJobGroup());
+            try {
+                JobDataMap data = new JobDataMap();
+                data.put(RUN_ID_KEY, runId.toString());
+                schedulerRouter.schedulerFor(jobKey).triggerJob(jobKey, data);
+                log.debug("Fired step {} of workflow run {}", jobKey, runId);
+            } catch (SchedulerException e) {
+                log.error("Failed to fire step {} of workflow run {}. Error: {}", jobKey, runId, e.getMessage(), e);
+                failUnfired(runId, jobDetails.getId());
+            }
+        }
+    }
+
+    // Fails a step that could not be fired so the run does not wait on it forever. Steps are fired after
+    // the commit that made them ready, so this needs a transaction of its own.
+    private void failUnfired(UUID runId, UUID jobId) {
+        try {
+            newTransaction.executeWithoutResult(status -> onStepComplete(runId, jobId, false, null));
+        } catch (RuntimeException e) {
+            log.error("Failed to fail unfired step {} of workflow run {}. Error: {}", jobId, runId, e.getMessage(), e);
+        }
+    }
+
+    private static void skipDescendants(UUID jobId, Map<UUID, List<UUID>> downstreams, Map<UUID, WorkflowStepRun> stepRuns) {
+        Deque<UUID> queue = new ArrayDeque<>(downstreams.getOrDefault(jobId, List.of()));
+        while (!queue.isEmpty()) {
+            WorkflowStepRun stepRun = stepRuns.get(queue.poll());
+            if (stepRun != null && WorkflowStepRun.PENDING.equals(stepRun.getStatus())) {
+                stepRun.setStatus(WorkflowStepRun.SKIPPED);
+                queue.addAll(downstreams.getOrDefault(stepRun.getJobId(), List.of()));
+            }
+        }
+    }
+
+    private String resolve(String template, WorkflowRun run, JsonNode context, boolean urlEncode) {
+        if (!hasPlaceholder(template)) {
+            return template;
+        }
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuilder resolved = new StringBuilder();
+        while (matcher.find()) {
+            String value = lookup(matcher.group(1), run, context);
+            if (urlEncode) {
+                value = UriUtils.encode(value, StandardCharsets.UTF_8);
+            }
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    private static String lookup(String expression, WorkflowRun run, JsonNode context) {
+        if ("run.id".equals(expression)) {
+            return run.getId().toString();
+        }
+        String[] path = expression.split("\\.");
+        if (path.length < 2 || !"steps".equals(path[0])) {
+            throw new IllegalArgumentException("Unsupported placeholder: {{" + expression + "}}");
+        }
+        JsonNode node = context.path(path[1]);
+        for (int i = 2; i < path.length && !node.isMissingNode(); i++) {
+            node = node.isArray() && path[i].matches("\\d+") ? node.path(Integer.parseInt(path[i])) : node.path(path[i]);
+        }
+        if (node.isMissingNode() || node.isNull()) {
+            throw new IllegalStateException("Placeholder {{" + expression + "}} has no value in workflow run " + run.getId());
+        }
+        return node.isValueNode() ? node.asText() : node.toString();
+    }
+
+    private static boolean hasPlaceholder(String value) {
+        return value != null && value.contains("{{");
+    }
+
+    private ObjectNode readContext(WorkflowRun run) {
+        try {
+            JsonNode context = run.getContext() == null ? null : objectMapper.readTree(run.getContext());
+            return context instanceof ObjectNode objectNode ? objectNode : objectMapper.createObjectNode();
+        } catch (JsonProcessingException e) {
+            log.warn("Discarding unreadable context of workflow run {}: {}", run.getId(), e.getMessage());
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    // JSON responses are addressable by path, anything else is kept as a single string
+    private JsonNode parseOutput(byte[] output) {
+        try {
+            return objectMapper.readTree(output);
+        } catch (Exception e) {
+            return TextNode.valueOf(new String(output, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void validate(WorkflowDefinition definition) {
+        if (isBlank(definition.getName())) {
+            throw new IllegalArgumentException("Workflow name is required");
+        }
+        if (workflowRepository.existsByName(definition.getName())) {
+            throw new IllegalArgumentException("Workflow already exists: " + definition.getName());
+        }
+        if (!isBlank(definition.getCronExpression()) && !CronExpression.isValidExpression(definition.getCronExpression())) {
+            throw new IllegalArgumentException("Invalid cron expression: " + definition.getCronExpression());
+        }
+        if (definition.getSteps() == null || definition.getSteps().isEmpty()) {
+            throw new IllegalArgumentException("A workflow needs at least one step");
+        }
+
+        Set<UUID> stepJobs = new HashSet<>();
+        for (WorkflowDefinition.Step step : definition.getSteps()) {
+            if (step.getJobId() == null || !stepJobs.add(step.getJobId())) {
+                throw new IllegalArgumentException("Every step needs a job id that is unique within the workflow");
+            }
+        }
+        for (WorkflowDefinition.Step step : definition.getSteps()) {
+            for (UUID upstream : upstreams(step)) {
+                if (!stepJobs.contains(upstream) || upstream.equals(step.getJobId())) {
+                    throw new IllegalArgumentException("Step " + step.getJobId() + " depends on " + upstream
+                            + " which is not another step of the workflow");
+                }
+            }
+        }
+
+        Map<UUID, JobDetails> jobs = jobsById(stepJobs);
+        Set<String> names = new HashSet<>();
+        for (UUID jobId : stepJobs) {
+            JobDetails jobDetails = jobs.get(jobId);
+            if (jobDetails == null || jobDetails.isDeleted()) {
+                throw new IllegalArgumentException("Job not found with id: " + jobId);
+            }
+            // Outputs are addressed by job name in placeholders
+            if (!names.add(jobDetails.getJobName())) {
+                throw new IllegalArgumentException("Step job names must be unique within a workflow: " + jobDetails.getJobName());
+            }
+        }
+
+        if (!isAcyclic(definition.getSteps())) {
+            throw new IllegalArgumentException("Workflow steps contain a dependency cycle");
+        }
+    }
+
+    // Kahn's algorithm, a cycle leaves steps that never reach in-degree zero
+    private static boolean isAcyclic(List<WorkflowDefinition.Step> steps) {
+        Map<UUID, Integer> inDegree = new HashMap<>();
+        Map<UUID, List<UUID>> downstreams = new HashMap<>();
+        for (WorkflowDefinition.Step step : steps) {
+            List<UUID> upstreams = upstreams(step);
+            inDegree.put(step.getJobId(), upstreams.size());
+            upstreams.forEach(upstream -> downstreams.computeIfAbsent(upstream, id -> new ArrayList<>()).add(step.getJobId()));
+        }
+        Deque<UUID> ready = new ArrayDeque<>();
+        inDegree.forEach((jobId, degree) -> {
+            if (degree == 0) {
+                ready.add(jobId);
+            }
+        });
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            UUID jobId = ready.poll();
+            visited++;
+            for (UUID downstream : downstreams.getOrDefault(jobId, List.of())) {
+                if (inDegree.merge(downstream, -1, Integer::sum) == 0) {
+                    ready.add(downstream);
+                }
+            }
+        }
+        return visited == steps.size();
+    }
+
+    private static List<UUID> upstreams(WorkflowDefinition.Step step) {
+        return step.getDependsOn() == null ? List.of() : step.getDependsOn().stream().distinct().toList();
+    }
+
+    private static Map<UUID, List<UUID>> upstreamsByJob(List<JobDependency> dependencies) {
+        return dependencies.stream().collect(Collectors.groupingBy(JobDependency::getJobId,
+                Collectors.mapping(JobDependency::getUpstreamJobId, Collectors.toList())));
+    }
+
+    private static Map<UUID, List<UUID>> downstreamsByJob(List<JobDependency> dependencies) {
+        return dependencies.stream().collect(Collectors.groupingBy(JobDependency::getUpstreamJobId,
+                Collectors.mapping(JobDependency::getJobId, Collectors.toList())));
+    }
+
+    private Map<UUID, JobDetails> jobsById(Iterable<UUID> jobIds) {
+        Map<UUID, JobDetails> jobs = new HashMap<>();
+        jobDetailsRepository.findAllById(jobIds).forEach(jobDetails -> jobs.put(jobDetails.getId(), jobDetails));
+        return jobs;
+    }
+
+    private static WorkflowDefinition toDefinition(Workflow workflow, List<WorkflowStep> steps, List<JobDependency> dependencies) {
+        Map<UUID, List<UUID>> upstreams = upstreamsByJob(dependencies);
+        List<WorkflowDefinition.Step> stepViews = steps.stream()
+                .map(step -> new WorkflowDefinition.Step(step.getJobId(), upstreams.getOrDefault(step.getJobId(), List.of())))
+                .toList();
+        return new WorkflowDefinition(workflow.getId(), workflow.getName(), workflow.getCronExpression(),
+                workflow.isActive(), stepViews);
+    }
+
+    private static boolean isFinished(WorkflowStepRun stepRun) {
+        return !WorkflowStepRun.PENDING.equals(stepRun.getStatus()) && !WorkflowStepRun.RUNNING.equals(stepRun.getStatus());
+    }
+
+    private static JobDetail buildWorkflowJob(Workflow workflow) {
+        return JobBuilder.newJob(WorkflowTriggerJob.class)
+                .withIdentity(workflowJobKey(workflow.getId()))
+                .build();
+    }
+
+    private static CronTrigger buildWorkflowTrigger(Workflow workflow) {
+        return TriggerBuilder.newTrigger()
+                .withIdentity(workflow.getId() + "Trigger", WORKFLOW_GROUP)
+                .withSchedule(CronScheduleBuilder.cronSchedule(workflow.getCronExpression()))
+                .build();
+    }
+
+    private static JobKey workflowJobKey(UUID workflowId) {
+        return new JobKey(workflowId.toString(), WORKFLOW_GROUP);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
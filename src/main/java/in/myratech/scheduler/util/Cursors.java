@@ -0,0 +1,66 @@
+package in.myratech.scheduler.util;
+
+import in.myratech.scheduler.util.error.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes keyset positions into opaque URL safe continuation tokens.
+ */
+public final class Cursors {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public record HistoryPosition(Timestamp startTime, UUID uuid) {
+    }
+
+    private Cursors() {
+    }
+
+    public static String encodeId(UUID id) {
+        return encode(id.toString());
+    }
+
+    public static UUID decodeId(String cursor) {
+        try {
+            return UUID.fromString(decode(cursor));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public static String encodeHistory(Timestamp startTime, UUID uuid) {
+        Instant instant = startTime.toInstant();
+        return encode(instant.getEpochSecond() + "." + instant.getNano() + ":" + uuid);
+    }
+
+    public static HistoryPosition decodeHistory(String cursor) {
+        try {
+            String value = decode(cursor);
+            int separator = value.indexOf(':');
+            int dot = value.indexOf('.');
+            if (separator < 0 || dot < 0 || dot > separator) {
+                throw new InvalidCursorException(cursor);
+            }
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(value.substring(0, dot)),
+                    Long.parseLong(value.substring(dot + 1, separator)));
+            return new HistoryPosition(Timestamp.from(instant), UUID.fromString(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+            // The last two for a position outside the range of an Instant
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private static String encode(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        return new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,13 @@
+package in.myratech.scheduler.util.error;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class WorkflowNotFoundException extends RuntimeException {
+    public WorkflowNotFoundException(String what, UUID id) {
+        super(what + " not found with id: " + id);
+    }
+}
@@ -0,0 +1,222 @@
+package in.myratech.scheduler.job;
+
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.service.ExecutionEventBus;
+import in.myratech.scheduler.service.JobHistoryWriter;
+import in.myratech.scheduler.service.JobStatsRegistry;
+import in.myratech.scheduler.service.WorkflowSvc;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.quartz.JobExecutionException;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Targets run on their own threads through a stand-in for the execution engine. Each target succeeds
+ * unless the test sets another outcome for its host.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FanOutRunnerTest {
+
+    @Mock
+    private JobHistoryWriter historyWriter;
+
+    @Mock
+    private JobStatsRegistry statsRegistry;
+
+    @Mock
+    private FireMetrics fireMetrics;
+
+    @Mock
+    private FanOutPlanner fanOutPlanner;
+
+    @Mock
+    private RequestRunner requestRunner;
+
+    @Spy
+    private JobExecutionEngine executionEngine = new ThreadPerTaskEngine();
+
+    @Mock
+    private WorkflowSvc workflowSvc;
+
+    @Mock
+    private ExecutionEventBus eventBus;
+
+    @InjectMocks
+    private FanOutRunner fanOutRunner;
+
+    private final JobDefinition definition = new JobDefinition(UUID.randomUUID(), "sync", "billing", null, "POST",
+            null, new HttpHeaders(), null, null, false, null, "a,b,c", null, 2, "0 * * * * ?", null);
+    private final Map<String, String> outcomes = new ConcurrentHashMap<>();
+    private final List<JobExecutionHistory> recorded = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(fanOutPlanner.parallelism(definition)).thenReturn(2);
+        doAnswer(invocation -> {
+            CompiledRequest request = invocation.getArgument(0);
+            JobExecutionHistory history = invocation.getArgument(1);
+            String outcome = outcomes.getOrDefault(request.host(), "SUCCESS");
+            history.setStatus(outcome);
+            if (!"SUCCESS".equals(outcome)) {
+                throw new JobExecutionException(request.host() + " failed");
+            }
+            return null;
+        }).when(requestRunner).execute(any(), any());
+    }
+
+    @Test
+    void everyTargetIsCalledAndRecordedInOneBatch() throws Exception {
+        targets("a", "b", "c");
+
+        fanOutRunner.run(definition, "trigger", null, recorded::addAll);
+
+        assertThat(recorded).extracting(JobExecutionHistory::getTarget).containsExactly("a", "b", "c");
+        assertThat(recorded).extracting(JobExecutionHistory::getStatus).containsOnly("SUCCESS");
+        assertThat(recorded).allSatisfy(history -> assertThat(history.getJobId()).isEqualTo(definition.id()));
+        verify(statsRegistry, times(3)).record(eq(definition), eq(true), anyLong(), anyLong());
+        verify(eventBus).finished(eq(definition), eq("trigger"), isNull(), eq("SUCCESS"), anyLong(), isNull());
+    }
+
+    @Test
+    void failedTargetsFailTheFireButNotTheOtherTargets() throws Exception {
+        targets("a", "b", "c");
+        outcomes.put("b", "FAILED");
+
+        assertThatThrownBy(() -> fanOutRunner.run(definition, "trigger", null, recorded::addAll))
+                .isInstanceOf(JobExecutionException.class)
+                .hasMessageContaining("1 of 3 targets");
+
+        assertThat(recorded).extracting(JobExecutionHistory::getStatus).containsExactly("SUCCESS", "FAILED", "SUCCESS");
+        verify(eventBus).finished(eq(definition), eq("trigger"), isNull(), eq("FAILED"), anyLong(), eq("1 of 3 targets failed"));
+    }
+
+    @Test
+    void noMoreTargetsRunAtOnceThanTheParallelism() throws Exception {
+        targets("a", "b", "c", "d", "e", "f", "g", "h");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        doAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            invocation.<JobExecutionHistory>getArgument(1).setStatus("SUCCESS");
+            return null;
+        }).when(requestRunner).execute(any(), any());
+
+        fanOutRunner.run(definition, "trigger", null, recorded::addAll);
+
+        assertThat(recorded).hasSize(8);
+        assertThat(peak.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void targetsSendTheIdempotencyKeyOfTheFire() throws Exception {
+        targets("a", "b", "c");
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            keys.add(String.valueOf(IdempotencyKey.current()));
+            invocation.<JobExecutionHistory>getArgument(1).setStatus("SUCCESS");
+            return null;
+        }).when(requestRunner).execute(any(), any());
+
+        IdempotencyKey.runWith("fire-key", () -> fanOutRunner.run(definition, "trigger", null, recorded::addAll));
+
+        assertThat(keys).containsExactly("fire-key");
+    }
+
+    @Test
+    void unresolvableTargetsAreRecordedAsOneFailure() throws Exception {
+        when(fanOutPlanner.targets(definition)).thenThrow(new IllegalStateException("targets endpoint returned 503"));
+
+        assertThatThrownBy(() -> fanOutRunner.run(definition, "trigger", null, recorded::addAll))
+                .isInstanceOf(JobExecutionException.class);
+
+        assertThat(recorded).singleElement().satisfies(history -> {
+            assertThat(history.getStatus()).isEqualTo("FAILED");
+            assertThat(history.getErrorMessage()).contains("targets endpoint returned 503");
+        });
+        verify(requestRunner, never()).execute(any(), any());
+    }
+
+    @Test
+    void targetTheEngineRejectsIsRecordedAsNotExecuted() throws Exception {
+        targets("a", "b");
+        doAnswer(invocation -> {
+            if ("b".equals(invocation.getArgument(0))) {
+                throw new JobExecutionException("host b saturated");
+            }
+            return invocation.callRealMethod();
+        }).when(executionEngine).dispatch(any(), any());
+
+        assertThatThrownBy(() -> fanOutRunner.run(definition, "trigger", null, recorded::addAll))
+                .isInstanceOf(JobExecutionException.class);
+
+        assertThat(recorded).extracting(JobExecutionHistory::getStatus).containsExactly("SUCCESS", "FAILED");
+        assertThat(recorded.get(1).getErrorMessage()).isEqualTo("Not executed: host b saturated");
+    }
+
+    @Test
+    void workflowStepCompletesOnceForTheWholeFire() throws Exception {
+        targets("a", "b", "c");
+        UUID run = UUID.randomUUID();
+
+        fanOutRunner.run(definition, "trigger", run, recorded::addAll);
+
+        verify(workflowSvc).onStepComplete(run, definition.id(), true, null);
+        verify(statsRegistry, times(3)).record(any(), anyBoolean(), anyLong(), anyLong());
+    }
+
+    // Target hosts are the target names, so outcomes and rejections can be keyed by them
+    private void targets(String... names) throws Exception {
+        List<FanOutPlanner.Target> targets = new ArrayList<>();
+        for (String name : names) {
+            CompiledRequest request = mock(CompiledRequest.class);
+            when(request.host()).thenReturn(name);
+            targets.add(new FanOutPlanner.Target(name, request));
+        }
+        when(fanOutPlanner.targets(definition)).thenReturn(targets);
+    }
+
+    static class ThreadPerTaskEngine implements JobExecutionEngine {
+        @Override
+        public void dispatch(String host, JobTask task) {
+            new Thread(() -> {
+                try {
+                    task.run();
+                } catch (JobExecutionException e) {
+                    // The runner records the outcome itself
+                }
+            }).start();
+        }
+    }
+}
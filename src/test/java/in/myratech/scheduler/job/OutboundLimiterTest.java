@@ -0,0 +1,151 @@
+package in.myratech.scheduler.job;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Limits use their real resilience4j instances. Waits are kept short so an exhausted limit rejects
+ * the call instead of holding the test.
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboundLimiterTest {
+
+    private static final String HOST = "api.example.com";
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OutboundLimiter outboundLimiter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboundLimiter, "maxWait", 50L);
+        ReflectionTestUtils.setField(outboundLimiter, "hostRateOverrides", "");
+    }
+
+    @Test
+    void callWithoutLimitsRunsDirectly() {
+        OutboundLimiter.Permits permits = outboundLimiter.permitsFor(definition("sync", null, null), HOST);
+
+        assertThat(permits.call(() -> "ok")).isEqualTo("ok");
+        assertThat(meterRegistry.find("scheduler.limits.wait").timers()).isEmpty();
+    }
+
+    @Test
+    void jobBulkheadRejectsCallsBeyondItsConcurrency() throws Exception {
+        OutboundLimiter.Permits permits = outboundLimiter.permitsFor(definition("sync", 1, null), HOST);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> permits.call(() -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holder.start();
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> permits.call(() -> "second")).isInstanceOf(BulkheadFullException.class);
+        assertThat(meterRegistry.counter("scheduler.limits.rejected", "scope", "job").count()).isEqualTo(1);
+
+        release.countDown();
+        holder.join(5000);
+        assertThat(permits.call(() -> "third")).isEqualTo("third");
+    }
+
+    @Test
+    void failedCallReturnsItsBulkheadPermit() {
+        OutboundLimiter.Permits permits = outboundLimiter.permitsFor(definition("sync", 1, null), HOST);
+
+        assertThatThrownBy(() -> permits.call(() -> {
+            throw new IllegalStateException("connection reset");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(permits.call(() -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void jobRateLimitRejectsCallsOverItsRate() {
+        ReflectionTestUtils.setField(outboundLimiter, "maxWait", 0L);
+        OutboundLimiter.Permits permits = outboundLimiter.permitsFor(definition("sync", null, 2.0), HOST);
+
+        permits.call(() -> "first");
+        permits.call(() -> "second");
+
+        assertThatThrownBy(() -> permits.call(() -> "third")).isInstanceOf(RequestNotPermitted.class);
+    }
+
+    @Test
+    void hostOverrideLimitsOnlyThatHost() {
+        ReflectionTestUtils.setField(outboundLimiter, "maxWait", 0L);
+        ReflectionTestUtils.setField(outboundLimiter, "hostRateOverrides", "api.partner.com=0.5");
+        outboundLimiter.init();
+        OutboundLimiter.Permits partner = outboundLimiter.permitsFor(definition("sync", null, null), "api.partner.com");
+        OutboundLimiter.Permits other = outboundLimiter.permitsFor(definition("sync", null, null), HOST);
+
+        partner.call(() -> "first");
+        assertThatThrownBy(() -> partner.call(() -> "second")).isInstanceOf(RequestNotPermitted.class);
+        for (int i = 0; i < 10; i++) {
+            other.call(() -> "unlimited");
+        }
+        assertThat(meterRegistry.counter("scheduler.limits.rejected", "scope", "host", "key", "api.partner.com").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void malformedHostOverrideFailsStartup() {
+        ReflectionTestUtils.setField(outboundLimiter, "hostRateOverrides", "api.partner.com:5");
+
+        assertThatThrownBy(() -> outboundLimiter.init()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void changedJobConcurrencyAppliesToTheSharedBulkhead() throws Exception {
+        outboundLimiter.permitsFor(definition("sync", 1, null), HOST);
+        OutboundLimiter.Permits permits = outboundLimiter.permitsFor(definition("sync", 2, null), HOST);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> permits.call(() -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holder.start();
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(permits.call(() -> "second")).isEqualTo("second");
+
+        release.countDown();
+        holder.join(5000);
+    }
+
+    private static JobDefinition definition(String name, Integer maxConcurrentCalls, Double rateLimitPerSecond) {
+        return new JobDefinition(UUID.randomUUID(), name, "billing", "http://" + HOST + "/" + name, "POST", null,
+                new HttpHeaders(), maxConcurrentCalls, rateLimitPerSecond, false, null, null, null, null, null, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
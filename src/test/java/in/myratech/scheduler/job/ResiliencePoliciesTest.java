@@ -0,0 +1,217 @@
+package in.myratech.scheduler.job;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ResiliencePoliciesTest {
+
+    private final FireMetrics fireMetrics = mock(FireMetrics.class);
+    private ResiliencePolicies policies;
+
+    @BeforeEach
+    void setUp() {
+        policies = new ResiliencePolicies();
+        ReflectionTestUtils.setField(policies, "circuitBreakerRegistry", CircuitBreakerRegistry.ofDefaults());
+        ReflectionTestUtils.setField(policies, "fireMetrics", fireMetrics);
+        ReflectionTestUtils.setField(policies, "maxAttempts", 3);
+        ReflectionTestUtils.setField(policies, "initialBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(policies, "backoffMultiplier", 2.0);
+        ReflectionTestUtils.setField(policies, "maxBackoff", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(policies, "jitter", 0.0);
+        ReflectionTestUtils.setField(policies, "retryBudgetPercent", 0.0);
+        ReflectionTestUtils.setField(policies, "honorRetryAfter", true);
+        ReflectionTestUtils.setField(policies, "deadline", 0L);
+        policies.init();
+    }
+
+    @Test
+    void serverErrorsAreRetriedUpToMaxAttempts() {
+        JobDefinition definition = job(null, policy(null, null, null, null));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(definition, () -> {
+            attempts.incrementAndGet();
+            throw serverError(null);
+        })).isInstanceOf(HttpServerErrorException.class);
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void transientFailureSucceedsOnRetry() {
+        JobDefinition definition = job(null, policy(null, null, null, null));
+        AtomicInteger attempts = new AtomicInteger();
+
+        ResponseEntity<String> response = call(definition, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw serverError(null);
+            }
+            return ResponseEntity.ok("done");
+        });
+
+        assertThat(response.getBody()).isEqualTo("done");
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void clientErrorsAreNotRetriedExceptThrottling() {
+        JobDefinition definition = job(null, policy(null, null, null, null));
+        AtomicInteger badRequests = new AtomicInteger();
+        AtomicInteger throttled = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(definition, () -> {
+            badRequests.incrementAndGet();
+            throw HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", new HttpHeaders(), null, null);
+        })).isInstanceOf(HttpClientErrorException.class);
+        assertThatThrownBy(() -> call(definition, () -> {
+            throttled.incrementAndGet();
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", new HttpHeaders(), null, null);
+        })).isInstanceOf(HttpClientErrorException.class);
+
+        assertThat(badRequests).hasValue(1);
+        assertThat(throttled).hasValue(3);
+    }
+
+    @Test
+    void retryBudgetLimitsRetriesToItsShareOfCalls() {
+        // Each call deposits half a retry against a reserve of ten
+        JobDefinition definition = job(null, policy(2, null, null, 50.0));
+        AtomicInteger attempts = new AtomicInteger();
+        Supplier<ResponseEntity<String>> decorated = policies.decorate(definition, "budget", () -> {
+            attempts.incrementAndGet();
+            throw serverError(null);
+        });
+
+        for (int i = 0; i < 30; i++) {
+            assertThatThrownBy(decorated::get).isInstanceOf(HttpServerErrorException.class);
+        }
+
+        // The reserve covers the first 19 calls, after that every other call may retry
+        assertThat(attempts).hasValue(30 + 19 + 5);
+        verify(fireMetrics, atLeastOnce()).recordSuppressedRetry(definition, "budget");
+    }
+
+    @Test
+    void retryWaitsAsLongAsRetryAfterAsks() {
+        JobDefinition definition = job(null, policy(2, 5000L, null, null));
+        AtomicInteger attempts = new AtomicInteger();
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> call(definition, () -> {
+            attempts.incrementAndGet();
+            throw serverError("1");
+        })).isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(attempts).hasValue(2);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void retryAfterBeyondMaxBackoffWithoutDeadlineIsNotWaitedFor() {
+        JobDefinition definition = job(null, policy(null, null, null, null));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(definition, () -> {
+            attempts.incrementAndGet();
+            throw serverError("3600");
+        })).isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(attempts).hasValue(1);
+        verify(fireMetrics).recordSuppressedRetry(definition, "retry-after");
+    }
+
+    @Test
+    void ignoredRetryAfterFallsBackToBackoff() {
+        JobDefinition definition = job(null, policy(null, null, false, null));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(definition, () -> {
+            attempts.incrementAndGet();
+            throw serverError("3600");
+        })).isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(attempts).hasValue(3);
+        verify(fireMetrics, never()).recordSuppressedRetry(any(), anyString());
+    }
+
+    @Test
+    void retryStartingPastTheDeadlineIsSkipped() {
+        JobDefinition definition = job(null, policy(null, 500L, null, null));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(definition, () -> {
+            attempts.incrementAndGet();
+            throw serverError("2");
+        })).isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(attempts).hasValue(1);
+        verify(fireMetrics).recordSuppressedRetry(definition, "deadline");
+    }
+
+    @Test
+    void deadlineDefaultsToTheFireInterval() {
+        // Fires every second, so a two second Retry-After runs into the next fire
+        JobDefinition definition = job("* * * * * ?", policy(null, null, null, null));
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> call(definition, () -> {
+            attempts.incrementAndGet();
+            throw serverError("2");
+        })).isInstanceOf(HttpServerErrorException.class);
+
+        assertThat(attempts).hasValue(1);
+        verify(fireMetrics).recordSuppressedRetry(definition, "deadline");
+    }
+
+    @Test
+    void fireIntervalIsTheSmallestGapBetweenFires() {
+        assertThat(ResiliencePolicies.fireIntervalMs("0 */5 * * * ?")).isEqualTo(300_000);
+        assertThat(ResiliencePolicies.fireIntervalMs("0 0 9,17 * * ?")).isEqualTo(8 * 3_600_000);
+        assertThat(ResiliencePolicies.fireIntervalMs(null)).isZero();
+        assertThat(ResiliencePolicies.fireIntervalMs("not a cron")).isZero();
+    }
+
+    private ResponseEntity<String> call(JobDefinition definition, Supplier<ResponseEntity<String>> call) {
+        return policies.decorate(definition, "job:" + definition.id(), call).get();
+    }
+
+    private static HttpStatusCodeException serverError(String retryAfter) {
+        HttpHeaders headers = new HttpHeaders();
+        if (retryAfter != null) {
+            headers.set(HttpHeaders.RETRY_AFTER, retryAfter);
+        }
+        return HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", headers, null, null);
+    }
+
+    private static ResiliencePolicy policy(Integer maxAttempts, Long deadlineMs, Boolean honorRetryAfter,
+                                           Double retryBudgetPercent) {
+        return new ResiliencePolicy(maxAttempts, null, null, null, null, retryBudgetPercent, honorRetryAfter,
+                deadlineMs, null, null, null, null);
+    }
+
+    private static JobDefinition job(String cronExpression, ResiliencePolicy resilience) {
+        return new JobDefinition(UUID.randomUUID(), "sync", "billing", "http://localhost/sync", "POST", null,
+                new HttpHeaders(), null, null, false, null, null, null, null, cronExpression, resilience);
+    }
+}
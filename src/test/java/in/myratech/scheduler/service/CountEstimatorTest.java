@@ -0,0 +1,87 @@
+package in.myratech.scheduler.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class CountEstimatorTest {
+
+    private static final String QUERY = "SELECT 1 FROM job_details WHERE job_group = ?";
+    private static final String PLAN = "Seq Scan on job_details  (cost=0.00..18.50 rows=850 width=4)";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private CountEstimator countEstimator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(countEstimator, "ttl", 60_000L);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("billing")))
+                .thenReturn(List.of(PLAN, "  Filter: ((job_group)::text = 'billing'::text)"));
+    }
+
+    @Test
+    void estimateIsTakenFromTheTopPlanNode() {
+        assertThat(countEstimator.estimate("jobs:billing", QUERY, "billing")).isEqualTo(850L);
+
+        verify(jdbcTemplate).queryForList("EXPLAIN " + QUERY, String.class, "billing");
+    }
+
+    @Test
+    void estimateIsCachedPerKeyUntilItExpires() {
+        countEstimator.estimate("jobs:billing", QUERY, "billing");
+        countEstimator.estimate("jobs:billing", QUERY, "billing");
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(String.class), eq("billing"));
+
+        countEstimator.estimate("jobs:billing:other", QUERY, "billing");
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(String.class), eq("billing"));
+    }
+
+    @Test
+    void expiredEstimateIsPlannedAgain() {
+        ReflectionTestUtils.setField(countEstimator, "ttl", 0L);
+        countEstimator.estimate("jobs:billing", QUERY, "billing");
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("billing")))
+                .thenReturn(List.of("Seq Scan on job_details  (cost=0.00..20.00 rows=900 width=4)"));
+
+        assertThat(countEstimator.estimate("jobs:billing", QUERY, "billing")).isEqualTo(900L);
+    }
+
+    @Test
+    void planWithoutEstimateGivesNoTotal() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("billing"))).thenReturn(List.of("Result"));
+
+        assertThat(countEstimator.estimate("jobs:billing", QUERY, "billing")).isNull();
+    }
+
+    @Test
+    void failedPlanGivesNoTotalAndIsNotCached() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("billing")))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"))
+                .thenReturn(List.of(PLAN));
+
+        assertThat(countEstimator.estimate("jobs:billing", QUERY, "billing")).isNull();
+        assertThat(countEstimator.estimate("jobs:billing", QUERY, "billing")).isEqualTo(850L);
+    }
+}
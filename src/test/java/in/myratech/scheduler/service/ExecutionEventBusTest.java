@@ -0,0 +1,169 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.dto.ExecutionEvent;
+import in.myratech.scheduler.job.JobDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Relayed notifications are collected as the other nodes would receive them.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExecutionEventBusTest {
+
+    private static final TypeReference<List<ExecutionEvent>> EVENT_LIST = new TypeReference<>() {};
+
+    @Mock
+    private PgNotificationListener notificationListener;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ExecutionEventBus eventBus;
+
+    private final List<String> notifications = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(eventBus, "enabled", true);
+        ReflectionTestUtils.setField(eventBus, "bufferSize", 16);
+        ReflectionTestUtils.setField(eventBus, "maxSubscribers", 1);
+        ReflectionTestUtils.setField(eventBus, "heartbeatInterval", 15_000L);
+        ReflectionTestUtils.setField(eventBus, "clusterEnabled", true);
+        ReflectionTestUtils.setField(eventBus, "relayCapacity", 1000);
+        ReflectionTestUtils.setField(eventBus, "flushInterval", 10L);
+        doAnswer(invocation -> notifications.add(invocation.getArgument(1)))
+                .when(notificationListener).publish(eq(ExecutionEventBus.CHANNEL), anyString());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        eventBus.shutdown();
+    }
+
+    @Test
+    void eventsAreRelayedToTheOtherNodes() throws Exception {
+        eventBus.init();
+        JobDefinition definition = definition();
+
+        eventBus.started(definition, "trigger", null);
+        eventBus.finished(definition, "trigger", null, "SUCCESS", System.currentTimeMillis() - 250, null);
+
+        await(() -> relayed().size() == 2);
+        List<ExecutionEvent> events = relayed();
+        assertThat(events).extracting(ExecutionEvent::getType).containsExactly("STARTED", "SUCCESS");
+        assertThat(events).allSatisfy(event -> {
+            assertThat(event.getJobId()).isEqualTo(definition.id());
+            assertThat(event.getNode()).isEqualTo(events.get(0).getNode()).isNotNull();
+        });
+        assertThat(events.get(1).getDurationMs()).isGreaterThanOrEqualTo(250L);
+    }
+
+    @Test
+    void largeBatchIsSplitIntoNotificationsPostgresAccepts() throws Exception {
+        eventBus.init();
+        JobDefinition definition = definition();
+
+        for (int i = 0; i < 40; i++) {
+            eventBus.finished(definition, "trigger", null, "FAILED", System.currentTimeMillis(), "x".repeat(2000));
+        }
+
+        await(() -> relayed().size() == 40);
+        assertThat(notifications).hasSizeGreaterThan(1)
+                .allSatisfy(payload -> assertThat(payload.getBytes(StandardCharsets.UTF_8).length).isLessThan(8000));
+        assertThat(relayed()).allSatisfy(event -> {
+            assertThat(event.getType()).isEqualTo("FAILED");
+            assertThat(event.getErrorMessage()).hasSize(500);
+        });
+    }
+
+    @Test
+    void subscribersBeyondTheLimitAreTurnedAway() throws Exception {
+        eventBus.init();
+
+        assertThat(eventBus.subscribe(null, "billing")).isNotNull();
+
+        assertThatThrownBy(() -> eventBus.subscribe(null, null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void disabledStreamNeitherSubscribesNorRelays() throws Exception {
+        ReflectionTestUtils.setField(eventBus, "enabled", false);
+        eventBus.init();
+
+        eventBus.started(definition(), "trigger", null);
+
+        assertThatThrownBy(() -> eventBus.subscribe(null, null)).isInstanceOf(IllegalStateException.class);
+        verify(notificationListener, never()).subscribe(anyString(), any());
+        assertThat(notifications).isEmpty();
+    }
+
+    private List<ExecutionEvent> relayed() {
+        List<ExecutionEvent> events = new ArrayList<>();
+        for (String payload : notifications) {
+            try {
+                events.addAll(objectMapper.readValue(payload, EVENT_LIST));
+            } catch (Exception e) {
+                fail("Unparseable notification " + payload);
+            }
+        }
+        return events;
+    }
+
+    private static JobDefinition definition() {
+        return new JobDefinition(UUID.randomUUID(), "sync", "billing", "http://api.example.com/sync", "POST", null,
+                new HttpHeaders(), null, null, false, null, null, null, null, null, null);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.GroupLoad;
+import in.myratech.scheduler.entity.GroupQuota;
+import in.myratech.scheduler.job.JobExecutionEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobExecutionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Fires are queued before the dispatcher thread starts, so its rounds run in a known order. The engine
+ * holds every fire it is handed until the test finishes it, each keeps its slot until then.
+ */
+class FairShareDispatcherTest {
+
+    private static final JobExecutionEngine.JobTask NOOP = () -> { };
+
+    private final HoldingEngine executionEngine = new HoldingEngine();
+    private final AtomicLong nanos = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private FairShareDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new FairShareDispatcher(nanos::get);
+        ReflectionTestUtils.setField(dispatcher, "executionEngine", executionEngine);
+        ReflectionTestUtils.setField(dispatcher, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 1000);
+        ReflectionTestUtils.setField(dispatcher, "maxQueuedPerGroup", 10_000);
+        ReflectionTestUtils.setField(dispatcher, "defaultWeight", 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void disabledDispatcherHandsFiresStraightToTheEngine() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "enabled", false);
+
+        dispatcher.dispatch("reports", "api.example.com", NOOP);
+
+        assertThat(executionEngine.held()).isEqualTo(1);
+        assertThat(dispatcher.loads()).isEmpty();
+    }
+
+    @Test
+    void floodedGroupDoesNotHoldBackTheOthers() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 2);
+        enqueue("bulk", 1000);
+        enqueue("billing", 1);
+
+        dispatcher.start();
+
+        awaitDispatched(2);
+        assertThat(dispatched()).containsEntry("bulk", 1L).containsEntry("billing", 1L);
+    }
+
+    @Test
+    void groupsStartFiresInProportionToTheirWeight() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 20);
+        dispatcher.applyQuota("heavy", quota(3, null, null));
+        enqueue("heavy", 100);
+        enqueue("light", 100);
+
+        dispatcher.start();
+
+        awaitDispatched(20);
+        assertThat(dispatched()).containsEntry("heavy", 15L).containsEntry("light", 5L);
+    }
+
+    @Test
+    void drainedGroupLeavesTheRoundRobin() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 4);
+        dispatcher.applyQuota("heavy", quota(5, null, null));
+        enqueue("heavy", 2);
+        enqueue("light", 10);
+
+        dispatcher.start();
+
+        awaitDispatched(4);
+        assertThat(dispatched()).containsEntry("heavy", 2L).containsEntry("light", 2L);
+        assertThat(load("heavy").getQueued()).isZero();
+    }
+
+    @Test
+    void finishedFiresFreeTheirInFlightSlots() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 2);
+        enqueue("a", 5);
+        enqueue("b", 5);
+        enqueue("c", 5);
+
+        dispatcher.start();
+
+        awaitDispatched(2);
+        settle();
+        assertThat(totalDispatched()).isEqualTo(2);
+
+        executionEngine.finishAll();
+        awaitDispatched(4);
+        assertThat(load("a").getRunning() + load("b").getRunning() + load("c").getRunning()).isEqualTo(2);
+    }
+
+    @Test
+    void groupAtItsConcurrencyLimitIsSkipped() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 3);
+        dispatcher.applyQuota("limited", quota(4, 1, null));
+        enqueue("limited", 5);
+        enqueue("free", 5);
+
+        dispatcher.start();
+
+        awaitDispatched(3);
+        assertThat(dispatched()).containsEntry("limited", 1L).containsEntry("free", 2L);
+        assertThat(load("limited").getRunning()).isEqualTo(1);
+    }
+
+    @Test
+    void tokenBucketRefillsAtTheQuotaRateUpToOneSecondOfFires() throws Exception {
+        dispatcher.applyQuota("metered", quota(100, null, 10.0));
+        enqueue("metered", 50);
+
+        dispatcher.start();
+        settle();
+        assertThat(dispatched()).containsEntry("metered", 0L);
+
+        // Five idle seconds still only buy one second worth of fires
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        awaitDispatched(10);
+        settle();
+        assertThat(dispatched()).containsEntry("metered", 10L);
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+        awaitDispatched(13);
+        settle();
+        assertThat(dispatched()).containsEntry("metered", 13L);
+    }
+
+    @Test
+    void fullGroupQueueRejectsTheFire() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "maxQueuedPerGroup", 2);
+        enqueue("bulk", 2);
+
+        assertThatThrownBy(() -> dispatcher.dispatch("bulk", "api.example.com", NOOP))
+                .isInstanceOf(JobExecutionException.class);
+        assertThat(load("bulk").getRejected()).isEqualTo(1);
+        assertThat(load("bulk").getQueued()).isEqualTo(2);
+    }
+
+    private void enqueue(String group, int fires) throws JobExecutionException {
+        for (int i = 0; i < fires; i++) {
+            dispatcher.dispatch(group, "api.example.com", NOOP);
+        }
+    }
+
+    private void awaitDispatched(long total) {
+        await(() -> totalDispatched() >= total);
+    }
+
+    private long totalDispatched() {
+        return dispatched().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private Map<String, Long> dispatched() {
+        Map<String, Long> dispatched = new HashMap<>();
+        for (GroupLoad load : dispatcher.loads()) {
+            dispatched.put(load.getGroup(), load.getDispatched());
+        }
+        return dispatched;
+    }
+
+    private GroupLoad load(String group) {
+        List<GroupLoad> loads = dispatcher.loads();
+        return loads.stream().filter(load -> load.getGroup().equals(group)).findFirst().orElseThrow();
+    }
+
+    private static GroupQuota quota(Integer weight, Integer maxConcurrent, Double firesPerSecond) {
+        GroupQuota quota = new GroupQuota();
+        quota.setWeight(weight);
+        quota.setMaxConcurrent(maxConcurrent);
+        quota.setFiresPerSecond(firesPerSecond);
+        return quota;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            sleep(10);
+        }
+    }
+
+    // Gives the dispatcher thread time for a few more rounds, longer than a token bucket wait
+    private static void settle() {
+        sleep(300);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrupted");
+        }
+    }
+
+    // Keeps every fire it is handed until the test finishes it
+    private static final class HoldingEngine implements JobExecutionEngine {
+        private final List<JobTask> tasks = new ArrayList<>();
+
+        @Override
+        public synchronized void dispatch(String host, JobTask task) {
+            tasks.add(task);
+        }
+
+        synchronized int held() {
+            return tasks.size();
+        }
+
+        void finishAll() throws JobExecutionException {
+            List<JobTask> finishing;
+            synchronized (this) {
+                finishing = new ArrayList<>(tasks);
+                tasks.clear();
+            }
+            for (JobTask task : finishing) {
+                task.run();
+            }
+        }
+    }
+}
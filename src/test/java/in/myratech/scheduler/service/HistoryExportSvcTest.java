@@ -0,0 +1,163 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The export reads through its own cursor template, so rows are served by a mocked connection and result set.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HistoryExportSvcTest {
+
+    private static final Instant FROM = Instant.parse("2025-03-01T00:00:00Z");
+    private static final Instant TO = Instant.parse("2025-03-02T00:00:00Z");
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private HistoryExportSvc exportSvc;
+
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(exportSvc, "fetchSize", 100);
+        ReflectionTestUtils.setField(exportSvc, "maxRange", Duration.ofDays(92));
+        ReflectionTestUtils.setField(exportSvc, "maxConcurrent", 1);
+        exportSvc.init();
+
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        ResultSet rs = mock(ResultSet.class);
+        when(statement.executeQuery()).thenReturn(rs);
+        AtomicInteger row = new AtomicInteger(-1);
+        when(rs.next()).thenAnswer(invocation -> row.incrementAndGet() < rows.size());
+        when(rs.getString(anyInt())).thenAnswer(invocation -> (String) rows.get(row.get())[invocation.<Integer>getArgument(0) - 1]);
+        when(rs.getTimestamp(anyInt())).thenAnswer(invocation -> (Timestamp) rows.get(row.get())[invocation.<Integer>getArgument(0) - 1]);
+    }
+
+    @Test
+    void invalidRequestsAreRejectedUpFront() {
+        assertThatThrownBy(() -> exportSvc.validate(TO, FROM, HistoryExportSvc.CSV)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> exportSvc.validate(FROM, FROM.plus(Duration.ofDays(93)), HistoryExportSvc.CSV))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> exportSvc.validate(FROM, TO, "xml")).isInstanceOf(IllegalArgumentException.class);
+        exportSvc.validate(FROM, TO, HistoryExportSvc.NDJSON);
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerLine() throws Exception {
+        UUID first = row("SUCCESS", null);
+        UUID second = row("FAILED", "Response Status: 503");
+
+        String export = export(null, null, HistoryExportSvc.NDJSON);
+
+        String[] lines = export.split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode line = objectMapper.readTree(lines[0]);
+        assertThat(line.get("uuid").asText()).isEqualTo(first.toString());
+        assertThat(line.get("startTime").asText()).isEqualTo("2025-03-01T10:00:00Z");
+        assertThat(line.get("errorMessage").isNull()).isTrue();
+        assertThat(objectMapper.readTree(lines[1]).get("uuid").asText()).isEqualTo(second.toString());
+        assertThat(meterRegistry.counter("scheduler.history.export.rows", "format", HistoryExportSvc.NDJSON).count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void csvQuotesValuesThatNeedIt() {
+        UUID id = row("FAILED", "Bad \"gateway\", retry\nlater");
+
+        String export = export(null, null, HistoryExportSvc.CSV);
+
+        assertThat(export).startsWith("uuid,jobId,triggerName,startTime,endTime,status,errorMessage,target,workflowRunId\n");
+        assertThat(export).contains(id + ",").contains(",FAILED,\"Bad \"\"gateway\"\", retry\nlater\",,\n");
+    }
+
+    @Test
+    void filtersNarrowTheQuery() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        Connection connection = dataSource.getConnection();
+
+        export("FAILED", jobId, HistoryExportSvc.CSV);
+
+        verify(connection).prepareStatement("SELECT uuid, job_id, trigger_name, start_time, end_time, status, error_message, " +
+                "target, workflow_run_id FROM job_execution_history WHERE start_time >= ? AND start_time < ? " +
+                "AND status = ? AND job_id = ? ORDER BY start_time DESC");
+        verify(statement).setFetchSize(100);
+        verify(statement).setString(3, "FAILED");
+        verify(statement).setObject(4, jobId);
+    }
+
+    @Test
+    void exportsBeyondTheLimitAreTurnedAway() {
+        assertThat(exportSvc.tryAcquire()).isTrue();
+        assertThat(exportSvc.tryAcquire()).isFalse();
+        assertThat(meterRegistry.counter("scheduler.history.export.rejected").count()).isEqualTo(1);
+
+        exportSvc.release();
+
+        assertThat(exportSvc.tryAcquire()).isTrue();
+    }
+
+    private String export(String status, UUID jobId, String format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportSvc.export(FROM, TO, status, jobId, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private UUID row(String status, String errorMessage) {
+        UUID id = UUID.randomUUID();
+        Timestamp start = Timestamp.from(Instant.parse("2025-03-01T10:00:00Z"));
+        rows.add(new Object[]{id.toString(), UUID.randomUUID().toString(), "trigger", start,
+                new Timestamp(start.getTime() + 250), status, errorMessage, null, null});
+        return id;
+    }
+}
@@ -0,0 +1,164 @@
+package in.myratech.scheduler.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class HistoryPartitionManagerTest {
+
+    private static final String TABLE = "job_execution_history";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private HistoryPartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Object>>any())).thenReturn(true);
+        ReflectionTestUtils.setField(partitionManager, "enabled", true);
+        ReflectionTestUtils.setField(partitionManager, "interval", "day");
+        ReflectionTestUtils.setField(partitionManager, "premake", 2);
+        ReflectionTestUtils.setField(partitionManager, "migrateLegacy", true);
+        ReflectionTestUtils.setField(partitionManager, "rawRetentionDays", 30);
+        ReflectionTestUtils.setField(partitionManager, "aggregateRetentionDays", 365);
+    }
+
+    @Test
+    void missingTableIsCreatedPartitioned() {
+        tableKind(null);
+
+        partitionManager.initialize();
+
+        assertThat(partitionManager.isPartitioned()).isTrue();
+        verify(jdbcTemplate).execute(contains("PARTITION BY RANGE (start_time)"));
+        verify(jdbcTemplate).execute("CREATE TABLE " + TABLE + "_default PARTITION OF " + TABLE + " DEFAULT");
+        verify(jdbcTemplate, atLeastOnce()).execute(startsWith("CREATE TABLE IF NOT EXISTS " + TABLE + "_p"));
+    }
+
+    @Test
+    void plainTableIsLeftAloneWithoutMigration() {
+        ReflectionTestUtils.setField(partitionManager, "migrateLegacy", false);
+        tableKind("r");
+
+        partitionManager.initialize();
+
+        assertThat(partitionManager.isPartitioned()).isFalse();
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE"));
+    }
+
+    @Test
+    void migrationMovesTheLegacyIndexesOutOfHibernatesWay() {
+        tableKind("r");
+        when(jdbcTemplate.queryForList(contains("pg_indexes"), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("idx_history_job_start", "idx_history_status_start", "idx_history_start"));
+
+        partitionManager.initialize();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("ALTER TABLE " + TABLE + " RENAME TO " + TABLE + "_legacy");
+        order.verify(jdbcTemplate).execute("ALTER INDEX idx_history_job_start RENAME TO idx_history_job_start_legacy");
+        order.verify(jdbcTemplate).execute("ALTER INDEX idx_history_status_start RENAME TO idx_history_status_start_legacy");
+        order.verify(jdbcTemplate).execute("ALTER INDEX idx_history_start RENAME TO idx_history_start_legacy");
+        order.verify(jdbcTemplate).execute(contains("PARTITION BY RANGE (start_time)"));
+        order.verify(jdbcTemplate).update(startsWith("INSERT INTO " + TABLE + " "));
+        assertThat(partitionManager.isPartitioned()).isTrue();
+    }
+
+    @Test
+    void failedPartitionFailsTheMigration() {
+        tableKind("r");
+        when(jdbcTemplate.queryForObject(contains("MIN(start_time)"), eq(LocalDate.class)))
+                .thenReturn(LocalDate.now().minusDays(3));
+        doThrow(new DataAccessResourceFailureException("overlapping range"))
+                .when(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS"));
+
+        assertThatThrownBy(() -> partitionManager.initialize()).isInstanceOf(DataAccessException.class);
+        assertThat(partitionManager.isPartitioned()).isFalse();
+        verify(jdbcTemplate, never()).update(startsWith("INSERT INTO " + TABLE + " "));
+    }
+
+    @Test
+    void failedPartitionDoesNotStopTheOthersAhead() {
+        tableKind("p");
+        partitionManager.initialize();
+        doThrow(new DataAccessResourceFailureException("rows in default partition"))
+                .when(jdbcTemplate).execute(contains(TABLE + "_p20250301 "));
+
+        partitionManager.ensurePartitions(LocalDate.of(2025, 3, 1));
+
+        verify(jdbcTemplate).execute(contains(TABLE + "_p20250302 "));
+        verify(jdbcTemplate).execute(contains(TABLE + "_p20250303 "));
+    }
+
+    @Test
+    void expiredPartitionsAreRolledUpOntoExistingAggregatesAndDropped() {
+        tableKind("p");
+        when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), any(Object[].class)))
+                .thenReturn(new ArrayList<>(List.of(TABLE + "_p20250101", TABLE + "_p20250228")));
+        partitionManager.initialize();
+
+        int dropped = partitionManager.applyRetention(LocalDate.of(2025, 3, 1));
+
+        assertThat(dropped).isEqualTo(1);
+        ArgumentCaptor<String> rollup = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(rollup.capture());
+        assertThat(rollup.getValue())
+                .contains("FROM " + TABLE + "_p20250101 ")
+                .contains("executions = job_execution_daily_stats.executions + EXCLUDED.executions")
+                .contains("GREATEST(job_execution_daily_stats.max_duration_ms, EXCLUDED.max_duration_ms)");
+        verify(jdbcTemplate).execute("DROP TABLE " + TABLE + "_p20250101");
+        verify(jdbcTemplate, never()).execute("DROP TABLE " + TABLE + "_p20250228");
+    }
+
+    private void tableKind(String kind) {
+        when(jdbcTemplate.queryForList(contains("relkind"), eq(String.class), any(Object[].class)))
+                .thenReturn(kind == null ? List.of() : List.of(kind));
+    }
+}
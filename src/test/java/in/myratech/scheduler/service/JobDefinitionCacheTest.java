@@ -0,0 +1,179 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.job.CompiledRequest;
+import in.myratech.scheduler.job.JobDefinition;
+import in.myratech.scheduler.job.RequestCompiler;
+import in.myratech.scheduler.repo.JobDetailsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.quartz.JobKey;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The cache is driven through the notification channel it subscribes to, as another node would.
+ * No transaction is active, so local invalidations apply right away.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class JobDefinitionCacheTest {
+
+    private static final JobKey KEY = JobKey.jobKey("sync", "billing");
+
+    @Mock
+    private JobDetailsRepository jobDetailsRepository;
+
+    @Mock
+    private PgNotificationListener notificationListener;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private RequestCompiler requestCompiler;
+
+    @Captor
+    private ArgumentCaptor<Consumer<String>> notifications;
+
+    @Captor
+    private ArgumentCaptor<Runnable> reconnects;
+
+    @InjectMocks
+    private JobDefinitionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "pollInterval", 0L);
+        when(requestCompiler.compile(any(JobDefinition.class))).thenAnswer(invocation -> {
+            CompiledRequest request = mock(CompiledRequest.class);
+            when(request.definition()).thenReturn(invocation.getArgument(0));
+            return request;
+        });
+        stored("http://localhost/v1");
+        cache.init();
+        verify(notificationListener).subscribe(eq(JobDefinitionCache.CHANGE_CHANNEL), notifications.capture());
+        verify(notificationListener).onReconnect(reconnects.capture());
+    }
+
+    @Test
+    void repeatedFiresAreServedFromTheCache() {
+        CompiledRequest first = cache.get(KEY).orElseThrow();
+        CompiledRequest second = cache.get(KEY).orElseThrow();
+
+        assertThat(second).isSameAs(first);
+        verify(jobDetailsRepository, times(1)).findByJobNameAndJobGroupAndDeletedFalse("sync", "billing");
+    }
+
+    @Test
+    void missingJobIsNotCached() {
+        when(jobDetailsRepository.findByJobNameAndJobGroupAndDeletedFalse("gone", "billing")).thenReturn(Optional.empty());
+
+        assertThat(cache.get(JobKey.jobKey("gone", "billing"))).isEmpty();
+        assertThat(cache.get(JobKey.jobKey("gone", "billing"))).isEmpty();
+
+        verify(jobDetailsRepository, times(2)).findByJobNameAndJobGroupAndDeletedFalse("gone", "billing");
+    }
+
+    @Test
+    void changeOnAnotherNodeReloadsTheJob() {
+        cache.get(KEY);
+        stored("http://localhost/v2");
+
+        notifications.getValue().accept("{\"group\":\"billing\",\"name\":\"sync\"}");
+
+        assertThat(url()).isEqualTo("http://localhost/v2");
+    }
+
+    @Test
+    void notificationForAnotherJobKeepsTheEntry() {
+        cache.get(KEY);
+        stored("http://localhost/v2");
+
+        notifications.getValue().accept("{\"group\":\"billing\",\"name\":\"report\"}");
+
+        assertThat(url()).isEqualTo("http://localhost/v1");
+    }
+
+    @Test
+    void malformedNotificationOrReconnectDropsEverything() {
+        cache.get(KEY);
+        stored("http://localhost/v2");
+        notifications.getValue().accept("not json");
+        assertThat(url()).isEqualTo("http://localhost/v2");
+
+        stored("http://localhost/v3");
+        reconnects.getValue().run();
+        assertThat(url()).isEqualTo("http://localhost/v3");
+    }
+
+    @Test
+    void registeredJobReplacesTheEntryAndNotifiesTheOtherNodes() throws Exception {
+        cache.get(KEY);
+
+        cache.register(job("http://localhost/v2"));
+
+        assertThat(url()).isEqualTo("http://localhost/v2");
+        verify(jobDetailsRepository, times(1)).findByJobNameAndJobGroupAndDeletedFalse("sync", "billing");
+        assertThat(published()).isEqualTo(KEY);
+    }
+
+    @Test
+    void publishedChangeInvalidatesLocallyWithoutCompiling() throws Exception {
+        cache.get(KEY);
+        stored("http://localhost/v2");
+
+        cache.publishChange(KEY);
+
+        verify(requestCompiler, times(1)).compile(any(JobDefinition.class));
+        assertThat(published()).isEqualTo(KEY);
+        assertThat(url()).isEqualTo("http://localhost/v2");
+    }
+
+    // Key named by the change notification sent to the other nodes
+    private JobKey published() throws Exception {
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(notificationListener).publish(eq(JobDefinitionCache.CHANGE_CHANNEL), payload.capture());
+        JsonNode node = objectMapper.readTree(payload.getValue());
+        return JobKey.jobKey(node.get("name").asText(), node.get("group").asText());
+    }
+
+    private String url() {
+        return cache.get(KEY).orElseThrow().definition().url();
+    }
+
+    private void stored(String url) {
+        when(jobDetailsRepository.findByJobNameAndJobGroupAndDeletedFalse("sync", "billing")).thenReturn(Optional.of(job(url)));
+    }
+
+    private static JobDetails job(String url) {
+        JobDetails jobDetails = new JobDetails();
+        jobDetails.ensureId();
+        jobDetails.setJobName("sync");
+        jobDetails.setJobGroup("billing");
+        jobDetails.setUrl(url);
+        jobDetails.setMethod("POST");
+        return jobDetails;
+    }
+}
@@ -0,0 +1,245 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.repo.JobExecutionHistoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Every batch insert is recorded by the records it carried, the writer reuses its batch list after a write.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class JobHistoryWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JobExecutionHistoryRepository historyRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private ResponsePayloadStore payloadStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private JobHistoryWriter writer;
+
+    private final List<List<UUID>> batches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writer, "async", true);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 3);
+        ReflectionTestUtils.setField(writer, "flushInterval", 200L);
+        ReflectionTestUtils.setField(writer, "offerTimeout", 10L);
+        ReflectionTestUtils.setField(writer, "shutdownTimeout", 5000L);
+        ReflectionTestUtils.setField(writer, "retryAttempts", 2);
+        ReflectionTestUtils.setField(writer, "retryBackoff", 1L);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any())).thenAnswer(invocation -> {
+            List<UUID> batch = new ArrayList<>();
+            invocation.<Collection<JobExecutionHistory>>getArgument(1).forEach(history -> batch.add(history.getUuid()));
+            batches.add(batch);
+            return new int[0][];
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    @Test
+    void fullBatchIsWrittenAsOneInsert() {
+        writer.start();
+
+        List<JobExecutionHistory> histories = histories(3);
+        histories.forEach(writer::submit);
+
+        await(() -> batches.size() == 1);
+        assertThat(batches.get(0)).containsExactlyElementsOf(uuids(histories));
+    }
+
+    @Test
+    void partialBatchIsWrittenAfterTheFlushInterval() {
+        writer.start();
+
+        writer.submit(histories(1).get(0));
+
+        await(() -> batches.size() == 1);
+        assertThat(batches.get(0)).hasSize(1);
+    }
+
+    @Test
+    void shutdownWritesEverythingStillQueued() throws Exception {
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        ReflectionTestUtils.setField(writer, "flushInterval", 500L);
+        writer.start();
+        List<JobExecutionHistory> histories = histories(5);
+        histories.forEach(writer::submit);
+
+        writer.stop();
+
+        assertThat(batches.stream().flatMap(List::stream)).containsExactlyInAnyOrderElementsOf(uuids(histories));
+        JobExecutionHistory late = histories(1).get(0);
+        writer.submit(late);
+        assertThat(batches.get(batches.size() - 1)).containsExactly(late.getUuid());
+    }
+
+    @Test
+    void failedBatchIsRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new DataAccessResourceFailureException("connection reset");
+            }
+            batches.add(List.of());
+            return new int[0][];
+        });
+        writer.start();
+
+        writer.submitAll(histories(3));
+
+        await(() -> batches.size() == 1);
+        assertThat(meterRegistry.counter("scheduler.history.write.retries").count()).isEqualTo(1);
+        verify(jdbcTemplate, never()).update(anyString(), any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void batchThatKeepsFailingIsWrittenRowByRowAndOnlyTheRejectedRowIsLost() {
+        ReflectionTestUtils.setField(writer, "async", false);
+        writer.start();
+        doThrow(new DataAccessResourceFailureException("connection reset"))
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList(), anyInt(), any());
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+                .thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("value too long"))
+                .thenReturn(1);
+
+        writer.submitAll(histories(3));
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList(), anyInt(), any());
+        verify(jdbcTemplate, times(3)).update(anyString(), any(PreparedStatementSetter.class));
+        assertThat(meterRegistry.counter("scheduler.history.write.failures").count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedPayloadWriteKeepsTheRecordWithoutItsResponse() {
+        ReflectionTestUtils.setField(writer, "async", false);
+        writer.start();
+        doThrow(new DataAccessResourceFailureException("payload table unavailable")).when(payloadStore).store(anyList());
+        JobExecutionHistory history = histories(1).get(0);
+        history.setResponseBodyHash("body");
+        history.setResponseHeadersHash("headers");
+
+        writer.submitAll(List.of(history));
+
+        assertThat(batches).singleElement().isEqualTo(List.of(history.getUuid()));
+        assertThat(history.getResponseBodyHash()).isNull();
+        assertThat(history.getResponseHeadersHash()).isNull();
+    }
+
+    @Test
+    void synchronousModeSavesEachRecordRightAway() {
+        ReflectionTestUtils.setField(writer, "async", false);
+        writer.start();
+        JobExecutionHistory history = histories(1).get(0);
+        history.setUuid(null);
+
+        writer.submit(history);
+
+        assertThat(history.getUuid()).isNotNull();
+        verify(historyRepository).save(history);
+    }
+
+    @Test
+    void recordsWrittenWithStatementsShareTheirTransaction() {
+        writer.start();
+        List<JobExecutionHistory> histories = histories(2);
+        List<String> order = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any())).thenAnswer(invocation -> {
+            order.add("history");
+            return new int[0][];
+        });
+
+        writer.writeWith(histories, () -> order.add("statements"));
+
+        assertThat(order).containsExactly("history", "statements");
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+    }
+
+    private static List<JobExecutionHistory> histories(int count) {
+        List<JobExecutionHistory> histories = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            JobExecutionHistory history = new JobExecutionHistory();
+            history.setUuid(UUID.randomUUID());
+            history.setJobId(UUID.randomUUID());
+            history.setStatus("SUCCESS");
+            histories.add(history);
+        }
+        return histories;
+    }
+
+    private static List<UUID> uuids(List<JobExecutionHistory> histories) {
+        return histories.stream().map(JobExecutionHistory::getUuid).toList();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
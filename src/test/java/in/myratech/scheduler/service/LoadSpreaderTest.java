@@ -0,0 +1,152 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.entity.JobDetails;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LoadSpreaderTest {
+
+    private static final int WINDOW = 4;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private LoadSpreader loadSpreader;
+
+    private final List<ResultSet> slotLoad = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(loadSpreader, "mode", "jitter");
+        ReflectionTestUtils.setField(loadSpreader, "windowSeconds", WINDOW);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : slotLoad) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void disabledSpreadingLeavesSchedulesAlone() {
+        ReflectionTestUtils.setField(loadSpreader, "mode", "off");
+        JobDetails jobDetails = job("reports", "daily", "0 0 6 * * ?", null);
+
+        loadSpreader.assignOffset(jobDetails);
+
+        assertThat(jobDetails.getFireOffsetSeconds()).isNull();
+        assertThat(loadSpreader.effectiveCron(jobDetails)).isEqualTo("0 0 6 * * ?");
+    }
+
+    @Test
+    void jitterOffsetIsStableAndWithinTheWindow() {
+        JobDetails first = job("reports", "daily", "0 0 6 * * ?", null);
+        JobDetails again = job("reports", "daily", "0 0 6 * * ?", null);
+
+        loadSpreader.assignOffset(first);
+        loadSpreader.assignOffset(again);
+
+        assertThat(first.getFireOffsetSeconds()).isBetween(0, WINDOW - 1).isEqualTo(again.getFireOffsetSeconds());
+    }
+
+    @Test
+    void storedOffsetIsKept() {
+        JobDetails jobDetails = job("reports", "daily", "0 0 6 * * ?", 3);
+
+        loadSpreader.assignOffset(jobDetails);
+
+        assertThat(jobDetails.getFireOffsetSeconds()).isEqualTo(3);
+        assertThat(loadSpreader.effectiveCron(jobDetails)).isEqualTo("3 0 6 * * ?");
+    }
+
+    @Test
+    void onlyFixedSecondsThatStayInTheMinuteAreShifted() {
+        assertThat(loadSpreader.effectiveCron(job("a", "a", "10 */5 * * * ?", 2))).isEqualTo("12 */5 * * * ?");
+        assertThat(loadSpreader.effectiveCron(job("a", "a", "58 * * * * ?", 3))).isEqualTo("58 * * * * ?");
+        assertThat(loadSpreader.effectiveCron(job("a", "a", "*/10 * * * * ?", 3))).isEqualTo("*/10 * * * * ?");
+        assertThat(loadSpreader.effectiveCron(job("a", "a", "0,30 * * * * ?", 3))).isEqualTo("0,30 * * * * ?");
+    }
+
+    @Test
+    void balancedModePicksTheLeastLoadedSecond() throws Exception {
+        ReflectionTestUtils.setField(loadSpreader, "mode", "balanced");
+        slotLoad.add(row(0, 0, null, null, 9));
+        slotLoad.add(row(0, 1, null, null, 9));
+        slotLoad.add(row(0, 3, null, null, 1));
+
+        // Each placement counts towards the next, the load is not read again within the refresh interval
+        List<Integer> offsets = new ArrayList<>();
+        for (String name : List.of("daily", "hourly", "weekly")) {
+            JobDetails jobDetails = job("reports", name, "0 * * * * ?", null);
+            loadSpreader.assignOffset(jobDetails);
+            offsets.add(jobDetails.getFireOffsetSeconds());
+        }
+
+        assertThat(offsets.get(0)).isEqualTo(2);
+        assertThat(offsets).containsExactlyInAnyOrder(2, 2, 3);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void jobsWithoutAnOffsetCountAtTheirJitterSecond() throws Exception {
+        JobDetails legacy = job("legacy", "sync", "0 * * * * ?", null);
+        int legacySecond = Integer.parseInt(loadSpreader.effectiveCron(legacy).split(" ")[0]);
+        ReflectionTestUtils.setField(loadSpreader, "mode", "balanced");
+        for (int offset = 0; offset < WINDOW; offset++) {
+            slotLoad.add(row(0, offset, null, null, offset == legacySecond ? 0 : 5));
+        }
+        slotLoad.add(row(0, null, "legacy", "sync", 10));
+
+        JobDetails jobDetails = job("reports", "daily", "0 * * * * ?", null);
+        loadSpreader.assignOffset(jobDetails);
+
+        assertThat(jobDetails.getFireOffsetSeconds()).isNotEqualTo(legacySecond);
+    }
+
+    private static JobDetails job(String group, String name, String cron, Integer offset) {
+        JobDetails jobDetails = new JobDetails();
+        jobDetails.setJobGroup(group);
+        jobDetails.setJobName(name);
+        jobDetails.setCronExpression(cron);
+        jobDetails.setFireOffsetSeconds(offset);
+        return jobDetails;
+    }
+
+    // One row of the slot load query: second, offset, group and name of jobs without an offset, count
+    private static ResultSet row(int second, Integer offset, String group, String name, int count) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt(1)).thenReturn(second);
+        when(rs.getInt(2)).thenReturn(offset == null ? 0 : offset);
+        when(rs.wasNull()).thenReturn(false, offset == null);
+        when(rs.getString(3)).thenReturn(group);
+        when(rs.getString(4)).thenReturn(name);
+        when(rs.getInt(5)).thenReturn(count);
+        return rs;
+    }
+}
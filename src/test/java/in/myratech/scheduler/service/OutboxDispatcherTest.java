@@ -0,0 +1,278 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.job.CompiledRequest;
+import in.myratech.scheduler.job.FanOutRunner;
+import in.myratech.scheduler.job.FireMetrics;
+import in.myratech.scheduler.job.IdempotencyKey;
+import in.myratech.scheduler.job.JobDefinition;
+import in.myratech.scheduler.job.JobExecutionEngine;
+import in.myratech.scheduler.job.JobRunner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.quartz.JobKey;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the executor against a mocked queue table. Each claim hands out the next queued batch, the
+ * fair-share dispatcher and the metrics wrapper run their task right away on the poller thread.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxDispatcherTest {
+
+    private static final String CLAIM = "UPDATE execution_queue q";
+    private static final String RELEASE = "UPDATE execution_queue SET claimed_by = NULL, lease_until = NULL, attempts = attempts - 1";
+    private static final String EXPIRE = "UPDATE execution_queue SET claimed_by = NULL, lease_until = NULL WHERE";
+    private static final String COMPLETE = "DELETE FROM execution_queue";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JobDefinitionCache jobDefinitionCache;
+
+    @Mock
+    private FairShareDispatcher fairShareDispatcher;
+
+    @Mock
+    private JobRunner jobRunner;
+
+    @Mock
+    private FanOutRunner fanOutRunner;
+
+    @Mock
+    private JobHistoryWriter historyWriter;
+
+    @Mock
+    private WorkflowSvc workflowSvc;
+
+    @Mock
+    private FireMetrics fireMetrics;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private OutboxDispatcher dispatcher;
+
+    private final JobDefinition definition = new JobDefinition(UUID.randomUUID(), "sync", "billing",
+            "http://localhost/sync", "POST", null, new HttpHeaders(), null, null, false, null, null, null, null,
+            "0 * * * * ?", null);
+    private final Queue<List<ResultSet>> batches = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "mode", "outbox");
+        ReflectionTestUtils.setField(dispatcher, "executorEnabled", true);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", 4);
+        ReflectionTestUtils.setField(dispatcher, "pollInterval", 20L);
+        ReflectionTestUtils.setField(dispatcher, "lease", 300_000L);
+        ReflectionTestUtils.setField(dispatcher, "maxDeliveries", 5);
+        ReflectionTestUtils.setField(dispatcher, "shutdownTimeout", 1000L);
+
+        when(jdbcTemplate.query(startsWith(CLAIM), ArgumentMatchers.<RowMapper<Object>>any(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    List<ResultSet> batch = batches.poll();
+                    List<Object> claimed = new ArrayList<>();
+                    for (int i = 0; batch != null && i < batch.size(); i++) {
+                        claimed.add(mapper.mapRow(batch.get(i), i));
+                    }
+                    return claimed;
+                });
+        doAnswer(invocation -> {
+            invocation.<JobExecutionEngine.JobTask>getArgument(2).run();
+            return null;
+        }).when(fairShareDispatcher).dispatch(anyString(), any(), any());
+        doAnswer(invocation -> {
+            invocation.<JobExecutionEngine.JobTask>getArgument(1).run();
+            return null;
+        }).when(fireMetrics).observe(any(), any());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(historyWriter).writeWith(any(), any());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @Test
+    void duplicateFireIsDroppedByItsIdempotencyKey() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "executorEnabled", false);
+        dispatcher.init();
+        Date fireTime = new Date(1_700_000_000_000L);
+        when(jdbcTemplate.update(startsWith("INSERT INTO execution_queue"), any(Object[].class))).thenReturn(1, 0);
+
+        dispatcher.enqueue(definition, "trigger", fireTime, null);
+        dispatcher.enqueue(definition, "trigger", fireTime, null);
+
+        String key = IdempotencyKey.of(JobKey.jobKey("sync", "billing"), "trigger", fireTime);
+        verify(jdbcTemplate, times(2)).update(startsWith("INSERT INTO execution_queue"), any(), eq(definition.id()),
+                eq("billing"), eq("sync"), eq("trigger"), isNull(), eq(key), any());
+        assertThat(meterRegistry.counter("scheduler.outbox.enqueued").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("scheduler.outbox.duplicates").count()).isEqualTo(1);
+    }
+
+    @Test
+    void claimedRowRunsUnderItsIdempotencyKeyAndIsDeletedWithItsHistory() throws Exception {
+        CompiledRequest request = request();
+        when(jobDefinitionCache.get(JobKey.jobKey("sync", "billing"))).thenReturn(Optional.of(request));
+        AtomicReference<String> keySeen = new AtomicReference<>();
+        doAnswer(invocation -> {
+            keySeen.set(IdempotencyKey.current());
+            invocation.<Consumer<JobExecutionHistory>>getArgument(3).accept(new JobExecutionHistory());
+            return null;
+        }).when(jobRunner).run(eq(request), eq("trigger"), isNull(), any());
+        UUID id = queue(1, "key-1");
+
+        dispatcher.init();
+
+        verify(jdbcTemplate, timeout(2000)).update(startsWith(COMPLETE), eq(id), anyString());
+        awaitIdle();
+        assertThat(keySeen).hasValue("key-1");
+        assertThat(IdempotencyKey.current()).isNull();
+        verify(jdbcTemplate, never()).update(startsWith(EXPIRE), any(), any());
+    }
+
+    @Test
+    void failedJobLookupHandsTheRowBackAndTheBatchCarriesOn() throws Exception {
+        CompiledRequest request = request();
+        when(jobDefinitionCache.get(JobKey.jobKey("sync", "billing")))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(Optional.of(request));
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        batches.add(List.of(row(first, 1, "key-1"), row(second, 1, "key-2")));
+
+        dispatcher.init();
+
+        verify(jdbcTemplate, timeout(2000)).update(startsWith(RELEASE), eq(first), anyString());
+        verify(jobRunner, timeout(2000)).run(eq(request), eq("trigger"), isNull(), any());
+        awaitIdle();
+        verify(jdbcTemplate, never()).update(startsWith(RELEASE), eq(second), anyString());
+    }
+
+    @Test
+    void rowOfAJobThatNoLongerExistsIsRemoved() throws Exception {
+        when(jobDefinitionCache.get(JobKey.jobKey("sync", "billing"))).thenReturn(Optional.empty());
+        UUID id = queue(1, "key-1");
+
+        dispatcher.init();
+
+        verify(jdbcTemplate, timeout(2000)).update(startsWith(COMPLETE), eq(id), anyString());
+        awaitIdle();
+        verify(jobRunner, never()).run(any(), any(), any(), any());
+    }
+
+    @Test
+    void rowDeliveredTooOftenIsRecordedAsFailedWithoutRunning() throws Exception {
+        UUID id = queue(6, "key-1");
+
+        dispatcher.init();
+
+        verify(jdbcTemplate, timeout(2000)).update(startsWith(COMPLETE), eq(id), anyString());
+        awaitIdle();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<JobExecutionHistory>> histories = ArgumentCaptor.forClass(List.class);
+        verify(historyWriter).writeWith(histories.capture(), any());
+        assertThat(histories.getValue()).extracting(JobExecutionHistory::getStatus).containsExactly("FAILED");
+        verify(jobDefinitionCache, never()).get(any());
+        assertThat(meterRegistry.counter("scheduler.outbox.abandoned").count()).isEqualTo(1);
+    }
+
+    private CompiledRequest request() {
+        CompiledRequest request = mock(CompiledRequest.class);
+        when(request.definition()).thenReturn(definition);
+        when(request.host()).thenReturn("localhost");
+        return request;
+    }
+
+    private UUID queue(int attempts, String idempotencyKey) throws Exception {
+        UUID id = UUID.randomUUID();
+        batches.add(List.of(row(id, attempts, idempotencyKey)));
+        return id;
+    }
+
+    private ResultSet row(UUID id, int attempts, String idempotencyKey) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("id", UUID.class)).thenReturn(id);
+        when(rs.getObject("job_id", UUID.class)).thenReturn(definition.id());
+        when(rs.getString("job_group")).thenReturn("billing");
+        when(rs.getString("job_name")).thenReturn("sync");
+        when(rs.getString("trigger_name")).thenReturn("trigger");
+        when(rs.getString("idempotency_key")).thenReturn(idempotencyKey);
+        when(rs.getInt("attempts")).thenReturn(attempts);
+        when(rs.getTimestamp("enqueued_at")).thenReturn(new Timestamp(System.currentTimeMillis()));
+        return rs;
+    }
+
+    // Every claimed row was finished or handed back, its in-flight permit returned
+    private void awaitIdle() {
+        await(() -> meterRegistry.get("scheduler.outbox.in.flight").gauge().value() == 0);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
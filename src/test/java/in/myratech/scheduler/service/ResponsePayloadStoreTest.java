@@ -0,0 +1,166 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.entity.JobExecutionHistory;
+import in.myratech.scheduler.entity.ResponsePayload;
+import in.myratech.scheduler.repo.ResponsePayloadRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Upserted rows are bound against a mocked statement and kept by hash, as the payload table would.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ResponsePayloadStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ResponsePayloadRepository payloadRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ResponsePayloadStore payloadStore;
+
+    private final Map<String, ResponsePayload> stored = new LinkedHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+            for (Object row : invocation.<Collection<Object>>getArgument(1)) {
+                PreparedStatement ps = mock(PreparedStatement.class);
+                ResponsePayload payload = new ResponsePayload();
+                doAnswer(bind -> {
+                    payload.setHash(bind.getArgument(1));
+                    return null;
+                }).when(ps).setString(eq(1), anyString());
+                doAnswer(bind -> {
+                    payload.setContent(bind.getArgument(1));
+                    return null;
+                }).when(ps).setBytes(eq(2), any());
+                doAnswer(bind -> {
+                    payload.setOriginalSize(bind.getArgument(1));
+                    return null;
+                }).when(ps).setInt(eq(3), anyInt());
+                setter.setValues(ps, row);
+                stored.put(payload.getHash(), payload);
+            }
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList(), anyInt(), any());
+        when(payloadRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get(invocation.<String>getArgument(0))));
+    }
+
+    @Test
+    void repeatedResponsesAreStoredOnce() {
+        byte[] body = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+        JobExecutionHistory first = captured(body, null);
+        JobExecutionHistory second = captured(body.clone(), null);
+
+        payloadStore.store(List.of(first, second));
+
+        assertThat(first.getResponseBodyHash()).hasSize(64).isEqualTo(second.getResponseBodyHash());
+        assertThat(stored).hasSize(1);
+        assertThat(stored.get(first.getResponseBodyHash()).getOriginalSize()).isEqualTo(body.length);
+    }
+
+    @Test
+    void storedPayloadIsCompressedAndLoadsBackUnchanged() {
+        byte[] body = "x".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        JobExecutionHistory history = captured(body, null);
+
+        payloadStore.store(List.of(history));
+
+        assertThat(stored.get(history.getResponseBodyHash()).getContent().length).isLessThan(body.length / 10);
+        assertThat(payloadStore.load(history.getResponseBodyHash())).hasValue(body);
+        assertThat(meterRegistry.summary("scheduler.capture.compressed.bytes").count()).isEqualTo(1);
+    }
+
+    @Test
+    void bodyAndHeadersAreStoredSeparately() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Type", "application/json");
+        JobExecutionHistory history = captured("{}".getBytes(StandardCharsets.UTF_8), payloadStore.headersJson(headers));
+
+        payloadStore.store(List.of(history));
+
+        assertThat(history.getResponseHeadersHash()).isNotNull().isNotEqualTo(history.getResponseBodyHash());
+        assertThat(stored).containsOnlyKeys(history.getResponseBodyHash(), history.getResponseHeadersHash());
+    }
+
+    @Test
+    void volatileHeadersAreLeftOutSoRepeatedResponsesMatch() {
+        HttpHeaders first = new HttpHeaders();
+        first.add("X-Request-Id", "abc");
+        first.add("Content-Type", "application/json");
+        first.add("Date", "Mon, 01 Jan 2024 00:00:00 GMT");
+        first.add("Set-Cookie", "session=1");
+        HttpHeaders second = new HttpHeaders();
+        second.add("content-type", "application/json");
+        second.add("x-request-id", "abc");
+        second.add("Date", "Mon, 01 Jan 2024 00:00:05 GMT");
+
+        byte[] json = payloadStore.headersJson(first);
+
+        assertThat(new String(json, StandardCharsets.UTF_8))
+                .isEqualTo("{\"content-type\":[\"application/json\"],\"x-request-id\":[\"abc\"]}");
+        assertThat(payloadStore.headersJson(second)).isEqualTo(json);
+    }
+
+    @Test
+    void batchWithoutCapturedResponsesWritesNothing() {
+        JobExecutionHistory history = new JobExecutionHistory();
+
+        payloadStore.store(List.of(history));
+
+        assertThat(history.getResponseBodyHash()).isNull();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any());
+    }
+
+    private static JobExecutionHistory captured(byte[] body, byte[] headers) {
+        JobExecutionHistory history = new JobExecutionHistory();
+        history.setResponseBody(body);
+        history.setResponseHeaders(headers);
+        return history;
+    }
+}
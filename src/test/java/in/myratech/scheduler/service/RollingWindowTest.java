@@ -0,0 +1,120 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.WindowStats;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollingWindowTest {
+
+    private static final int SLOTS = 6;
+    private static final long SLOT_WIDTH_MS = 10_000;
+    private static final long WINDOW_MS = SLOTS * SLOT_WIDTH_MS;
+
+    @Test
+    void emptyWindowReportsZeros() {
+        WindowStats stats = stats(new RollingWindow(SLOTS, SLOT_WIDTH_MS), 0);
+
+        assertThat(stats.getExecutions()).isZero();
+        assertThat(stats.getSuccessRate()).isZero();
+        assertThat(stats.getP99Ms()).isZero();
+    }
+
+    @Test
+    void countsOutcomesAndLatency() {
+        RollingWindow window = new RollingWindow(SLOTS, SLOT_WIDTH_MS);
+        window.record(1_000, true, 10);
+        window.record(12_000, true, 20);
+        window.record(25_000, true, 30);
+        window.record(31_000, false, 140);
+
+        WindowStats stats = stats(window, 31_000);
+
+        assertThat(stats.getExecutions()).isEqualTo(4);
+        assertThat(stats.getSuccesses()).isEqualTo(3);
+        assertThat(stats.getFailures()).isEqualTo(1);
+        assertThat(stats.getSuccessRate()).isEqualTo(0.75);
+        assertThat(stats.getAverageMs()).isEqualTo(50.0);
+        assertThat(stats.getMaxMs()).isEqualTo(140);
+    }
+
+    @Test
+    void percentilesAreBucketUpperBoundsCappedAtTheMaximum() {
+        RollingWindow window = new RollingWindow(SLOTS, SLOT_WIDTH_MS);
+        for (int latency = 1; latency <= 100; latency++) {
+            window.record(5_000, true, latency);
+        }
+
+        WindowStats stats = stats(window, 5_000);
+
+        // Buckets are half a power of two wide, so a percentile overstates by less than a factor of sqrt(2)
+        assertThat(stats.getP50Ms()).isBetween(50L, 71L);
+        assertThat(stats.getP95Ms()).isEqualTo(100);
+        assertThat(stats.getP99Ms()).isEqualTo(100);
+    }
+
+    @Test
+    void slotsExpireOnceTheyLeaveTheWindow() {
+        RollingWindow window = new RollingWindow(SLOTS, SLOT_WIDTH_MS);
+        window.record(0, true, 5);
+        window.record(SLOT_WIDTH_MS, false, 5);
+
+        assertThat(stats(window, WINDOW_MS - 1).getExecutions()).isEqualTo(2);
+        assertThat(stats(window, WINDOW_MS).getExecutions()).isEqualTo(1);
+        assertThat(stats(window, WINDOW_MS).getFailures()).isEqualTo(1);
+        assertThat(stats(window, WINDOW_MS + SLOT_WIDTH_MS).getExecutions()).isZero();
+    }
+
+    @Test
+    void reusedSlotStartsEmpty() {
+        RollingWindow window = new RollingWindow(SLOTS, SLOT_WIDTH_MS);
+        window.record(0, false, 5_000);
+        // Lands in the same ring slot one full window later
+        window.record(WINDOW_MS, true, 5);
+
+        WindowStats stats = stats(window, WINDOW_MS);
+
+        assertThat(stats.getExecutions()).isEqualTo(1);
+        assertThat(stats.getFailures()).isZero();
+        assertThat(stats.getMaxMs()).isEqualTo(5);
+        assertThat(stats.getP99Ms()).isEqualTo(5);
+    }
+
+    @Test
+    void windowsMergeIntoOneAccumulator() {
+        RollingWindow first = new RollingWindow(SLOTS, SLOT_WIDTH_MS);
+        RollingWindow second = new RollingWindow(SLOTS, SLOT_WIDTH_MS);
+        first.record(1_000, true, 10);
+        second.record(2_000, false, 30);
+
+        RollingWindow.Accumulator accumulator = new RollingWindow.Accumulator();
+        first.mergeInto(accumulator, 2_000);
+        second.mergeInto(accumulator, 2_000);
+        WindowStats stats = accumulator.toStats();
+
+        assertThat(stats.getExecutions()).isEqualTo(2);
+        assertThat(stats.getSuccessRate()).isEqualTo(0.5);
+        assertThat(stats.getMaxMs()).isEqualTo(30);
+    }
+
+    @Test
+    void bucketUpperBoundCoversItsLatencies() {
+        int previous = 0;
+        for (long latency = 1; latency <= 1_000_000; latency++) {
+            int bucket = RollingWindow.bucket(latency);
+            assertThat(bucket).isGreaterThanOrEqualTo(previous);
+            if (bucket < RollingWindow.BUCKETS - 1) {
+                assertThat(RollingWindow.upperBound(bucket)).isBetween(latency, 2 * latency);
+            }
+            previous = bucket;
+        }
+        assertThat(RollingWindow.bucket(0)).isZero();
+        assertThat(RollingWindow.bucket(Long.MAX_VALUE)).isEqualTo(RollingWindow.BUCKETS - 1);
+    }
+
+    private static WindowStats stats(RollingWindow window, long now) {
+        RollingWindow.Accumulator accumulator = new RollingWindow.Accumulator();
+        window.mergeInto(accumulator, now);
+        return accumulator.toStats();
+    }
+}
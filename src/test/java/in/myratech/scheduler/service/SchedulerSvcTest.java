@@ -0,0 +1,185 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.BatchItemResult;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.job.FanOutPlanner;
+import in.myratech.scheduler.repo.JobDetailsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Batch creation and deletion against a single mocked shard, the JDBC batches are verified by their rows.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SchedulerSvcTest {
+
+    @Mock
+    private SchedulerRouter schedulerRouter;
+
+    @Mock
+    private JobDetailsRepository jobDetailsRepository;
+
+    @Mock
+    private JobDefinitionCache jobDefinitionCache;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JobStatsRegistry statsRegistry;
+
+    @Mock
+    private LoadSpreader loadSpreader;
+
+    @Mock
+    private FanOutPlanner fanOutPlanner;
+
+    @Mock
+    private Scheduler scheduler;
+
+    @InjectMocks
+    private SchedulerSvc schedulerSvc;
+
+    @BeforeEach
+    void setUp() {
+        when(schedulerRouter.schedulerFor(any())).thenReturn(scheduler);
+        when(schedulerRouter.partition(any(), any()))
+                .thenAnswer(invocation -> Map.of(scheduler, new ArrayList<>(invocation.<Collection<Object>>getArgument(0))));
+        when(loadSpreader.effectiveCron(any())).thenAnswer(invocation -> invocation.<JobDetails>getArgument(0).getCronExpression());
+    }
+
+    @Test
+    void invalidAndDuplicateItemsFailOnTheirOwnWhileTheRestIsCreated() throws Exception {
+        JobDetails noUrl = job("sync", null);
+        noUrl.setUrl(null);
+        List<JobDetails> jobs = List.of(job("sync", null), noUrl, job("sync", null), job("report", "0 0 6 * * ?"));
+
+        List<BatchItemResult> results = schedulerSvc.createJobs(jobs, 100, false);
+
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(100, 101, 102, 103);
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(BatchItemResult.CREATED,
+                BatchItemResult.FAILED, BatchItemResult.FAILED, BatchItemResult.CREATED);
+        assertThat(results.get(2).getMessage()).isEqualTo("Duplicate job name and group in batch");
+        assertThat(results.get(0).getJobId()).isNotNull();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<JobDetail, Set<? extends Trigger>>> scheduled = ArgumentCaptor.forClass(Map.class);
+        verify(scheduler).scheduleJobs(scheduled.capture(), eq(false));
+        assertThat(scheduled.getValue().keySet()).extracting(JobDetail::getKey)
+                .containsExactly(JobKey.jobKey("sync", "etl"), JobKey.jobKey("report", "etl"));
+        assertThat(scheduled.getValue().values()).extracting(triggers -> triggers.size()).containsExactly(0, 1);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO job_details"), eq(List.of(jobs.get(0), jobs.get(3))), eq(2), any());
+        verify(jobDefinitionCache, times(2)).register(any());
+    }
+
+    @Test
+    void existingJobIsReportedWithoutReplace() throws Exception {
+        when(scheduler.checkExists(JobKey.jobKey("sync", "etl"))).thenReturn(true);
+
+        List<BatchItemResult> results = schedulerSvc.createJobs(List.of(job("sync", null)), 0, false);
+
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.getStatus()).isEqualTo(BatchItemResult.FAILED);
+            assertThat(result.getMessage()).isEqualTo("Job already exists");
+        });
+        verify(scheduler, never()).scheduleJobs(anyMap(), anyBoolean());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any());
+    }
+
+    @Test
+    void schedulingFailureFailsEveryAcceptedItem() throws Exception {
+        doThrow(new SchedulerException("job store unavailable")).when(scheduler).scheduleJobs(anyMap(), anyBoolean());
+        JobDetails invalid = job("broken", "not a cron");
+
+        List<BatchItemResult> results = schedulerSvc.createJobs(List.of(job("sync", null), invalid, job("report", null)), 0, false);
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsOnly(BatchItemResult.FAILED);
+        assertThat(results).extracting(BatchItemResult::getMessage).containsExactly(
+                "Failed to schedule batch: job store unavailable", "Invalid cron expression: not a cron",
+                "Failed to schedule batch: job store unavailable");
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any());
+        verify(jobDefinitionCache, never()).register(any());
+    }
+
+    @Test
+    void softDeletedMissingAndRepeatedIdsAreNotFound() throws Exception {
+        JobDetails live = job("sync", null);
+        live.ensureId();
+        JobDetails softDeleted = job("report", null);
+        softDeleted.ensureId();
+        softDeleted.setDeleted(true);
+        UUID missing = UUID.randomUUID();
+        when(jobDetailsRepository.findAllById(any())).thenReturn(List.of(live, softDeleted));
+
+        List<BatchItemResult> results = schedulerSvc.deleteJobs(
+                Arrays.asList(live.getId(), softDeleted.getId(), missing, live.getId()));
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(BatchItemResult.DELETED,
+                BatchItemResult.NOT_FOUND, BatchItemResult.NOT_FOUND, BatchItemResult.NOT_FOUND);
+        JobKey key = JobKey.jobKey("sync", "etl");
+        verify(scheduler).deleteJobs(List.of(key));
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE job_details SET deleted = true"), eq(List.of(live)), eq(1), any());
+        verify(jobDefinitionCache).publishChange(key);
+        verify(statsRegistry).remove(live.getId());
+        verify(fanOutPlanner).evict(live.getId());
+    }
+
+    @Test
+    void batchWithoutLiveJobsTouchesNeitherQuartzNorTheTable() throws Exception {
+        when(jobDetailsRepository.findAllById(any())).thenReturn(List.of());
+
+        List<BatchItemResult> results = schedulerSvc.deleteJobs(List.of(UUID.randomUUID()));
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(BatchItemResult.NOT_FOUND);
+        verify(scheduler, never()).deleteJobs(anyList());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any());
+    }
+
+    private static JobDetails job(String name, String cron) {
+        JobDetails jobDetails = new JobDetails();
+        jobDetails.setJobName(name);
+        jobDetails.setJobGroup("etl");
+        jobDetails.setUrl("http://localhost/" + name);
+        jobDetails.setMethod("POST");
+        jobDetails.setCronExpression(cron);
+        jobDetails.setActive(true);
+        return jobDetails;
+    }
+}
@@ -0,0 +1,213 @@
+package in.myratech.scheduler.service;
+
+import in.myratech.scheduler.dto.ShardAssignment;
+import in.myratech.scheduler.util.ConsistentHashRing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.quartz.Scheduler;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the coordinator the way the cluster does: it starts, announces itself, and rebalances when
+ * a join or leave of another node is announced on the channel. The periodic heartbeat is pushed out
+ * of the way so only those rebalances run.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShardCoordinatorTest {
+
+    private static final int SHARDS = 8;
+    private static final int VIRTUAL_NODES = 64;
+    private static final String NODE = "node-a";
+    private static final String CHANNEL = "scheduler_nodes";
+
+    @Mock
+    private SchedulerRouter schedulerRouter;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PgNotificationListener notificationListener;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Captor
+    private ArgumentCaptor<Consumer<String>> announcements;
+
+    @InjectMocks
+    private ShardCoordinator coordinator;
+
+    private final List<Scheduler> shards = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(schedulerRouter.isSharded()).thenReturn(true);
+        when(schedulerRouter.shardCount()).thenReturn(SHARDS);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Scheduler scheduler = mock(Scheduler.class);
+            when(scheduler.isStarted()).thenReturn(false);
+            when(schedulerRouter.shard(shard)).thenReturn(scheduler);
+            shards.add(scheduler);
+        }
+        ReflectionTestUtils.setField(coordinator, "configuredNodeId", NODE);
+        ReflectionTestUtils.setField(coordinator, "virtualNodes", VIRTUAL_NODES);
+        ReflectionTestUtils.setField(coordinator, "nodeTimeout", 20_000L);
+        ReflectionTestUtils.setField(coordinator, "heartbeatInterval", TimeUnit.HOURS.toMillis(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        coordinator.leave();
+    }
+
+    @Test
+    void onlyNodeStartsEveryShard() throws Exception {
+        liveNodes(NODE);
+
+        join();
+
+        for (Scheduler scheduler : shards) {
+            verify(scheduler).start();
+            verify(scheduler, never()).standby();
+        }
+        assertThat(coordinator.assignment().getOwnedShards()).hasSize(SHARDS);
+        assertThat(coordinator.assignment().getLiveNodes()).containsExactly(NODE);
+    }
+
+    @Test
+    void nodeMissingFromLiveNodesStillCountsItself() throws Exception {
+        liveNodes();
+
+        join();
+
+        assertThat(coordinator.assignment().getLiveNodes()).containsExactly(NODE);
+        assertThat(coordinator.assignment().getOwnedShards()).hasSize(SHARDS);
+    }
+
+    @Test
+    void joiningNodeTakesOverItsShardsWhileTheRestKeepRunning() throws Exception {
+        for (Scheduler scheduler : shards) {
+            running(scheduler, true);
+        }
+        liveNodes(NODE);
+        join();
+
+        liveNodes(NODE, "node-b");
+        announce("join:node-b", 2);
+
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(NODE, "node-b"), VIRTUAL_NODES);
+        List<Integer> expected = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Scheduler scheduler = shards.get(shard);
+            if (NODE.equals(ring.nodeFor("shard-" + shard))) {
+                expected.add(shard);
+                verify(scheduler, never()).standby();
+            } else {
+                verify(scheduler).standby();
+            }
+            verify(scheduler, never()).start();
+        }
+        assertThat(coordinator.assignment().getOwnedShards()).isEqualTo(expected);
+        assertThat(coordinator.assignment().getOwners()).hasSize(SHARDS);
+    }
+
+    @Test
+    void standbyShardsStartWhenTheirOwnerLeaves() throws Exception {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(NODE, "node-b"), VIRTUAL_NODES);
+        for (int shard = 0; shard < SHARDS; shard++) {
+            running(shards.get(shard), NODE.equals(ring.nodeFor("shard-" + shard)));
+        }
+        liveNodes(NODE, "node-b");
+        join();
+
+        liveNodes(NODE);
+        announce("leave:node-b", 1);
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Scheduler scheduler = shards.get(shard);
+            if (NODE.equals(ring.nodeFor("shard-" + shard))) {
+                verify(scheduler, never()).start();
+            } else {
+                verify(scheduler).start();
+            }
+            verify(scheduler, never()).standby();
+        }
+        assertThat(coordinator.assignment().getOwnedShards()).hasSize(SHARDS);
+    }
+
+    @Test
+    void failedHeartbeatKeepsTheCurrentAssignment() throws Exception {
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        join();
+
+        for (Scheduler scheduler : shards) {
+            verify(scheduler, never()).start();
+            verify(scheduler, never()).standby();
+        }
+        assertThat(coordinator.assignment().getOwnedShards()).isEmpty();
+    }
+
+    private void liveNodes(String... nodes) {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(new ArrayList<>(List.of(nodes)));
+    }
+
+    private static void running(Scheduler scheduler, boolean running) throws Exception {
+        when(scheduler.isStarted()).thenReturn(true);
+        when(scheduler.isInStandbyMode()).thenReturn(!running);
+    }
+
+    // The node announces its join once its first rebalance is done
+    private void join() throws Exception {
+        coordinator.start();
+        verify(notificationListener, timeout(5000)).publish(CHANNEL, "join:" + NODE);
+        verify(notificationListener).subscribe(eq(CHANNEL), announcements.capture());
+    }
+
+    // Another node's announcement, returns once the rebalance it triggers has seen the expected live nodes
+    private void announce(String payload, int liveNodes) throws InterruptedException {
+        ShardAssignment before = coordinator.assignment();
+        announcements.getValue().accept(payload);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coordinator.assignment() == before || coordinator.assignment().getLiveNodes().size() != liveNodes) {
+            if (System.nanoTime() > deadline) {
+                fail("No rebalance after " + payload);
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package in.myratech.scheduler.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.myratech.scheduler.dto.WorkflowDefinition;
+import in.myratech.scheduler.entity.JobDependency;
+import in.myratech.scheduler.entity.JobDetails;
+import in.myratech.scheduler.entity.Workflow;
+import in.myratech.scheduler.entity.WorkflowRun;
+import in.myratech.scheduler.entity.WorkflowStep;
+import in.myratech.scheduler.entity.WorkflowStepRun;
+import in.myratech.scheduler.job.CompiledRequest;
+import in.myratech.scheduler.job.JobDefinition;
+import in.myratech.scheduler.job.RequestCompiler;
+import in.myratech.scheduler.repo.JobDependencyRepository;
+import in.myratech.scheduler.repo.JobDetailsRepository;
+import in.myratech.scheduler.repo.WorkflowRepository;
+import in.myratech.scheduler.repo.WorkflowRunRepository;
+import in.myratech.scheduler.repo.WorkflowStepRepository;
+import in.myratech.scheduler.repo.WorkflowStepRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the workflow graph a -> (b, c) -> d against in-memory repositories. No transaction is active, so
+ * steps are fired right away instead of after the commit.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class WorkflowSvcTest {
+
+    @Mock
+    private Scheduler scheduler;
+
+    @Mock
+    private SchedulerRouter schedulerRouter;
+
+    @Mock
+    private WorkflowRepository workflowRepository;
+
+    @Mock
+    private WorkflowStepRepository stepRepository;
+
+    @Mock
+    private JobDependencyRepository dependencyRepository;
+
+    @Mock
+    private WorkflowRunRepository runRepository;
+
+    @Mock
+    private WorkflowStepRunRepository stepRunRepository;
+
+    @Mock
+    private JobDetailsRepository jobDetailsRepository;
+
+    @Mock
+    private RequestCompiler requestCompiler;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private WorkflowSvc workflowSvc;
+
+    private final UUID workflowId = UUID.randomUUID();
+    private final Map<String, JobDetails> jobs = new HashMap<>();
+    private final Map<UUID, WorkflowStepRun> stepRuns = new HashMap<>();
+    private final Scheduler shard = mock(Scheduler.class);
+    private WorkflowRun run;
+
+    @BeforeEach
+    void setUp() {
+        workflowSvc.init();
+        for (String name : List.of("a", "b", "c", "d")) {
+            JobDetails jobDetails = new JobDetails();
+            jobDetails.setId(UUID.randomUUID());
+            jobDetails.setJobName(name);
+            jobDetails.setJobGroup("etl");
+            jobs.put(name, jobDetails);
+        }
+        when(jobDetailsRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<JobDetails> found = new ArrayList<>();
+            invocation.<Iterable<UUID>>getArgument(0).forEach(id -> jobs.values().stream()
+                    .filter(jobDetails -> jobDetails.getId().equals(id)).forEach(found::add));
+            return found;
+        });
+
+        when(workflowRepository.findById(workflowId)).thenReturn(Optional.of(new Workflow()));
+        when(stepRepository.findByWorkflowId(workflowId)).thenReturn(List.of(step("a"), step("b"), step("c"), step("d")));
+        when(dependencyRepository.findByWorkflowId(workflowId))
+                .thenReturn(List.of(edge("a", "b"), edge("a", "c"), edge("b", "d"), edge("c", "d")));
+
+        when(runRepository.save(any())).thenAnswer(invocation -> {
+            run = invocation.getArgument(0);
+            run.ensureId();
+            return run;
+        });
+        when(runRepository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(run));
+        when(runRepository.findLockedById(any())).thenAnswer(invocation -> Optional.ofNullable(run));
+        when(stepRunRepository.saveAll(any())).thenAnswer(invocation -> {
+            invocation.<Iterable<WorkflowStepRun>>getArgument(0).forEach(stepRun -> stepRuns.put(stepRun.getJobId(), stepRun));
+            return null;
+        });
+        when(stepRunRepository.findByRunId(any())).thenAnswer(invocation -> new ArrayList<>(stepRuns.values()));
+        when(stepRunRepository.findByRunIdAndJobId(any(), any()))
+                .thenAnswer(invocation -> Optional.ofNullable(stepRuns.get(invocation.<UUID>getArgument(1))));
+        when(schedulerRouter.schedulerFor(any())).thenReturn(shard);
+    }
+
+    @Test
+    void cyclicWorkflowIsRejected() {
+        WorkflowDefinition definition = new WorkflowDefinition(null, "loop", null, true, List.of(
+                new WorkflowDefinition.Step(id("a"), List.of(id("b"))),
+                new WorkflowDefinition.Step(id("b"), List.of(id("a")))));
+
+        assertThatThrownBy(() -> workflowSvc.createWorkflow(definition))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cycle");
+        verify(workflowRepository, never()).save(any());
+    }
+
+    @Test
+    void runStartsWithOnlyItsRootStep() throws Exception {
+        workflowSvc.startRun(workflowId);
+
+        assertThat(run.getStatus()).isEqualTo(WorkflowRun.RUNNING);
+        assertThat(stepRuns.values()).extracting(WorkflowStepRun::getStatus).containsOnly(WorkflowStepRun.PENDING);
+        verify(shard).triggerJob(eq(key("a")), any(JobDataMap.class));
+        verify(shard, never()).triggerJob(eq(key("b")), any(JobDataMap.class));
+    }
+
+    @Test
+    void joinStepWaitsForAllItsUpstreamSteps() throws Exception {
+        workflowSvc.startRun(workflowId);
+
+        workflowSvc.onStepComplete(run.getId(), id("a"), true, null);
+        verify(shard).triggerJob(eq(key("b")), any(JobDataMap.class));
+        verify(shard).triggerJob(eq(key("c")), any(JobDataMap.class));
+
+        workflowSvc.onStepComplete(run.getId(), id("b"), true, null);
+        verify(shard, never()).triggerJob(eq(key("d")), any(JobDataMap.class));
+
+        workflowSvc.onStepComplete(run.getId(), id("c"), true, null);
+        ArgumentCaptor<JobDataMap> data = ArgumentCaptor.forClass(JobDataMap.class);
+        verify(shard).triggerJob(eq(key("d")), data.capture());
+        assertThat(data.getValue().getString(WorkflowSvc.RUN_ID_KEY)).isEqualTo(run.getId().toString());
+
+        workflowSvc.onStepComplete(run.getId(), id("d"), true, null);
+        assertThat(run.getStatus()).isEqualTo(WorkflowRun.SUCCESS);
+    }
+
+    @Test
+    void failedStepSkipsEverythingBelowItAndFailsTheRun() throws Exception {
+        workflowSvc.startRun(workflowId);
+        workflowSvc.onStepComplete(run.getId(), id("a"), true, null);
+
+        workflowSvc.onStepComplete(run.getId(), id("b"), false, null);
+        assertThat(stepRuns.get(id("d")).getStatus()).isEqualTo(WorkflowStepRun.SKIPPED);
+        assertThat(run.getStatus()).isEqualTo(WorkflowRun.RUNNING);
+
+        workflowSvc.onStepComplete(run.getId(), id("c"), true, null);
+        assertThat(run.getStatus()).isEqualTo(WorkflowRun.FAILED);
+        verify(shard, never()).triggerJob(eq(key("d")), any(JobDataMap.class));
+    }
+
+    @Test
+    void duplicateCompletionIsIgnored() throws Exception {
+        workflowSvc.startRun(workflowId);
+        workflowSvc.onStepComplete(run.getId(), id("a"), true, null);
+
+        workflowSvc.onStepComplete(run.getId(), id("a"), false, null);
+
+        assertThat(stepRuns.get(id("a")).getStatus()).isEqualTo(WorkflowStepRun.SUCCESS);
+        assertThat(stepRuns.get(id("b")).getStatus()).isEqualTo(WorkflowStepRun.PENDING);
+    }
+
+    @Test
+    void laterStepReadsTheCapturedOutputOfAnEarlierOne() {
+        workflowSvc.startRun(workflowId);
+        workflowSvc.onStepComplete(run.getId(), id("a"), true,
+                "{\"batch\":{\"id\":\"b 42\"}}".getBytes(StandardCharsets.UTF_8));
+        CompiledRequest request = mock(CompiledRequest.class);
+        when(request.definition()).thenReturn(new JobDefinition(id("b"), "b", "etl",
+                "http://etl/batches/{{steps.a.batch.id}}", "POST", "{\"run\":\"{{run.id}}\"}", new HttpHeaders(),
+                null, null, false, null, null, null, null, null, null));
+
+        workflowSvc.prepareStep(run.getId(), request);
+
+        ArgumentCaptor<JobDefinition> resolved = ArgumentCaptor.forClass(JobDefinition.class);
+        verify(requestCompiler).compile(resolved.capture());
+        assertThat(resolved.getValue().url()).isEqualTo("http://etl/batches/b%2042");
+        assertThat(resolved.getValue().requestBody()).isEqualTo("{\"run\":\"" + run.getId() + "\"}");
+        assertThat(resolved.getValue().captureResponse()).isTrue();
+        assertThat(stepRuns.get(id("b")).getStatus()).isEqualTo(WorkflowStepRun.RUNNING);
+    }
+
+    @Test
+    void stepThatCannotBeFiredFailsInsteadOfHangingTheRun() throws Exception {
+        doThrow(new SchedulerException("shard stopped")).when(shard).triggerJob(eq(key("a")), any(JobDataMap.class));
+
+        workflowSvc.startRun(workflowId);
+
+        assertThat(stepRuns.get(id("a")).getStatus()).isEqualTo(WorkflowStepRun.FAILED);
+        assertThat(stepRuns.get(id("d")).getStatus()).isEqualTo(WorkflowStepRun.SKIPPED);
+        assertThat(run.getStatus()).isEqualTo(WorkflowRun.FAILED);
+    }
+
+    private UUID id(String job) {
+        return jobs.get(job).getId();
+    }
+
+    private JobKey key(String job) {
+        return new JobKey(job, "etl");
+    }
+
+    private WorkflowStep step(String job) {
+        WorkflowStep step = new WorkflowStep();
+        step.setWorkflowId(workflowId);
+        step.setJobId(id(job));
+        return step;
+    }
+
+    private JobDependency edge(String upstream, String job) {
+        JobDependency dependency = new JobDependency();
+        dependency.setWorkflowId(workflowId);
+        dependency.setUpstreamJobId(id(upstream));
+        dependency.setJobId(id(job));
+        return dependency;
+    }
+}
@@ -0,0 +1,77 @@
+package in.myratech.scheduler.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    private static final int VIRTUAL_NODES = 64;
+    private static final int KEYS = 10_000;
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertThat(new ConsistentHashRing(List.of(), VIRTUAL_NODES).nodeFor("shard-0")).isNull();
+    }
+
+    @Test
+    void assignmentDoesNotDependOnNodeOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("c", "a", "b"), VIRTUAL_NODES);
+
+        assertThat(owners(reordered)).isEqualTo(owners(ring));
+    }
+
+    @Test
+    void addedNodeOnlyTakesKeysFromOthers() {
+        Map<String, String> before = owners(new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES));
+        Map<String, String> after = owners(new ConsistentHashRing(List.of("a", "b", "c", "d"), VIRTUAL_NODES));
+
+        int moved = 0;
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                assertThat(entry.getValue()).as("new owner of moved key %s", entry.getKey()).isEqualTo("d");
+                moved++;
+            }
+        }
+        // The new node should take about a quarter of the keys
+        assertThat(moved).isBetween(KEYS / 8, KEYS / 2);
+    }
+
+    @Test
+    void removedNodeOnlyGivesUpItsOwnKeys() {
+        Map<String, String> before = owners(new ConsistentHashRing(List.of("a", "b", "c", "d"), VIRTUAL_NODES));
+        Map<String, String> after = owners(new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES));
+
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            if (!entry.getValue().equals("d")) {
+                assertThat(after.get(entry.getKey())).as("owner of key %s", entry.getKey()).isEqualTo(entry.getValue());
+            } else {
+                assertThat(after.get(entry.getKey())).isNotEqualTo("d");
+            }
+        }
+    }
+
+    @Test
+    void keysAreSpreadOverAllNodes() {
+        Map<String, Integer> counts = new HashMap<>();
+        owners(new ConsistentHashRing(List.of("a", "b", "c", "d"), VIRTUAL_NODES))
+                .values().forEach(node -> counts.merge(node, 1, Integer::sum));
+
+        assertThat(counts).containsOnlyKeys("a", "b", "c", "d");
+        counts.values().forEach(count -> assertThat(count).isBetween(KEYS / 8, KEYS / 2));
+    }
+
+    private static Map<String, String> owners(ConsistentHashRing ring) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            String key = "shard-" + i;
+            owners.put(key, ring.nodeFor(key));
+        }
+        return owners;
+    }
+}
@@ -0,0 +1,87 @@
+package in.myratech.scheduler.util;
+
+import in.myratech.scheduler.util.error.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorsTest {
+
+    private static final UUID ID = UUID.fromString("3f2b8c1e-7a4d-4e9b-9c3a-1d2e3f4a5b6c");
+
+    @Test
+    void idRoundTrips() {
+        String cursor = Cursors.encodeId(ID);
+
+        assertThat(Cursors.decodeId(cursor)).isEqualTo(ID);
+    }
+
+    @Test
+    void cursorsAreUrlSafe() {
+        assertThat(Cursors.encodeId(ID)).matches("[A-Za-z0-9_-]+");
+        assertThat(Cursors.encodeHistory(Timestamp.from(Instant.now()), ID)).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void historyPositionRoundTripsWithNanosecondPrecision() {
+        Timestamp startTime = Timestamp.from(Instant.parse("2025-03-14T15:09:26.535897932Z"));
+
+        Cursors.HistoryPosition position = Cursors.decodeHistory(Cursors.encodeHistory(startTime, ID));
+
+        assertThat(position.startTime()).isEqualTo(startTime);
+        assertThat(position.startTime().getNanos()).isEqualTo(535_897_932);
+        assertThat(position.uuid()).isEqualTo(ID);
+    }
+
+    @Test
+    void historyPositionBeforeTheEpochRoundTrips() {
+        Timestamp startTime = Timestamp.from(Instant.parse("1969-12-31T23:59:59.250Z"));
+
+        Cursors.HistoryPosition position = Cursors.decodeHistory(Cursors.encodeHistory(startTime, ID));
+
+        assertThat(position.startTime()).isEqualTo(startTime);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not a cursor!", "%%%", "aGVsbG8"})
+    void malformedIdCursorIsRejected(String cursor) {
+        assertThatThrownBy(() -> Cursors.decodeId(cursor)).isInstanceOf(InvalidCursorException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "1700000000.0",
+            "1700000000:3f2b8c1e-7a4d-4e9b-9c3a-1d2e3f4a5b6c",
+            "abc.0:3f2b8c1e-7a4d-4e9b-9c3a-1d2e3f4a5b6c",
+            "1700000000.x:3f2b8c1e-7a4d-4e9b-9c3a-1d2e3f4a5b6c",
+            "1700000000.0:not-a-uuid",
+            "1700000000:3f2b8c1e-7a4d-4e9b-9c3a-1d2e3f4a5b6c.0",
+            "99999999999999999.0:3f2b8c1e-7a4d-4e9b-9c3a-1d2e3f4a5b6c",
+            "9223372036854775807.999999999:3f2b8c1e-7a4d-4e9b-9c3a-1d2e3f4a5b6c"
+    })
+    void malformedHistoryCursorIsRejected(String value) {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> Cursors.decodeHistory(cursor)).isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void historyCursorThatIsNotBase64IsRejected() {
+        assertThatThrownBy(() -> Cursors.decodeHistory("not base64!")).isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void idCursorIsNotAHistoryCursor() {
+        assertThatThrownBy(() -> Cursors.decodeHistory(Cursors.encodeId(ID))).isInstanceOf(InvalidCursorException.class);
+    }
+}